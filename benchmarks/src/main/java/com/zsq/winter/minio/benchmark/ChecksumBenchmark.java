@@ -0,0 +1,80 @@
+package com.zsq.winter.minio.benchmark;
+
+import com.zsq.winter.minio.checksum.ChecksumAlgorithm;
+import com.zsq.winter.minio.checksum.ChecksumInputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分块校验和：8MB 分块的 MD5 与各 CRC 的耗时，边读边计算（ChecksumInputStream）的额外开销，以及 1000 个分块合并为整对象校验和的耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class ChecksumBenchmark {
+
+    private static final int PART_SIZE = 8 * 1024 * 1024;
+
+    @Param({"CRC32", "CRC32C", "CRC64NVME"})
+    public ChecksumAlgorithm algorithm;
+
+    private byte[] part;
+
+    private byte[] buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.part = new byte[PART_SIZE];
+        new Random(42).nextBytes(this.part);
+        this.buffer = new byte[64 * 1024];
+    }
+
+    @Benchmark
+    public byte[] md5() throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("MD5").digest(this.part);
+    }
+
+    @Benchmark
+    public long crc() {
+        return this.algorithm.compute(this.part, 0, this.part.length);
+    }
+
+    @Benchmark
+    public long crcWhileStreaming() throws IOException {
+        try (ChecksumInputStream in = new ChecksumInputStream(new ByteArrayInputStream(this.part), this.algorithm)) {
+            while (in.read(this.buffer) > 0) {
+                // 只读取
+            }
+            return in.getValue();
+        }
+    }
+
+    @Benchmark
+    public long combine1000Parts() {
+        long checksum = 0;
+        for (int i = 0; i < 1000; i++) {
+            checksum = this.algorithm.combine(checksum, i, PART_SIZE);
+        }
+        return checksum;
+    }
+}
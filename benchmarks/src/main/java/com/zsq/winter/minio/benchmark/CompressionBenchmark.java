@@ -0,0 +1,155 @@
+package com.zsq.winter.minio.benchmark;
+
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.zsq.winter.minio.compression.CompressionCodec;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 透明压缩：各编码在不同级别下对 4MB JSON / 日志 / 随机数据的压缩、解压耗时，以及经模板压缩上传的耗时
+ * 压缩率在每组参数开始时打印，随机数据用来观察不可压缩内容的额外开销
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+
+    private static final int SIZE = 4 * 1024 * 1024;
+
+    @Param({"GZIP", "DEFLATE"})
+    public CompressionCodec codec;
+
+    @Param({"1", "6", "9"})
+    public int level;
+
+    @Param({"json", "log", "random"})
+    public String content;
+
+    private byte[] raw;
+
+    private byte[] compressed;
+
+    private AmazonS3Template template;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.raw = content(this.content);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(SIZE);
+        try (OutputStream out = this.codec.compress(buffer, this.level)) {
+            out.write(this.raw);
+        }
+        this.compressed = buffer.toByteArray();
+        System.out.printf("%n%s level %d %s: %d -> %d bytes, ratio %.2f%n", this.codec, this.level, this.content,
+                this.raw.length, this.compressed.length, (double) this.raw.length / this.compressed.length);
+
+        AmazonS3Properties.CompressionRule rule = new AmazonS3Properties.CompressionRule();
+        rule.setCodec(this.codec);
+        rule.setLevel(this.level);
+        AmazonS3Properties properties = new AmazonS3Properties();
+        properties.setBucket(TemplateState.BUCKET);
+        properties.getCompression().setEnabled(true);
+        properties.getCompression().setRules(Collections.singletonList(rule));
+        this.template = new AmazonS3Template(properties, new InMemoryAmazonS3(null));
+    }
+
+    @Benchmark
+    public long compress() throws IOException {
+        CountingOutputStream counter = new CountingOutputStream();
+        try (OutputStream out = this.codec.compress(counter, this.level)) {
+            out.write(this.raw);
+        }
+        return counter.count;
+    }
+
+    @Benchmark
+    public long decompress() throws IOException {
+        try (InputStream in = this.codec.decompress(new ByteArrayInputStream(this.compressed))) {
+            return StreamUtils.drain(in);
+        }
+    }
+
+    @Benchmark
+    public PutObjectResult putObjectCompressed() throws IOException {
+        return this.template.putObject(TemplateState.BUCKET, "bench/object." + this.content, "application/octet-stream",
+                new ByteArrayInputStream(this.raw), this.raw.length, null);
+    }
+
+    /**
+     * 生成测试数据：json 为字段名重复的 JSON 数组，log 为带时间戳和请求 ID 的访问日志，random 不可压缩
+     */
+    private static byte[] content(String kind) {
+        Random random = new Random(42);
+        if ("random".equals(kind)) {
+            byte[] bytes = new byte[SIZE];
+            random.nextBytes(bytes);
+            return bytes;
+        }
+        String[] levels = {"INFO", "INFO", "INFO", "WARN", "DEBUG", "ERROR"};
+        String[] paths = {"/api/orders", "/api/users/profile", "/api/files/upload", "/health", "/api/search"};
+        StringBuilder text = new StringBuilder(SIZE + 512);
+        text.append("json".equals(kind) ? "[" : "");
+        for (long i = 0; text.length() < SIZE; i++) {
+            long timestamp = 1700000000000L + i * 37 + random.nextInt(30);
+            String path = paths[random.nextInt(paths.length)];
+            int status = random.nextInt(20) == 0 ? 500 : 200;
+            if ("json".equals(kind)) {
+                text.append(i == 0 ? "" : ",").append("{\"id\":").append(i)
+                        .append(",\"timestamp\":").append(timestamp)
+                        .append(",\"userId\":\"u-").append(random.nextInt(100000))
+                        .append("\",\"path\":\"").append(path)
+                        .append("\",\"status\":").append(status)
+                        .append(",\"durationMillis\":").append(random.nextInt(2000))
+                        .append(",\"tags\":[\"web\",\"").append(levels[random.nextInt(levels.length)].toLowerCase()).append("\"]}");
+            } else {
+                text.append(timestamp).append(' ').append(levels[random.nextInt(levels.length)])
+                        .append(" [http-nio-8080-exec-").append(random.nextInt(200)).append("] c.z.w.web.AccessLog - ")
+                        .append(path).append(" status=").append(status)
+                        .append(" duration=").append(random.nextInt(2000)).append("ms requestId=")
+                        .append(Long.toHexString(random.nextLong())).append('\n');
+            }
+        }
+        text.append("json".equals(kind) ? "]" : "");
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            this.count += len;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.zsq.winter.minio.benchmark;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Date;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 进程内的 AmazonS3 桩：只实现基准测试用到的操作，上传只读完请求体、不保存内容
+ * 直接实现 AmazonS3 接口，跳过 SDK 的请求序列化、签名与 HTTP 传输，结果只反映模板本身的开销，不受网络与存储抖动影响；
+ * 包含 SDK 在内的端到端开销可用 load-generator 在 S3StubServer 上测量
+ * 预签名在本地计算签名，委托给真实客户端完成
+ */
+public class InMemoryAmazonS3 extends AbstractAmazonS3 {
+
+    private static final String ETAG = "d41d8cd98f00b204e9800998ecf8427e";
+
+    private final AmazonS3 presigner;
+
+    /**
+     * 对象键 -> 大小，按键排序以支持分页列举
+     */
+    private final NavigableMap<String, Long> objects = new ConcurrentSkipListMap<>();
+
+    private final byte[] sink = new byte[64 * 1024];
+
+    public InMemoryAmazonS3(AmazonS3 presigner) {
+        this.presigner = presigner;
+    }
+
+    /**
+     * 预置对象，用于列举测试
+     *
+     * @param key  对象键
+     * @param size 大小
+     */
+    public void addObject(String key, long size) {
+        this.objects.put(key, size);
+    }
+
+    @Override
+    public URL generatePresignedUrl(GeneratePresignedUrlRequest request) {
+        return this.presigner.generatePresignedUrl(request);
+    }
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest request) {
+        long size = this.drain(request.getInputStream());
+        this.objects.put(request.getKey(), size);
+        PutObjectResult result = new PutObjectResult();
+        result.setETag(ETAG);
+        return result;
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        this.drain(request.getInputStream());
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag(ETAG);
+        return result;
+    }
+
+    @Override
+    public ObjectListing listObjects(ListObjectsRequest request) {
+        ObjectListing listing = new ObjectListing();
+        listing.setBucketName(request.getBucketName());
+        listing.setPrefix(request.getPrefix());
+        listing.setMarker(request.getMarker());
+        int maxKeys = request.getMaxKeys() == null ? 1000 : request.getMaxKeys();
+        listing.setMaxKeys(maxKeys);
+        String prefix = request.getPrefix() == null ? "" : request.getPrefix();
+        NavigableMap<String, Long> tail = request.getMarker() == null
+                ? this.objects.tailMap(prefix, true) : this.objects.tailMap(request.getMarker(), false);
+        Date now = new Date();
+        for (Map.Entry<String, Long> entry : tail.entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            if (listing.getObjectSummaries().size() == maxKeys) {
+                listing.setTruncated(true);
+                break;
+            }
+            S3ObjectSummary summary = new S3ObjectSummary();
+            summary.setBucketName(request.getBucketName());
+            summary.setKey(entry.getKey());
+            summary.setSize(entry.getValue());
+            summary.setETag(ETAG);
+            summary.setLastModified(now);
+            listing.getObjectSummaries().add(summary);
+            listing.setNextMarker(entry.getKey());
+        }
+        return listing;
+    }
+
+    @Override
+    public ObjectListing listNextBatchOfObjects(ObjectListing previousObjectListing) {
+        return this.listObjects(new ListObjectsRequest()
+                .withBucketName(previousObjectListing.getBucketName())
+                .withPrefix(previousObjectListing.getPrefix())
+                .withMarker(previousObjectListing.getNextMarker())
+                .withMaxKeys(previousObjectListing.getMaxKeys()));
+    }
+
+    /**
+     * 读完请求体，模拟发送到网络
+     */
+    private long drain(InputStream in) {
+        long total = 0;
+        try (InputStream stream = in) {
+            int n;
+            while ((n = stream.read(this.sink)) != -1) {
+                total += n;
+            }
+        } catch (IOException e) {
+            throw new SdkClientException("读取请求体失败", e);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,47 @@
+package com.zsq.winter.minio.benchmark;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按前缀分页列举，桶中预置 10000 个对象
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListingBenchmark {
+
+    private static final int OBJECTS = 10000;
+
+    @Param({"100", "1000"})
+    public int pageSize;
+
+    @Setup(Level.Trial)
+    public void setUp(TemplateState state) {
+        for (int i = 0; i < OBJECTS; i++) {
+            state.amazonS3.addObject(String.format("logs/%05d.log", i), 1024);
+        }
+    }
+
+    @Benchmark
+    public List<S3ObjectSummary> firstPage(TemplateState state) {
+        return state.template.getAllObjectsByPrefix(TemplateState.BUCKET, "logs/", null, this.pageSize);
+    }
+}
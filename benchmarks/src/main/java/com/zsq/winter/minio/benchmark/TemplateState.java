@@ -0,0 +1,54 @@
+package com.zsq.winter.minio.benchmark;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.zsq.winter.minio.config.AmazonS3ClientFactory;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * 基准测试共用的模板，底层为 {@link InMemoryAmazonS3}
+ */
+@State(Scope.Benchmark)
+public class TemplateState {
+
+    public static final String BUCKET = "bench";
+
+    public AmazonS3Properties properties;
+
+    public InMemoryAmazonS3 amazonS3;
+
+    public AmazonS3Template template;
+
+    private AmazonS3 presigner;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.properties = new AmazonS3Properties();
+        this.properties.setEndpoint("http://127.0.0.1:9000");
+        this.properties.setAccessKey("benchmark");
+        this.properties.setSecretKey("benchmark-secret");
+        this.properties.setBucket(BUCKET);
+        this.properties.setPathStyleAccess(this.pathStyleAccess());
+        // 预签名只在本地计算，不会连接该地址
+        this.presigner = AmazonS3ClientFactory.create(this.properties.getEndpoint(), this.properties);
+        this.amazonS3 = new InMemoryAmazonS3(this.presigner);
+        this.template = new AmazonS3Template(this.properties, this.amazonS3);
+    }
+
+    /**
+     * 是否使用路径风格访问，影响网关地址与预签名地址的拼接方式
+     */
+    protected boolean pathStyleAccess() {
+        return true;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.presigner.shutdown();
+    }
+}
@@ -0,0 +1,60 @@
+package com.zsq.winter.minio.benchmark;
+
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上传路径：uploadPart(MultipartFile) 的 MD5 计算与缓冲拷贝，以及不同大小的 putObject
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class UploadBenchmark {
+
+    /**
+     * 4KB 小文件、5MB 最小分块、16MB 大文件
+     */
+    @Param({"4096", "5242880", "16777216"})
+    public int size;
+
+    private byte[] content;
+
+    private ByteArrayMultipartFile file;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.content = new byte[this.size];
+        new Random(42).nextBytes(this.content);
+        this.file = new ByteArrayMultipartFile("part", this.content);
+    }
+
+    @Benchmark
+    public UploadPartResult uploadPartMultipartFile(TemplateState state) throws Exception {
+        return state.template.uploadPart(TemplateState.BUCKET, "upload-id", "bench/part.bin", 1, this.file);
+    }
+
+    @Benchmark
+    public PutObjectResult putObject(TemplateState state) throws Exception {
+        return state.template.putObject(TemplateState.BUCKET, "bench/object.bin", "application/octet-stream",
+                new ByteArrayInputStream(this.content), this.content.length, null);
+    }
+}
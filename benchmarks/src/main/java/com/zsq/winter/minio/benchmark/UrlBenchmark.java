@@ -0,0 +1,55 @@
+package com.zsq.winter.minio.benchmark;
+
+import com.amazonaws.HttpMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预签名地址与网关地址的生成
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlBenchmark {
+
+    private static final String KEY = "2024-05-20/img/demo.png";
+
+    /**
+     * 分别测试路径风格与虚拟主机风格
+     */
+    public static class UrlState extends TemplateState {
+
+        @Param({"true", "false"})
+        public boolean pathStyleAccess;
+
+        @Override
+        protected boolean pathStyleAccess() {
+            return this.pathStyleAccess;
+        }
+    }
+
+    @Benchmark
+    public String presignGet(UrlState state) {
+        return state.template.getObjectUrl(TemplateState.BUCKET, KEY, 10, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    public String presignPut(UrlState state) {
+        return state.template.getObjectUrl(TemplateState.BUCKET, KEY, 10, TimeUnit.MINUTES, HttpMethod.PUT, "image/png");
+    }
+
+    @Benchmark
+    public String gatewayUrl(UrlState state) {
+        return state.template.getGatewayUrl(TemplateState.BUCKET, KEY);
+    }
+}
@@ -0,0 +1,94 @@
+package com.zsq.winter.minio.loadgen;
+
+import com.amazonaws.http.IdleConnectionReaper;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * 定时采样 aws-java-sdk v1 的 HTTP 连接池，与 AmazonS3ConnectionPoolMetrics 一样统计注册到 {@link IdleConnectionReaper} 的所有连接池之和
+ * 饱和：采样时已借出的连接数达到上限，此时新请求只能排队等待连接
+ */
+public class ConnectionPoolSampler {
+
+    private long samples;
+
+    private long saturatedSamples;
+
+    private long leasedSum;
+
+    private int maxLeased;
+
+    private int maxPending;
+
+    private long pendingSum;
+
+    private int maxConnections;
+
+    /**
+     * 采样一次，由单个采样线程调用
+     */
+    public synchronized void sample() {
+        int leased = 0;
+        int pending = 0;
+        int max = 0;
+        for (HttpClientConnectionManager manager : IdleConnectionReaper.getRegisteredConnectionManagers()) {
+            if (manager instanceof ConnPoolControl) {
+                PoolStats stats = ((ConnPoolControl<?>) manager).getTotalStats();
+                leased += stats.getLeased();
+                pending += stats.getPending();
+                max += stats.getMax();
+            }
+        }
+        if (max == 0) {
+            return;
+        }
+        this.samples++;
+        this.leasedSum += leased;
+        this.pendingSum += pending;
+        this.maxLeased = Math.max(this.maxLeased, leased);
+        this.maxPending = Math.max(this.maxPending, pending);
+        this.maxConnections = max;
+        if (leased >= max) {
+            this.saturatedSamples++;
+        }
+    }
+
+    public synchronized int getMaxConnections() {
+        return this.maxConnections;
+    }
+
+    public synchronized int getMaxLeased() {
+        return this.maxLeased;
+    }
+
+    public synchronized double getMeanLeased() {
+        return this.samples == 0 ? 0 : (double) this.leasedSum / this.samples;
+    }
+
+    public synchronized int getMaxPending() {
+        return this.maxPending;
+    }
+
+    public synchronized double getMeanPending() {
+        return this.samples == 0 ? 0 : (double) this.pendingSum / this.samples;
+    }
+
+    /**
+     * @return 平均利用率，0 到 1
+     */
+    public synchronized double getMeanUtilization() {
+        return this.maxConnections == 0 ? 0 : this.getMeanLeased() / this.maxConnections;
+    }
+
+    /**
+     * @return 处于饱和状态的采样占比，0 到 1
+     */
+    public synchronized double getSaturatedRatio() {
+        return this.samples == 0 ? 0 : (double) this.saturatedSamples / this.samples;
+    }
+
+    public synchronized long getSamples() {
+        return this.samples;
+    }
+}
@@ -0,0 +1,107 @@
+package com.zsq.winter.minio.loadgen;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁的对数线性直方图，以微秒记录延迟，相对误差不超过 1/64（约 1.6%），内存占用固定，适合长时间压测
+ * 小于 128µs 的值精确记录；更大的值按 2 的幂分段，每段再均分为 64 个桶
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 64;
+
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+
+    /**
+     * 覆盖到 2^47µs，远超任何请求超时
+     */
+    private static final int MAX_SHIFT = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray(LINEAR_LIMIT + MAX_SHIFT * SUB_BUCKETS);
+
+    private final AtomicLong total = new AtomicLong();
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一次延迟
+     *
+     * @param nanos 纳秒
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        this.counts.incrementAndGet(index(micros));
+        this.total.incrementAndGet();
+        this.sum.addAndGet(micros);
+        long current;
+        while (micros > (current = this.max.get())) {
+            if (this.max.compareAndSet(current, micros)) {
+                break;
+            }
+        }
+    }
+
+    public long getCount() {
+        return this.total.get();
+    }
+
+    /**
+     * @return 平均延迟，微秒
+     */
+    public double getMeanMicros() {
+        long count = this.total.get();
+        return count == 0 ? 0 : (double) this.sum.get() / count;
+    }
+
+    /**
+     * @return 最大延迟，微秒
+     */
+    public long getMaxMicros() {
+        return this.max.get();
+    }
+
+    /**
+     * 分位数
+     *
+     * @param quantile 0 到 1 之间，如 0.99
+     * @return 延迟，微秒；没有样本时为 0
+     */
+    public long getQuantileMicros(double quantile) {
+        long count = this.total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < this.counts.length(); i++) {
+            seen += this.counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), this.max.get());
+            }
+        }
+        return this.max.get();
+    }
+
+    static int index(long micros) {
+        if (micros < LINEAR_LIMIT) {
+            return (int) micros;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - 6;
+        if (shift > MAX_SHIFT) {
+            return LINEAR_LIMIT + MAX_SHIFT * SUB_BUCKETS - 1;
+        }
+        return shift * SUB_BUCKETS + (int) (micros >>> shift);
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (index - shift * SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
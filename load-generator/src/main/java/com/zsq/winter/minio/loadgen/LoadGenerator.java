@@ -0,0 +1,95 @@
+package com.zsq.winter.minio.loadgen;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.s3.AmazonS3;
+import com.zsq.winter.minio.config.AmazonS3ClientFactory;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import com.zsq.winter.minio.stub.S3StubServer;
+
+/**
+ * 压测入口，用于扩容前评估容量：按配置的操作比例与对象大小分布发出混合负载，输出分操作的吞吐、p50 / p99 / p999 延迟与连接池饱和度
+ * 例：
+ * java -jar target/load-generator.jar --duration=30s --stub-latency=2ms-10ms
+ * java -jar target/load-generator.jar --endpoint=http://minio:9000 --access-key=... --secret-key=... \
+ * --mix=get=60,put=30,delete=10 --size=lognormal:256KB,1.2 --concurrency=64 --output=before.json
+ */
+public final class LoadGenerator {
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.isHelp()) {
+            System.out.println(LoadOptions.USAGE);
+            return;
+        }
+
+        S3StubServer stub = null;
+        AmazonS3 amazonS3 = null;
+        try {
+            String endpoint = options.getEndpoint();
+            String accessKey = options.getAccessKey();
+            String secretKey = options.getSecretKey();
+            if (options.isStub()) {
+                stub = new S3StubServer().start()
+                        .setLatency(options.getStubMinLatency(), options.getStubMaxLatency())
+                        .setBandwidth(options.getStubBandwidth());
+                endpoint = stub.getEndpoint();
+                accessKey = stub.getAccessKey();
+                secretKey = stub.getSecretKey();
+                System.out.println("未指定 --endpoint，压测进程内的 S3 桩 " + endpoint);
+            }
+
+            AmazonS3Properties properties = new AmazonS3Properties();
+            properties.setEndpoint(endpoint);
+            properties.setAccessKey(accessKey);
+            properties.setSecretKey(secretKey);
+            properties.setRegion(options.getRegion());
+            properties.setBucket(options.getBucket());
+            properties.setPathStyleAccess(options.isPathStyle() || options.isStub());
+
+            ClientConfiguration config = AmazonS3ClientFactory.clientConfiguration(properties);
+            config.setMaxConnections(options.getMaxConnections());
+            amazonS3 = AmazonS3ClientFactory.create(endpoint, properties.getRegion(),
+                    new AWSStaticCredentialsProvider(new BasicAWSCredentials(accessKey, secretKey)), properties.getPathStyleAccess(), config);
+            AmazonS3Template template = new AmazonS3Template(properties, amazonS3);
+            if (!template.existBucket(options.getBucket())) {
+                template.createBucket(options.getBucket());
+            }
+
+            LoadRunner runner = new LoadRunner(template, options, System.out);
+            try {
+                runner.preload();
+                LoadReport report = runner.run();
+                report.print(System.out);
+                if (options.getOutput() != null) {
+                    report.writeJson(options.getOutput());
+                    System.out.println("结果已写入 " + options.getOutput());
+                }
+            } finally {
+                if (options.isCleanup()) {
+                    runner.cleanup();
+                }
+            }
+        } finally {
+            if (amazonS3 != null) {
+                amazonS3.shutdown();
+            }
+            if (stub != null) {
+                stub.close();
+            }
+        }
+    }
+}
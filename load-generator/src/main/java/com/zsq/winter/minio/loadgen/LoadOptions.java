@@ -0,0 +1,322 @@
+package com.zsq.winter.minio.loadgen;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 压测参数，命令行写法为 --名称=值
+ */
+public class LoadOptions {
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "用法: java -jar load-generator.jar [--名称=值 ...]",
+            "",
+            "目标（不指定 --endpoint 时压测进程内的 S3 桩）:",
+            "  --endpoint=http://127.0.0.1:9000   服务地址",
+            "  --access-key=... --secret-key=...   凭证",
+            "  --region=AP_EAST_1                  区域",
+            "  --bucket=loadgen                    存储桶，不存在时创建",
+            "  --path-style=true                   是否使用路径风格访问",
+            "  --prefix=loadgen/<时间>/            本次压测使用的对象前缀",
+            "  --stub-latency=5ms 或 5ms-20ms      S3 桩每个请求的延迟",
+            "  --stub-bandwidth=100MB              S3 桩每个请求每秒的带宽上限",
+            "",
+            "负载:",
+            "  --mix=get=70,put=20,head=5,list=5   操作比例，可选 put/get/head/list/delete",
+            "  --size=64KB                         对象大小: 64KB | uniform:4KB-1MB | lognormal:64KB,1.5 | 4KB:70,1MB:30",
+            "  --objects=1000                      预置对象数，GET / HEAD / LIST 只访问这些对象",
+            "  --concurrency=16                    并发请求数",
+            "  --duration=60s                      统计时长",
+            "  --warmup=5s                         预热时长，不计入统计",
+            "  --list-page-size=100                LIST 每次返回的对象数",
+            "  --max-connections=500               HTTP 连接池上限",
+            "  --virtual-threads=false             Java 21 及以上使用虚拟线程",
+            "",
+            "输出:",
+            "  --report-interval=5s                实时吞吐的打印间隔",
+            "  --output=result.json                结果另存为 JSON",
+            "  --cleanup=true                      结束后删除本次写入的对象");
+
+    private String endpoint;
+
+    private String accessKey;
+
+    private String secretKey;
+
+    private String region = "AP_EAST_1";
+
+    private String bucket = "loadgen";
+
+    private boolean pathStyle = true;
+
+    private String prefix = "loadgen/" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + "/";
+
+    private Duration stubMinLatency = Duration.ZERO;
+
+    private Duration stubMaxLatency = Duration.ZERO;
+
+    private long stubBandwidth;
+
+    private OperationMix mix = OperationMix.parse("get=70,put=20,head=5,list=5");
+
+    private SizeDistribution size = SizeDistribution.parse("64KB");
+
+    private int objects = 1000;
+
+    private int concurrency = 16;
+
+    private Duration duration = Duration.ofSeconds(60);
+
+    private Duration warmup = Duration.ofSeconds(5);
+
+    private int listPageSize = 100;
+
+    private int maxConnections = 500;
+
+    private boolean virtualThreads;
+
+    private Duration reportInterval = Duration.ofSeconds(5);
+
+    private String output;
+
+    private boolean cleanup = true;
+
+    private boolean help;
+
+    public static LoadOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("参数应以 -- 开头: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            values.put(eq < 0 ? arg.substring(2) : arg.substring(2, eq), eq < 0 ? "true" : arg.substring(eq + 1));
+        }
+        LoadOptions options = new LoadOptions();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            options.set(entry.getKey(), entry.getValue());
+        }
+        options.validate();
+        return options;
+    }
+
+    private void set(String name, String value) {
+        switch (name) {
+            case "help":
+                this.help = true;
+                break;
+            case "endpoint":
+                this.endpoint = value;
+                break;
+            case "access-key":
+                this.accessKey = value;
+                break;
+            case "secret-key":
+                this.secretKey = value;
+                break;
+            case "region":
+                this.region = value;
+                break;
+            case "bucket":
+                this.bucket = value;
+                break;
+            case "path-style":
+                this.pathStyle = Boolean.parseBoolean(value);
+                break;
+            case "prefix":
+                this.prefix = value.endsWith("/") ? value : value + "/";
+                break;
+            case "stub-latency":
+                String[] range = value.split("-", 2);
+                this.stubMinLatency = parseDuration(range[0]);
+                this.stubMaxLatency = range.length == 2 ? parseDuration(range[1]) : this.stubMinLatency;
+                break;
+            case "stub-bandwidth":
+                this.stubBandwidth = SizeDistribution.parseSize(value);
+                break;
+            case "mix":
+                this.mix = OperationMix.parse(value);
+                break;
+            case "size":
+                this.size = SizeDistribution.parse(value);
+                break;
+            case "objects":
+                this.objects = Integer.parseInt(value);
+                break;
+            case "concurrency":
+                this.concurrency = Integer.parseInt(value);
+                break;
+            case "duration":
+                this.duration = parseDuration(value);
+                break;
+            case "warmup":
+                this.warmup = parseDuration(value);
+                break;
+            case "list-page-size":
+                this.listPageSize = Integer.parseInt(value);
+                break;
+            case "max-connections":
+                this.maxConnections = Integer.parseInt(value);
+                break;
+            case "virtual-threads":
+                this.virtualThreads = Boolean.parseBoolean(value);
+                break;
+            case "report-interval":
+                this.reportInterval = parseDuration(value);
+                break;
+            case "output":
+                this.output = value;
+                break;
+            case "cleanup":
+                this.cleanup = Boolean.parseBoolean(value);
+                break;
+            default:
+                throw new IllegalArgumentException("未知的参数: --" + name);
+        }
+    }
+
+    private void validate() {
+        if (this.help) {
+            return;
+        }
+        if (this.endpoint != null && (this.accessKey == null || this.secretKey == null)) {
+            throw new IllegalArgumentException("指定 --endpoint 时需要同时指定 --access-key 与 --secret-key");
+        }
+        if (this.concurrency <= 0 || this.maxConnections <= 0 || this.listPageSize <= 0) {
+            throw new IllegalArgumentException("--concurrency、--max-connections、--list-page-size 必须大于 0");
+        }
+        if ((this.mix.hasReads() || this.mix.contains(Operation.LIST)) && this.objects <= 0) {
+            throw new IllegalArgumentException("包含 GET / HEAD / LIST 时 --objects 必须大于 0");
+        }
+        if (this.duration.isZero() || this.duration.isNegative() || this.reportInterval.isZero() || this.reportInterval.isNegative()) {
+            throw new IllegalArgumentException("--duration、--report-interval 必须大于 0");
+        }
+    }
+
+    /**
+     * 解析 500ms、30s、5m、1h 或 ISO-8601（PT1M）格式的时长
+     *
+     * @param text 文本
+     * @return {@link Duration}
+     */
+    static Duration parseDuration(String text) {
+        String value = text.trim().toLowerCase(Locale.ROOT);
+        if (value.startsWith("pt")) {
+            return Duration.parse(value.toUpperCase(Locale.ROOT));
+        }
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2).trim()));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1).trim());
+        switch (value.charAt(value.length() - 1)) {
+            case 's':
+                return Duration.ofSeconds(amount);
+            case 'm':
+                return Duration.ofMinutes(amount);
+            case 'h':
+                return Duration.ofHours(amount);
+            default:
+                throw new IllegalArgumentException("时长格式应为 500ms、30s、5m、1h: " + text);
+        }
+    }
+
+    public boolean isStub() {
+        return this.endpoint == null;
+    }
+
+    public String getEndpoint() {
+        return this.endpoint;
+    }
+
+    public String getAccessKey() {
+        return this.accessKey;
+    }
+
+    public String getSecretKey() {
+        return this.secretKey;
+    }
+
+    public String getRegion() {
+        return this.region;
+    }
+
+    public String getBucket() {
+        return this.bucket;
+    }
+
+    public boolean isPathStyle() {
+        return this.pathStyle;
+    }
+
+    public String getPrefix() {
+        return this.prefix;
+    }
+
+    public Duration getStubMinLatency() {
+        return this.stubMinLatency;
+    }
+
+    public Duration getStubMaxLatency() {
+        return this.stubMaxLatency;
+    }
+
+    public long getStubBandwidth() {
+        return this.stubBandwidth;
+    }
+
+    public OperationMix getMix() {
+        return this.mix;
+    }
+
+    public SizeDistribution getSize() {
+        return this.size;
+    }
+
+    public int getObjects() {
+        return this.objects;
+    }
+
+    public int getConcurrency() {
+        return this.concurrency;
+    }
+
+    public Duration getDuration() {
+        return this.duration;
+    }
+
+    public Duration getWarmup() {
+        return this.warmup;
+    }
+
+    public int getListPageSize() {
+        return this.listPageSize;
+    }
+
+    public int getMaxConnections() {
+        return this.maxConnections;
+    }
+
+    public boolean isVirtualThreads() {
+        return this.virtualThreads;
+    }
+
+    public Duration getReportInterval() {
+        return this.reportInterval;
+    }
+
+    public String getOutput() {
+        return this.output;
+    }
+
+    public boolean isCleanup() {
+        return this.cleanup;
+    }
+
+    public boolean isHelp() {
+        return this.help;
+    }
+}
@@ -0,0 +1,140 @@
+package com.zsq.winter.minio.loadgen;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 压测结果：分操作的吞吐、延迟分位数与错误，以及连接池饱和度
+ */
+public class LoadReport {
+
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private static final String[] QUANTILE_NAMES = {"p50Ms", "p99Ms", "p999Ms"};
+
+    private final LoadOptions options;
+
+    private final List<OperationStats> stats;
+
+    private final ConnectionPoolSampler pool;
+
+    private final double seconds;
+
+    public LoadReport(LoadOptions options, List<OperationStats> stats, ConnectionPoolSampler pool, long elapsedNanos) {
+        this.options = options;
+        this.stats = stats;
+        this.pool = pool;
+        this.seconds = Math.max(elapsedNanos, 1) / 1e9;
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%n统计 %.1fs，并发 %d，对象大小 %s%n", this.seconds, this.options.getConcurrency(), this.options.getSize());
+        out.printf("%-8s %10s %10s %10s %8s %10s %10s %10s %10s %10s%n",
+                "操作", "请求数", "ops/s", "MB/s", "错误", "平均(ms)", "p50(ms)", "p99(ms)", "p999(ms)", "最大(ms)");
+        long totalCount = 0;
+        long totalErrors = 0;
+        long totalBytes = 0;
+        for (OperationStats operationStats : this.stats) {
+            if (operationStats.getCount() == 0 && operationStats.getErrors() == 0) {
+                continue;
+            }
+            LatencyHistogram latency = operationStats.getLatency();
+            out.printf("%-8s %10d %10.1f %10.2f %8d %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    operationStats.getOperation(), operationStats.getCount(), operationStats.getCount() / this.seconds,
+                    megabytes(operationStats.getBytes()) / this.seconds, operationStats.getErrors(), latency.getMeanMicros() / 1000.0,
+                    millis(latency.getQuantileMicros(0.5)), millis(latency.getQuantileMicros(0.99)),
+                    millis(latency.getQuantileMicros(0.999)), millis(latency.getMaxMicros()));
+            for (Map.Entry<String, Long> error : operationStats.getErrorsByCode().entrySet()) {
+                out.printf("         错误 %s: %d%n", error.getKey(), error.getValue());
+            }
+            totalCount += operationStats.getCount();
+            totalErrors += operationStats.getErrors();
+            totalBytes += operationStats.getBytes();
+        }
+        out.printf("%-8s %10d %10.1f %10.2f %8d%n", "合计", totalCount, totalCount / this.seconds,
+                megabytes(totalBytes) / this.seconds, totalErrors);
+        if (this.pool.getSamples() > 0) {
+            out.printf("%n连接池: 上限 %d，峰值借出 %d，平均利用率 %.1f%%，饱和采样占比 %.1f%%，平均等待 %.1f，峰值等待 %d%n",
+                    this.pool.getMaxConnections(), this.pool.getMaxLeased(), this.pool.getMeanUtilization() * 100,
+                    this.pool.getSaturatedRatio() * 100, this.pool.getMeanPending(), this.pool.getMaxPending());
+        }
+    }
+
+    /**
+     * 以 JSON 写入文件，延迟单位为毫秒
+     *
+     * @param path 文件路径
+     * @throws IOException 写入失败
+     */
+    public void writeJson(String path) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"endpoint\": ").append(quote(this.options.isStub() ? "stub" : this.options.getEndpoint())).append(",\n");
+        json.append("  \"mix\": ").append(quote(this.options.getMix().toString())).append(",\n");
+        json.append("  \"size\": ").append(quote(this.options.getSize().toString())).append(",\n");
+        json.append("  \"concurrency\": ").append(this.options.getConcurrency()).append(",\n");
+        json.append("  \"seconds\": ").append(number(this.seconds)).append(",\n");
+        json.append("  \"operations\": {");
+        boolean first = true;
+        for (OperationStats operationStats : this.stats) {
+            if (operationStats.getCount() == 0 && operationStats.getErrors() == 0) {
+                continue;
+            }
+            LatencyHistogram latency = operationStats.getLatency();
+            json.append(first ? "\n" : ",\n");
+            first = false;
+            json.append("    ").append(quote(operationStats.getOperation().name())).append(": {");
+            json.append("\"count\": ").append(operationStats.getCount());
+            json.append(", \"opsPerSecond\": ").append(number(operationStats.getCount() / this.seconds));
+            json.append(", \"bytesPerSecond\": ").append(number(operationStats.getBytes() / this.seconds));
+            json.append(", \"errors\": ").append(operationStats.getErrors());
+            json.append(", \"meanMs\": ").append(number(latency.getMeanMicros() / 1000.0));
+            for (int i = 0; i < QUANTILES.length; i++) {
+                json.append(", ").append(quote(QUANTILE_NAMES[i])).append(": ").append(number(millis(latency.getQuantileMicros(QUANTILES[i]))));
+            }
+            json.append(", \"maxMs\": ").append(number(millis(latency.getMaxMicros())));
+            json.append(", \"errorsByCode\": {");
+            boolean firstError = true;
+            for (Map.Entry<String, Long> error : operationStats.getErrorsByCode().entrySet()) {
+                json.append(firstError ? "" : ", ").append(quote(error.getKey())).append(": ").append(error.getValue());
+                firstError = false;
+            }
+            json.append("}}");
+        }
+        json.append("\n  },\n");
+        json.append("  \"connectionPool\": {");
+        json.append("\"max\": ").append(this.pool.getMaxConnections());
+        json.append(", \"maxLeased\": ").append(this.pool.getMaxLeased());
+        json.append(", \"meanUtilization\": ").append(number(this.pool.getMeanUtilization()));
+        json.append(", \"saturatedRatio\": ").append(number(this.pool.getSaturatedRatio()));
+        json.append(", \"meanPending\": ").append(number(this.pool.getMeanPending()));
+        json.append(", \"maxPending\": ").append(this.pool.getMaxPending());
+        json.append("}\n}\n");
+        try (Writer writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static double megabytes(long bytes) {
+        return bytes / (1024.0 * 1024);
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
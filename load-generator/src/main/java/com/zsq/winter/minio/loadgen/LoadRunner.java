@@ -0,0 +1,273 @@
+package com.zsq.winter.minio.loadgen;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import com.zsq.winter.minio.support.TransferExecutors;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * 闭环压测：固定数量的工作线程不断发出请求，每个请求完成后立即发出下一个，统计阶段结束后停止
+ * 预热阶段的结果单独统计并丢弃，连接池只在统计阶段采样
+ */
+public class LoadRunner {
+
+    private static final int SAMPLE_INTERVAL_MILLIS = 100;
+
+    private final AmazonS3Template template;
+
+    private final LoadOptions options;
+
+    private final PrintStream out;
+
+    private final ConnectionPoolSampler poolSampler = new ConnectionPoolSampler();
+
+    private final AtomicReference<Map<Operation, OperationStats>> stats = new AtomicReference<>(newStats());
+
+    private volatile boolean measuring;
+
+    /**
+     * 上次打印进度时的统计，只在监控线程中访问
+     */
+    private Map<Operation, OperationStats> lastStats;
+
+    private long lastCount;
+
+    private long lastErrors;
+
+    public LoadRunner(AmazonS3Template template, LoadOptions options, PrintStream out) {
+        this.template = template;
+        this.options = options;
+        this.out = out;
+    }
+
+    /**
+     * 写入 GET / HEAD / LIST 访问的对象
+     *
+     * @throws Exception 任一对象写入失败
+     */
+    public void preload() throws Exception {
+        if (!this.options.getMix().hasReads() && !this.options.getMix().contains(Operation.LIST)) {
+            return;
+        }
+        int count = this.options.getObjects();
+        this.out.printf("预置 %d 个对象，大小 %s%n", count, this.options.getSize());
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService executor = this.newWorkerExecutor("loadgen-preload-");
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < this.options.getConcurrency(); i++) {
+                futures.add(executor.submit(() -> {
+                    int index;
+                    while ((index = next.getAndIncrement()) < count) {
+                        long size = this.options.getSize().next(ThreadLocalRandom.current());
+                        this.put(this.seedKey(index), size);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 执行预热与统计阶段
+     *
+     * @return 统计结果
+     * @throws Exception 工作线程异常退出
+     */
+    public LoadReport run() throws Exception {
+        long warmupNanos = this.options.getWarmup().toNanos();
+        long durationNanos = this.options.getDuration().toNanos();
+        long start = System.nanoTime();
+        long measureStart = start + warmupNanos;
+        long deadline = measureStart + durationNanos;
+        this.out.printf("开始压测: 并发 %d，操作比例 %s，预热 %ds，统计 %ds%n", this.options.getConcurrency(), this.options.getMix(),
+                this.options.getWarmup().getSeconds(), this.options.getDuration().getSeconds());
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(TransferExecutors.threadFactory("loadgen-monitor-", false));
+        ExecutorService executor = this.newWorkerExecutor("loadgen-worker-");
+        try {
+            scheduler.schedule(() -> {
+                this.stats.set(newStats());
+                this.measuring = true;
+            }, warmupNanos, TimeUnit.NANOSECONDS);
+            scheduler.scheduleAtFixedRate(() -> {
+                if (this.measuring) {
+                    this.poolSampler.sample();
+                }
+            }, warmupNanos, TimeUnit.MILLISECONDS.toNanos(SAMPLE_INTERVAL_MILLIS), TimeUnit.NANOSECONDS);
+            long interval = this.options.getReportInterval().toNanos();
+            scheduler.scheduleAtFixedRate(() -> this.progress(start, measureStart, interval), interval, interval, TimeUnit.NANOSECONDS);
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < this.options.getConcurrency(); i++) {
+                int worker = i;
+                futures.add(executor.submit(() -> {
+                    this.work(worker, deadline);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            scheduler.shutdownNow();
+            executor.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - measureStart;
+        return new LoadReport(this.options, new ArrayList<>(this.stats.get().values()), this.poolSampler, elapsed);
+    }
+
+    /**
+     * 删除本次压测写入的对象
+     */
+    public void cleanup() {
+        String bucket = this.options.getBucket();
+        long removed = 0;
+        List<String> keys;
+        do {
+            keys = this.template.getAllObjectsByPrefix(bucket, this.options.getPrefix(), null, 1000).stream()
+                    .map(S3ObjectSummary::getKey)
+                    .collect(Collectors.toList());
+            if (!keys.isEmpty()) {
+                this.template.removeObjects(bucket, keys);
+                removed += keys.size();
+            }
+        } while (!keys.isEmpty());
+        this.out.printf("已删除 %d 个对象%n", removed);
+    }
+
+    private void work(int worker, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        OperationMix mix = this.options.getMix();
+        boolean trackWrites = mix.contains(Operation.DELETE);
+        Deque<String> written = new ArrayDeque<>();
+        long sequence = 0;
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            Operation operation = mix.next(random);
+            // 还没有可删除的对象时先写入一个
+            if (operation == Operation.DELETE && written.isEmpty()) {
+                operation = Operation.PUT;
+            }
+            OperationStats target = this.stats.get().get(operation);
+            String key = null;
+            long begin = System.nanoTime();
+            try {
+                long transferred;
+                switch (operation) {
+                    case PUT:
+                        key = this.options.getPrefix() + "w/" + worker + "-" + sequence++;
+                        transferred = this.put(key, this.options.getSize().next(random));
+                        break;
+                    case GET:
+                        transferred = this.get(this.seedKey(random.nextInt(this.options.getObjects())));
+                        break;
+                    case HEAD:
+                        transferred = 0;
+                        this.template.getObjectMetadata(this.options.getBucket(), this.seedKey(random.nextInt(this.options.getObjects())));
+                        break;
+                    case LIST:
+                        transferred = 0;
+                        this.template.getAllObjectsByPrefix(this.options.getBucket(), this.options.getPrefix() + "seed/", null, this.options.getListPageSize());
+                        break;
+                    case DELETE:
+                        transferred = 0;
+                        this.template.removeObject(this.options.getBucket(), written.pollFirst());
+                        break;
+                    default:
+                        throw new IllegalStateException(operation.name());
+                }
+                target.success(System.nanoTime() - begin, transferred);
+                if (trackWrites && key != null) {
+                    written.addLast(key);
+                }
+            } catch (AmazonServiceException e) {
+                target.failure(e.getStatusCode() + " " + e.getErrorCode());
+            } catch (Exception e) {
+                target.failure(e.getClass().getSimpleName());
+            }
+        }
+    }
+
+    private long put(String key, long size) throws IOException {
+        int readLimit = (int) Math.min(Integer.MAX_VALUE, size + 1);
+        this.template.putObject(this.options.getBucket(), key, "application/octet-stream",
+                new PayloadInputStream(size, ThreadLocalRandom.current().nextInt()), size, readLimit);
+        return size;
+    }
+
+    private long get(String key) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        try (S3Object object = this.template.getObjectInfo(this.options.getBucket(), key);
+             InputStream in = object.getObjectContent()) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                total += n;
+            }
+        }
+        return total;
+    }
+
+    private String seedKey(int index) {
+        return this.options.getPrefix() + "seed/" + index;
+    }
+
+    private void progress(long start, long measureStart, long interval) {
+        Map<Operation, OperationStats> current = this.stats.get();
+        // 预热结束时统计被替换
+        if (current != this.lastStats) {
+            this.lastStats = current;
+            this.lastCount = 0;
+            this.lastErrors = 0;
+        }
+        long count = 0;
+        long errors = 0;
+        for (OperationStats operationStats : current.values()) {
+            count += operationStats.getCount();
+            errors += operationStats.getErrors();
+        }
+        long now = System.nanoTime();
+        this.out.printf("[%4ds]%s %,.0f ops/s，错误 %d%n", TimeUnit.NANOSECONDS.toSeconds(now - start),
+                now < measureStart ? " 预热" : "", (count - this.lastCount) / (interval / 1e9), errors - this.lastErrors);
+        this.lastCount = count;
+        this.lastErrors = errors;
+    }
+
+    private ExecutorService newWorkerExecutor(String prefix) {
+        return Executors.newFixedThreadPool(this.options.getConcurrency(),
+                TransferExecutors.threadFactory(prefix, this.options.isVirtualThreads()));
+    }
+
+    private static Map<Operation, OperationStats> newStats() {
+        Map<Operation, OperationStats> map = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            map.put(operation, new OperationStats(operation));
+        }
+        return map;
+    }
+}
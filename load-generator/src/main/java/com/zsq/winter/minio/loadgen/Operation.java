@@ -0,0 +1,31 @@
+package com.zsq.winter.minio.loadgen;
+
+import java.util.Locale;
+
+/**
+ * 压测支持的操作
+ * 读操作（GET / HEAD）只访问预置的对象，PUT 写入新对象，DELETE 只删除本次压测中 PUT 写入的对象，避免读操作出现 404
+ */
+public enum Operation {
+
+    PUT,
+
+    GET,
+
+    HEAD,
+
+    /**
+     * 按前缀列举一页对象
+     */
+    LIST,
+
+    DELETE;
+
+    public static Operation of(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("未知的操作: " + name);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.zsq.winter.minio.loadgen;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 按权重随机选择操作，如 get=70,put=20,head=5,list=5 表示 70% 的请求为 GET
+ */
+public class OperationMix {
+
+    private final Map<Operation, Integer> weights;
+
+    private final Operation[] operations;
+
+    private final int[] cumulative;
+
+    private final int total;
+
+    public OperationMix(Map<Operation, Integer> weights) {
+        this.weights = new EnumMap<>(Operation.class);
+        int sum = 0;
+        for (Map.Entry<Operation, Integer> entry : weights.entrySet()) {
+            if (entry.getValue() < 0) {
+                throw new IllegalArgumentException("权重不能为负数: " + entry.getKey());
+            }
+            if (entry.getValue() > 0) {
+                this.weights.put(entry.getKey(), entry.getValue());
+                sum += entry.getValue();
+            }
+        }
+        if (sum == 0) {
+            throw new IllegalArgumentException("至少需要一个权重大于 0 的操作");
+        }
+        if (this.weights.containsKey(Operation.DELETE) && !this.weights.containsKey(Operation.PUT)) {
+            throw new IllegalArgumentException("DELETE 只删除压测中写入的对象，需要同时配置 PUT");
+        }
+        this.operations = this.weights.keySet().toArray(new Operation[0]);
+        this.cumulative = new int[this.operations.length];
+        int running = 0;
+        for (int i = 0; i < this.operations.length; i++) {
+            running += this.weights.get(this.operations[i]);
+            this.cumulative[i] = running;
+        }
+        this.total = sum;
+    }
+
+    /**
+     * 解析 get=70,put=20 形式的配置
+     *
+     * @param text 配置
+     * @return {@link OperationMix}
+     */
+    public static OperationMix parse(String text) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String item : text.split(",")) {
+            if (item.trim().isEmpty()) {
+                continue;
+            }
+            String[] pair = item.split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("操作比例格式应为 操作=权重: " + item);
+            }
+            weights.merge(Operation.of(pair[0]), Integer.parseInt(pair[1].trim()), Integer::sum);
+        }
+        return new OperationMix(weights);
+    }
+
+    public Operation next(Random random) {
+        int value = random.nextInt(this.total);
+        for (int i = 0; i < this.cumulative.length; i++) {
+            if (value < this.cumulative[i]) {
+                return this.operations[i];
+            }
+        }
+        return this.operations[this.operations.length - 1];
+    }
+
+    public boolean contains(Operation operation) {
+        return this.weights.containsKey(operation);
+    }
+
+    /**
+     * 是否包含需要预置对象的读操作
+     *
+     * @return boolean
+     */
+    public boolean hasReads() {
+        return this.contains(Operation.GET) || this.contains(Operation.HEAD);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Operation operation : this.operations) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(operation.name().toLowerCase()).append('=').append(this.weights.get(operation));
+        }
+        return builder.toString();
+    }
+}
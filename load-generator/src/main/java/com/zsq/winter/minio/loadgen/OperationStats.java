@@ -0,0 +1,62 @@
+package com.zsq.winter.minio.loadgen;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个操作的统计：成功请求的延迟直方图、传输字节数与按错误码分类的失败数
+ */
+public class OperationStats {
+
+    private final Operation operation;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final LongAdder bytes = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final Map<String, LongAdder> errorsByCode = new ConcurrentHashMap<>();
+
+    public OperationStats(Operation operation) {
+        this.operation = operation;
+    }
+
+    public void success(long nanos, long transferred) {
+        this.latency.record(nanos);
+        this.bytes.add(transferred);
+    }
+
+    public void failure(String code) {
+        this.errors.increment();
+        this.errorsByCode.computeIfAbsent(code, k -> new LongAdder()).increment();
+    }
+
+    public Operation getOperation() {
+        return this.operation;
+    }
+
+    public LatencyHistogram getLatency() {
+        return this.latency;
+    }
+
+    public long getCount() {
+        return this.latency.getCount();
+    }
+
+    public long getBytes() {
+        return this.bytes.sum();
+    }
+
+    public long getErrors() {
+        return this.errors.sum();
+    }
+
+    public Map<String, Long> getErrorsByCode() {
+        Map<String, Long> result = new TreeMap<>();
+        this.errorsByCode.forEach((code, count) -> result.put(code, count.sum()));
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+package com.zsq.winter.minio.loadgen;
+
+import java.io.InputStream;
+import java.util.Random;
+
+/**
+ * 指定长度的上传内容，循环读取一块共享的随机数据，不为每个对象分配内存
+ * 支持 mark / reset，SDK 重试时直接回退，不需要再缓冲一份请求体
+ */
+public class PayloadInputStream extends InputStream {
+
+    private static final byte[] BLOCK = new byte[1024 * 1024];
+
+    static {
+        new Random(20240520L).nextBytes(BLOCK);
+    }
+
+    private final long length;
+
+    private final int offset;
+
+    private long position;
+
+    private long mark;
+
+    /**
+     * @param length 长度
+     * @param offset 在共享数据中的起始位置，不同对象取不同位置，避免内容完全相同
+     */
+    public PayloadInputStream(long length, int offset) {
+        this.length = length;
+        this.offset = Math.floorMod(offset, BLOCK.length);
+    }
+
+    @Override
+    public int read() {
+        if (this.position >= this.length) {
+            return -1;
+        }
+        return BLOCK[(int) ((this.offset + this.position++) % BLOCK.length)] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (this.position >= this.length) {
+            return -1;
+        }
+        int start = (int) ((this.offset + this.position) % BLOCK.length);
+        int n = (int) Math.min(Math.min(len, BLOCK.length - start), this.length - this.position);
+        System.arraycopy(BLOCK, start, b, off, n);
+        this.position += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = Math.max(0, Math.min(n, this.length - this.position));
+        this.position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, this.length - this.position);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        this.mark = this.position;
+    }
+
+    @Override
+    public synchronized void reset() {
+        this.position = this.mark;
+    }
+}
@@ -0,0 +1,181 @@
+package com.zsq.winter.minio.loadgen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * 对象大小分布，支持以下写法（单位 B / KB / MB / GB，按 1024 进位）：
+ * 1. 固定大小：64KB
+ * 2. 均匀分布：uniform:4KB-1MB
+ * 3. 对数正态分布：lognormal:64KB,1.5，参数为中位数与 sigma，贴近真实业务中小文件多、大文件少的分布
+ * 4. 按权重混合：4KB:70,1MB:25,64MB:5
+ */
+public abstract class SizeDistribution {
+
+    /**
+     * 单次 PUT 的上限
+     */
+    private static final long MAX_SIZE = 5L * 1024 * 1024 * 1024;
+
+    public abstract long next(Random random);
+
+    public static SizeDistribution parse(String text) {
+        String value = text.trim();
+        String lower = value.toLowerCase(Locale.ROOT);
+        if (lower.startsWith("uniform:")) {
+            String[] range = value.substring("uniform:".length()).split("-", 2);
+            if (range.length != 2) {
+                throw new IllegalArgumentException("均匀分布格式应为 uniform:最小-最大: " + text);
+            }
+            return uniform(parseSize(range[0]), parseSize(range[1]));
+        }
+        if (lower.startsWith("lognormal:")) {
+            String[] params = value.substring("lognormal:".length()).split(",", 2);
+            if (params.length != 2) {
+                throw new IllegalArgumentException("对数正态分布格式应为 lognormal:中位数,sigma: " + text);
+            }
+            return logNormal(parseSize(params[0]), Double.parseDouble(params[1].trim()));
+        }
+        if (value.contains(":")) {
+            List<Long> sizes = new ArrayList<>();
+            List<Integer> weights = new ArrayList<>();
+            for (String item : value.split(",")) {
+                String[] pair = item.split(":", 2);
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("混合分布格式应为 大小:权重,大小:权重: " + text);
+                }
+                sizes.add(parseSize(pair[0]));
+                weights.add(Integer.parseInt(pair[1].trim()));
+            }
+            return weighted(sizes, weights, value);
+        }
+        return fixed(parseSize(value));
+    }
+
+    /**
+     * 解析带单位的大小，如 512、4KB、1.5MB
+     *
+     * @param text 文本
+     * @return 字节数
+     */
+    public static long parseSize(String text) {
+        String value = text.trim().toUpperCase(Locale.ROOT);
+        long unit = 1;
+        if (value.endsWith("IB")) {
+            value = value.substring(0, value.length() - 2) + "B";
+        }
+        if (value.endsWith("KB") || value.endsWith("K")) {
+            unit = 1024L;
+        } else if (value.endsWith("MB") || value.endsWith("M")) {
+            unit = 1024L * 1024;
+        } else if (value.endsWith("GB") || value.endsWith("G")) {
+            unit = 1024L * 1024 * 1024;
+        }
+        String number = value.replaceAll("[KMGB]+$", "").trim();
+        long size = (long) (Double.parseDouble(number) * unit);
+        if (size <= 0 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("对象大小应在 1B 到 5GB 之间: " + text);
+        }
+        return size;
+    }
+
+    public static String formatSize(long bytes) {
+        if (bytes >= 1024L * 1024 * 1024) {
+            return String.format("%.1fGB", bytes / (1024.0 * 1024 * 1024));
+        }
+        if (bytes >= 1024L * 1024) {
+            return String.format("%.1fMB", bytes / (1024.0 * 1024));
+        }
+        if (bytes >= 1024L) {
+            return String.format("%.1fKB", bytes / 1024.0);
+        }
+        return bytes + "B";
+    }
+
+    public static SizeDistribution fixed(long size) {
+        return new SizeDistribution() {
+            @Override
+            public long next(Random random) {
+                return size;
+            }
+
+            @Override
+            public String toString() {
+                return formatSize(size);
+            }
+        };
+    }
+
+    public static SizeDistribution uniform(long min, long max) {
+        if (max < min) {
+            throw new IllegalArgumentException("最大值不能小于最小值");
+        }
+        return new SizeDistribution() {
+            @Override
+            public long next(Random random) {
+                return min + (long) (random.nextDouble() * (max - min + 1));
+            }
+
+            @Override
+            public String toString() {
+                return "uniform:" + formatSize(min) + "-" + formatSize(max);
+            }
+        };
+    }
+
+    public static SizeDistribution logNormal(long median, double sigma) {
+        if (sigma < 0) {
+            throw new IllegalArgumentException("sigma 不能为负数");
+        }
+        double mu = Math.log(median);
+        return new SizeDistribution() {
+            @Override
+            public long next(Random random) {
+                long size = (long) Math.exp(mu + sigma * random.nextGaussian());
+                return Math.max(1, Math.min(MAX_SIZE, size));
+            }
+
+            @Override
+            public String toString() {
+                return "lognormal:" + formatSize(median) + "," + sigma;
+            }
+        };
+    }
+
+    public static SizeDistribution weighted(List<Long> sizes, List<Integer> weights, String description) {
+        long[] values = new long[sizes.size()];
+        int[] cumulative = new int[weights.size()];
+        int total = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (weights.get(i) < 0) {
+                throw new IllegalArgumentException("权重不能为负数");
+            }
+            values[i] = sizes.get(i);
+            total += weights.get(i);
+            cumulative[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("至少需要一个权重大于 0 的大小");
+        }
+        int sum = total;
+        return new SizeDistribution() {
+            @Override
+            public long next(Random random) {
+                int value = random.nextInt(sum);
+                for (int i = 0; i < cumulative.length; i++) {
+                    if (value < cumulative[i]) {
+                        return values[i];
+                    }
+                }
+                return values[values.length - 1];
+            }
+
+            @Override
+            public String toString() {
+                return description;
+            }
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.zsq.winter.minio.archive;
+
+import lombok.Data;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 解压选项
+ */
+@Data
+public class ArchiveExtractOptions {
+
+    /**
+     * 并行读取的 ZIP 条目数，也是上传线程数
+     */
+    private int parallelism = 8;
+
+    /**
+     * 不超过该大小的条目读入内存后一次上传，更大的条目按该大小分块上传；
+     * 读取与上传中的缓冲区占用的内存不超过 2 * parallelism * partSize
+     */
+    private long partSize = 8L * 1024 * 1024;
+
+    /**
+     * 最多解压的条目数，超过时整个解压失败
+     */
+    private int maxEntries = 100000;
+
+    /**
+     * 解压后的总大小上限，超过时整个解压失败，防止压缩炸弹
+     */
+    private long maxTotalSize = 10L * 1024 * 1024 * 1024;
+
+    /**
+     * ZIP 条目名未标记为 UTF-8 时使用的字符集，Windows 中文系统打的包通常为 GBK
+     */
+    private Charset nameCharset = StandardCharsets.UTF_8;
+}
@@ -0,0 +1,38 @@
+package com.zsq.winter.minio.archive;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一次解压的结果
+ */
+@Data
+public class ArchiveExtractResult {
+
+    /**
+     * 上传成功的条目数
+     */
+    private int entries;
+
+    /**
+     * 上传成功的字节数（解压后）
+     */
+    private long bytes;
+
+    /**
+     * 跳过的条目名：不安全的路径（含 .. 路径段）、链接等非普通文件、加密或不支持的压缩方式
+     */
+    private List<String> skipped = new ArrayList<>();
+
+    /**
+     * 读取或上传失败的条目名，原因见日志
+     */
+    private List<String> failed = new ArrayList<>();
+
+    /**
+     * 耗时（毫秒）
+     */
+    private long durationMillis;
+}
@@ -0,0 +1,591 @@
+package com.zsq.winter.minio.archive;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartSummary;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.zsq.winter.minio.compression.ObjectCompression;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import com.zsq.winter.minio.support.LimitedInputStream;
+import com.zsq.winter.minio.support.MultipartUploads;
+import com.zsq.winter.minio.support.ObjectKeys;
+import com.zsq.winter.minio.support.TransferExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * 把归档中的文件解压为对象，不落盘
+ * 1. 存储中的 ZIP：先用范围读取解析末尾的中央目录，再由 parallelism 个线程按各条目的范围并行读取、解压并上传
+ * 2. TAR、TAR.GZ 与传入的流：没有可随机访问的目录，在调用线程中边读边解码，条目由 parallelism 个线程并行上传
+ * 3. 不超过 partSize 的条目读入内存后一次上传，更大的条目边解压边分块上传；读取与上传中的缓冲区不超过 2 * parallelism 个
+ * 4. 条目名去掉空和 . 路径段（如 tar 常见的 ./ 开头），含 .. 路径段的条目不解压；条目数或解压后的总大小超过上限时整个解压失败，ZIP 条目还会校验大小与 CRC
+ * 单个条目失败不影响其他条目；整个解压失败时已上传的对象不会删除
+ */
+@Slf4j
+public class ArchiveExtractor {
+
+    private static final int STORED = 0;
+
+    private static final int DEFLATED = 8;
+
+    /**
+     * 识别格式需要的头部长度，TAR 的 magic 位于 257
+     */
+    private static final int MAGIC_LENGTH = 262;
+
+    private final AmazonS3Template amazonS3Template;
+
+    private final AmazonS3 amazonS3;
+
+    private final boolean virtualThreads;
+
+    public ArchiveExtractor(AmazonS3Template amazonS3Template, AmazonS3 amazonS3, boolean virtualThreads) {
+        this.amazonS3Template = amazonS3Template;
+        this.amazonS3 = amazonS3;
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * 解压存储中的归档，按文件头识别 ZIP、TAR、TAR.GZ
+     *
+     * @param bucketName       归档所在的存储桶
+     * @param archiveKey       归档的对象键
+     * @param targetBucketName 目标存储桶
+     * @param targetPrefix     目标前缀，为空时解压到存储桶根目录
+     * @param options          解压选项
+     * @return {@link ArchiveExtractResult}
+     * @throws IOException 归档损坏或读取失败
+     */
+    public ArchiveExtractResult extract(String bucketName, String archiveKey, String targetBucketName, String targetPrefix,
+                                        ArchiveExtractOptions options) throws IOException {
+        String key = AmazonS3Template.getObjectName(archiveKey);
+        ObjectMetadata metadata = this.amazonS3.getObjectMetadata(bucketName, key);
+        // 压缩上传的归档无法按范围读取，按解压后的大小识别格式后顺序解码
+        boolean compressed = ObjectCompression.codecOf(metadata) != null;
+        long size = compressed ? Long.parseLong(metadata.getUserMetaDataOf(ObjectCompression.ORIGINAL_LENGTH_METADATA)) : metadata.getContentLength();
+        ArchiveFormat format = this.detect(bucketName, key, size);
+        if (format == ArchiveFormat.ZIP && !compressed) {
+            return new Job(targetBucketName, targetPrefix, options).extractZip(bucketName, key, size);
+        }
+        try (InputStream inputStream = this.amazonS3Template.getObjectInputStream(bucketName, key)) {
+            return new Job(targetBucketName, targetPrefix, options).extractStream(inputStream, format);
+        }
+    }
+
+    /**
+     * 解压流中的归档，边读边上传；不关闭传入的流
+     *
+     * @param inputStream      归档内容
+     * @param format           归档格式
+     * @param targetBucketName 目标存储桶
+     * @param targetPrefix     目标前缀，为空时解压到存储桶根目录
+     * @param options          解压选项
+     * @return {@link ArchiveExtractResult}
+     * @throws IOException 归档损坏或读取失败
+     */
+    public ArchiveExtractResult extract(InputStream inputStream, ArchiveFormat format, String targetBucketName, String targetPrefix,
+                                        ArchiveExtractOptions options) throws IOException {
+        return new Job(targetBucketName, targetPrefix, options).extractStream(inputStream, format);
+    }
+
+    private ArchiveFormat detect(String bucketName, String key, long size) throws IOException {
+        if (size <= 0) {
+            throw new IllegalArgumentException("归档为空：" + bucketName + "/" + key);
+        }
+        byte[] magic = this.readRange(bucketName, key, 0, (int) Math.min(size, MAGIC_LENGTH));
+        if (magic.length >= 4 && magic[0] == 'P' && magic[1] == 'K') {
+            return ArchiveFormat.ZIP;
+        }
+        if (magic.length >= 2 && (magic[0] & 0xFF) == 0x1f && (magic[1] & 0xFF) == 0x8b) {
+            return ArchiveFormat.TAR_GZ;
+        }
+        if (magic.length == MAGIC_LENGTH && new String(magic, 257, 5, StandardCharsets.US_ASCII).equals("ustar")) {
+            return ArchiveFormat.TAR;
+        }
+        throw new IllegalArgumentException("无法识别的归档格式：" + bucketName + "/" + key);
+    }
+
+    private byte[] readRange(String bucketName, String key, long start, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        if (length == 0) {
+            return bytes;
+        }
+        try (InputStream in = this.amazonS3Template.getObjectInputStream(bucketName, key, start, start + length - 1)) {
+            readFully(in, bytes, 0, length);
+        }
+        return bytes;
+    }
+
+    private static void readFully(InputStream in, byte[] buffer, int offset, int length) throws IOException {
+        while (length > 0) {
+            int n = in.read(buffer, offset, length);
+            if (n < 0) {
+                throw new EOFException("数据不完整");
+            }
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * 一次解压的状态
+     */
+    private final class Job {
+
+        private final String bucketName;
+
+        private final String keyPrefix;
+
+        private final ArchiveExtractOptions options;
+
+        private final long start = System.currentTimeMillis();
+
+        /**
+         * 缓冲区许可：读取线程在读入一块前获取，上传完成后释放
+         */
+        private final Semaphore buffers;
+
+        private final ExecutorService uploaders;
+
+        /**
+         * 所有上传及取消分片上传的任务，结束前全部等待完成
+         */
+        private final List<CompletableFuture<?>> pending = Collections.synchronizedList(new ArrayList<>());
+
+        private final AtomicInteger entries = new AtomicInteger();
+
+        private final AtomicLong bytes = new AtomicLong();
+
+        private final AtomicLong totalRead = new AtomicLong();
+
+        private final List<String> skipped = Collections.synchronizedList(new ArrayList<>());
+
+        private final List<String> failed = Collections.synchronizedList(new ArrayList<>());
+
+        private Job(String bucketName, String targetPrefix, ArchiveExtractOptions options) {
+            if (options.getParallelism() <= 0) {
+                throw new IllegalArgumentException("parallelism 必须大于 0");
+            }
+            if (options.getPartSize() < 5L * 1024 * 1024 || options.getPartSize() > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("partSize 必须在 5MB 到 2GB 之间");
+            }
+            this.bucketName = bucketName;
+            this.keyPrefix = ObjectKeys.directoryPrefix(targetPrefix);
+            this.options = options;
+            this.buffers = new Semaphore(2 * options.getParallelism());
+            this.uploaders = Executors.newFixedThreadPool(options.getParallelism(),
+                    TransferExecutors.threadFactory("winter-s3-extract-", ArchiveExtractor.this.virtualThreads));
+        }
+
+        private ArchiveExtractResult extractZip(String archiveBucketName, String archiveKey, long archiveSize) throws IOException {
+            ExecutorService readers = null;
+            try {
+                List<ZipCentralDirectory.Entry> files = ZipCentralDirectory.read(archiveSize,
+                                (start, length) -> ArchiveExtractor.this.readRange(archiveBucketName, archiveKey, start, length),
+                                this.options.getNameCharset())
+                        .stream().filter(entry -> !entry.isDirectory()).collect(Collectors.toList());
+                // 按中央目录声明的大小提前检查上限，读取时再核对实际大小
+                if (files.size() > this.options.getMaxEntries()) {
+                    throw new IllegalStateException("条目数 " + files.size() + " 超过上限 " + this.options.getMaxEntries());
+                }
+                long totalSize = files.stream().mapToLong(entry -> entry.size).sum();
+                if (totalSize > this.options.getMaxTotalSize()) {
+                    throw new IllegalStateException("解压后的总大小 " + totalSize + " 超过上限 " + this.options.getMaxTotalSize());
+                }
+                readers = Executors.newFixedThreadPool(this.options.getParallelism(),
+                        TransferExecutors.threadFactory("winter-s3-unzip-", ArchiveExtractor.this.virtualThreads));
+                List<CompletableFuture<Void>> reads = new ArrayList<>();
+                for (ZipCentralDirectory.Entry entry : files) {
+                    reads.add(CompletableFuture.runAsync(() -> this.readZipEntry(archiveBucketName, archiveKey, entry), readers));
+                }
+                CompletableFuture.allOf(reads.toArray(new CompletableFuture<?>[0])).join();
+                return this.finish();
+            } finally {
+                this.awaitPending();
+                if (readers != null) {
+                    readers.shutdownNow();
+                }
+                this.uploaders.shutdownNow();
+            }
+        }
+
+        /**
+         * 范围读取一个条目：本地头、条目名与扩展字段、压缩数据；本地头中的大小可能为 0（由数据描述符给出），以中央目录为准
+         */
+        private void readZipEntry(String archiveBucketName, String archiveKey, ZipCentralDirectory.Entry entry) {
+            String key = this.key(entry.name);
+            if (key == null || entry.isEncrypted() || (entry.method != STORED && entry.method != DEFLATED)) {
+                this.skipped.add(entry.name);
+                return;
+            }
+            Inflater inflater = new Inflater(true);
+            try (InputStream raw = ArchiveExtractor.this.amazonS3Template.getObjectInputStream(archiveBucketName, archiveKey,
+                    entry.localHeaderOffset, entry.end - 1)) {
+                byte[] header = new byte[ZipCentralDirectory.LOCAL_HEADER_LENGTH];
+                readFully(raw, header, 0, header.length);
+                if (le32(header, 0) != ZipCentralDirectory.LOCAL_HEADER_SIGNATURE) {
+                    throw new IOException("ZIP 文件已损坏：条目 " + entry.name + " 的本地头无效");
+                }
+                skipFully(raw, le16(header, 26) + le16(header, 28));
+                InputStream compressed = new LimitedInputStream(raw, entry.compressedSize);
+                InputStream data = entry.method == STORED ? compressed : new RawInflaterInputStream(compressed, inflater);
+                CheckedInputStream checked = new CheckedInputStream(data, new CRC32());
+                CompletableFuture<Long> upload = this.upload(key, checked, entry.size, () -> {
+                    if (checked.getChecksum().getValue() != entry.crc) {
+                        throw new IOException("ZIP 文件已损坏：条目 " + entry.name + " 的 CRC 不一致");
+                    }
+                });
+                this.track(entry.name, upload);
+                // 读完剩余的数据描述符，连接可以复用
+                drain(raw);
+            } catch (IOException | RuntimeException e) {
+                log.warn("解压条目 {} 失败", entry.name, e);
+                this.failed.add(entry.name);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.failed.add(entry.name);
+            } finally {
+                inflater.end();
+            }
+        }
+
+        private ArchiveExtractResult extractStream(InputStream inputStream, ArchiveFormat format) throws IOException {
+            try {
+                // 不关闭解码流，避免关闭传入的流
+                InputStream in = format == ArchiveFormat.TAR_GZ ? new GZIPInputStream(inputStream, 64 * 1024) : inputStream;
+                int count = 0;
+                if (format == ArchiveFormat.ZIP) {
+                    ZipInputStream zip = new ZipInputStream(in, this.options.getNameCharset());
+                    for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                        if (!entry.isDirectory()) {
+                            this.streamEntry(entry.getName(), zip, entry.getSize(), ++count);
+                        }
+                    }
+                } else {
+                    TarReader tar = new TarReader(in);
+                    for (TarReader.Entry entry = tar.next(); entry != null; entry = tar.next()) {
+                        if (entry.type == '5') {
+                            continue;
+                        }
+                        // '7' 为连续文件，按普通文件处理
+                        if (entry.type != '0' && entry.type != '7') {
+                            this.skipped.add(entry.name);
+                            continue;
+                        }
+                        this.streamEntry(entry.name, tar.data(), entry.size, ++count);
+                    }
+                }
+                return this.finish();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("解压被中断");
+            } finally {
+                this.awaitPending();
+                this.uploaders.shutdownNow();
+            }
+        }
+
+        private void streamEntry(String name, InputStream data, long declaredSize, int count) throws IOException, InterruptedException {
+            String key = this.key(name);
+            if (key == null) {
+                this.skipped.add(name);
+                return;
+            }
+            if (count > this.options.getMaxEntries()) {
+                throw new IllegalStateException("条目数超过上限 " + this.options.getMaxEntries());
+            }
+            this.track(name, this.upload(key, data, declaredSize, null));
+        }
+
+        /**
+         * 在当前线程读取条目，交给上传线程上传；返回时条目已读完
+         *
+         * @param declaredSize 条目声明的大小，未知时为 -1
+         * @param verifier     读完后的校验，为空时不校验
+         * @return 上传的字节数
+         */
+        private CompletableFuture<Long> upload(String key, InputStream data, long declaredSize, Verifier verifier)
+                throws IOException, InterruptedException {
+            PushbackInputStream in = new PushbackInputStream(data, 1);
+            String contentType = MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+            Chunk first = this.read(in, declaredSize, 0);
+            if (first.last) {
+                try {
+                    verify(verifier);
+                } catch (IOException e) {
+                    this.buffers.release();
+                    throw e;
+                }
+                return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        ObjectMetadata metadata = new ObjectMetadata();
+                        metadata.setContentLength(first.length);
+                        metadata.setContentType(contentType);
+                        ArchiveExtractor.this.amazonS3.putObject(new PutObjectRequest(this.bucketName, key, first.inputStream(), metadata));
+                        return (long) first.length;
+                    } finally {
+                        this.buffers.release();
+                    }
+                }, this.uploaders);
+            }
+            String uploadId;
+            try {
+                uploadId = ArchiveExtractor.this.amazonS3Template.initiateMultipartUpload(this.bucketName, key, contentType).getUploadId();
+            } catch (RuntimeException e) {
+                this.buffers.release();
+                throw e;
+            }
+            List<CompletableFuture<PartSummary>> parts = new ArrayList<>();
+            AtomicBoolean partFailed = new AtomicBoolean();
+            long size = 0;
+            try {
+                Chunk chunk = first;
+                for (int partNumber = 1; ; partNumber++) {
+                    size += chunk.length;
+                    parts.add(this.uploadPart(key, uploadId, partNumber, chunk, partFailed));
+                    // 分块失败后不再读取，条目剩余的数据由调用方跳过
+                    if (chunk.last || partFailed.get()) {
+                        break;
+                    }
+                    chunk = this.read(in, declaredSize, size);
+                }
+                if (!partFailed.get()) {
+                    verify(verifier);
+                }
+            } catch (IOException | RuntimeException | InterruptedException e) {
+                this.pending.add(MultipartUploads.abortAfter(ArchiveExtractor.this.amazonS3Template, this.bucketName, key, uploadId, parts, e, this.uploaders));
+                throw e;
+            }
+            long uploaded = size;
+            return MultipartUploads.completeOrAbort(ArchiveExtractor.this.amazonS3Template, this.bucketName, key, uploadId, parts, this.uploaders)
+                    .thenApply(result -> uploaded);
+        }
+
+        private CompletableFuture<PartSummary> uploadPart(String key, String uploadId, int partNumber, Chunk chunk, AtomicBoolean partFailed) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    UploadPartResult result = ArchiveExtractor.this.amazonS3Template.uploadPart(this.bucketName, uploadId, key, null,
+                            partNumber, chunk.length, chunk.inputStream());
+                    return MultipartUploads.partSummary(partNumber, result);
+                } catch (RuntimeException e) {
+                    partFailed.set(true);
+                    throw e;
+                } finally {
+                    this.buffers.release();
+                }
+            }, this.uploaders);
+        }
+
+        /**
+         * 获取一个缓冲区许可后读入最多 partSize 字节，并多读一个字节判断是否已到末尾；失败时归还许可
+         */
+        private Chunk read(PushbackInputStream in, long declaredSize, long offset) throws IOException, InterruptedException {
+            this.buffers.acquire();
+            try {
+                int max = (int) this.options.getPartSize();
+                byte[] buffer = new byte[(int) Math.min(max, declaredSize >= 0 ? Math.max(declaredSize - offset, 0) : 64 * 1024)];
+                int length = 0;
+                boolean last;
+                while (true) {
+                    if (length == buffer.length) {
+                        int next = in.read();
+                        if (next < 0) {
+                            last = true;
+                            break;
+                        }
+                        in.unread(next);
+                        if (length == max) {
+                            last = false;
+                            break;
+                        }
+                        buffer = Arrays.copyOf(buffer, (int) Math.min(max, Math.max(length * 2L, 64 * 1024)));
+                    }
+                    int n = in.read(buffer, length, buffer.length - length);
+                    if (n < 0) {
+                        last = true;
+                        break;
+                    }
+                    length += n;
+                }
+                if (declaredSize >= 0 && (offset + length > declaredSize || last && offset + length != declaredSize)) {
+                    throw new IOException("条目实际大小与声明的大小 " + declaredSize + " 不一致");
+                }
+                if (this.totalRead.addAndGet(length) > this.options.getMaxTotalSize()) {
+                    throw new IllegalStateException("解压后的总大小超过上限 " + this.options.getMaxTotalSize());
+                }
+                return new Chunk(buffer, length, last);
+            } catch (IOException | RuntimeException e) {
+                this.buffers.release();
+                throw e;
+            }
+        }
+
+        private void track(String name, CompletableFuture<Long> upload) {
+            this.pending.add(upload.handle((size, error) -> {
+                if (error != null) {
+                    log.warn("上传条目 {} 失败", name, error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                    this.failed.add(name);
+                } else {
+                    this.entries.incrementAndGet();
+                    this.bytes.addAndGet(size);
+                }
+                return null;
+            }));
+        }
+
+        private void awaitPending() {
+            List<CompletableFuture<?>> futures;
+            synchronized (this.pending) {
+                futures = new ArrayList<>(this.pending);
+            }
+            for (CompletableFuture<?> future : futures) {
+                try {
+                    future.join();
+                } catch (RuntimeException e) {
+                    // 上传结果已由 track 记录
+                }
+            }
+        }
+
+        private ArchiveExtractResult finish() {
+            this.awaitPending();
+            ArchiveExtractResult result = new ArchiveExtractResult();
+            result.setEntries(this.entries.get());
+            result.setBytes(this.bytes.get());
+            result.setSkipped(new ArrayList<>(this.skipped));
+            result.setFailed(new ArrayList<>(this.failed));
+            result.setDurationMillis(System.currentTimeMillis() - this.start);
+            return result;
+        }
+
+        /**
+         * 条目名对应的对象键，去掉空和 . 路径段；含 .. 路径段的条目名返回 null
+         */
+        private String key(String name) {
+            StringBuilder path = new StringBuilder();
+            for (String segment : name.replace('\\', '/').split("/")) {
+                if (segment.equals("..")) {
+                    return null;
+                }
+                if (!segment.isEmpty() && !segment.equals(".")) {
+                    path.append(path.length() == 0 ? "" : "/").append(segment);
+                }
+            }
+            return path.length() == 0 ? null : this.keyPrefix + path;
+        }
+    }
+
+    private static void verify(Verifier verifier) throws IOException {
+        if (verifier != null) {
+            verifier.verify();
+        }
+    }
+
+    private static void skipFully(InputStream in, long bytes) throws IOException {
+        while (bytes > 0) {
+            long skipped = in.skip(bytes);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException("数据不完整");
+                }
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[512];
+        while (in.read(buffer) >= 0) {
+            // 丢弃
+        }
+    }
+
+    private static int le16(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8;
+    }
+
+    private static int le32(byte[] bytes, int offset) {
+        return le16(bytes, offset) | le16(bytes, offset + 2) << 16;
+    }
+
+    private interface Verifier {
+
+        void verify() throws IOException;
+    }
+
+    private static final class Chunk {
+
+        private final byte[] buffer;
+
+        private final int length;
+
+        private final boolean last;
+
+        private Chunk(byte[] buffer, int length, boolean last) {
+            this.buffer = buffer;
+            this.length = length;
+            this.last = last;
+        }
+
+        private InputStream inputStream() {
+            return new ByteArrayInputStream(this.buffer, 0, this.length);
+        }
+    }
+
+    /**
+     * 解压不带 zlib 头的 deflate 数据；nowrap 模式的 Inflater 在输入末尾需要多一个填充字节
+     */
+    private static final class RawInflaterInputStream extends InflaterInputStream {
+
+        private boolean padded;
+
+        private RawInflaterInputStream(InputStream in, Inflater inflater) {
+            super(in, inflater, 64 * 1024);
+        }
+
+        @Override
+        protected void fill() throws IOException {
+            this.len = this.in.read(this.buf, 0, this.buf.length);
+            if (this.len < 0) {
+                if (this.padded) {
+                    throw new EOFException("ZIP 条目数据不完整");
+                }
+                this.padded = true;
+                this.buf[0] = 0;
+                this.len = 1;
+            }
+            this.inf.setInput(this.buf, 0, this.len);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.zsq.winter.minio.archive;
+
+/**
+ * 归档格式
+ */
+public enum ArchiveFormat {
+    /**
+     * ZIP
+     */
+    ZIP,
+    /**
+     * TAR
+     */
+    TAR,
+    /**
+     * gzip 压缩的 TAR（.tar.gz / .tgz）
+     */
+    TAR_GZ
+}
@@ -0,0 +1,249 @@
+package com.zsq.winter.minio.archive;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 顺序读取 TAR 流，支持 POSIX ustar 与 GNU 格式，以及 GNU 长文件名（L 类型）和 pax 扩展头中的 path、size
+ */
+final class TarReader {
+
+    private static final int BLOCK = 512;
+
+    /**
+     * 长文件名、pax 扩展头的大小上限
+     */
+    private static final int MAX_HEADER_DATA = 1024 * 1024;
+
+    private final InputStream in;
+
+    private final byte[] header = new byte[BLOCK];
+
+    /**
+     * 当前条目未读的数据
+     */
+    private long remaining;
+
+    /**
+     * 当前条目数据之后补齐到 512 字节的填充
+     */
+    private long padding;
+
+    TarReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * 下一个条目，跳过当前条目未读的数据
+     *
+     * @return 归档结束时为 null
+     */
+    Entry next() throws IOException {
+        this.skip(this.remaining + this.padding);
+        this.remaining = 0;
+        this.padding = 0;
+        String longName = null;
+        long paxSize = -1;
+        while (true) {
+            if (!this.readHeader()) {
+                return null;
+            }
+            long size = number(this.header, 124, 12);
+            char type = (char) this.header[156];
+            this.remaining = size;
+            this.padding = (BLOCK - size % BLOCK) % BLOCK;
+            if (type == 'L') {
+                longName = trimNul(this.readData());
+                continue;
+            }
+            if (type == 'x') {
+                String pax = this.readData();
+                String path = paxValue(pax, "path");
+                String paxSizeValue = paxValue(pax, "size");
+                longName = path != null ? path : longName;
+                paxSize = paxSizeValue != null ? Long.parseLong(paxSizeValue) : paxSize;
+                continue;
+            }
+            if (type == 'g') {
+                this.readData();
+                continue;
+            }
+            if (paxSize >= 0) {
+                size = paxSize;
+                this.remaining = size;
+                this.padding = (BLOCK - size % BLOCK) % BLOCK;
+            }
+            String name = longName != null ? longName : this.name();
+            return new Entry(name, size, type == 0 ? '0' : type);
+        }
+    }
+
+    /**
+     * 当前条目的数据，读到条目末尾时返回 -1；关闭不影响底层流
+     */
+    InputStream data() {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return this.read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (TarReader.this.remaining <= 0) {
+                    return -1;
+                }
+                int n = TarReader.this.in.read(b, off, (int) Math.min(len, TarReader.this.remaining));
+                if (n < 0) {
+                    throw new EOFException("TAR 条目数据不完整");
+                }
+                TarReader.this.remaining -= n;
+                return n;
+            }
+        };
+    }
+
+    /**
+     * 读取下一个头块，遇到全零块或流结束时为 false
+     */
+    private boolean readHeader() throws IOException {
+        int read = 0;
+        while (read < BLOCK) {
+            int n = this.in.read(this.header, read, BLOCK - read);
+            if (n < 0) {
+                if (read == 0) {
+                    return false;
+                }
+                throw new EOFException("TAR 头不完整");
+            }
+            read += n;
+        }
+        long sum = 0;
+        long signedSum = 0;
+        boolean zero = true;
+        for (int i = 0; i < BLOCK; i++) {
+            zero &= this.header[i] == 0;
+            // 校验和字段按空格计算；早期实现按有符号字节求和
+            sum += i >= 148 && i < 156 ? ' ' : this.header[i] & 0xFF;
+            signedSum += i >= 148 && i < 156 ? ' ' : this.header[i];
+        }
+        if (zero) {
+            return false;
+        }
+        long expected = number(this.header, 148, 8);
+        if (sum != expected && signedSum != expected) {
+            throw new IOException("不是 TAR 文件或文件已损坏：头校验和不一致");
+        }
+        return true;
+    }
+
+    private String name() {
+        String name = trimNul(new String(this.header, 0, 100, StandardCharsets.UTF_8));
+        // POSIX ustar 的 prefix 字段；GNU 格式（magic 为 "ustar "）在该位置保存其他信息
+        boolean posix = this.header[257] == 'u' && this.header[262] == 0;
+        if (posix) {
+            String prefix = trimNul(new String(this.header, 345, 155, StandardCharsets.UTF_8));
+            if (!prefix.isEmpty()) {
+                return prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    private String readData() throws IOException {
+        if (this.remaining > MAX_HEADER_DATA) {
+            throw new IOException("TAR 扩展头过大：" + this.remaining);
+        }
+        byte[] data = new byte[(int) this.remaining];
+        int read = 0;
+        while (read < data.length) {
+            int n = this.in.read(data, read, data.length - read);
+            if (n < 0) {
+                throw new EOFException("TAR 扩展头不完整");
+            }
+            read += n;
+        }
+        this.skip(this.padding);
+        this.remaining = 0;
+        this.padding = 0;
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    private void skip(long bytes) throws IOException {
+        byte[] buffer = null;
+        while (bytes > 0) {
+            long skipped = this.in.skip(bytes);
+            if (skipped <= 0) {
+                buffer = buffer == null ? new byte[8192] : buffer;
+                int n = this.in.read(buffer, 0, (int) Math.min(buffer.length, bytes));
+                if (n < 0) {
+                    throw new EOFException("TAR 条目数据不完整");
+                }
+                skipped = n;
+            }
+            bytes -= skipped;
+        }
+    }
+
+    /**
+     * 数字字段：八进制文本，或最高位为 1 时的 base-256 二进制（GNU 大文件）
+     */
+    private static long number(byte[] header, int offset, int length) {
+        long value = 0;
+        if ((header[offset] & 0x80) != 0) {
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = value << 8 | (header[i] & 0xFF);
+            }
+            return value;
+        }
+        int i = offset;
+        while (i < offset + length && (header[i] == ' ' || header[i] == 0)) {
+            i++;
+        }
+        while (i < offset + length && header[i] >= '0' && header[i] <= '7') {
+            value = value << 3 | (header[i] - '0');
+            i++;
+        }
+        return value;
+    }
+
+    /**
+     * pax 记录格式为 "长度 键=值\n"
+     */
+    private static String paxValue(String pax, String key) {
+        for (String record : pax.split("\n")) {
+            int space = record.indexOf(' ');
+            int equals = record.indexOf('=');
+            if (space > 0 && equals > space && record.substring(space + 1, equals).equals(key)) {
+                return record.substring(equals + 1);
+            }
+        }
+        return null;
+    }
+
+    private static String trimNul(String value) {
+        int nul = value.indexOf('\0');
+        return nul < 0 ? value : value.substring(0, nul);
+    }
+
+    static final class Entry {
+
+        final String name;
+
+        final long size;
+
+        /**
+         * 条目类型：'0' 普通文件，'5' 目录，其他为链接、设备等
+         */
+        final char type;
+
+        private Entry(String name, long size, char type) {
+            this.name = name;
+            this.size = size;
+            this.type = type;
+        }
+    }
+}
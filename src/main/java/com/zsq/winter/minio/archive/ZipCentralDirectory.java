@@ -0,0 +1,196 @@
+package com.zsq.winter.minio.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 通过范围读取解析 ZIP 的中央目录（含 ZIP64），不需要下载整个归档
+ * 先读末尾最多 64KB 找到目录结束记录，再读一次中央目录
+ */
+final class ZipCentralDirectory {
+
+    static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    static final int LOCAL_HEADER_LENGTH = 30;
+
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+    private static final int END_LENGTH = 22;
+
+    private static final int ZIP64_LOCATOR_LENGTH = 20;
+
+    private static final int ZIP64_END_LENGTH = 56;
+
+    private static final long MAGIC32 = 0xFFFFFFFFL;
+
+    private ZipCentralDirectory() {
+    }
+
+    /**
+     * 解析中央目录
+     *
+     * @param archiveSize 归档大小
+     * @param reader      范围读取
+     * @param nameCharset 条目名未标记为 UTF-8 时使用的字符集
+     * @return 按本地头位置排序的条目
+     */
+    static List<Entry> read(long archiveSize, RangeReader reader, Charset nameCharset) throws IOException {
+        int tailLength = (int) Math.min(archiveSize, END_LENGTH + 0xFFFF + ZIP64_LOCATOR_LENGTH);
+        ByteBuffer tail = le(reader.read(archiveSize - tailLength, tailLength));
+        int end = -1;
+        for (int i = tailLength - END_LENGTH; i >= 0; i--) {
+            if (tail.getInt(i) == END_SIGNATURE && i + END_LENGTH + (tail.getShort(i + 20) & 0xFFFF) <= tailLength) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) {
+            throw new IOException("不是 ZIP 文件或文件已损坏：找不到中央目录");
+        }
+        long count = tail.getShort(end + 10) & 0xFFFF;
+        long directorySize = tail.getInt(end + 12) & MAGIC32;
+        long directoryOffset = tail.getInt(end + 16) & MAGIC32;
+        int locator = end - ZIP64_LOCATOR_LENGTH;
+        if (locator >= 0 && tail.getInt(locator) == ZIP64_LOCATOR_SIGNATURE) {
+            ByteBuffer zip64 = le(reader.read(tail.getLong(locator + 8), ZIP64_END_LENGTH));
+            if (zip64.getInt(0) != ZIP64_END_SIGNATURE) {
+                throw new IOException("ZIP 文件已损坏：ZIP64 目录结束记录无效");
+            }
+            count = zip64.getLong(32);
+            directorySize = zip64.getLong(40);
+            directoryOffset = zip64.getLong(48);
+        }
+        if (directoryOffset < 0 || directorySize < 0 || directoryOffset + directorySize > archiveSize || directorySize > Integer.MAX_VALUE) {
+            throw new IOException("ZIP 文件已损坏：中央目录位置无效");
+        }
+        ByteBuffer directory = le(reader.read(directoryOffset, (int) directorySize));
+        List<Entry> entries = new ArrayList<>();
+        int position = 0;
+        while (position + 46 <= directorySize && directory.getInt(position) == CENTRAL_HEADER_SIGNATURE) {
+            int flags = directory.getShort(position + 8) & 0xFFFF;
+            int method = directory.getShort(position + 10) & 0xFFFF;
+            long crc = directory.getInt(position + 16) & MAGIC32;
+            long compressedSize = directory.getInt(position + 20) & MAGIC32;
+            long size = directory.getInt(position + 24) & MAGIC32;
+            int nameLength = directory.getShort(position + 28) & 0xFFFF;
+            int extraLength = directory.getShort(position + 30) & 0xFFFF;
+            int commentLength = directory.getShort(position + 32) & 0xFFFF;
+            long localHeaderOffset = directory.getInt(position + 42) & MAGIC32;
+            int nameStart = position + 46;
+            if (nameStart + nameLength + extraLength + commentLength > directorySize) {
+                throw new IOException("ZIP 文件已损坏：中央目录条目越界");
+            }
+            byte[] nameBytes = new byte[nameLength];
+            directory.position(nameStart);
+            directory.get(nameBytes);
+            // 第 11 位表示条目名为 UTF-8
+            String name = new String(nameBytes, (flags & 0x800) != 0 ? StandardCharsets.UTF_8 : nameCharset);
+            // ZIP64 扩展字段依次保存值为 0xFFFFFFFF 的原始大小、压缩后大小、本地头位置
+            for (int extra = nameStart + nameLength; extra + 4 <= nameStart + nameLength + extraLength; ) {
+                int id = directory.getShort(extra) & 0xFFFF;
+                int length = directory.getShort(extra + 2) & 0xFFFF;
+                if (id == 0x0001) {
+                    int field = extra + 4;
+                    if (size == MAGIC32 && field + 8 <= extra + 4 + length) {
+                        size = directory.getLong(field);
+                        field += 8;
+                    }
+                    if (compressedSize == MAGIC32 && field + 8 <= extra + 4 + length) {
+                        compressedSize = directory.getLong(field);
+                        field += 8;
+                    }
+                    if (localHeaderOffset == MAGIC32 && field + 8 <= extra + 4 + length) {
+                        localHeaderOffset = directory.getLong(field);
+                    }
+                }
+                extra += 4 + length;
+            }
+            entries.add(new Entry(name, flags, method, crc, compressedSize, size, localHeaderOffset));
+            position = nameStart + nameLength + extraLength + commentLength;
+        }
+        // 不支持 ZIP64 的工具在条目超过 65535 个时只记录 0xFFFF
+        if (entries.size() != count && count != 0xFFFF) {
+            throw new IOException("ZIP 文件已损坏：中央目录条目数与记录不一致");
+        }
+        // 每个条目的数据到下一个条目的本地头（或中央目录）为止，按此确定范围读取的结束位置
+        entries.sort(Comparator.comparingLong(entry -> entry.localHeaderOffset));
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            entry.end = i + 1 < entries.size() ? entries.get(i + 1).localHeaderOffset : directoryOffset;
+            if (entry.localHeaderOffset + LOCAL_HEADER_LENGTH + entry.compressedSize > entry.end) {
+                throw new IOException("ZIP 文件已损坏：条目 " + entry.name + " 越界");
+            }
+        }
+        return entries;
+    }
+
+    private static ByteBuffer le(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * 范围读取
+     */
+    interface RangeReader {
+
+        /**
+         * 读取 [start, start + length) 的内容
+         */
+        byte[] read(long start, int length) throws IOException;
+    }
+
+    static final class Entry {
+
+        final String name;
+
+        final int flags;
+
+        /**
+         * 压缩方式：0 不压缩，8 deflate
+         */
+        final int method;
+
+        final long crc;
+
+        final long compressedSize;
+
+        final long size;
+
+        final long localHeaderOffset;
+
+        /**
+         * 条目数据之后的位置（不含），范围读取到此为止
+         */
+        long end;
+
+        private Entry(String name, int flags, int method, long crc, long compressedSize, long size, long localHeaderOffset) {
+            this.name = name;
+            this.flags = flags;
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        boolean isDirectory() {
+            return this.name.endsWith("/");
+        }
+
+        boolean isEncrypted() {
+            return (this.flags & 1) != 0;
+        }
+    }
+}
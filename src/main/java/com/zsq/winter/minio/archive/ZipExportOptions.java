@@ -0,0 +1,33 @@
+package com.zsq.winter.minio.archive;
+
+import lombok.Data;
+
+import java.util.zip.Deflater;
+
+/**
+ * ZIP 导出选项
+ */
+@Data
+public class ZipExportOptions {
+
+    /**
+     * 写入当前条目时预取的后续对象数
+     */
+    private int prefetch = 8;
+
+    /**
+     * 预取时整个读入内存的对象大小上限，更大的对象轮到时再直接从存储流式写入；
+     * 预取占用的内存不超过 (prefetch + 1) * maxBufferedObjectSize
+     */
+    private long maxBufferedObjectSize = 8L * 1024 * 1024;
+
+    /**
+     * 压缩级别（0~9），-1 为默认级别；内容本身已压缩（图片、视频、压缩包）时设为 0 可以节省 CPU
+     */
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * 对象不存在时跳过并记录在结果中，为 false 时抛出异常
+     */
+    private boolean skipMissing = true;
+}
@@ -0,0 +1,33 @@
+package com.zsq.winter.minio.archive;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一次 ZIP 导出的结果
+ */
+@Data
+public class ZipExportResult {
+
+    /**
+     * 写入的条目数
+     */
+    private int entries;
+
+    /**
+     * 写入的对象字节数（压缩前）
+     */
+    private long bytes;
+
+    /**
+     * 不存在而跳过的对象键
+     */
+    private List<String> missing = new ArrayList<>();
+
+    /**
+     * 耗时（毫秒）
+     */
+    private long durationMillis;
+}
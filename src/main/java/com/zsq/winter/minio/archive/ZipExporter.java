@@ -0,0 +1,298 @@
+package com.zsq.winter.minio.archive;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import com.zsq.winter.minio.support.ObjectKeys;
+import com.zsq.winter.minio.support.TransferExecutors;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 把多个对象打包成 ZIP 流式写出，不落盘
+ * 1. 写入当前条目的同时，由 prefetch 个线程并行下载后续的对象，总耗时接近最慢的几次 GET 而不是所有 GET 之和
+ * 2. 不超过 maxBufferedObjectSize 的对象预取到内存；更大的对象（按前缀导出时从列举结果得知，否则从响应头得知）不占用内存，
+ * 轮到时再从存储流式写入
+ * 3. 写出失败（如客户端断开）时停止预取并抛出异常；只调用 finish，不关闭传入的输出流
+ * 按前缀导出时条目名为相对前缀的路径，并跳过以 / 结尾的目录占位对象；按对象键导出时条目名为对象键
+ */
+public class ZipExporter {
+
+    private final AmazonS3 amazonS3;
+
+    private final boolean virtualThreads;
+
+    public ZipExporter(AmazonS3 amazonS3, boolean virtualThreads) {
+        this.amazonS3 = amazonS3;
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * 按对象键导出
+     *
+     * @param bucketName   存储桶名称
+     * @param objectNames  对象键，按顺序写入
+     * @param outputStream 输出流
+     * @param options      导出选项
+     * @return {@link ZipExportResult}
+     * @throws IOException 写出失败
+     */
+    public ZipExportResult export(String bucketName, List<String> objectNames, OutputStream outputStream, ZipExportOptions options) throws IOException {
+        Iterator<String> names = objectNames.iterator();
+        return this.write(bucketName, new Iterator<Source>() {
+            @Override
+            public boolean hasNext() {
+                return names.hasNext();
+            }
+
+            @Override
+            public Source next() {
+                String key = AmazonS3Template.getObjectName(names.next());
+                return new Source(key, key, -1, null);
+            }
+        }, outputStream, options);
+    }
+
+    /**
+     * 导出前缀下的所有对象，边列举边写入
+     *
+     * @param bucketName   存储桶名称
+     * @param prefix       前缀，为空时导出整个存储桶
+     * @param outputStream 输出流
+     * @param options      导出选项
+     * @return {@link ZipExportResult}
+     * @throws IOException 写出失败
+     */
+    public ZipExportResult exportPrefix(String bucketName, String prefix, OutputStream outputStream, ZipExportOptions options) throws IOException {
+        String keyPrefix = ObjectKeys.directoryPrefix(prefix);
+        return this.write(bucketName, new PrefixListing(bucketName, keyPrefix), outputStream, options);
+    }
+
+    private ZipExportResult write(String bucketName, Iterator<Source> sources, OutputStream outputStream, ZipExportOptions options) throws IOException {
+        if (options.getPrefetch() <= 0) {
+            throw new IllegalArgumentException("prefetch 必须大于 0");
+        }
+        long start = System.currentTimeMillis();
+        ZipExportResult result = new ZipExportResult();
+        ExecutorService executor = Executors.newFixedThreadPool(options.getPrefetch(),
+                TransferExecutors.threadFactory("winter-s3-zip-", this.virtualThreads));
+        Deque<CompletableFuture<Fetched>> window = new ArrayDeque<>();
+        try {
+            ZipOutputStream zip = new ZipOutputStream(outputStream);
+            zip.setLevel(options.getCompressionLevel());
+            this.fill(bucketName, sources, window, options, executor);
+            while (!window.isEmpty()) {
+                CompletableFuture<Fetched> current = window.poll();
+                // 写入当前条目期间保持 prefetch 个对象在下载
+                this.fill(bucketName, sources, window, options, executor);
+                Fetched fetched;
+                try {
+                    fetched = current.join();
+                } catch (CompletionException e) {
+                    throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
+                if (fetched.data == null && !fetched.missing) {
+                    fetched = this.open(bucketName, fetched.source);
+                }
+                if (fetched.missing) {
+                    if (!options.isSkipMissing()) {
+                        throw new IllegalStateException("对象不存在：" + bucketName + "/" + fetched.source.key);
+                    }
+                    result.getMissing().add(fetched.source.key);
+                    continue;
+                }
+                ZipEntry entry = new ZipEntry(fetched.source.entryName);
+                if (fetched.lastModified != null) {
+                    entry.setTime(fetched.lastModified.getTime());
+                }
+                long size;
+                if (fetched.data != null) {
+                    zip.putNextEntry(entry);
+                    zip.write(fetched.data);
+                    size = fetched.data.length;
+                } else {
+                    S3ObjectInputStream content = fetched.object.getObjectContent();
+                    try {
+                        zip.putNextEntry(entry);
+                        size = StreamUtils.copy(content, zip);
+                    } catch (IOException | RuntimeException e) {
+                        content.abort();
+                        throw e;
+                    } finally {
+                        fetched.object.close();
+                    }
+                }
+                zip.closeEntry();
+                result.setEntries(result.getEntries() + 1);
+                result.setBytes(result.getBytes() + size);
+            }
+            zip.finish();
+            zip.flush();
+        } finally {
+            executor.shutdownNow();
+        }
+        result.setDurationMillis(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    private void fill(String bucketName, Iterator<Source> sources, Deque<CompletableFuture<Fetched>> window,
+                      ZipExportOptions options, ExecutorService executor) {
+        while (window.size() < options.getPrefetch() && sources.hasNext()) {
+            Source source = sources.next();
+            if (source.size > options.getMaxBufferedObjectSize()) {
+                window.add(CompletableFuture.completedFuture(new Fetched(source, null, null, source.lastModified, false)));
+            } else {
+                window.add(CompletableFuture.supplyAsync(() -> this.prefetch(bucketName, source, options.getMaxBufferedObjectSize()), executor));
+            }
+        }
+    }
+
+    /**
+     * 下载对象到内存；响应头显示对象超过上限时放弃这次下载，轮到时再流式写入
+     */
+    private Fetched prefetch(String bucketName, Source source, long maxBufferedObjectSize) {
+        Fetched fetched = this.open(bucketName, source);
+        if (fetched.missing) {
+            return fetched;
+        }
+        try (S3Object object = fetched.object) {
+            S3ObjectInputStream content = object.getObjectContent();
+            if (object.getObjectMetadata().getContentLength() > maxBufferedObjectSize) {
+                content.abort();
+                return new Fetched(source, null, null, fetched.lastModified, false);
+            }
+            return new Fetched(source, StreamUtils.copyToByteArray(content), null, fetched.lastModified, false);
+        } catch (IOException e) {
+            throw new IllegalStateException("下载 " + bucketName + "/" + source.key + " 失败", e);
+        }
+    }
+
+    private Fetched open(String bucketName, Source source) {
+        try {
+            S3Object object = this.amazonS3.getObject(bucketName, source.key);
+            return new Fetched(source, null, object, object.getObjectMetadata().getLastModified(), false);
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                return new Fetched(source, null, null, null, true);
+            }
+            throw e;
+        }
+    }
+
+    private static final class Source {
+
+        private final String key;
+
+        private final String entryName;
+
+        /**
+         * 对象大小，未知时为 -1
+         */
+        private final long size;
+
+        private final Date lastModified;
+
+        private Source(String key, String entryName, long size, Date lastModified) {
+            this.key = key;
+            this.entryName = entryName;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * 预取结果：data 为已下载的内容，object 为已打开待流式写入的对象，都为空时轮到时再打开
+     */
+    private static final class Fetched {
+
+        private final Source source;
+
+        private final byte[] data;
+
+        private final S3Object object;
+
+        private final Date lastModified;
+
+        private final boolean missing;
+
+        private Fetched(Source source, byte[] data, S3Object object, Date lastModified, boolean missing) {
+            this.source = source;
+            this.data = data;
+            this.object = object;
+            this.lastModified = lastModified;
+            this.missing = missing;
+        }
+    }
+
+    /**
+     * 逐页列举前缀下的对象
+     */
+    private final class PrefixListing implements Iterator<Source> {
+
+        private final String keyPrefix;
+
+        private final ListObjectsV2Request request;
+
+        private Iterator<S3ObjectSummary> page = Collections.emptyIterator();
+
+        private boolean truncated = true;
+
+        private Source next;
+
+        private PrefixListing(String bucketName, String keyPrefix) {
+            this.keyPrefix = keyPrefix;
+            this.request = new ListObjectsV2Request().withBucketName(bucketName).withPrefix(keyPrefix);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.next == null) {
+                while (!this.page.hasNext() && this.truncated) {
+                    ListObjectsV2Result listing = ZipExporter.this.amazonS3.listObjectsV2(this.request);
+                    this.page = listing.getObjectSummaries().iterator();
+                    this.truncated = listing.isTruncated() && listing.getNextContinuationToken() != null;
+                    this.request.setContinuationToken(listing.getNextContinuationToken());
+                }
+                if (!this.page.hasNext()) {
+                    return false;
+                }
+                S3ObjectSummary summary = this.page.next();
+                if (!summary.getKey().endsWith("/")) {
+                    this.next = new Source(summary.getKey(), summary.getKey().substring(this.keyPrefix.length()),
+                            summary.getSize(), summary.getLastModified());
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Source next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Source source = this.next;
+            this.next = null;
+            return source;
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.zsq.winter.minio.async;
+
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.CopyObjectResult;
+import com.amazonaws.services.s3.model.DeleteObjectsResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartListing;
+import com.amazonaws.services.s3.model.PartSummary;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * {@link AmazonS3Template} 的异步版本：在独立的有界线程池中执行，返回 {@link CompletableFuture}
+ * 请求线程可以同时发起多个存储操作，再统一 join，例如：
+ * <pre>
+ * CompletableFuture&lt;ObjectMetadata&gt; a = asyncTemplate.getObjectMetadata(bucket, "a.png");
+ * CompletableFuture&lt;ObjectMetadata&gt; b = asyncTemplate.getObjectMetadata(bucket, "b.png");
+ * CompletableFuture.allOf(a, b).join();
+ * </pre>
+ * 注意：MultipartFile 的临时文件在请求结束后会被删除，使用 MultipartFile 的方法需要在请求结束前 join
+ */
+public class AsyncAmazonS3Template {
+
+    private final AmazonS3Template amazonS3Template;
+
+    private final Executor executor;
+
+    public AsyncAmazonS3Template(AmazonS3Template amazonS3Template, Executor executor) {
+        this.amazonS3Template = amazonS3Template;
+        this.executor = executor;
+    }
+
+    /**
+     * 同步模板，便于在回调中继续使用同步方法
+     *
+     * @return {@link AmazonS3Template}
+     */
+    public AmazonS3Template getAmazonS3Template() {
+        return this.amazonS3Template;
+    }
+
+    /**
+     * 上传对象
+     *
+     * @param bucketName    存储桶名称
+     * @param objectName    对象名称
+     * @param mediaType     媒体类型
+     * @param stream        文件流
+     * @param contentLength 文件流字节长度
+     * @param size          分块大小（默认 5MB）
+     * @return {@link CompletableFuture}<{@link PutObjectResult}>
+     */
+    public CompletableFuture<PutObjectResult> putObject(String bucketName, String objectName, String mediaType, InputStream stream, long contentLength, Integer size) {
+        return this.supply(() -> this.amazonS3Template.putObject(bucketName, objectName, mediaType, stream, contentLength, size));
+    }
+
+    /**
+     * 上传文件
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 对象名称
+     * @param file       文件
+     * @param size       读取的字节数的大小，默认为文件的大小
+     * @return {@link CompletableFuture}<{@link PutObjectResult}>
+     */
+    public CompletableFuture<PutObjectResult> putObject(String bucketName, String objectName, MultipartFile file, Integer size) {
+        return this.supply(() -> this.amazonS3Template.putObject(bucketName, objectName, file, size));
+    }
+
+    /**
+     * 上传文件（使用默认存储桶）
+     *
+     * @param objectName 对象名称
+     * @param file       文件
+     * @param size       读取的字节数的大小，默认为文件的大小
+     * @return {@link CompletableFuture}<{@link PutObjectResult}>
+     */
+    public CompletableFuture<PutObjectResult> putObject(String objectName, MultipartFile file, Integer size) {
+        return this.supply(() -> this.amazonS3Template.putObject(objectName, file, size));
+    }
+
+    /**
+     * 获取对象
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 对象名称
+     * @return {@link CompletableFuture}<{@link S3Object}>
+     */
+    public CompletableFuture<S3Object> getObjectInfo(String bucketName, String objectName) {
+        return this.supply(() -> this.amazonS3Template.getObjectInfo(bucketName, objectName));
+    }
+
+    /**
+     * 获取对象输入流
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @return {@link CompletableFuture}<{@link InputStream}>
+     */
+    public CompletableFuture<InputStream> getObjectInputStream(String bucketName, String key) {
+        return this.supply(() -> this.amazonS3Template.getObjectInputStream(bucketName, key));
+    }
+
+    /**
+     * 获取对象输入流（带范围）
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @param start      开始位置
+     * @param end        结束位置
+     * @return {@link CompletableFuture}<{@link InputStream}>
+     */
+    public CompletableFuture<InputStream> getObjectInputStream(String bucketName, String key, long start, long end) {
+        return this.supply(() -> this.amazonS3Template.getObjectInputStream(bucketName, key, start, end));
+    }
+
+    /**
+     * 下载对象到文件
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @param file       目标文件
+     * @return {@link CompletableFuture}
+     */
+    public CompletableFuture<Void> downloadObject(String bucketName, String key, File file) {
+        return this.run(() -> this.amazonS3Template.downloadObject(bucketName, key, file));
+    }
+
+    /**
+     * 获取对象元数据
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @return {@link CompletableFuture}<{@link ObjectMetadata}>
+     */
+    public CompletableFuture<ObjectMetadata> getObjectMetadata(String bucketName, String key) {
+        return this.supply(() -> this.amazonS3Template.getObjectMetadata(bucketName, key));
+    }
+
+    /**
+     * 获取对象元数据（使用默认存储桶）
+     *
+     * @param key 对象键
+     * @return {@link CompletableFuture}<{@link ObjectMetadata}>
+     */
+    public CompletableFuture<ObjectMetadata> getObjectMetadata(String key) {
+        return this.supply(() -> this.amazonS3Template.getObjectMetadata(key));
+    }
+
+    /**
+     * 对象是否存在
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 对象名称
+     * @return {@link CompletableFuture}<{@link Boolean}>
+     */
+    public CompletableFuture<Boolean> doesObjectExist(String bucketName, String objectName) {
+        return this.supply(() -> this.amazonS3Template.doesObjectExist(bucketName, objectName));
+    }
+
+    /**
+     * 批量检查对象是否存在，同一目录下的键较多时通过列举判断
+     *
+     * @param bucketName  存储桶名称
+     * @param objectNames 对象名称
+     * @return {@link CompletableFuture}<{@link Map}<{@link String}, {@link Boolean}>>
+     */
+    public CompletableFuture<Map<String, Boolean>> existsAll(String bucketName, Collection<String> objectNames) {
+        return this.supply(() -> this.amazonS3Template.existsAll(bucketName, objectNames));
+    }
+
+    /**
+     * 按前缀列出对象
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     前缀
+     * @param delimiter  分隔符
+     * @param maxNum     每次请求返回的最大对象数量
+     * @return {@link CompletableFuture}<{@link List}<{@link S3ObjectSummary}>>
+     */
+    public CompletableFuture<List<S3ObjectSummary>> getAllObjectsByPrefix(String bucketName, String prefix, String delimiter, Integer maxNum) {
+        return this.supply(() -> this.amazonS3Template.getAllObjectsByPrefix(bucketName, prefix, delimiter, maxNum));
+    }
+
+    /**
+     * 删除对象
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 对象名称
+     * @return {@link CompletableFuture}
+     */
+    public CompletableFuture<Void> removeObject(String bucketName, String objectName) {
+        return this.run(() -> this.amazonS3Template.removeObject(bucketName, objectName));
+    }
+
+    /**
+     * 批量删除对象
+     *
+     * @param bucketName  存储桶名称
+     * @param objectNames 对象名称集合
+     * @return {@link CompletableFuture}<{@link DeleteObjectsResult}>
+     */
+    public CompletableFuture<DeleteObjectsResult> removeObjects(String bucketName, List<String> objectNames) {
+        return this.supply(() -> this.amazonS3Template.removeObjects(bucketName, objectNames));
+    }
+
+    /**
+     * 复制对象
+     *
+     * @param sourceBucketName      源存储桶名称
+     * @param sourceKey             源对象键
+     * @param destinationBucketName 目标存储桶名称
+     * @param destinationKey        目标对象键
+     * @return {@link CompletableFuture}<{@link CopyObjectResult}>
+     */
+    public CompletableFuture<CopyObjectResult> copyObject(String sourceBucketName, String sourceKey, String destinationBucketName, String destinationKey) {
+        return this.supply(() -> this.amazonS3Template.copyObject(sourceBucketName, sourceKey, destinationBucketName, destinationKey));
+    }
+
+    /**
+     * 初始化分块上传
+     *
+     * @param bucketName  存储桶名称
+     * @param objectName  对象名称
+     * @param contentType 内容类型
+     * @return {@link CompletableFuture}<{@link InitiateMultipartUploadResult}>
+     */
+    public CompletableFuture<InitiateMultipartUploadResult> initiateMultipartUpload(String bucketName, String objectName, String contentType) {
+        return this.supply(() -> this.amazonS3Template.initiateMultipartUpload(bucketName, objectName, contentType));
+    }
+
+    /**
+     * 上传单个分块
+     *
+     * @param bucketName  存储桶名称
+     * @param uploadId    分块上传的 UploadId
+     * @param objectName  对象名称
+     * @param md5Digest   该部分数据的MD5摘要，可为空
+     * @param partNumber  分块编号
+     * @param partSize    分块大小
+     * @param inputStream 分块输入流
+     * @return {@link CompletableFuture}<{@link UploadPartResult}>
+     */
+    public CompletableFuture<UploadPartResult> uploadPart(String bucketName, String uploadId, String objectName, String md5Digest, Integer partNumber, long partSize, InputStream inputStream) {
+        return this.supply(() -> this.amazonS3Template.uploadPart(bucketName, uploadId, objectName, md5Digest, partNumber, partSize, inputStream));
+    }
+
+    /**
+     * 上传单个分块
+     *
+     * @param bucketName 存储桶名称
+     * @param uploadId   分块上传的 UploadId
+     * @param objectName 对象名称
+     * @param partNumber 分块编号
+     * @param file       分片文件
+     * @return {@link CompletableFuture}<{@link UploadPartResult}>
+     */
+    public CompletableFuture<UploadPartResult> uploadPart(String bucketName, String uploadId, String objectName, int partNumber, MultipartFile file) {
+        return this.supply(() -> this.amazonS3Template.uploadPart(bucketName, uploadId, objectName, partNumber, file));
+    }
+
+    /**
+     * 列出已上传的分块
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 对象名称
+     * @param uploadId   分块上传的 UploadId
+     * @return {@link CompletableFuture}<{@link PartListing}>
+     */
+    public CompletableFuture<PartListing> listParts(String bucketName, String objectName, String uploadId) {
+        return this.supply(() -> this.amazonS3Template.listParts(bucketName, objectName, uploadId));
+    }
+
+    /**
+     * 完成分块上传（合并已上传的全部分块）
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 对象名称
+     * @param uploadId   分块上传的 UploadId
+     * @return {@link CompletableFuture}<{@link CompleteMultipartUploadResult}>
+     */
+    public CompletableFuture<CompleteMultipartUploadResult> completeMultipartUpload(String bucketName, String objectName, String uploadId) {
+        return this.supply(() -> this.amazonS3Template.completeMultipartUpload(bucketName, objectName, uploadId));
+    }
+
+    /**
+     * 完成分块上传
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 对象名称
+     * @param uploadId   分块上传的 UploadId
+     * @param parts      已上传的分块
+     * @return {@link CompletableFuture}<{@link CompleteMultipartUploadResult}>
+     */
+    public CompletableFuture<CompleteMultipartUploadResult> completeMultipartUpload(String bucketName, String objectName, String uploadId, List<PartSummary> parts) {
+        return this.supply(() -> this.amazonS3Template.completeMultipartUpload(bucketName, objectName, uploadId, parts));
+    }
+
+    /**
+     * 取消分块上传
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 对象名称
+     * @param uploadId   分块上传的 UploadId
+     * @return {@link CompletableFuture}
+     */
+    public CompletableFuture<Void> abortMultipartUpload(String bucketName, String objectName, String uploadId) {
+        return this.run(() -> this.amazonS3Template.abortMultipartUpload(bucketName, objectName, uploadId));
+    }
+
+    private <T> CompletableFuture<T> supply(StorageCall<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            this.executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 线程池已满，以失败的 future 返回，不在调用线程上抛出
+            future.completeExceptionally(new CompletionException(e));
+        }
+        return future;
+    }
+
+    private CompletableFuture<Void> run(StorageRunnable runnable) {
+        return this.supply(() -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    @FunctionalInterface
+    private interface StorageCall<T> {
+        T call() throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface StorageRunnable {
+        void run() throws Exception;
+    }
+}
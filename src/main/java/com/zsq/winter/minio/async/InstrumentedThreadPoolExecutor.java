@@ -0,0 +1,117 @@
+package com.zsq.winter.minio.async;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带统计的有界线程池：记录任务排队时间、执行时间和被拒绝次数
+ */
+public class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private final LongAdder queueWaitNanos = new LongAdder();
+
+    private final LongAdder executionNanos = new LongAdder();
+
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+
+    private final ThreadLocal<Long> startedAt = new ThreadLocal<>();
+
+    public InstrumentedThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+                                          BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory);
+        RejectedExecutionHandler delegate = new AbortPolicy();
+        this.setRejectedExecutionHandler((r, executor) -> {
+            this.rejectedCount.increment();
+            delegate.rejectedExecution(r, executor);
+        });
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(new TimedTask(command));
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        long now = System.nanoTime();
+        if (r instanceof TimedTask) {
+            long wait = now - ((TimedTask) r).submittedAt;
+            this.queueWaitNanos.add(wait);
+            this.maxQueueWaitNanos.accumulateAndGet(wait, Math::max);
+        }
+        this.startedAt.set(now);
+        super.beforeExecute(t, r);
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        super.afterExecute(r, t);
+        Long start = this.startedAt.get();
+        if (start != null) {
+            this.executionNanos.add(System.nanoTime() - start);
+            this.startedAt.remove();
+        }
+    }
+
+    /**
+     * 被拒绝的任务数
+     *
+     * @return long
+     */
+    public long getRejectedCount() {
+        return this.rejectedCount.sum();
+    }
+
+    /**
+     * 任务累计排队时间
+     *
+     * @param unit 时间单位
+     * @return long
+     */
+    public long getTotalQueueWaitTime(TimeUnit unit) {
+        return unit.convert(this.queueWaitNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 单个任务最长的排队时间
+     *
+     * @param unit 时间单位
+     * @return long
+     */
+    public long getMaxQueueWaitTime(TimeUnit unit) {
+        return unit.convert(this.maxQueueWaitNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 任务累计执行时间
+     *
+     * @param unit 时间单位
+     * @return long
+     */
+    public long getTotalExecutionTime(TimeUnit unit) {
+        return unit.convert(this.executionNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    private static class TimedTask implements Runnable {
+
+        private final Runnable delegate;
+
+        private final long submittedAt = System.nanoTime();
+
+        TimedTask(Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            this.delegate.run();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.zsq.winter.minio.bulk;
+
+import lombok.Data;
+
+/**
+ * 批量上传选项
+ */
+@Data
+public class BulkUploadOptions {
+
+    /**
+     * 同时上传的文件或分块数
+     */
+    private int parallelism = 16;
+
+    /**
+     * 正在上传的字节数上限（小文件按文件大小、大文件按分块大小计），达到上限时等待已提交的上传完成再继续提交
+     */
+    private long maxInFlightBytes = 256L * 1024 * 1024;
+
+    /**
+     * 文件不小于该大小则使用分块上传，各分块并行上传
+     */
+    private long multipartThreshold = 64L * 1024 * 1024;
+
+    /**
+     * 分块上传的分块大小
+     */
+    private long partSize = 16L * 1024 * 1024;
+}
@@ -0,0 +1,47 @@
+package com.zsq.winter.minio.bulk;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一次批量上传的结果
+ */
+@Data
+public class BulkUploadResult {
+
+    /**
+     * 各文件的结果，顺序与提交顺序一致
+     */
+    private List<FileUploadResult> files = new ArrayList<>();
+
+    /**
+     * 成功上传的文件数
+     */
+    private int succeeded;
+
+    /**
+     * 上传失败的文件数
+     */
+    private int failed;
+
+    /**
+     * 成功上传的字节数
+     */
+    private long uploadedBytes;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private long durationMillis;
+
+    /**
+     * 平均吞吐量（字节/秒）
+     *
+     * @return double
+     */
+    public double getBytesPerSecond() {
+        return this.durationMillis == 0 ? 0 : this.uploadedBytes * 1000.0 / this.durationMillis;
+    }
+}
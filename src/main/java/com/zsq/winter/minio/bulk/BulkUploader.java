@@ -0,0 +1,296 @@
+package com.zsq.winter.minio.bulk;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.PartSummary;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import com.zsq.winter.minio.support.MultipartUploads;
+import com.zsq.winter.minio.support.ObjectKeys;
+import com.zsq.winter.minio.support.TransferExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 批量上传目录或一组文件，代替逐个调用 putObject
+ * 1. 小文件各自作为一个任务并行上传；不小于 multipartThreshold 的文件先初始化分块上传，各分块作为独立任务与其他文件一起并行上传，全部完成后合并
+ * 2. 调用线程按顺序提交任务，正在上传的字节数达到 maxInFlightBytes 或排队的任务数达到 parallelism 的两倍时等待已提交的任务完成，
+ * 不会一次为上万个文件建立任务
+ * 3. 单个文件失败不影响其他文件，分块上传失败时取消该分块上传；返回每个文件的结果与总吞吐量
+ * 调用线程被中断时不再提交新的文件，已提交的上传完成后返回，未提交的文件记为失败
+ */
+@Slf4j
+public class BulkUploader {
+
+    private final AmazonS3Template amazonS3Template;
+
+    private final AmazonS3 amazonS3;
+
+    private final boolean virtualThreads;
+
+    public BulkUploader(AmazonS3Template amazonS3Template, AmazonS3 amazonS3, boolean virtualThreads) {
+        this.amazonS3Template = amazonS3Template;
+        this.amazonS3 = amazonS3;
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * 上传目录下的所有文件（不含符号链接），对象键为前缀加相对路径
+     *
+     * @param localDir   本地目录
+     * @param bucketName 存储桶名称
+     * @param prefix     前缀，为空时上传到存储桶根目录
+     * @param options    上传选项
+     * @return {@link BulkUploadResult}
+     * @throws IOException 遍历目录失败
+     */
+    public BulkUploadResult uploadDirectory(Path localDir, String bucketName, String prefix, BulkUploadOptions options) throws IOException {
+        if (!Files.isDirectory(localDir)) {
+            throw new IllegalArgumentException("本地目录不存在：" + localDir);
+        }
+        String keyPrefix = ObjectKeys.directoryPrefix(prefix);
+        Map<String, Path> files = new LinkedHashMap<>();
+        Files.walkFileTree(localDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    StringBuilder key = new StringBuilder(keyPrefix);
+                    for (Path name : localDir.relativize(file)) {
+                        key.append(name.toString()).append('/');
+                    }
+                    files.put(key.substring(0, key.length() - 1), file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return this.upload(bucketName, files, options);
+    }
+
+    /**
+     * 上传一组文件，对象键为前缀加文件名
+     *
+     * @param files      文件
+     * @param bucketName 存储桶名称
+     * @param prefix     前缀，为空时上传到存储桶根目录
+     * @param options    上传选项
+     * @return {@link BulkUploadResult}
+     */
+    public BulkUploadResult uploadFiles(Collection<Path> files, String bucketName, String prefix, BulkUploadOptions options) {
+        String keyPrefix = ObjectKeys.directoryPrefix(prefix);
+        Map<String, Path> keyed = new LinkedHashMap<>();
+        for (Path file : files) {
+            Path previous = keyed.put(keyPrefix + file.getFileName(), file);
+            if (previous != null) {
+                throw new IllegalArgumentException("文件名重复：" + previous + "，" + file);
+            }
+        }
+        return this.upload(bucketName, keyed, options);
+    }
+
+    /**
+     * 上传一组文件
+     *
+     * @param bucketName 存储桶名称
+     * @param files      对象键 -> 本地文件，按迭代顺序提交
+     * @param options    上传选项
+     * @return {@link BulkUploadResult}
+     */
+    public BulkUploadResult upload(String bucketName, Map<String, Path> files, BulkUploadOptions options) {
+        if (options.getParallelism() <= 0 || options.getMaxInFlightBytes() <= 0 || options.getPartSize() <= 0) {
+            throw new IllegalArgumentException("parallelism、maxInFlightBytes、partSize 必须大于 0");
+        }
+        long start = System.currentTimeMillis();
+        InFlight inFlight = new InFlight(options.getMaxInFlightBytes(), options.getParallelism() * 2);
+        ExecutorService executor = Executors.newFixedThreadPool(options.getParallelism(),
+                TransferExecutors.threadFactory("winter-s3-bulk-", this.virtualThreads));
+        List<CompletableFuture<FileUploadResult>> futures = new ArrayList<>();
+        boolean interrupted = false;
+        try {
+            for (Map.Entry<String, Path> entry : files.entrySet()) {
+                interrupted = interrupted || Thread.currentThread().isInterrupted();
+                if (!interrupted) {
+                    try {
+                        futures.add(this.submit(bucketName, entry.getKey(), entry.getValue(), options, inFlight, executor));
+                        continue;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                futures.add(CompletableFuture.completedFuture(new FileUploadResult(entry.getKey(), entry.getValue(), 0, null, 0,
+                        new InterruptedException("批量上传被中断"))));
+            }
+            BulkUploadResult result = new BulkUploadResult();
+            for (CompletableFuture<FileUploadResult> future : futures) {
+                FileUploadResult file = future.join();
+                result.getFiles().add(file);
+                if (file.isSuccess()) {
+                    result.setSucceeded(result.getSucceeded() + 1);
+                    result.setUploadedBytes(result.getUploadedBytes() + file.getSize());
+                } else {
+                    result.setFailed(result.getFailed() + 1);
+                }
+            }
+            result.setDurationMillis(System.currentTimeMillis() - start);
+            return result;
+        } finally {
+            executor.shutdownNow();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private CompletableFuture<FileUploadResult> submit(String bucketName, String key, Path path, BulkUploadOptions options,
+                                                       InFlight inFlight, ExecutorService executor) throws InterruptedException {
+        long size;
+        try {
+            size = Files.size(path);
+        } catch (IOException e) {
+            log.warn("批量上传 {}/{} 失败，无法读取 {}", bucketName, key, path, e);
+            return CompletableFuture.completedFuture(new FileUploadResult(key, path, 0, null, 0, e));
+        }
+        if (size >= options.getMultipartThreshold()) {
+            return this.submitMultipart(bucketName, key, path, size, options, inFlight, executor);
+        }
+        long permit = inFlight.acquire(size);
+        return CompletableFuture.supplyAsync(() -> {
+            long begin = System.currentTimeMillis();
+            try {
+                PutObjectResult result = this.amazonS3.putObject(new PutObjectRequest(bucketName, key, path.toFile()));
+                return new FileUploadResult(key, path, size, result.getETag(), System.currentTimeMillis() - begin, null);
+            } catch (RuntimeException e) {
+                log.warn("批量上传 {}/{} 失败", bucketName, key, e);
+                return new FileUploadResult(key, path, size, null, System.currentTimeMillis() - begin, e);
+            } finally {
+                inFlight.release(permit);
+            }
+        }, executor);
+    }
+
+    /**
+     * 提交各分块，全部完成后在上传线程中合并；某个分块失败后不再提交该文件剩余的分块
+     */
+    private CompletableFuture<FileUploadResult> submitMultipart(String bucketName, String key, Path path, long size, BulkUploadOptions options,
+                                                                InFlight inFlight, ExecutorService executor) {
+        long begin = System.currentTimeMillis();
+        File file = path.toFile();
+        String contentType = MediaTypeFactory.getMediaType(file.getName()).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        String uploadId;
+        try {
+            uploadId = this.amazonS3Template.initiateMultipartUpload(bucketName, key, contentType).getUploadId();
+        } catch (RuntimeException e) {
+            log.warn("批量上传 {}/{} 失败", bucketName, key, e);
+            return CompletableFuture.completedFuture(new FileUploadResult(key, path, size, null, System.currentTimeMillis() - begin, e));
+        }
+        long partSize = MultipartUploads.partSize(size, options.getPartSize());
+        List<CompletableFuture<PartSummary>> parts = new ArrayList<>();
+        AtomicBoolean partFailed = new AtomicBoolean();
+        int partNumber = 1;
+        for (long offset = 0; offset < size && !partFailed.get(); offset += partSize, partNumber++) {
+            long length = Math.min(partSize, size - offset);
+            long permit;
+            try {
+                permit = inFlight.acquire(length);
+            } catch (InterruptedException e) {
+                CompletableFuture<PartSummary> interrupted = new CompletableFuture<>();
+                interrupted.completeExceptionally(e);
+                parts.add(interrupted);
+                // 保留中断标记，由调用方停止提交其他文件
+                Thread.currentThread().interrupt();
+                break;
+            }
+            int number = partNumber;
+            long position = offset;
+            parts.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    UploadPartResult result = this.amazonS3Template.uploadPart(bucketName, uploadId, key, number, file, position, length);
+                    return MultipartUploads.partSummary(number, result);
+                } catch (RuntimeException e) {
+                    partFailed.set(true);
+                    throw e;
+                } finally {
+                    inFlight.release(permit);
+                }
+            }, executor));
+        }
+        return MultipartUploads.completeOrAbort(this.amazonS3Template, bucketName, key, uploadId, parts, executor).handle((result, completeError) -> {
+            if (completeError == null) {
+                return new FileUploadResult(key, path, size, result.getETag(), System.currentTimeMillis() - begin, null);
+            }
+            Throwable error = completeError instanceof CompletionException && completeError.getCause() != null ? completeError.getCause() : completeError;
+            log.warn("批量上传 {}/{} 失败", bucketName, key, error);
+            return new FileUploadResult(key, path, size, null, System.currentTimeMillis() - begin, error);
+        });
+    }
+
+    /**
+     * 正在上传的字节数与任务数；单个超过字节上限的任务按上限计，独占全部额度
+     */
+    private static final class InFlight {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Condition released = this.lock.newCondition();
+
+        private final long maxBytes;
+
+        private final int maxTasks;
+
+        private long bytes;
+
+        private int tasks;
+
+        private InFlight(long maxBytes, int maxTasks) {
+            this.maxBytes = maxBytes;
+            this.maxTasks = maxTasks;
+        }
+
+        private long acquire(long size) throws InterruptedException {
+            long permit = Math.min(size, this.maxBytes);
+            this.lock.lockInterruptibly();
+            try {
+                while (this.tasks >= this.maxTasks || this.bytes + permit > this.maxBytes) {
+                    this.released.await();
+                }
+                this.bytes += permit;
+                this.tasks++;
+                return permit;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private void release(long permit) {
+            this.lock.lock();
+            try {
+                this.bytes -= permit;
+                this.tasks--;
+                this.released.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.zsq.winter.minio.bulk;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.file.Path;
+
+/**
+ * 批量上传中单个文件的结果
+ */
+@Data
+@AllArgsConstructor
+public class FileUploadResult {
+
+    /**
+     * 对象键
+     */
+    private String key;
+
+    /**
+     * 本地文件
+     */
+    private Path path;
+
+    /**
+     * 文件大小
+     */
+    private long size;
+
+    /**
+     * 上传成功时为对象的 ETag
+     */
+    private String eTag;
+
+    /**
+     * 从开始上传到完成（或失败）的耗时（毫秒）
+     */
+    private long durationMillis;
+
+    /**
+     * 失败原因，成功时为 null
+     */
+    private Throwable error;
+
+    public boolean isSuccess() {
+        return this.error == null;
+    }
+}
@@ -0,0 +1,235 @@
+package com.zsq.winter.minio.checksum;
+
+import java.lang.reflect.Constructor;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+/**
+ * 整对象校验和算法，与 S3 的 x-amz-checksum-* 一致
+ * 三种 CRC 都可以由各分块的值与长度合并出整个对象的值（{@link #combine(long, long, long)}），分块可以并行计算
+ */
+public enum ChecksumAlgorithm {
+    /**
+     * CRC-32（与 zip、gzip 相同），JDK 内置实现使用 CPU 指令加速
+     */
+    CRC32("CRC32", 32, 0xEDB88320L) {
+        @Override
+        public Checksum newChecksum() {
+            return new CRC32();
+        }
+    },
+    /**
+     * CRC-32C（Castagnoli），Java 9 及以上使用 java.util.zip.CRC32C（CPU 指令加速），Java 8 使用查表实现
+     */
+    CRC32C("CRC32C", 32, 0x82F63B78L) {
+        @Override
+        public Checksum newChecksum() {
+            if (CRC32C_CONSTRUCTOR != null) {
+                try {
+                    return CRC32C_CONSTRUCTOR.newInstance();
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return new TableCrc(this.tables, this.mask);
+        }
+    },
+    /**
+     * CRC-64/NVME，查表实现
+     */
+    CRC64NVME("CRC64NVME", 64, 0x9A6C9329AC4BC9B5L) {
+        @Override
+        public Checksum newChecksum() {
+            return new TableCrc(this.tables, this.mask);
+        }
+    };
+
+    private static final Constructor<? extends Checksum> CRC32C_CONSTRUCTOR = crc32cConstructor();
+
+    private final String algorithmName;
+
+    private final int width;
+
+    /**
+     * 反射形式的生成多项式
+     */
+    private final long polynomial;
+
+    final long mask;
+
+    /**
+     * 按 8 字节一组查表（slicing-by-8）用的表
+     */
+    final long[][] tables;
+
+    ChecksumAlgorithm(String algorithmName, int width, long polynomial) {
+        this.algorithmName = algorithmName;
+        this.width = width;
+        this.polynomial = polynomial;
+        this.mask = width == 64 ? -1L : (1L << width) - 1;
+        this.tables = TableCrc.tables(polynomial);
+    }
+
+    /**
+     * S3 中的算法名，用于 x-amz-checksum-algorithm
+     *
+     * @return {@link String}
+     */
+    public String getAlgorithmName() {
+        return this.algorithmName;
+    }
+
+    /**
+     * 保存校验和的请求头与响应头，如 x-amz-checksum-crc32c
+     *
+     * @return {@link String}
+     */
+    public String getHeaderName() {
+        return "x-amz-checksum-" + this.algorithmName.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 新的增量计算器
+     *
+     * @return {@link Checksum}
+     */
+    public abstract Checksum newChecksum();
+
+    /**
+     * 计算一段数据的校验和
+     *
+     * @param data   数据
+     * @param offset 开始位置
+     * @param length 长度
+     * @return long
+     */
+    public long compute(byte[] data, int offset, int length) {
+        Checksum checksum = this.newChecksum();
+        checksum.update(data, offset, length);
+        return checksum.getValue();
+    }
+
+    /**
+     * 合并相邻两段数据的校验和：已知 A 的校验和、B 的校验和与 B 的长度，求 A 后接 B 的校验和
+     * 与 zlib 的 crc32_combine 相同，按 GF(2) 上的矩阵平方计算，耗时只与 length2 的位数有关
+     *
+     * @param checksum1 前一段的校验和
+     * @param checksum2 后一段的校验和
+     * @param length2   后一段的长度
+     * @return long
+     */
+    public long combine(long checksum1, long checksum2, long length2) {
+        if (length2 <= 0) {
+            return checksum1;
+        }
+        // odd 为追加 1 个 0 位的变换矩阵，平方两次后为追加 4 个 0 位
+        long[] odd = new long[this.width];
+        long[] even = new long[this.width];
+        odd[0] = this.polynomial;
+        long row = 1;
+        for (int n = 1; n < this.width; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        square(even, odd);
+        square(odd, even);
+        long crc = checksum1;
+        // 每轮把矩阵平方一次（追加的 0 字节数翻倍），按 length2 的二进制位作用到 crc 上
+        do {
+            square(even, odd);
+            if ((length2 & 1) != 0) {
+                crc = times(even, crc);
+            }
+            length2 >>>= 1;
+            if (length2 == 0) {
+                break;
+            }
+            square(odd, even);
+            if ((length2 & 1) != 0) {
+                crc = times(odd, crc);
+            }
+            length2 >>>= 1;
+        } while (length2 != 0);
+        return (crc ^ checksum2) & this.mask;
+    }
+
+    /**
+     * 编码为请求头中的值：大端字节序的 Base64
+     *
+     * @param checksum 校验和
+     * @return {@link String}
+     */
+    public String encode(long checksum) {
+        int bytes = this.width / 8;
+        byte[] value = new byte[bytes];
+        for (int i = 0; i < bytes; i++) {
+            value[i] = (byte) (checksum >>> (8 * (bytes - 1 - i)));
+        }
+        return Base64.getEncoder().encodeToString(value);
+    }
+
+    /**
+     * 解码响应头中的值
+     *
+     * @param value Base64
+     * @return 不是该算法的整对象校验和（如分块校验和的 "-分块数" 形式）时为 null
+     */
+    public Long decode(String value) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(value.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (bytes.length != this.width / 8) {
+            return null;
+        }
+        long checksum = 0;
+        for (byte b : bytes) {
+            checksum = (checksum << 8) | (b & 0xFF);
+        }
+        return checksum;
+    }
+
+    /**
+     * 按 S3 中的算法名查找
+     *
+     * @param algorithmName 算法名，不区分大小写
+     * @return 未知算法时为 null
+     */
+    public static ChecksumAlgorithm forName(String algorithmName) {
+        for (ChecksumAlgorithm algorithm : values()) {
+            if (algorithm.algorithmName.equalsIgnoreCase(algorithmName)) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+
+    private static long times(long[] matrix, long vector) {
+        long sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void square(long[] square, long[] matrix) {
+        for (int n = 0; n < matrix.length; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Constructor<? extends Checksum> crc32cConstructor() {
+        try {
+            return (Constructor<? extends Checksum>) Class.forName("java.util.zip.CRC32C").getConstructor();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.zsq.winter.minio.checksum;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Checksum;
+
+/**
+ * 边读边计算校验和，读到末尾时可以与期望值比较
+ * 支持 mark/reset：mark 时把已读部分的校验和合并保存，reset 后从保存的值继续，SDK 重试时重放的字节不会重复计入
+ */
+public class ChecksumInputStream extends FilterInputStream {
+
+    private static final int SKIP_BUFFER_SIZE = 8192;
+
+    private final ChecksumAlgorithm algorithm;
+
+    private final Checksum checksum;
+
+    private final Long expected;
+
+    /**
+     * 上次 mark 之前的数据的校验和与长度
+     */
+    private long markedValue;
+
+    private long markedLength;
+
+    /**
+     * 上次 mark 之后读到的长度
+     */
+    private long length;
+
+    private boolean verified;
+
+    /**
+     * 只计算，不校验
+     *
+     * @param in        数据
+     * @param algorithm 算法
+     */
+    public ChecksumInputStream(InputStream in, ChecksumAlgorithm algorithm) {
+        this(in, algorithm, null);
+    }
+
+    /**
+     * 读到末尾时与 expected 比较，不一致时抛出 IOException
+     *
+     * @param in        数据
+     * @param algorithm 算法
+     * @param expected  期望的校验和，为 null 时不校验
+     */
+    public ChecksumInputStream(InputStream in, ChecksumAlgorithm algorithm, Long expected) {
+        super(in);
+        this.algorithm = algorithm;
+        this.checksum = algorithm.newChecksum();
+        this.expected = expected;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            this.checksum.update(b);
+            this.length++;
+        } else {
+            this.verify();
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            this.checksum.update(b, off, n);
+            this.length += n;
+        } else if (n < 0) {
+            this.verify();
+        }
+        return n;
+    }
+
+    /**
+     * 跳过的字节同样读出并计入校验和，跳过后仍能在末尾校验整个对象
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        byte[] buffer = new byte[(int) Math.min(n, SKIP_BUFFER_SIZE)];
+        long remaining = n;
+        while (remaining > 0) {
+            int read = this.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                break;
+            }
+            remaining -= read;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        super.mark(readlimit);
+        this.markedValue = this.getValue();
+        this.markedLength += this.length;
+        this.checksum.reset();
+        this.length = 0;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        super.reset();
+        this.checksum.reset();
+        this.length = 0;
+    }
+
+    /**
+     * 已读数据的校验和
+     *
+     * @return long
+     */
+    public long getValue() {
+        return this.algorithm.combine(this.markedValue, this.checksum.getValue(), this.length);
+    }
+
+    /**
+     * 已读数据的长度
+     *
+     * @return long
+     */
+    public long getLength() {
+        return this.markedLength + this.length;
+    }
+
+    private void verify() throws IOException {
+        if (this.expected == null || this.verified) {
+            return;
+        }
+        long actual = this.getValue();
+        if (actual != this.expected) {
+            throw new IOException(this.algorithm.getAlgorithmName() + " 校验失败：期望 " + this.algorithm.encode(this.expected)
+                    + "，实际 " + this.algorithm.encode(actual) + "（" + this.getLength() + " 字节）");
+        }
+        this.verified = true;
+    }
+}
@@ -0,0 +1,82 @@
+package com.zsq.winter.minio.checksum;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一次分块上传中各分块的校验和，完成上传时按分块顺序合并为整个对象的校验和
+ * 分块由不同线程并行上传，各自边上传边计算，互不等待
+ */
+public class MultipartChecksum {
+
+    private final ChecksumAlgorithm algorithm;
+
+    /**
+     * 分块编号 -> {校验和, 长度}，同一分块重传时以最后一次为准
+     */
+    private final Map<Integer, long[]> parts = new ConcurrentHashMap<>();
+
+    /**
+     * 创建或最近一次记录分块的时间
+     */
+    private volatile long lastAccessMillis = System.currentTimeMillis();
+
+    public MultipartChecksum(ChecksumAlgorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public ChecksumAlgorithm getAlgorithm() {
+        return this.algorithm;
+    }
+
+    /**
+     * 记录分块的校验和
+     *
+     * @param partNumber 分块编号
+     * @param checksum   校验和
+     * @param length     分块长度
+     */
+    public void put(int partNumber, long checksum, long length) {
+        this.parts.put(partNumber, new long[]{checksum, length});
+        this.lastAccessMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * 是否已经超过 idleMillis 没有记录新的分块
+     *
+     * @param idleMillis 空闲时长
+     * @param now        当前时间
+     * @return boolean
+     */
+    public boolean isIdle(long idleMillis, long now) {
+        return now - this.lastAccessMillis > idleMillis;
+    }
+
+    /**
+     * 分块的校验和未知（如未经模板上传），完成上传时不再提供整对象校验和
+     *
+     * @param partNumber 分块编号
+     */
+    public void remove(int partNumber) {
+        this.parts.remove(partNumber);
+    }
+
+    /**
+     * 按给定的分块顺序合并
+     *
+     * @param partNumbers 完成上传时提交的分块编号，按升序排列
+     * @return 有分块的校验和未知时为 null
+     */
+    public Long combine(List<Integer> partNumbers) {
+        long checksum = 0;
+        for (Integer partNumber : partNumbers) {
+            long[] part = this.parts.get(partNumber);
+            if (part == null) {
+                return null;
+            }
+            checksum = this.algorithm.combine(checksum, part[0], part[1]);
+        }
+        return checksum;
+    }
+}
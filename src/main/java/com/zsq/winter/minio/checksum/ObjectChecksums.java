@@ -0,0 +1,81 @@
+package com.zsq.winter.minio.checksum;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+
+/**
+ * S3 整对象校验和相关的请求头，以及下载时的校验
+ * 发起分块上传时声明算法与 FULL_OBJECT 类型，完成上传时提交各分块合并出的整对象校验和，由服务端校验并保存；
+ * 读取时带上 x-amz-checksum-mode: ENABLED，服务端在响应头中返回保存的校验和
+ */
+public final class ObjectChecksums {
+
+    /**
+     * 发起分块上传时声明的算法
+     */
+    public static final String ALGORITHM_HEADER = "x-amz-checksum-algorithm";
+
+    /**
+     * 校验和类型：FULL_OBJECT 为整个对象的 CRC，COMPOSITE 为各分块校验和的校验和
+     */
+    public static final String TYPE_HEADER = "x-amz-checksum-type";
+
+    /**
+     * 读取对象时请求返回校验和
+     */
+    public static final String MODE_HEADER = "x-amz-checksum-mode";
+
+    public static final String FULL_OBJECT = "FULL_OBJECT";
+
+    public static final String ENABLED = "ENABLED";
+
+    private ObjectChecksums() {
+    }
+
+    /**
+     * 读取时边读边校验：响应中带整对象校验和时，替换对象内容为校验中的流，读到末尾时不一致抛出 IOException
+     * 没有校验和、只有分块校验和（COMPOSITE）的对象不校验
+     *
+     * @param s3Object 完整读取的对象，范围读取的内容无法校验
+     * @return 是否校验
+     */
+    public static boolean verify(S3Object s3Object) {
+        ObjectMetadata metadata = s3Object.getObjectMetadata();
+        ChecksumAlgorithm algorithm = algorithmOf(metadata);
+        if (algorithm == null) {
+            return false;
+        }
+        s3Object.setObjectContent(new ChecksumInputStream(s3Object.getObjectContent(), algorithm, expectedOf(metadata, algorithm)));
+        return true;
+    }
+
+    /**
+     * 响应中整对象校验和的算法（GET 或 HEAD 需要带 x-amz-checksum-mode: ENABLED）
+     *
+     * @param metadata 对象元数据
+     * @return 没有校验和、只有分块校验和（COMPOSITE）时为 null
+     */
+    public static ChecksumAlgorithm algorithmOf(ObjectMetadata metadata) {
+        if ("COMPOSITE".equalsIgnoreCase(String.valueOf(metadata.getRawMetadataValue(TYPE_HEADER)))) {
+            return null;
+        }
+        for (ChecksumAlgorithm algorithm : ChecksumAlgorithm.values()) {
+            if (expectedOf(metadata, algorithm) != null) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 响应中保存的校验和
+     *
+     * @param metadata  对象元数据
+     * @param algorithm 算法
+     * @return 没有或无法解析时为 null
+     */
+    public static Long expectedOf(ObjectMetadata metadata, ChecksumAlgorithm algorithm) {
+        Object value = metadata.getRawMetadataValue(algorithm.getHeaderName());
+        return value == null ? null : algorithm.decode(value.toString());
+    }
+}
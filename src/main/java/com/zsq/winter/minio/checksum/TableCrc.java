@@ -0,0 +1,84 @@
+package com.zsq.winter.minio.checksum;
+
+import java.util.zip.Checksum;
+
+/**
+ * 查表计算的反射 CRC（初值与结果异或值均为全 1），每次处理 8 个字节
+ */
+final class TableCrc implements Checksum {
+
+    private final long[][] tables;
+
+    private final long mask;
+
+    /**
+     * 取反后的寄存器值
+     */
+    private long crc;
+
+    TableCrc(long[][] tables, long mask) {
+        this.tables = tables;
+        this.mask = mask;
+        this.crc = mask;
+    }
+
+    static long[][] tables(long polynomial) {
+        long[][] tables = new long[8][256];
+        for (int i = 0; i < 256; i++) {
+            long c = i;
+            for (int bit = 0; bit < 8; bit++) {
+                c = (c & 1) != 0 ? (c >>> 1) ^ polynomial : c >>> 1;
+            }
+            tables[0][i] = c;
+        }
+        // tables[k][i]：字节 i 之后再追加 k 个 0 字节的结果
+        for (int k = 1; k < 8; k++) {
+            for (int i = 0; i < 256; i++) {
+                long previous = tables[k - 1][i];
+                tables[k][i] = (previous >>> 8) ^ tables[0][(int) (previous & 0xFF)];
+            }
+        }
+        return tables;
+    }
+
+    @Override
+    public void update(int b) {
+        this.crc = (this.crc >>> 8) ^ this.tables[0][(int) ((this.crc ^ b) & 0xFF)];
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        long[][] t = this.tables;
+        long c = this.crc;
+        while (len >= 8) {
+            long x = c ^ ((b[off] & 0xFFL)
+                    | (b[off + 1] & 0xFFL) << 8
+                    | (b[off + 2] & 0xFFL) << 16
+                    | (b[off + 3] & 0xFFL) << 24
+                    | (b[off + 4] & 0xFFL) << 32
+                    | (b[off + 5] & 0xFFL) << 40
+                    | (b[off + 6] & 0xFFL) << 48
+                    | (b[off + 7] & 0xFFL) << 56);
+            c = t[7][(int) (x & 0xFF)] ^ t[6][(int) ((x >>> 8) & 0xFF)]
+                    ^ t[5][(int) ((x >>> 16) & 0xFF)] ^ t[4][(int) ((x >>> 24) & 0xFF)]
+                    ^ t[3][(int) ((x >>> 32) & 0xFF)] ^ t[2][(int) ((x >>> 40) & 0xFF)]
+                    ^ t[1][(int) ((x >>> 48) & 0xFF)] ^ t[0][(int) (x >>> 56)];
+            off += 8;
+            len -= 8;
+        }
+        while (len-- > 0) {
+            c = (c >>> 8) ^ t[0][(int) ((c ^ b[off++]) & 0xFF)];
+        }
+        this.crc = c;
+    }
+
+    @Override
+    public long getValue() {
+        return ~this.crc & this.mask;
+    }
+
+    @Override
+    public void reset() {
+        this.crc = this.mask;
+    }
+}
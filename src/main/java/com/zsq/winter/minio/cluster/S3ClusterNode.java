@@ -0,0 +1,100 @@
+package com.zsq.winter.minio.cluster;
+
+import com.amazonaws.services.s3.AmazonS3;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 集群中的单个节点，记录节点的健康状态、探测延迟和正在处理的请求数
+ */
+public class S3ClusterNode {
+
+    /**
+     * 延迟的指数加权移动平均系数，越大越偏向最近一次探测结果
+     */
+    private static final double EWMA_ALPHA = 0.3;
+
+    @Getter
+    private final String endpoint;
+
+    @Getter
+    private final AmazonS3 client;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile boolean healthy = true;
+
+    /**
+     * 探测延迟的移动平均值(纳秒)，0 表示还没有探测结果
+     */
+    private volatile double latencyNanos;
+
+    public S3ClusterNode(String endpoint, AmazonS3 client) {
+        this.endpoint = endpoint;
+        this.client = client;
+    }
+
+    public boolean isHealthy() {
+        return this.healthy;
+    }
+
+    public double getLatencyNanos() {
+        return this.latencyNanos;
+    }
+
+    public int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    public int getConsecutiveFailures() {
+        return this.consecutiveFailures.get();
+    }
+
+    void acquire() {
+        this.inFlight.incrementAndGet();
+    }
+
+    void release() {
+        this.inFlight.decrementAndGet();
+    }
+
+    /**
+     * 记录一次成功的探测，节点恢复为可用
+     *
+     * @param nanos 探测耗时
+     */
+    synchronized void recordProbe(long nanos) {
+        this.latencyNanos = this.latencyNanos == 0 ? nanos : this.latencyNanos + EWMA_ALPHA * (nanos - this.latencyNanos);
+        this.consecutiveFailures.set(0);
+        this.healthy = true;
+    }
+
+    /**
+     * 记录一次成功的请求
+     */
+    void recordSuccess() {
+        this.consecutiveFailures.set(0);
+    }
+
+    /**
+     * 记录一次失败（探测失败或请求失败），连续失败达到阈值后摘除节点
+     *
+     * @param failureThreshold 阈值
+     * @return 本次失败是否导致节点被摘除
+     */
+    boolean recordFailure(int failureThreshold) {
+        if (this.consecutiveFailures.incrementAndGet() >= failureThreshold && this.healthy) {
+            this.healthy = false;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "S3ClusterNode{" + this.endpoint + ", healthy=" + this.healthy + "}";
+    }
+}
@@ -0,0 +1,254 @@
+package com.zsq.winter.minio.cluster;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.zsq.winter.minio.config.AmazonS3ClientFactory;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.support.AmazonS3CallContext;
+import com.zsq.winter.minio.support.AmazonS3Invocations;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多节点路由：把 {@link AmazonS3} 的每次调用转发到当前最健康、延迟最低的节点
+ * 被动：请求出现网络异常或 5xx 时累计失败次数，连续失败达到阈值后摘除节点
+ * 主动：定时探测每个节点的存活接口，更新延迟并让恢复的节点重新加入
+ * 重试只由一层负责：启用弹性调用层时路由只选节点，失败后由弹性调用层退避重试，重试请求避开刚失败的节点；
+ * 未启用时路由在节点故障时换一个节点转发一次
+ */
+@Slf4j
+public class S3ClusterRouter implements InvocationHandler, Closeable {
+
+    private final List<S3ClusterNode> nodes;
+
+    private final AmazonS3Properties.Cluster cluster;
+
+    private final ScheduledExecutorService prober;
+
+    /**
+     * 节点故障时是否在本次调用内换节点转发
+     */
+    private final boolean failover;
+
+    public S3ClusterRouter(List<S3ClusterNode> nodes, AmazonS3Properties.Cluster cluster) {
+        this(nodes, cluster, true);
+    }
+
+    /**
+     * @param nodes    节点
+     * @param cluster  集群配置
+     * @param failover 节点故障时是否在本次调用内换节点转发，外层已有重试时应为 false，避免两层重试次数相乘
+     */
+    public S3ClusterRouter(List<S3ClusterNode> nodes, AmazonS3Properties.Cluster cluster, boolean failover) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("集群至少需要一个节点");
+        }
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+        this.cluster = cluster;
+        this.failover = failover;
+        this.prober = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "winter-s3-cluster-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = cluster.getProbeInterval().toMillis();
+        this.prober.scheduleWithFixedDelay(this::probeAll, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 根据配置中的 endpoints 创建集群客户端
+     *
+     * @param amazonS3Properties 配置
+     * @return {@link AmazonS3}
+     */
+    public static AmazonS3 newClusterClient(AmazonS3Properties amazonS3Properties) {
+        List<S3ClusterNode> nodes = new ArrayList<>();
+        for (String endpoint : amazonS3Properties.getEndpoints()) {
+            nodes.add(new S3ClusterNode(endpoint, AmazonS3ClientFactory.create(endpoint, amazonS3Properties)));
+        }
+        // 启用弹性调用层时由其负责重试，路由只选节点
+        S3ClusterRouter router = new S3ClusterRouter(nodes, amazonS3Properties.getCluster(), !amazonS3Properties.getResilience().getEnabled());
+        return (AmazonS3) Proxy.newProxyInstance(AmazonS3.class.getClassLoader(), new Class<?>[]{AmazonS3.class}, router);
+    }
+
+    public List<S3ClusterNode> getNodes() {
+        return this.nodes;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return "S3ClusterRouter" + this.nodes;
+            }
+        }
+        if ("shutdown".equals(method.getName())) {
+            this.close();
+            return null;
+        }
+        // 外层重试时避开本次调用上一次失败的节点，记录随拦截器链的调用结束而清除
+        S3ClusterNode node = this.select((S3ClusterNode) AmazonS3CallContext.remove(this));
+        try {
+            return this.invokeOn(node, method, args);
+        } catch (Throwable e) {
+            if (!AmazonS3Invocations.isServerFailure(e)) {
+                throw e;
+            }
+            if (!this.failover) {
+                // 由外层重试，重试时避开该节点
+                AmazonS3CallContext.put(this, node);
+                throw e;
+            }
+            // 节点故障时换一个节点转发一次，带输入流的上传请求无法重放
+            if (!AmazonS3Invocations.isReplayable(args)) {
+                throw e;
+            }
+            S3ClusterNode other = this.select(node);
+            if (other == node) {
+                throw e;
+            }
+            return this.invokeOn(other, method, args);
+        }
+    }
+
+    private Object invokeOn(S3ClusterNode node, Method method, Object[] args) throws Throwable {
+        node.acquire();
+        try {
+            Object result = AmazonS3Invocations.invoke(node.getClient(), method, args);
+            node.recordSuccess();
+            return result;
+        } catch (Throwable e) {
+            if (AmazonS3Invocations.isServerFailure(e) && node.recordFailure(this.cluster.getFailureThreshold())) {
+                log.warn("S3 节点 {} 连续失败，已从路由中摘除", node.getEndpoint());
+            }
+            throw e;
+        } finally {
+            node.release();
+        }
+    }
+
+    /**
+     * 在健康节点中随机取两个，选择 延迟 × (在途请求数 + 1) 更小的一个，避免所有请求同时涌向同一个节点
+     * 没有健康节点时退化为在全部节点中选择
+     *
+     * @param exclude 需要排除的节点，可为空
+     * @return {@link S3ClusterNode}
+     */
+    S3ClusterNode select(S3ClusterNode exclude) {
+        List<S3ClusterNode> candidates = new ArrayList<>(this.nodes.size());
+        for (S3ClusterNode node : this.nodes) {
+            if (node.isHealthy() && node != exclude) {
+                candidates.add(node);
+            }
+        }
+        if (candidates.isEmpty()) {
+            for (S3ClusterNode node : this.nodes) {
+                if (node != exclude) {
+                    candidates.add(node);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return exclude;
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(candidates.size());
+        int j = random.nextInt(candidates.size() - 1);
+        if (j >= i) {
+            j++;
+        }
+        S3ClusterNode a = candidates.get(i);
+        S3ClusterNode b = candidates.get(j);
+        return this.cost(a) <= this.cost(b) ? a : b;
+    }
+
+    private double cost(S3ClusterNode node) {
+        double latency = node.getLatencyNanos();
+        if (latency == 0) {
+            // 尚无探测结果的节点按 1ms 估算
+            latency = TimeUnit.MILLISECONDS.toNanos(1);
+        }
+        return latency * (node.getInFlight() + 1);
+    }
+
+    void probeAll() {
+        for (S3ClusterNode node : this.nodes) {
+            try {
+                this.probe(node);
+            } catch (RuntimeException e) {
+                log.debug("S3 节点 {} 探测异常", node.getEndpoint(), e);
+            }
+        }
+    }
+
+    private void probe(S3ClusterNode node) {
+        int timeout = (int) this.cluster.getProbeTimeout().toMillis();
+        long start = System.nanoTime();
+        boolean alive;
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) probeUrl(node.getEndpoint(), this.cluster.getProbePath()).openConnection();
+            connection.setConnectTimeout(timeout);
+            connection.setReadTimeout(timeout);
+            alive = connection.getResponseCode() < 500;
+        } catch (Exception e) {
+            alive = false;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+        if (alive) {
+            boolean wasHealthy = node.isHealthy();
+            node.recordProbe(System.nanoTime() - start);
+            if (!wasHealthy) {
+                log.info("S3 节点 {} 已恢复，重新加入路由", node.getEndpoint());
+            }
+        } else if (node.recordFailure(this.cluster.getFailureThreshold())) {
+            log.warn("S3 节点 {} 探测失败，已从路由中摘除", node.getEndpoint());
+        }
+    }
+
+    /**
+     * 探测地址：节点地址没有协议时按 http 处理，探测路径按 URI 规则相对节点地址解析，节点地址结尾的 / 不会产生 //
+     *
+     * @param endpoint  节点地址
+     * @param probePath 探测路径
+     * @return {@link URL}
+     * @throws MalformedURLException 地址无效
+     */
+    static URL probeUrl(String endpoint, String probePath) throws MalformedURLException {
+        String base = endpoint.contains("://") ? endpoint : "http://" + endpoint;
+        return URI.create(base.endsWith("/") ? base : base + "/").resolve(probePath).toURL();
+    }
+
+    @Override
+    public void close() {
+        this.prober.shutdownNow();
+        for (S3ClusterNode node : this.nodes) {
+            node.getClient().shutdown();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.zsq.winter.minio.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 对象压缩编码，名称记录在对象的用户元数据中
+ */
+public enum CompressionCodec {
+    /**
+     * gzip，可以直接用 gunzip 等工具解压
+     */
+    GZIP("gzip") {
+        @Override
+        public OutputStream compress(OutputStream outputStream, int level) throws IOException {
+            return new GZIPOutputStream(outputStream, BUFFER_SIZE) {
+                {
+                    this.def.setLevel(level);
+                }
+            };
+        }
+
+        @Override
+        public InputStream decompress(InputStream inputStream) throws IOException {
+            return new GZIPInputStream(inputStream, BUFFER_SIZE);
+        }
+    },
+    /**
+     * zlib 格式的 deflate，比 gzip 少 10 余字节的头尾，压缩率与速度相同
+     */
+    DEFLATE("deflate") {
+        @Override
+        public OutputStream compress(OutputStream outputStream, int level) {
+            Deflater deflater = new Deflater(level);
+            return new DeflaterOutputStream(outputStream, deflater, BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        deflater.end();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public InputStream decompress(InputStream inputStream) {
+            Inflater inflater = new Inflater();
+            return new InflaterInputStream(inputStream, inflater, BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        inflater.end();
+                    }
+                }
+            };
+        }
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String codecName;
+
+    CompressionCodec(String codecName) {
+        this.codecName = codecName;
+    }
+
+    /**
+     * 记录在元数据中的名称
+     *
+     * @return {@link String}
+     */
+    public String getCodecName() {
+        return this.codecName;
+    }
+
+    /**
+     * 包装输出流，写入的数据压缩后写到 outputStream；关闭时写完压缩数据并关闭 outputStream
+     *
+     * @param outputStream 压缩数据的输出
+     * @param level        压缩级别 1-9，-1 为默认级别（6）
+     * @return {@link OutputStream}
+     * @throws IOException IOException
+     */
+    public abstract OutputStream compress(OutputStream outputStream, int level) throws IOException;
+
+    /**
+     * 包装输入流，读出解压后的数据；关闭时关闭 inputStream
+     *
+     * @param inputStream 压缩数据
+     * @return {@link InputStream}
+     * @throws IOException IOException
+     */
+    public abstract InputStream decompress(InputStream inputStream) throws IOException;
+
+    /**
+     * 按元数据中的名称查找
+     *
+     * @param codecName 名称
+     * @return 未知名称时为 null
+     */
+    public static CompressionCodec forName(String codecName) {
+        for (CompressionCodec codec : values()) {
+            if (codec.codecName.equalsIgnoreCase(codecName)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,294 @@
+package com.zsq.winter.minio.compression;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartSummary;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import com.zsq.winter.minio.support.LimitedInputStream;
+import com.zsq.winter.minio.support.MultipartUploads;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 上传时按存储桶与对象键规则透明压缩，下载时按元数据解压
+ * 1. 压缩编码与原始大小记录在用户元数据中，Content-Type 保持原值；不设置 Content-Encoding，避免浏览器、代理自动解压
+ * 2. 边读边压缩：压缩数据不超过 partSize 时单次上传，超过后改为分块上传，内存占用不超过一个分块
+ * 3. 读取时只看元数据，关闭压缩或修改规则后，已压缩的对象仍能正常读取
+ * 对象大小、ETag 与列举结果都是压缩后的值；压缩对象的范围读取需要从头解压，适合整体读取的 JSON、日志等对象
+ */
+public class ObjectCompression {
+
+    /**
+     * 记录压缩编码的用户元数据
+     */
+    public static final String CODEC_METADATA = "winter-compression";
+
+    /**
+     * 记录压缩前大小的用户元数据
+     */
+    public static final String ORIGINAL_LENGTH_METADATA = "winter-original-length";
+
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private static final int MIN_BUFFER_SIZE = 1024;
+
+    private final AmazonS3Properties.Compression properties;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public ObjectCompression(AmazonS3Properties.Compression properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 对象适用的压缩规则
+     *
+     * @param bucketName    存储桶名称
+     * @param key           对象键
+     * @param contentLength 压缩前的大小
+     * @return 不压缩时为 null
+     */
+    public AmazonS3Properties.CompressionRule match(String bucketName, String key, long contentLength) {
+        if (!Boolean.TRUE.equals(this.properties.getEnabled()) || contentLength < this.properties.getMinSize().toBytes()) {
+            return null;
+        }
+        for (AmazonS3Properties.CompressionRule rule : this.properties.getRules()) {
+            if ((!StringUtils.hasText(rule.getBucket()) || rule.getBucket().equals(bucketName))
+                    && (!StringUtils.hasText(rule.getPattern()) || this.pathMatcher.match(rule.getPattern(), key))) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 压缩后上传
+     *
+     * @param template      发起分块上传与上传分块使用的模板
+     * @param amazonS3      单次上传使用的客户端，需要带上用户元数据
+     * @param bucketName    存储桶名称
+     * @param key           对象键
+     * @param contentType   Content-Type
+     * @param inputStream   原始数据
+     * @param contentLength 读取的字节数
+     * @param rule          压缩规则
+     * @return {@link PutObjectResult}
+     * @throws IOException 读取失败
+     */
+    public PutObjectResult putObject(AmazonS3Template template, AmazonS3 amazonS3, String bucketName, String key, String contentType,
+                                     InputStream inputStream, long contentLength, AmazonS3Properties.CompressionRule rule) throws IOException {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(contentType);
+        metadata.addUserMetadata(CODEC_METADATA, rule.getCodec().getCodecName());
+        metadata.addUserMetadata(ORIGINAL_LENGTH_METADATA, String.valueOf(contentLength));
+        PartSink sink = new PartSink(template, bucketName, key, metadata,
+                (int) Math.max(MIN_PART_SIZE, Math.min(this.properties.getPartSize().toBytes(), Integer.MAX_VALUE - 8)), contentLength);
+        try {
+            OutputStream compressed = rule.getCodec().compress(sink, rule.getLevel());
+            try {
+                long copied = StreamUtils.copyRange(inputStream, compressed, 0, contentLength - 1);
+                if (copied != contentLength) {
+                    throw new IOException("流的长度 " + copied + " 小于 contentLength " + contentLength);
+                }
+            } catch (IOException | RuntimeException e) {
+                // 关闭压缩流时不再上传剩余的数据
+                sink.discarded = true;
+                throw e;
+            } finally {
+                compressed.close();
+            }
+            if (sink.uploadId == null) {
+                metadata.setContentLength(sink.length);
+                return amazonS3.putObject(new PutObjectRequest(bucketName, key, new ByteArrayInputStream(sink.buffer, 0, sink.length), metadata));
+            }
+            sink.flushPart();
+            CompleteMultipartUploadResult completed = template.completeMultipartUpload(bucketName, key, sink.uploadId, sink.parts);
+            PutObjectResult result = new PutObjectResult();
+            result.setETag(completed.getETag());
+            result.setVersionId(completed.getVersionId());
+            result.setMetadata(metadata);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            sink.abort(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 对象内容，按元数据解压
+     *
+     * @param s3Object 对象
+     * @return 未压缩的对象返回原始内容
+     * @throws IOException 压缩数据的头无效
+     */
+    public static InputStream decompress(S3Object s3Object) throws IOException {
+        S3ObjectInputStream content = s3Object.getObjectContent();
+        try {
+            CompressionCodec codec = codecOf(s3Object.getObjectMetadata());
+            return codec == null ? content : codec.decompress(content);
+        } catch (IOException | RuntimeException e) {
+            content.abort();
+            s3Object.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 对象内容，按元数据解压
+     *
+     * @param content  对象内容
+     * @param metadata 元数据
+     * @return 未压缩的对象返回原始内容
+     * @throws IOException 压缩数据的头无效
+     */
+    public static InputStream decompress(InputStream content, ObjectMetadata metadata) throws IOException {
+        try {
+            CompressionCodec codec = codecOf(metadata);
+            return codec == null ? content : codec.decompress(content);
+        } catch (IOException | RuntimeException e) {
+            content.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 对象的压缩编码
+     *
+     * @param metadata 元数据
+     * @return 未压缩时为 null
+     */
+    public static CompressionCodec codecOf(ObjectMetadata metadata) {
+        String codecName = metadata.getUserMetaDataOf(CODEC_METADATA);
+        if (codecName == null) {
+            return null;
+        }
+        CompressionCodec codec = CompressionCodec.forName(codecName);
+        if (codec == null) {
+            throw new IllegalStateException("不支持的压缩编码：" + codecName);
+        }
+        return codec;
+    }
+
+    /**
+     * 解压后的 [start, end]（含 end）范围
+     *
+     * @param inputStream 解压后的内容
+     * @param start       开始位置
+     * @param end         结束位置
+     * @return {@link InputStream}
+     * @throws IOException IOException
+     */
+    public static InputStream range(InputStream inputStream, long start, long end) throws IOException {
+        try {
+            long skipped = 0;
+            while (skipped < start) {
+                long n = inputStream.skip(start - skipped);
+                if (n <= 0) {
+                    if (inputStream.read() < 0) {
+                        break;
+                    }
+                    n = 1;
+                }
+                skipped += n;
+            }
+        } catch (IOException | RuntimeException e) {
+            inputStream.close();
+            throw e;
+        }
+        return new LimitedInputStream(inputStream, end - start + 1);
+    }
+
+    /**
+     * 缓冲压缩数据，满一个分块时发起（或继续）分块上传
+     * 缓冲区初始按原始大小分配（压缩后通常更小），不够时倍增到分块大小，小对象不会每次分配一整个分块
+     */
+    private static final class PartSink extends OutputStream {
+
+        private final AmazonS3Template template;
+
+        private final String bucketName;
+
+        private final String key;
+
+        private final ObjectMetadata metadata;
+
+        private final int partSize;
+
+        private byte[] buffer;
+
+        private int length;
+
+        private String uploadId;
+
+        private final List<PartSummary> parts = new ArrayList<>();
+
+        private boolean discarded;
+
+        private PartSink(AmazonS3Template template, String bucketName, String key, ObjectMetadata metadata, int partSize, long contentLength) {
+            this.template = template;
+            this.bucketName = bucketName;
+            this.key = key;
+            this.metadata = metadata;
+            this.partSize = partSize;
+            this.buffer = new byte[(int) Math.min(partSize, Math.max(contentLength, MIN_BUFFER_SIZE))];
+        }
+
+        @Override
+        public void write(int b) {
+            this.write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            while (len > 0 && !this.discarded) {
+                if (this.length == this.buffer.length) {
+                    if (this.buffer.length < this.partSize) {
+                        this.buffer = Arrays.copyOf(this.buffer, (int) Math.min(this.partSize, this.buffer.length * 2L));
+                    } else {
+                        this.flushPart();
+                    }
+                }
+                int n = Math.min(len, this.buffer.length - this.length);
+                System.arraycopy(b, off, this.buffer, this.length, n);
+                this.length += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        private void flushPart() {
+            if (this.uploadId == null) {
+                this.uploadId = this.template.initiateMultipartUpload(
+                        new InitiateMultipartUploadRequest(this.bucketName, this.key, this.metadata)).getUploadId();
+            }
+            int partNumber = this.parts.size() + 1;
+            UploadPartResult result = this.template.uploadPart(this.bucketName, this.uploadId, this.key, null, partNumber, this.length,
+                    new ByteArrayInputStream(this.buffer, 0, this.length));
+            this.parts.add(MultipartUploads.partSummary(partNumber, result));
+            this.length = 0;
+        }
+
+        private void abort(Throwable cause) {
+            if (this.uploadId != null) {
+                MultipartUploads.abortQuietly(this.template, this.bucketName, this.key, this.uploadId, cause);
+            }
+        }
+    }
+}
@@ -1,20 +1,52 @@
 package com.zsq.winter.minio.config;
 
-import com.amazonaws.ClientConfiguration;
-import com.amazonaws.Protocol;
-import com.amazonaws.auth.AWSCredentials;
-import com.amazonaws.auth.AWSStaticCredentialsProvider;
-import com.amazonaws.auth.BasicAWSCredentials;
-import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.zsq.winter.minio.async.AsyncAmazonS3Template;
+import com.zsq.winter.minio.async.InstrumentedThreadPoolExecutor;
+import com.zsq.winter.minio.cluster.S3ClusterRouter;
+import com.zsq.winter.minio.engine.AmazonS3Engine;
+import com.zsq.winter.minio.engine.S3AsyncClientEngine;
+import com.zsq.winter.minio.engine.S3Engine;
+import com.zsq.winter.minio.hedge.HedgingInterceptor;
+import com.zsq.winter.minio.listener.TransferListener;
+import com.zsq.winter.minio.listener.TransferListeners;
+import com.zsq.winter.minio.metrics.AmazonS3ConnectionPoolMetrics;
+import com.zsq.winter.minio.metrics.AmazonS3MetricsInterceptor;
+import com.zsq.winter.minio.metrics.AsyncExecutorMetrics;
+import com.zsq.winter.minio.metrics.WriteBehindMetrics;
+import com.zsq.winter.minio.multipart.MultipartUploadReaper;
+import com.zsq.winter.minio.dedup.DedupAmazonS3Template;
+import com.zsq.winter.minio.dedup.DedupIndex;
+import com.zsq.winter.minio.dedup.InMemoryDedupIndex;
+import com.zsq.winter.minio.pack.InMemoryPackIndex;
+import com.zsq.winter.minio.pack.PackIndex;
+import com.zsq.winter.minio.pack.PackedAmazonS3Template;
+import com.zsq.winter.minio.reactive.ReactiveAmazonS3Template;
+import com.zsq.winter.minio.resilience.ResilienceInterceptor;
 import com.zsq.winter.minio.service.AmazonS3Template;
+import com.zsq.winter.minio.support.AmazonS3Interceptor;
+import com.zsq.winter.minio.support.AmazonS3InterceptorChain;
+import com.zsq.winter.minio.support.TransferExecutors;
+import com.zsq.winter.minio.tenant.AmazonS3TemplateRegistry;
+import com.zsq.winter.minio.writebehind.WriteBehindQueue;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @EnableConfigurationProperties({AmazonS3Properties.class})
 /*
@@ -29,6 +61,11 @@ import org.springframework.context.annotation.Configuration;
         matchIfMissing = true
 )
 @Configuration
+// 在 MeterRegistry 注册之后处理，以便按是否存在 MeterRegistry 决定是否注册指标
+@AutoConfigureAfter(name = {
+        "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration",
+        "org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration"
+})
 public class AmazonS3AutoConfiguration {
     //@Resource
     //private MinioProperties minioProperties;  可以直接注入该依赖，或者直接在方法参数中引入该类型的参数
@@ -37,50 +74,241 @@ public class AmazonS3AutoConfiguration {
     //@ConditionalOnMissingBean(AmazonS3.class) 希望在容器中不存在名为 `AmazonS3` 的 Bean 时，才创建一个新的 `AmazonS3` 实例
     @ConditionalOnMissingBean({AmazonS3.class})
     @Bean
-    public AmazonS3 amazon(AmazonS3Properties minioProperties) {
-        // 禁用AWS SDK 1.x弃用警告
-        System.setProperty("aws.java.v1.disableDeprecationAnnouncement", "true");
-        
-        //设置连接时的参数
-        ClientConfiguration config = new ClientConfiguration();
-        // 设置AmazonS3使用的最大连接数
-        config.setMaxConnections(500);
-        // 设置socket超时时间
-        config.setSocketTimeout(20000);
-        // 设置失败请求重试次数
-        config.setMaxConnections(2);
-        //设置连接方式为HTTP，可选参数为HTTP和HTTPS
-        config.setProtocol(Protocol.HTTP);
-        //设置网络访问超时时间
-        config.setConnectionTimeout(10000);
-
-
-        config.setUseExpectContinue(true);
-        AWSCredentials credentials = new BasicAWSCredentials(minioProperties.getAccessKey(), minioProperties.getSecretKey());
-        //设置Endpoint
-        AwsClientBuilder.EndpointConfiguration end_point = new AwsClientBuilder.EndpointConfiguration(
-                minioProperties.getEndpoint(), minioProperties.getRegion());
-        return AmazonS3ClientBuilder.standard()
-                .withClientConfiguration(config)
-                .withCredentials(new AWSStaticCredentialsProvider(credentials))
-                .withEndpointConfiguration(end_point)
-                .withPathStyleAccessEnabled(minioProperties.getPathStyleAccess()).build();
-       /* withPathStyleAccessEnabled 是Amazon S3客户端配置中的一个选项，它用于指定是否启用路径样式访问（Path-Style Access）。
-        在Amazon S3中，有两种不同的URL访问样式：
-        虚拟主机访问样式（Virtual Hosted-Style Access）： 默认情况下，Amazon S3的访问样式是虚拟主机访问样式。在虚拟主机访问样式中，访问一个桶中的对象的URL的格式为
-        http://bucket-name.s3.amazonaws.com/object-key。这种方式更符合RESTful风格，并且通常更简洁。
-        路径样式访问（Path-Style Access）： 在路径样式访问中，访问一个桶中的对象的URL的格式为
-        http://s3.amazonaws.com/bucket-name/object-key。这种方式将桶名作为URL的一部分，更类似传统的URL路径结构。
-        withPathStyleAccessEnabled 的意义在于，当启用路径样式访问时，你可以通过类似
-        http://s3.amazonaws.com/bucket-name/object-key 的URL 访问对象，而无需使用特定的桶名前缀
-        （例如bucket-name.s3.amazonaws.com）。这在某些特殊情况下很有用，例如在使用代理服务器或者某些第三方库时，这些情况下虚拟主机访问样式可能会遇到问题。*/
+    public AmazonS3 amazon(AmazonS3Properties minioProperties, ObjectProvider<AmazonS3Interceptor> interceptors) {
+        AmazonS3 amazonS3;
+        // 配置了多个节点时，按节点健康状况和延迟路由请求
+        if (!minioProperties.getEndpoints().isEmpty()) {
+            amazonS3 = S3ClusterRouter.newClusterClient(minioProperties);
+        } else {
+            amazonS3 = AmazonS3ClientFactory.create(minioProperties.getEndpoint(), minioProperties);
+        }
+        // 按 Ordered 顺序由外到内包裹拦截器（指标、重试限流熔断等）
+        return AmazonS3InterceptorChain.wrap(amazonS3, interceptors.orderedStream().collect(Collectors.toList()));
+    }
+
+    /**
+     * 读请求对冲，winter-aws.hedge.enabled=true 时生效
+     */
+    @Bean
+    @ConditionalOnMissingBean({HedgingInterceptor.class})
+    @ConditionalOnProperty(prefix = "winter-aws.hedge", name = {"enabled"}, havingValue = "true")
+    public HedgingInterceptor hedgingInterceptor(AmazonS3Properties amazonS3Properties) {
+        return new HedgingInterceptor(amazonS3Properties.getHedge(), amazonS3Properties.getVirtualThreads());
+    }
+
+    /**
+     * 重试、限流与熔断，winter-aws.resilience.enabled=true 时生效
+     */
+    @Bean
+    @ConditionalOnMissingBean({ResilienceInterceptor.class})
+    @ConditionalOnProperty(prefix = "winter-aws.resilience", name = {"enabled"}, havingValue = "true")
+    public ResilienceInterceptor resilienceInterceptor(AmazonS3Properties amazonS3Properties, ObjectProvider<TransferListener> transferListeners) {
+        return new ResilienceInterceptor(amazonS3Properties.getResilience(), transferListener(transferListeners));
     }
 
     @Bean
     @ConditionalOnMissingBean({AmazonS3Template.class})
     @ConditionalOnBean({AmazonS3.class})
     //用于在 Spring 容器中存在AmazonS3 时且不存在AmazonS3Template才会生效
-    public AmazonS3Template amazonS3Template(AmazonS3Properties amazonS3Properties,AmazonS3 amazonS3){
-        return new AmazonS3Template(amazonS3Properties,amazonS3);
+    public AmazonS3Template amazonS3Template(AmazonS3Properties amazonS3Properties,AmazonS3 amazonS3, ObjectProvider<TransferListener> transferListeners,
+                                             ObjectProvider<S3Engine> engines){
+        // v1 引擎只是把同一个客户端放到线程池里执行，模板直接调用客户端即可；v2 时对象读写改走 S3AsyncClient
+        S3Engine engine = amazonS3Properties.getEngine() == AmazonS3Properties.EngineType.V2 ? engines.getIfAvailable() : null;
+        AmazonS3Template amazonS3Template = new AmazonS3Template(amazonS3Properties,amazonS3, engine);
+        amazonS3Template.setTransferListener(transferListener(transferListeners));
+        return amazonS3Template;
+    }
+
+    /**
+     * 多租户模板注册表，按 winter-aws.clients.&lt;name&gt; 懒加载各租户的模板
+     */
+    @Bean
+    @ConditionalOnMissingBean({AmazonS3TemplateRegistry.class})
+    public AmazonS3TemplateRegistry amazonS3TemplateRegistry(AmazonS3Properties amazonS3Properties, ObjectProvider<AmazonS3Interceptor> interceptors,
+                                                             ObjectProvider<TransferListener> transferListeners) {
+        return new AmazonS3TemplateRegistry(amazonS3Properties, interceptors.orderedStream().collect(Collectors.toList()), transferListener(transferListeners));
+    }
+
+    /**
+     * 异步模板使用的有界线程池，开启虚拟线程且运行在 Java 21+ 时改为每个任务一个虚拟线程，容器关闭时停止接收新任务
+     */
+    @Bean(name = "amazonS3AsyncExecutor", destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = "amazonS3AsyncExecutor")
+    public ExecutorService amazonS3AsyncExecutor(AmazonS3Properties amazonS3Properties) {
+        AmazonS3Properties.Async async = amazonS3Properties.getAsync();
+        if (TransferExecutors.useVirtualThreads(amazonS3Properties.getVirtualThreads())) {
+            return TransferExecutors.newVirtualThreadPerTaskExecutor(async.getThreadNamePrefix());
+        }
+        return new InstrumentedThreadPoolExecutor(async.getCorePoolSize(), Math.max(async.getCorePoolSize(), async.getMaxPoolSize()),
+                async.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(async.getQueueCapacity()),
+                TransferExecutors.threadFactory(async.getThreadNamePrefix(), false));
+    }
+
+    /**
+     * 异步模板，返回 CompletableFuture
+     */
+    @Bean
+    @ConditionalOnMissingBean({AsyncAmazonS3Template.class})
+    @ConditionalOnBean({AmazonS3Template.class})
+    public AsyncAmazonS3Template asyncAmazonS3Template(AmazonS3Template amazonS3Template, @Qualifier("amazonS3AsyncExecutor") ExecutorService amazonS3AsyncExecutor) {
+        return new AsyncAmazonS3Template(amazonS3Template, amazonS3AsyncExecutor);
+    }
+
+    /**
+     * 小文件打包模板，winter-aws.pack.enabled=true 时生效；未声明 PackIndex Bean 时使用内存索引，
+     * 创建后在后台从索引清单重建，存储不可用时不影响启动，首次读写时重试
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean({PackedAmazonS3Template.class})
+    @ConditionalOnBean({AmazonS3.class})
+    @ConditionalOnProperty(prefix = "winter-aws.pack", name = {"enabled"}, havingValue = "true")
+    public PackedAmazonS3Template packedAmazonS3Template(AmazonS3Properties amazonS3Properties, AmazonS3 amazonS3, ObjectProvider<PackIndex> packIndex) {
+        PackedAmazonS3Template template = new PackedAmazonS3Template(amazonS3Properties, amazonS3, packIndex.getIfAvailable(InMemoryPackIndex::new));
+        template.recoverInBackground();
+        return template;
+    }
+
+    /**
+     * 内容寻址去重模板，winter-aws.dedup.enabled=true 时生效；未声明 DedupIndex Bean 时使用内存索引，
+     * 索引为空时在后台从引用标记重建，存储不可用时不影响启动，首次读写时重试；已有数据的外部索引不重建，避免引用计数重复累加
+     */
+    @Bean
+    @ConditionalOnMissingBean({DedupAmazonS3Template.class})
+    @ConditionalOnBean({AmazonS3.class})
+    @ConditionalOnProperty(prefix = "winter-aws.dedup", name = {"enabled"}, havingValue = "true")
+    public DedupAmazonS3Template dedupAmazonS3Template(AmazonS3Properties amazonS3Properties, AmazonS3 amazonS3, ObjectProvider<DedupIndex> dedupIndex) {
+        DedupIndex index = dedupIndex.getIfAvailable(InMemoryDedupIndex::new);
+        DedupAmazonS3Template template = new DedupAmazonS3Template(amazonS3Properties, amazonS3, index);
+        if (index.size() == 0) {
+            template.recoverInBackground();
+        }
+        return template;
+    }
+
+    /**
+     * 异步写回队列，winter-aws.write-behind.enabled=true 时生效；关闭时等待内存中的请求上传完成
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean({WriteBehindQueue.class})
+    @ConditionalOnBean({AmazonS3.class})
+    @ConditionalOnProperty(prefix = "winter-aws.write-behind", name = {"enabled"}, havingValue = "true")
+    public WriteBehindQueue writeBehindQueue(AmazonS3Properties amazonS3Properties, AmazonS3 amazonS3, ObjectProvider<TransferListener> transferListeners) {
+        WriteBehindQueue queue = new WriteBehindQueue(amazonS3Properties, amazonS3);
+        queue.setTransferListener(transferListener(transferListeners));
+        return queue;
+    }
+
+    /**
+     * 过期分片上传清理，winter-aws.multipart-reaper.enabled=true 时生效，按 interval 在后台定期清理
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean({MultipartUploadReaper.class})
+    @ConditionalOnBean({AmazonS3.class})
+    @ConditionalOnProperty(prefix = "winter-aws.multipart-reaper", name = {"enabled"}, havingValue = "true")
+    public MultipartUploadReaper multipartUploadReaper(AmazonS3Properties amazonS3Properties, AmazonS3 amazonS3, ObjectProvider<TransferListener> transferListeners) {
+        MultipartUploadReaper reaper = new MultipartUploadReaper(amazonS3Properties, amazonS3);
+        reaper.setTransferListener(transferListener(transferListeners));
+        return reaper;
+    }
+
+    /**
+     * v1 传输引擎（默认），复用 AmazonS3 Bean 与异步线程池
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean({S3Engine.class})
+    @ConditionalOnBean({AmazonS3.class})
+    @ConditionalOnProperty(prefix = "winter-aws", name = {"engine"}, havingValue = "v1", matchIfMissing = true)
+    public S3Engine amazonS3Engine(AmazonS3 amazonS3, @Qualifier("amazonS3AsyncExecutor") ExecutorService amazonS3AsyncExecutor) {
+        return new AmazonS3Engine(amazonS3, amazonS3AsyncExecutor);
+    }
+
+    /**
+     * v2 传输引擎，winter-aws.engine=v2 且引入了 SDK v2 时生效
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = {"software.amazon.awssdk.services.s3.S3AsyncClient", "software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient"})
+    @ConditionalOnProperty(prefix = "winter-aws", name = {"engine"}, havingValue = "v2")
+    static class S3AsyncClientEngineConfiguration {
+
+        @Bean(destroyMethod = "close")
+        @ConditionalOnMissingBean({S3Engine.class})
+        public S3Engine s3AsyncClientEngine(AmazonS3Properties amazonS3Properties, @Qualifier("amazonS3AsyncExecutor") ExecutorService amazonS3AsyncExecutor) {
+            return new S3AsyncClientEngine(S3AsyncClientEngine.createClient(amazonS3Properties), amazonS3AsyncExecutor);
+        }
+    }
+
+    /**
+     * Micrometer 指标，存在 MeterRegistry（如引入 spring-boot-starter-actuator）且 winter-aws.metrics.enabled 不为 false 时生效
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnBean(type = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnProperty(prefix = "winter-aws.metrics", name = {"enabled"}, havingValue = "true", matchIfMissing = true)
+    static class MetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean({AmazonS3MetricsInterceptor.class})
+        public AmazonS3MetricsInterceptor amazonS3MetricsInterceptor(MeterRegistry meterRegistry, AmazonS3Properties amazonS3Properties) {
+            return new AmazonS3MetricsInterceptor(meterRegistry, amazonS3Properties.getMetrics().getPercentileHistogram());
+        }
+
+        @Bean
+        @ConditionalOnMissingBean({AmazonS3ConnectionPoolMetrics.class})
+        public AmazonS3ConnectionPoolMetrics amazonS3ConnectionPoolMetrics() {
+            return new AmazonS3ConnectionPoolMetrics();
+        }
+
+        @Bean
+        @ConditionalOnMissingBean({AsyncExecutorMetrics.class})
+        public AsyncExecutorMetrics amazonS3AsyncExecutorMetrics(@Qualifier("amazonS3AsyncExecutor") ObjectProvider<ExecutorService> amazonS3AsyncExecutor) {
+            return new AsyncExecutorMetrics(amazonS3AsyncExecutor.getIfAvailable());
+        }
+
+        @Bean
+        @ConditionalOnMissingBean({WriteBehindMetrics.class})
+        public WriteBehindMetrics writeBehindMetrics(ObjectProvider<WriteBehindQueue> writeBehindQueue) {
+            return new WriteBehindMetrics(writeBehindQueue.getIfAvailable());
+        }
+    }
+
+    /**
+     * 响应式模板，classpath 中存在 reactor-core（如 WebFlux 项目）时生效
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "reactor.core.publisher.Flux")
+    static class ReactiveConfiguration {
+
+        /**
+         * 响应式模板执行阻塞调用的调度器，开启虚拟线程时每个阻塞调用一个虚拟线程，否则为独立的 boundedElastic，
+         * 容器关闭时 dispose 并停止底层线程池
+         */
+        @Bean(name = "amazonS3ReactiveScheduler", destroyMethod = "dispose")
+        @ConditionalOnMissingBean(name = "amazonS3ReactiveScheduler")
+        public Scheduler amazonS3ReactiveScheduler(AmazonS3Properties amazonS3Properties) {
+            if (TransferExecutors.useVirtualThreads(amazonS3Properties.getVirtualThreads())) {
+                return Schedulers.fromExecutorService(TransferExecutors.newVirtualThreadPerTaskExecutor("winter-s3-reactive-"), "winter-s3-reactive");
+            }
+            return Schedulers.newBoundedElastic(Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "winter-s3-reactive");
+        }
+
+        /**
+         * 嵌套配置类先于外层的 amazon Bean 注册，这里不能用 @ConditionalOnBean(AmazonS3.class) 判断，改为创建时再取客户端
+         */
+        @Bean
+        @ConditionalOnMissingBean({ReactiveAmazonS3Template.class})
+        public ReactiveAmazonS3Template reactiveAmazonS3Template(AmazonS3Properties amazonS3Properties, ObjectProvider<AmazonS3> amazonS3,
+                                                                 @Qualifier("amazonS3ReactiveScheduler") Scheduler amazonS3ReactiveScheduler,
+                                                                 ObjectProvider<TransferListener> transferListeners) {
+            ReactiveAmazonS3Template template = new ReactiveAmazonS3Template(amazonS3Properties, amazonS3.getObject(), amazonS3ReactiveScheduler);
+            template.setTransferListener(transferListener(transferListeners));
+            return template;
+        }
+    }
+
+    /**
+     * 容器中所有 {@link TransferListener} 按顺序组合为一个，没有时为空实现
+     */
+    private static TransferListener transferListener(ObjectProvider<TransferListener> transferListeners) {
+        return TransferListeners.of(transferListeners.orderedStream().collect(Collectors.toList()));
     }
 }
@@ -0,0 +1,94 @@
+package com.zsq.winter.minio.config;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.Protocol;
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+
+/**
+ * AmazonS3 客户端工厂，单节点、多节点集群共用同一套连接参数
+ */
+public final class AmazonS3ClientFactory {
+
+    private AmazonS3ClientFactory() {
+    }
+
+    /**
+     * 使用配置文件中的凭证为指定节点创建客户端
+     *
+     * @param endpoint           节点地址
+     * @param amazonS3Properties 配置
+     * @return {@link AmazonS3}
+     */
+    public static AmazonS3 create(String endpoint, AmazonS3Properties amazonS3Properties) {
+        AWSCredentials credentials = new BasicAWSCredentials(amazonS3Properties.getAccessKey(), amazonS3Properties.getSecretKey());
+        return create(endpoint, amazonS3Properties.getRegion(), new AWSStaticCredentialsProvider(credentials),
+                amazonS3Properties.getPathStyleAccess(), clientConfiguration(amazonS3Properties));
+    }
+
+    /**
+     * 创建客户端
+     *
+     * @param endpoint            节点地址
+     * @param region              区域
+     * @param credentialsProvider 凭证
+     * @param pathStyleAccess     是否使用路径风格访问
+     * @param config              连接参数
+     * @param requestHandlers     请求处理器，可在请求发出前修改请求
+     * @return {@link AmazonS3}
+     */
+    public static AmazonS3 create(String endpoint, String region, AWSCredentialsProvider credentialsProvider, Boolean pathStyleAccess,
+                                  ClientConfiguration config, RequestHandler2... requestHandlers) {
+        // 禁用AWS SDK 1.x弃用警告
+        System.setProperty("aws.java.v1.disableDeprecationAnnouncement", "true");
+
+        //设置Endpoint
+        AwsClientBuilder.EndpointConfiguration end_point = new AwsClientBuilder.EndpointConfiguration(endpoint, region);
+        return AmazonS3ClientBuilder.standard()
+                .withClientConfiguration(config)
+                .withCredentials(credentialsProvider)
+                .withEndpointConfiguration(end_point)
+                .withRequestHandlers(requestHandlers)
+                .withPathStyleAccessEnabled(pathStyleAccess).build();
+       /* withPathStyleAccessEnabled 是Amazon S3客户端配置中的一个选项，它用于指定是否启用路径样式访问（Path-Style Access）。
+        在Amazon S3中，有两种不同的URL访问样式：
+        虚拟主机访问样式（Virtual Hosted-Style Access）： 默认情况下，Amazon S3的访问样式是虚拟主机访问样式。在虚拟主机访问样式中，访问一个桶中的对象的URL的格式为
+        http://bucket-name.s3.amazonaws.com/object-key。这种方式更符合RESTful风格，并且通常更简洁。
+        路径样式访问（Path-Style Access）： 在路径样式访问中，访问一个桶中的对象的URL的格式为
+        http://s3.amazonaws.com/bucket-name/object-key。这种方式将桶名作为URL的一部分，更类似传统的URL路径结构。
+        withPathStyleAccessEnabled 的意义在于，当启用路径样式访问时，你可以通过类似
+        http://s3.amazonaws.com/bucket-name/object-key 的URL 访问对象，而无需使用特定的桶名前缀
+        （例如bucket-name.s3.amazonaws.com）。这在某些特殊情况下很有用，例如在使用代理服务器或者某些第三方库时，这些情况下虚拟主机访问样式可能会遇到问题。*/
+    }
+
+    /**
+     * 连接参数
+     *
+     * @param amazonS3Properties 配置
+     * @return {@link ClientConfiguration}
+     */
+    public static ClientConfiguration clientConfiguration(AmazonS3Properties amazonS3Properties) {
+        //设置连接时的参数
+        ClientConfiguration config = new ClientConfiguration();
+        // 设置AmazonS3使用的最大连接数
+        config.setMaxConnections(500);
+        // 设置socket超时时间
+        config.setSocketTimeout(20000);
+        // 设置失败请求重试次数，启用弹性调用层时由其统一重试，SDK 不再重试
+        config.setMaxErrorRetry(amazonS3Properties.getResilience().getEnabled() ? 0 : 2);
+        //设置连接方式为HTTP，可选参数为HTTP和HTTPS
+        config.setProtocol(Protocol.HTTP);
+        //设置网络访问超时时间
+        config.setConnectionTimeout(10000);
+
+
+        config.setUseExpectContinue(true);
+        return config;
+    }
+}
@@ -1,8 +1,19 @@
 package com.zsq.winter.minio.config;
 
 import com.amazonaws.regions.Regions;
+import com.zsq.winter.minio.checksum.ChecksumAlgorithm;
+import com.zsq.winter.minio.compression.CompressionCodec;
 import lombok.Data;
+import org.springframework.beans.BeanUtils;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Data
 @ConfigurationProperties(prefix = "winter-aws")
@@ -14,6 +25,16 @@ public class AmazonS3Properties {
      */
     private String endpoint;
 
+    /**
+     * 同一集群的多个节点地址，配置后按节点健康状况和延迟路由请求，优先级高于 endpoint
+     */
+    private List<String> endpoints = new ArrayList<>();
+
+    /**
+     * 多节点集群的健康检查配置，仅在配置了 endpoints 时生效
+     */
+    private Cluster cluster = new Cluster();
+
     /**
      * Access key就像用户ID，可以唯一标识你的账户
      */
@@ -49,4 +70,613 @@ public class AmazonS3Properties {
      * 是否启用，默认为：true，不填该属性或者为false不生效
      */
     private Boolean enabled = true;
-}
\ No newline at end of file
+
+    /**
+     * 多租户场景下的命名客户端，key 为客户端名称，未配置的字段沿用外层配置
+     */
+    private Map<String, Client> clients = new LinkedHashMap<>();
+
+    /**
+     * 命名客户端空闲多久后自动关闭，下次使用时重新创建
+     */
+    private Duration clientIdleTimeout = Duration.ofMinutes(30);
+
+    /**
+     * 重试、限流与熔断配置
+     */
+    private Resilience resilience = new Resilience();
+
+    /**
+     * 读请求对冲配置
+     */
+    private Hedge hedge = new Hedge();
+
+    /**
+     * 异步模板线程池配置，使用虚拟线程时线程池参数不生效，每个任务一个虚拟线程
+     */
+    private Async async = new Async();
+
+    /**
+     * 传输引擎 S3Engine 的实现：v1 基于 aws-java-sdk-s3（默认），v2 基于 SDK v2 S3AsyncClient（需引入 software.amazon.awssdk:s3 与 netty-nio-client）
+     * v2 时 AmazonS3Template 的上传、下载、范围下载、HEAD、存在性检查、删除、复制、无分隔符列举和分块上传经 S3AsyncClient 执行，
+     * 压缩上传、校验和、预签名、存储桶配置等需要 v1 请求选项的操作及多租户模板仍使用 v1 客户端
+     */
+    private EngineType engine = EngineType.V1;
+
+    /**
+     * 运行在 Java 21 及以上时，异步模板、响应式模板和对冲请求使用虚拟线程执行阻塞调用
+     */
+    private Boolean virtualThreads = false;
+
+    /**
+     * Micrometer 指标配置
+     */
+    private Metrics metrics = new Metrics();
+
+    /**
+     * 响应式模板配置
+     */
+    private Reactive reactive = new Reactive();
+
+    /**
+     * 小文件打包
+     */
+    private Pack pack = new Pack();
+
+    /**
+     * 异步写回队列
+     */
+    private WriteBehind writeBehind = new WriteBehind();
+
+    /**
+     * 过期分片上传清理
+     */
+    private MultipartReaper multipartReaper = new MultipartReaper();
+
+    /**
+     * 上传时按规则透明压缩
+     */
+    private Compression compression = new Compression();
+
+    /**
+     * 内容寻址去重
+     */
+    private Dedup dedup = new Dedup();
+
+    /**
+     * 分块上传的整对象校验和
+     */
+    private Checksum checksum = new Checksum();
+
+    /**
+     * 获取用于拼接访问地址的节点，未配置 endpoint 时取 endpoints 中的第一个
+     *
+     * @return {@link String}
+     */
+    public String resolveEndpoint() {
+        if (StringUtils.hasText(this.endpoint) || this.endpoints.isEmpty()) {
+            return this.endpoint;
+        }
+        return this.endpoints.get(0);
+    }
+
+    public enum EngineType {
+        /**
+         * aws-java-sdk-s3，阻塞 IO
+         */
+        V1,
+        /**
+         * SDK v2 S3AsyncClient，非阻塞 IO
+         */
+        V2
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * 阻塞调用方直到有空位，超过等待时间后拒绝
+         */
+        BLOCK,
+        /**
+         * 丢弃新的写入
+         */
+        DROP,
+        /**
+         * 写入本地溢出文件，有空位时按顺序加载回队列
+         */
+        SPILL
+    }
+
+    @Data
+    public static class Cluster {
+
+        /**
+         * 主动探测的时间间隔
+         */
+        private Duration probeInterval = Duration.ofSeconds(5);
+
+        /**
+         * 主动探测的超时时间
+         */
+        private Duration probeTimeout = Duration.ofSeconds(2);
+
+        /**
+         * 主动探测的路径，默认为 MinIO 的存活检查接口
+         */
+        private String probePath = "/minio/health/live";
+
+        /**
+         * 连续失败多少次后将节点摘除
+         */
+        private Integer failureThreshold = 3;
+    }
+
+    @Data
+    public static class Resilience {
+
+        /**
+         * 是否启用，启用后 SDK 自带的重试被关闭，由该层统一重试
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 最大尝试次数（包含首次请求）
+         */
+        private Integer maxAttempts = 3;
+
+        /**
+         * 退避基础时间
+         */
+        private Duration baseDelay = Duration.ofMillis(100);
+
+        /**
+         * 单次退避的最长时间
+         */
+        private Duration maxDelay = Duration.ofSeconds(5);
+
+        /**
+         * 每个存储桶每秒允许的请求数，0 表示不限制
+         */
+        private Double requestsPerSecond = 0D;
+
+        /**
+         * 每个存储桶允许的突发请求数
+         */
+        private Integer burst = 100;
+
+        /**
+         * 初始并发上限
+         */
+        private Integer initialConcurrency = 64;
+
+        /**
+         * 并发上限的下限，被限流时最多收缩到该值
+         */
+        private Integer minConcurrency = 4;
+
+        /**
+         * 并发上限的上限
+         */
+        private Integer maxConcurrency = 256;
+
+        /**
+         * 等待并发许可的最长时间，超时后快速失败
+         */
+        private Duration acquireTimeout = Duration.ofSeconds(30);
+
+        /**
+         * 熔断器统计的调用次数窗口
+         */
+        private Integer windowSize = 50;
+
+        /**
+         * 窗口内至少有多少次调用才计算失败率
+         */
+        private Integer minimumCalls = 20;
+
+        /**
+         * 失败率达到多少时打开熔断器
+         */
+        private Double failureRateThreshold = 0.5;
+
+        /**
+         * 熔断器打开后多久进入半开状态
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * 半开状态下放行的试探请求数
+         */
+        private Integer halfOpenCalls = 3;
+    }
+
+    @Data
+    public static class Hedge {
+
+        /**
+         * 是否对 getObject / getObjectMetadata 启用对冲请求
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 超过最近请求耗时的多少百分位仍未响应时发出对冲请求
+         */
+        private Double percentile = 95D;
+
+        /**
+         * 发出对冲请求前的最短等待时间
+         */
+        private Duration minDelay = Duration.ofMillis(10);
+
+        /**
+         * 对冲请求最多占主请求数的百分比
+         */
+        private Double budgetPercent = 5D;
+
+        /**
+         * 预算允许累积的最大对冲请求数
+         */
+        private Integer maxBurst = 10;
+
+        /**
+         * 统计耗时的样本窗口大小
+         */
+        private Integer sampleSize = 1000;
+
+        /**
+         * 执行读请求的最大线程数，线程不足时退化为不对冲
+         */
+        private Integer maxThreads = 64;
+    }
+
+    @Data
+    public static class Async {
+
+        /**
+         * 核心线程数
+         */
+        private Integer corePoolSize = 16;
+
+        /**
+         * 最大线程数，队列已满时才会创建核心线程之外的线程
+         */
+        private Integer maxPoolSize = 64;
+
+        /**
+         * 等待队列容量，线程和队列都满时拒绝任务，返回失败的 CompletableFuture
+         */
+        private Integer queueCapacity = 1000;
+
+        /**
+         * 非核心线程的空闲存活时间
+         */
+        private Duration keepAlive = Duration.ofSeconds(60);
+
+        /**
+         * 线程名前缀
+         */
+        private String threadNamePrefix = "winter-s3-async-";
+    }
+
+    @Data
+    public static class Metrics {
+
+        /**
+         * 存在 MeterRegistry 时是否记录存储操作的耗时、字节数、错误数和连接池指标
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 请求耗时是否发布百分位直方图（如 Prometheus 的 histogram_quantile）
+         */
+        private Boolean percentileHistogram = true;
+    }
+
+    @Data
+    public static class Reactive {
+
+        /**
+         * 上传时的分块大小，不小于 5MB，不足一个分块的对象单次上传
+         */
+        private DataSize partSize = DataSize.ofMegabytes(5);
+
+        /**
+         * 下载时每次读取的字节数
+         */
+        private DataSize readBufferSize = DataSize.ofKilobytes(64);
+    }
+
+    @Data
+    public static class Pack {
+
+        /**
+         * 是否启用小文件打包模板 PackedAmazonS3Template
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 打包对象所在的存储桶，为空时使用 winter-aws.bucket
+         */
+        private String bucket;
+
+        /**
+         * 打包对象与索引清单的对象键前缀
+         */
+        private String prefix = ".packs/";
+
+        /**
+         * 不超过该大小的对象写入打包对象，更大的对象直接上传
+         */
+        private DataSize threshold = DataSize.ofKilobytes(16);
+
+        /**
+         * 打包对象达到该大小时封包上传
+         */
+        private DataSize targetSize = DataSize.ofMegabytes(8);
+
+        /**
+         * 打包对象中最早的写入超过该时长仍未封包时封包上传
+         */
+        private Duration maxAge = Duration.ofSeconds(5);
+
+        /**
+         * 后台压缩的执行间隔，为 0 时不自动压缩
+         */
+        private Duration compactionInterval = Duration.ofMinutes(10);
+
+        /**
+         * 有效数据占比低于该值的打包对象会被压缩：有效条目重新写入新的打包对象后删除原对象
+         */
+        private Double minLiveRatio = 0.5;
+    }
+
+    @Data
+    public static class WriteBehind {
+
+        /**
+         * 是否启用异步写回队列 WriteBehindQueue
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 排队请求数上限，同一对象键的重复写入合并后只占一个
+         */
+        private Integer capacity = 10000;
+
+        /**
+         * 排队与正在上传的请求占用的内存上限
+         */
+        private DataSize maxQueuedBytes = DataSize.ofMegabytes(64);
+
+        /**
+         * 同时上传的请求数，即上传线程数
+         */
+        private Integer maxInFlight = 8;
+
+        /**
+         * 队列已满时的处理方式：BLOCK、DROP、SPILL
+         */
+        private OverflowPolicy overflow = OverflowPolicy.BLOCK;
+
+        /**
+         * BLOCK 模式下等待空位的最长时间，超时后抛出 S3RequestRejectedException
+         */
+        private Duration blockTimeout = Duration.ofSeconds(5);
+
+        /**
+         * SPILL 模式下的溢出目录，为空时使用 java.io.tmpdir/winter-s3-write-behind；多个实例不能共用同一目录
+         */
+        private String spillDirectory;
+
+        /**
+         * 最大尝试次数（包含首次上传），SPILL 模式下可重试的失败不限次数
+         */
+        private Integer maxAttempts = 3;
+
+        /**
+         * 退避基础时间
+         */
+        private Duration baseDelay = Duration.ofMillis(200);
+
+        /**
+         * 单次退避的最长时间
+         */
+        private Duration maxDelay = Duration.ofSeconds(10);
+
+        /**
+         * 关闭时等待内存中的请求上传完成的最长时间
+         */
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class MultipartReaper {
+
+        /**
+         * 是否启用过期分片上传清理 MultipartUploadReaper
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 要清理的存储桶，为空时清理 winter-aws.bucket
+         */
+        private List<String> buckets = new ArrayList<>();
+
+        /**
+         * 只清理对象键以该前缀开头的分片上传，为空时清理全部
+         */
+        private String prefix;
+
+        /**
+         * 发起时间超过该时长仍未完成的分片上传视为已遗弃
+         */
+        private Duration maxAge = Duration.ofHours(24);
+
+        /**
+         * 后台清理的执行间隔，为 0 时不自动清理
+         */
+        private Duration interval = Duration.ofHours(1);
+
+        /**
+         * 并行取消的请求数
+         */
+        private Integer parallelism = 8;
+
+        /**
+         * 只列出过期的分片上传，不取消
+         */
+        private Boolean dryRun = false;
+    }
+
+    @Data
+    public static class Compression {
+
+        /**
+         * 是否在上传时按 rules 压缩；下载时是否解压只看对象元数据，与该开关无关
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 小于该大小的对象不压缩
+         */
+        private DataSize minSize = DataSize.ofKilobytes(1);
+
+        /**
+         * 压缩后的数据超过该大小时改为分块上传，也是缓冲压缩数据占用的内存，不小于 5MB
+         */
+        private DataSize partSize = DataSize.ofMegabytes(8);
+
+        /**
+         * 压缩规则，按顺序取第一条匹配的规则，都不匹配时不压缩
+         */
+        private List<CompressionRule> rules = new ArrayList<>();
+    }
+
+    @Data
+    public static class CompressionRule {
+
+        /**
+         * 存储桶，为空时匹配所有存储桶
+         */
+        private String bucket;
+
+        /**
+         * 对象键的 Ant 风格模式，如 logs/**、**&#47;*.json，为空时匹配所有对象
+         */
+        private String pattern;
+
+        /**
+         * 压缩编码：gzip、deflate
+         */
+        private CompressionCodec codec = CompressionCodec.GZIP;
+
+        /**
+         * 压缩级别 1-9，越大压缩率越高、越慢
+         */
+        private Integer level = 6;
+    }
+
+    @Data
+    public static class Dedup {
+
+        /**
+         * 是否启用内容寻址去重模板 DedupAmazonS3Template
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 内容对象与引用标记所在的存储桶，为空时使用 winter-aws.bucket
+         */
+        private String bucket;
+
+        /**
+         * 内容对象与引用标记的对象键前缀
+         */
+        private String prefix = ".dedup/";
+
+        /**
+         * 不超过该大小的流先读入内存计算哈希，内容已存在时不上传；更大的流边上传到暂存对象边计算哈希
+         */
+        private DataSize bufferThreshold = DataSize.ofMegabytes(8);
+    }
+
+    @Data
+    public static class Checksum {
+
+        /**
+         * 分块上传时边上传边计算、完成时合并提交的整对象校验和算法：crc32、crc32c、crc64nvme，为空时不计算
+         */
+        private ChecksumAlgorithm algorithm;
+
+        /**
+         * 下载时是否请求并按服务端保存的整对象校验和校验内容，默认不校验
+         */
+        private Boolean verify = false;
+
+        /**
+         * 分块上传超过该时长没有新的分块经模板上传时，丢弃内存中记录的分块校验和（如上传被放弃、被清理或由其他实例完成），
+         * 之后完成该上传时不再提交整对象校验和
+         */
+        private Duration multipartIdleTimeout = Duration.ofHours(24);
+    }
+
+    @Data
+    public static class Client {
+
+        /**
+         * 地域节点(物理服务器地址)
+         */
+        private String endpoint;
+
+        /**
+         * Access key
+         */
+        private String accessKey;
+
+        /**
+         * Secret key
+         */
+        private String secretKey;
+
+        /**
+         * 存储桶名称
+         */
+        private String bucket;
+
+        /**
+         * 区域，为空时沿用外层配置
+         */
+        private String region;
+
+        /**
+         * 自定义域名，为空时沿用外层配置
+         */
+        private String customDomain;
+
+        /**
+         * 是否使用路径风格访问，为空时沿用外层配置
+         */
+        private Boolean pathStyleAccess;
+
+        /**
+         * 以外层配置为默认值，合并出该客户端的完整配置：复制外层的全部配置（嵌套配置对象共用），再覆盖该客户端配置的字段
+         *
+         * @param defaults 外层配置
+         * @return {@link AmazonS3Properties}
+         */
+        public AmazonS3Properties merge(AmazonS3Properties defaults) {
+            AmazonS3Properties properties = new AmazonS3Properties();
+            BeanUtils.copyProperties(defaults, properties);
+            // 租户客户端只连接单个节点，也不再嵌套租户
+            properties.setEndpoints(new ArrayList<>());
+            properties.setClients(new LinkedHashMap<>());
+            properties.setEndpoint(StringUtils.hasText(this.endpoint) ? this.endpoint : defaults.resolveEndpoint());
+            properties.setAccessKey(StringUtils.hasText(this.accessKey) ? this.accessKey : defaults.getAccessKey());
+            properties.setSecretKey(StringUtils.hasText(this.secretKey) ? this.secretKey : defaults.getSecretKey());
+            properties.setBucket(StringUtils.hasText(this.bucket) ? this.bucket : defaults.getBucket());
+            properties.setRegion(StringUtils.hasText(this.region) ? this.region : defaults.getRegion());
+            properties.setCustomDomain(StringUtils.hasText(this.customDomain) ? this.customDomain : defaults.getCustomDomain());
+            properties.setPathStyleAccess(this.pathStyleAccess != null ? this.pathStyleAccess : defaults.getPathStyleAccess());
+            return properties;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package com.zsq.winter.minio.dedup;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.util.BinaryUtils;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import com.zsq.winter.minio.support.TransferExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+
+/**
+ * 内容寻址去重模板：相同内容只保存一份，逻辑对象键只是指向内容的引用
+ * 1. 内容对象保存在 {prefix}blobs/{SHA-256}，每个逻辑对象键对应一个空的引用标记 {prefix}refs/{SHA-256}/{对象键}，
+ * {@link #recover()} 列举引用标记重建索引与引用计数
+ * 2. 字节数组、文件以及不超过 buffer-threshold 的流先计算哈希，内容已存在时不上传；
+ * 更大的流无法预先计算哈希，边上传到 {prefix}staging/ 下的暂存对象边计算，内容已存在时删除暂存对象，否则服务端复制为内容对象，
+ * 只节省存储，不节省上传流量（单次上传与复制，最大 5GB）
+ * 3. 索引 {@link DedupIndex} 记录对象键到哈希的映射与每个内容的引用计数，计数减到 0 时删除内容对象；
+ * 同一内容的上传与删除按哈希加锁，不会删除刚被引用的内容
+ * 内容对象的 Content-Type 取第一次上传时的值；进程在暂存后退出时留下的暂存对象可以用生命周期规则清理
+ */
+@Slf4j
+public class DedupAmazonS3Template {
+
+    private static final String BLOBS = "blobs/";
+
+    private static final String REFS = "refs/";
+
+    private static final String STAGING = "staging/";
+
+    private static final int HASH_LENGTH = 64;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final AmazonS3 amazonS3;
+
+    private final DedupIndex index;
+
+    private final String bucketName;
+
+    private final String prefix;
+
+    private final long bufferThreshold;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * 调用 {@link #recoverInBackground()} 后到重建成功前为 true，期间的读写先等待或执行重建
+     */
+    private volatile boolean recoveryPending;
+
+    public DedupAmazonS3Template(AmazonS3Properties amazonS3Properties, AmazonS3 amazonS3, DedupIndex index) {
+        AmazonS3Properties.Dedup dedup = amazonS3Properties.getDedup();
+        this.amazonS3 = amazonS3;
+        this.index = index;
+        this.bucketName = StringUtils.hasText(dedup.getBucket()) ? dedup.getBucket() : amazonS3Properties.getBucket();
+        this.prefix = dedup.getPrefix().isEmpty() || dedup.getPrefix().endsWith("/") ? dedup.getPrefix() : dedup.getPrefix() + "/";
+        this.bufferThreshold = Math.min(dedup.getBufferThreshold().toBytes(), Integer.MAX_VALUE - 8);
+        if (this.prefix.isEmpty()) {
+            throw new IllegalArgumentException("winter-aws.dedup.prefix 不能为空");
+        }
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            this.locks[i] = new Object();
+        }
+    }
+
+    public String getBucketName() {
+        return this.bucketName;
+    }
+
+    /**
+     * 上传对象，内容已存在时只记录引用
+     *
+     * @param objectName  对象名称
+     * @param data        内容
+     * @param contentType 内容类型
+     * @return {@link DedupPutResult}
+     */
+    public DedupPutResult putObject(String objectName, byte[] data, String contentType) {
+        this.awaitRecovery();
+        String key = AmazonS3Template.getObjectName(objectName);
+        String hash = BinaryUtils.toHex(sha256().digest(data));
+        boolean uploaded = this.storeBlob(hash, () -> {
+            PutObjectRequest request = new PutObjectRequest(this.bucketName, this.blobKey(hash), new ByteArrayInputStream(data),
+                    metadata(data.length, contentType));
+            request.getRequestClientOptions().setReadLimit(data.length + 1);
+            this.amazonS3.putObject(request);
+        });
+        this.link(key, hash);
+        return new DedupPutResult(key, hash, data.length, !uploaded);
+    }
+
+    /**
+     * 上传文件，先读一遍计算哈希，内容不存在时再读一遍上传
+     *
+     * @param objectName  对象名称
+     * @param file        文件
+     * @param contentType 内容类型
+     * @return {@link DedupPutResult}
+     * @throws IOException 读取失败
+     */
+    public DedupPutResult putObject(String objectName, Path file, String contentType) throws IOException {
+        this.awaitRecovery();
+        String key = AmazonS3Template.getObjectName(objectName);
+        long size = Files.size(file);
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            StreamUtils.drain(in);
+        }
+        String hash = BinaryUtils.toHex(digest.digest());
+        boolean uploaded = this.storeBlob(hash, () -> this.amazonS3.putObject(
+                new PutObjectRequest(this.bucketName, this.blobKey(hash), file.toFile()).withMetadata(metadata(size, contentType))));
+        this.link(key, hash);
+        return new DedupPutResult(key, hash, size, !uploaded);
+    }
+
+    /**
+     * 上传流：不超过 buffer-threshold 时读入内存按字节数组上传，否则经暂存对象上传
+     *
+     * @param objectName    对象名称
+     * @param inputStream   内容
+     * @param contentLength 读取的字节数
+     * @param contentType   内容类型
+     * @return {@link DedupPutResult}
+     * @throws IOException 读取失败或流的长度小于 contentLength
+     */
+    public DedupPutResult putObject(String objectName, InputStream inputStream, long contentLength, String contentType) throws IOException {
+        this.awaitRecovery();
+        if (contentLength <= this.bufferThreshold) {
+            byte[] data = new byte[(int) contentLength];
+            int read = 0;
+            while (read < data.length) {
+                int n = inputStream.read(data, read, data.length - read);
+                if (n < 0) {
+                    throw new IOException("流的长度 " + read + " 小于 contentLength " + contentLength);
+                }
+                read += n;
+            }
+            return this.putObject(objectName, data, contentType);
+        }
+        String key = AmazonS3Template.getObjectName(objectName);
+        String stagingKey = this.prefix + STAGING + UUID.randomUUID();
+        MessageDigest digest = sha256();
+        // 不支持 mark 时 SDK 自行缓冲用于重试的数据，重试重放的字节不会重复计入哈希
+        InputStream digestStream = new DigestInputStream(inputStream, digest) {
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+        try {
+            this.amazonS3.putObject(new PutObjectRequest(this.bucketName, stagingKey, digestStream, metadata(contentLength, contentType)));
+            String hash = BinaryUtils.toHex(digest.digest());
+            boolean uploaded = this.storeBlob(hash, () -> this.amazonS3.copyObject(
+                    new CopyObjectRequest(this.bucketName, stagingKey, this.bucketName, this.blobKey(hash))));
+            this.link(key, hash);
+            return new DedupPutResult(key, hash, contentLength, !uploaded);
+        } finally {
+            this.deleteQuietly(stagingKey);
+        }
+    }
+
+    /**
+     * 读取对象，索引中不存在的对象按普通对象读取
+     *
+     * @param objectName 对象名称
+     * @return 对象内容，调用方负责关闭
+     */
+    public InputStream getObjectInputStream(String objectName) {
+        this.awaitRecovery();
+        String key = AmazonS3Template.getObjectName(objectName);
+        String hash = this.index.get(key);
+        return this.amazonS3.getObject(this.bucketName, hash == null ? key : this.blobKey(hash)).getObjectContent();
+    }
+
+    /**
+     * 对象是否存在
+     *
+     * @param objectName 对象名称
+     * @return boolean
+     */
+    public boolean doesObjectExist(String objectName) {
+        this.awaitRecovery();
+        String key = AmazonS3Template.getObjectName(objectName);
+        return this.index.get(key) != null || this.amazonS3.doesObjectExist(this.bucketName, key);
+    }
+
+    /**
+     * 对象内容的 SHA-256
+     *
+     * @param objectName 对象名称
+     * @return 不是经去重上传的对象时为 null
+     */
+    public String getHash(String objectName) {
+        this.awaitRecovery();
+        return this.index.get(AmazonS3Template.getObjectName(objectName));
+    }
+
+    /**
+     * 内容被多少个对象键引用
+     *
+     * @param hash 内容的 SHA-256
+     * @return long
+     */
+    public long getReferenceCount(String hash) {
+        this.awaitRecovery();
+        return this.index.references(hash);
+    }
+
+    /**
+     * 删除对象：删除引用，内容不再被引用时删除内容对象；同时删除同名的普通对象
+     *
+     * @param objectName 对象名称
+     */
+    public void removeObject(String objectName) {
+        this.awaitRecovery();
+        String key = AmazonS3Template.getObjectName(objectName);
+        String hash = this.index.remove(key);
+        if (hash != null) {
+            this.amazonS3.deleteObject(this.bucketName, this.refKey(hash, key));
+            this.unreference(hash);
+        } else {
+            this.amazonS3.deleteObject(this.bucketName, key);
+        }
+    }
+
+    /**
+     * 在后台线程中从引用标记重建索引，存储暂时不可用时只记录日志，不影响应用启动；
+     * 重建完成前的读写会等待重建，后台重建失败时由下一次读写重新执行（自动配置在索引为空时调用）
+     */
+    public void recoverInBackground() {
+        this.recoveryPending = true;
+        TransferExecutors.threadFactory("winter-s3-dedup-recover-", false).newThread(() -> {
+            try {
+                this.awaitRecovery();
+            } catch (RuntimeException e) {
+                log.warn("后台重建去重索引失败，将在首次读写时重试", e);
+            }
+        }).start();
+    }
+
+    private void awaitRecovery() {
+        if (this.recoveryPending) {
+            synchronized (this) {
+                if (this.recoveryPending) {
+                    this.recover();
+                }
+            }
+        }
+    }
+
+    /**
+     * 从存储中的引用标记重建索引与引用计数，应在写入前调用，也可以用 {@link #recoverInBackground()} 在后台执行
+     * 同一对象键有多个引用标记时（覆盖过程中进程退出）保留先列出的一个，其余标记仍计入引用计数，宁可多留内容也不误删
+     *
+     * @return 加载的引用数
+     */
+    public synchronized int recover() {
+        String refsPrefix = this.prefix + REFS;
+        int references = 0;
+        ObjectListing listing = this.amazonS3.listObjects(new ListObjectsRequest().withBucketName(this.bucketName).withPrefix(refsPrefix));
+        while (true) {
+            for (S3ObjectSummary summary : listing.getObjectSummaries()) {
+                String ref = summary.getKey().substring(refsPrefix.length());
+                if (ref.length() <= HASH_LENGTH + 1 || ref.charAt(HASH_LENGTH) != '/') {
+                    log.warn("忽略无效的引用标记 {}", summary.getKey());
+                    continue;
+                }
+                String hash = ref.substring(0, HASH_LENGTH);
+                String key = ref.substring(HASH_LENGTH + 1);
+                String previous = this.index.put(key, hash);
+                if (previous != null && !previous.equals(hash)) {
+                    log.warn("对象 {} 有多个引用标记（{}、{}），保留 {}", key, previous, hash, previous);
+                    this.index.put(key, previous);
+                }
+                this.index.retain(hash);
+                references++;
+            }
+            if (!listing.isTruncated()) {
+                break;
+            }
+            listing = this.amazonS3.listNextBatchOfObjects(listing);
+        }
+        this.recoveryPending = false;
+        log.info("从 {} 个引用标记重建去重索引，共 {} 个对象", references, this.index.size());
+        return references;
+    }
+
+    /**
+     * 增加内容的引用，内容对象不存在时上传
+     *
+     * @return 是否上传了内容
+     */
+    private boolean storeBlob(String hash, Runnable upload) {
+        synchronized (this.lock(hash)) {
+            long count = this.index.retain(hash);
+            try {
+                // 引用计数大于 1 说明内容对象已经存在；等于 1 时可能是重建前上传后未写引用的内容
+                if (count > 1 || this.amazonS3.doesObjectExist(this.bucketName, this.blobKey(hash))) {
+                    return false;
+                }
+                upload.run();
+                return true;
+            } catch (RuntimeException e) {
+                this.index.release(hash);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 内容对象已就绪后写入引用标记与索引，释放对象键原来的引用
+     */
+    private void link(String key, String hash) {
+        try {
+            this.amazonS3.putObject(new PutObjectRequest(this.bucketName, this.refKey(hash, key),
+                    new ByteArrayInputStream(new byte[0]), metadata(0, null)));
+        } catch (RuntimeException e) {
+            this.unreference(hash);
+            throw e;
+        }
+        String previous = this.index.put(key, hash);
+        if (hash.equals(previous)) {
+            // 相同内容重复上传到同一对象键，引用标记也相同，只抵消本次增加的计数
+            this.index.release(hash);
+        } else if (previous != null) {
+            this.deleteQuietly(this.refKey(previous, key));
+            this.unreference(previous);
+        }
+    }
+
+    private void unreference(String hash) {
+        synchronized (this.lock(hash)) {
+            if (this.index.release(hash) <= 0) {
+                this.amazonS3.deleteObject(this.bucketName, this.blobKey(hash));
+            }
+        }
+    }
+
+    private void deleteQuietly(String key) {
+        try {
+            this.amazonS3.deleteObject(this.bucketName, key);
+        } catch (SdkClientException e) {
+            log.warn("删除 {}/{} 失败", this.bucketName, key, e);
+        }
+    }
+
+    private Object lock(String hash) {
+        return this.locks[Math.floorMod(hash.hashCode(), LOCK_STRIPES)];
+    }
+
+    private String blobKey(String hash) {
+        return this.prefix + BLOBS + hash;
+    }
+
+    private String refKey(String hash, String key) {
+        return this.prefix + REFS + hash + "/" + key;
+    }
+
+    private static ObjectMetadata metadata(long contentLength, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(contentLength);
+        if (contentType != null) {
+            metadata.setContentType(contentType);
+        }
+        return metadata;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.zsq.winter.minio.dedup;
+
+/**
+ * 逻辑对象键到内容哈希的索引，以及每个内容的引用计数
+ * 默认实现 {@link InMemoryDedupIndex} 只保存在内存中，启动时从存储中的引用标记重建；
+ * 声明该类型的 Bean 可替换为 Redis、数据库等外部存储，多个实例共享同一份索引
+ */
+public interface DedupIndex {
+
+    /**
+     * 查询
+     *
+     * @param key 逻辑对象键
+     * @return 内容哈希，不存在时为 null
+     */
+    String get(String key);
+
+    /**
+     * 写入
+     *
+     * @param key  逻辑对象键
+     * @param hash 内容哈希
+     * @return 原来的内容哈希，不存在时为 null
+     */
+    String put(String key, String hash);
+
+    /**
+     * 删除
+     *
+     * @param key 逻辑对象键
+     * @return 原来的内容哈希，不存在时为 null
+     */
+    String remove(String key);
+
+    /**
+     * 引用计数加一
+     *
+     * @param hash 内容哈希
+     * @return 加一后的引用计数
+     */
+    long retain(String hash);
+
+    /**
+     * 引用计数减一，减到 0 时删除该内容的计数
+     *
+     * @param hash 内容哈希
+     * @return 减一后的引用计数
+     */
+    long release(String hash);
+
+    /**
+     * 引用计数
+     *
+     * @param hash 内容哈希
+     * @return 没有引用时为 0
+     */
+    long references(String hash);
+
+    /**
+     * 逻辑对象数
+     *
+     * @return long
+     */
+    long size();
+}
@@ -0,0 +1,32 @@
+package com.zsq.winter.minio.dedup;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 一次去重上传的结果
+ */
+@Data
+@AllArgsConstructor
+public class DedupPutResult {
+
+    /**
+     * 逻辑对象键
+     */
+    private String key;
+
+    /**
+     * 内容的 SHA-256（十六进制）
+     */
+    private String hash;
+
+    /**
+     * 大小
+     */
+    private long size;
+
+    /**
+     * 存储中已有相同内容，没有再保存一份
+     */
+    private boolean deduplicated;
+}
@@ -0,0 +1,50 @@
+package com.zsq.winter.minio.dedup;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存中的去重索引，进程重启后由 {@link DedupAmazonS3Template#recover()} 从引用标记重建
+ */
+public class InMemoryDedupIndex implements DedupIndex {
+
+    private final Map<String, String> keys = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> references = new ConcurrentHashMap<>();
+
+    @Override
+    public String get(String key) {
+        return this.keys.get(key);
+    }
+
+    @Override
+    public String put(String key, String hash) {
+        return this.keys.put(key, hash);
+    }
+
+    @Override
+    public String remove(String key) {
+        return this.keys.remove(key);
+    }
+
+    @Override
+    public long retain(String hash) {
+        return this.references.merge(hash, 1L, Long::sum);
+    }
+
+    @Override
+    public long release(String hash) {
+        Long count = this.references.computeIfPresent(hash, (k, v) -> v <= 1 ? null : v - 1);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public long references(String hash) {
+        return this.references.getOrDefault(hash, 0L);
+    }
+
+    @Override
+    public long size() {
+        return this.keys.size();
+    }
+}
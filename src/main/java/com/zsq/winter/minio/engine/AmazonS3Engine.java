@@ -0,0 +1,218 @@
+package com.zsq.winter.minio.engine;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkBaseException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * 基于 aws-java-sdk-s3（v1）的引擎，阻塞调用在传入的线程池中执行
+ * 客户端即 AmazonS3 Bean，请求同样经过集群路由、重试限流、对冲等拦截器
+ */
+public class AmazonS3Engine implements S3Engine {
+
+    private final AmazonS3 amazonS3;
+
+    private final Executor executor;
+
+    public AmazonS3Engine(AmazonS3 amazonS3, Executor executor) {
+        this.amazonS3 = amazonS3;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<String> putObject(String bucketName, String key, InputStream stream, long contentLength, String contentType) {
+        return this.supply(() -> {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(contentLength);
+            metadata.setContentType(contentType);
+            PutObjectRequest request = new PutObjectRequest(bucketName, key, stream, metadata);
+            request.getRequestClientOptions().setReadLimit((int) Math.min(Integer.MAX_VALUE, contentLength + 1));
+            return this.amazonS3.putObject(request).getETag();
+        });
+    }
+
+    @Override
+    public CompletableFuture<ObjectContent> getObjectContent(String bucketName, String key) {
+        return this.supply(() -> toContent(this.amazonS3.getObject(bucketName, key)));
+    }
+
+    @Override
+    public CompletableFuture<ObjectContent> getObjectContent(String bucketName, String key, long start, long end) {
+        return this.supply(() -> toContent(this.amazonS3.getObject(new GetObjectRequest(bucketName, key).withRange(start, end))));
+    }
+
+    private static ObjectContent toContent(S3Object s3Object) {
+        return new ObjectContent(toInfo(s3Object.getKey(), s3Object.getObjectMetadata()), s3Object.getObjectContent());
+    }
+
+    @Override
+    public CompletableFuture<ObjectInfo> headObject(String bucketName, String key) {
+        return this.supply(() -> toInfo(key, this.amazonS3.getObjectMetadata(bucketName, key)));
+    }
+
+    private static ObjectInfo toInfo(String key, ObjectMetadata metadata) {
+        ObjectInfo info = new ObjectInfo();
+        info.setKey(key);
+        info.setSize(metadata.getContentLength());
+        info.setETag(metadata.getETag());
+        info.setContentType(metadata.getContentType());
+        info.setLastModified(metadata.getLastModified());
+        info.setUserMetadata(metadata.getUserMetadata());
+        return info;
+    }
+
+    @Override
+    public CompletableFuture<List<ObjectInfo>> listObjects(String bucketName, String prefix, int maxKeys) {
+        return this.supply(() -> {
+            List<ObjectInfo> objects = new ArrayList<>();
+            ListObjectsV2Request request = new ListObjectsV2Request().withBucketName(bucketName).withPrefix(prefix);
+            ListObjectsV2Result result;
+            do {
+                request.setMaxKeys(Math.min(1000, maxKeys - objects.size()));
+                result = this.amazonS3.listObjectsV2(request);
+                for (S3ObjectSummary summary : result.getObjectSummaries()) {
+                    ObjectInfo info = new ObjectInfo();
+                    info.setKey(summary.getKey());
+                    info.setSize(summary.getSize());
+                    info.setETag(summary.getETag());
+                    info.setLastModified(summary.getLastModified());
+                    objects.add(info);
+                }
+                request.setContinuationToken(result.getNextContinuationToken());
+            } while (result.isTruncated() && objects.size() < maxKeys);
+            return objects;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteObject(String bucketName, String key) {
+        return this.supply(() -> {
+            this.amazonS3.deleteObject(bucketName, key);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<String>> deleteObjects(String bucketName, List<String> keys) {
+        return this.supply(() -> {
+            DeleteObjectsRequest request = new DeleteObjectsRequest(bucketName)
+                    .withKeys(keys.toArray(new String[0]))
+                    .withQuiet(true);
+            try {
+                this.amazonS3.deleteObjects(request);
+                return new ArrayList<>();
+            } catch (MultiObjectDeleteException e) {
+                return e.getErrors().stream().map(MultiObjectDeleteException.DeleteError::getKey).collect(Collectors.toList());
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<String> copyObject(String sourceBucketName, String sourceKey, String destinationBucketName, String destinationKey) {
+        return this.supply(() -> this.amazonS3.copyObject(sourceBucketName, sourceKey, destinationBucketName, destinationKey).getETag());
+    }
+
+    @Override
+    public CompletableFuture<String> createMultipartUpload(String bucketName, String key, String contentType) {
+        return this.supply(() -> {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentType(contentType);
+            return this.amazonS3.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, key, metadata)).getUploadId();
+        });
+    }
+
+    @Override
+    public CompletableFuture<PartInfo> uploadPart(String bucketName, String key, String uploadId, int partNumber, InputStream stream, long partSize) {
+        return this.supply(() -> {
+            UploadPartRequest request = new UploadPartRequest()
+                    .withBucketName(bucketName)
+                    .withKey(key)
+                    .withUploadId(uploadId)
+                    .withPartNumber(partNumber)
+                    .withPartSize(partSize)
+                    .withInputStream(stream);
+            UploadPartResult result = this.amazonS3.uploadPart(request);
+            return new PartInfo(partNumber, result.getETag());
+        });
+    }
+
+    @Override
+    public CompletableFuture<String> completeMultipartUpload(String bucketName, String key, String uploadId, List<PartInfo> parts) {
+        return this.supply(() -> {
+            List<PartETag> partETags = parts.stream()
+                    .map(part -> new PartETag(part.getPartNumber(), part.getETag()))
+                    .collect(Collectors.toList());
+            return this.amazonS3.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, key, uploadId, partETags)).getETag();
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> abortMultipartUpload(String bucketName, String key, String uploadId) {
+        return this.supply(() -> {
+            this.amazonS3.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId));
+            return null;
+        });
+    }
+
+    /**
+     * AmazonS3 Bean 由容器管理，这里不关闭
+     */
+    @Override
+    public void close() {
+    }
+
+    private <T> CompletableFuture<T> supply(StorageCall<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            this.executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(translate(e));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    static Throwable translate(Throwable e) {
+        if (e instanceof AmazonServiceException) {
+            AmazonServiceException ase = (AmazonServiceException) e;
+            return new S3EngineException(ase.getStatusCode(), ase.getErrorCode(), ase.getMessage(), e);
+        }
+        if (e instanceof SdkBaseException) {
+            return new S3EngineException(0, null, e.getMessage(), e);
+        }
+        return e;
+    }
+
+    @FunctionalInterface
+    private interface StorageCall<T> {
+        T call() throws Exception;
+    }
+}
@@ -0,0 +1,24 @@
+package com.zsq.winter.minio.engine;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.InputStream;
+
+/**
+ * 下载得到的对象内容及其信息，调用方负责关闭输入流
+ */
+@Getter
+@AllArgsConstructor
+public class ObjectContent {
+
+    /**
+     * 对象信息，范围下载时 size 为返回内容的长度
+     */
+    private final ObjectInfo info;
+
+    /**
+     * 对象内容
+     */
+    private final InputStream stream;
+}
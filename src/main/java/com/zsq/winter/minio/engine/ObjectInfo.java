@@ -0,0 +1,44 @@
+package com.zsq.winter.minio.engine;
+
+import lombok.Data;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 与 SDK 版本无关的对象信息
+ */
+@Data
+public class ObjectInfo {
+
+    /**
+     * 对象键
+     */
+    private String key;
+
+    /**
+     * 对象大小
+     */
+    private long size;
+
+    /**
+     * ETag（不含引号）
+     */
+    private String eTag;
+
+    /**
+     * 内容类型，列举对象时为空
+     */
+    private String contentType;
+
+    /**
+     * 最后修改时间
+     */
+    private Date lastModified;
+
+    /**
+     * 用户自定义元数据，列举对象时为空
+     */
+    private Map<String, String> userMetadata = new HashMap<>();
+}
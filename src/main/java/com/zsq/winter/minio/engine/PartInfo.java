@@ -0,0 +1,22 @@
+package com.zsq.winter.minio.engine;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 已上传的分块
+ */
+@Data
+@AllArgsConstructor
+public class PartInfo {
+
+    /**
+     * 分块编号
+     */
+    private int partNumber;
+
+    /**
+     * 分块 ETag
+     */
+    private String eTag;
+}
@@ -0,0 +1,242 @@
+package com.zsq.winter.minio.engine;
+
+import com.amazonaws.regions.Regions;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Error;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 基于 SDK v2 S3AsyncClient 的引擎，使用 Netty 非阻塞 HTTP 客户端，等待响应时不占用线程
+ * 只有从 InputStream 读取上传内容时需要线程（streamExecutor），响应流为阻塞式 InputStream，由调用方读取
+ * 该引擎直接访问 endpoint，不经过 v1 客户端上的集群路由、重试限流等拦截器，重试由 SDK v2 自身处理
+ */
+public class S3AsyncClientEngine implements S3Engine {
+
+    private final S3AsyncClient s3AsyncClient;
+
+    private final ExecutorService streamExecutor;
+
+    public S3AsyncClientEngine(S3AsyncClient s3AsyncClient, ExecutorService streamExecutor) {
+        this.s3AsyncClient = s3AsyncClient;
+        this.streamExecutor = streamExecutor;
+    }
+
+    /**
+     * 按 winter-aws 配置创建 S3AsyncClient，连接参数与 v1 客户端一致
+     *
+     * @param amazonS3Properties 配置
+     * @return {@link S3AsyncClient}
+     */
+    public static S3AsyncClient createClient(AmazonS3Properties amazonS3Properties) {
+        String endpoint = amazonS3Properties.resolveEndpoint();
+        if (!endpoint.contains("://")) {
+            // v1 客户端默认使用 HTTP 协议
+            endpoint = "http://" + endpoint;
+        }
+        return S3AsyncClient.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.of(regionName(amazonS3Properties.getRegion())))
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(amazonS3Properties.getAccessKey(), amazonS3Properties.getSecretKey())))
+                .serviceConfiguration(S3Configuration.builder()
+                        .pathStyleAccessEnabled(amazonS3Properties.getPathStyleAccess())
+                        .build())
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(500)
+                        .connectionTimeout(Duration.ofSeconds(10))
+                        .readTimeout(Duration.ofSeconds(20)))
+                .build();
+    }
+
+    /**
+     * 兼容 region 配置为枚举名（如默认的 AP_EAST_1）的写法
+     */
+    private static String regionName(String region) {
+        try {
+            return Regions.valueOf(region).getName();
+        } catch (IllegalArgumentException e) {
+            return region;
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> putObject(String bucketName, String key, InputStream stream, long contentLength, String contentType) {
+        return this.call(this.s3AsyncClient.putObject(b -> b.bucket(bucketName).key(key).contentLength(contentLength).contentType(contentType),
+                        AsyncRequestBody.fromInputStream(stream, contentLength, this.streamExecutor)),
+                response -> unquote(response.eTag()));
+    }
+
+    @Override
+    public CompletableFuture<ObjectContent> getObjectContent(String bucketName, String key) {
+        return this.getObjectContent(GetObjectRequest.builder().bucket(bucketName).key(key).build());
+    }
+
+    @Override
+    public CompletableFuture<ObjectContent> getObjectContent(String bucketName, String key, long start, long end) {
+        return this.getObjectContent(GetObjectRequest.builder().bucket(bucketName).key(key).range("bytes=" + start + "-" + end).build());
+    }
+
+    private CompletableFuture<ObjectContent> getObjectContent(GetObjectRequest request) {
+        return this.call(this.s3AsyncClient.getObject(request, AsyncResponseTransformer.<GetObjectResponse>toBlockingInputStream()), stream -> {
+            GetObjectResponse response = stream.response();
+            ObjectInfo info = toInfo(request.key(), response.contentLength(), response.eTag(), response.contentType(), response.lastModified());
+            info.getUserMetadata().putAll(response.metadata());
+            return new ObjectContent(info, stream);
+        });
+    }
+
+    @Override
+    public CompletableFuture<ObjectInfo> headObject(String bucketName, String key) {
+        return this.call(this.s3AsyncClient.headObject(b -> b.bucket(bucketName).key(key)), response -> {
+            ObjectInfo info = toInfo(key, response.contentLength(), response.eTag(), response.contentType(), response.lastModified());
+            info.getUserMetadata().putAll(response.metadata());
+            return info;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<ObjectInfo>> listObjects(String bucketName, String prefix, int maxKeys) {
+        List<ObjectInfo> objects = new ArrayList<>();
+        return this.listObjects(ListObjectsV2Request.builder().bucket(bucketName).prefix(prefix).build(), maxKeys, objects)
+                .thenApply(ignored -> objects);
+    }
+
+    private CompletableFuture<Void> listObjects(ListObjectsV2Request request, int maxKeys, List<ObjectInfo> objects) {
+        ListObjectsV2Request pageRequest = request.toBuilder().maxKeys(Math.min(1000, maxKeys - objects.size())).build();
+        return this.call(this.s3AsyncClient.listObjectsV2(pageRequest), Function.identity()).thenCompose((ListObjectsV2Response response) -> {
+            response.contents().forEach(object -> objects.add(
+                    toInfo(object.key(), object.size(), object.eTag(), null, object.lastModified())));
+            if (!Boolean.TRUE.equals(response.isTruncated()) || objects.size() >= maxKeys) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return this.listObjects(request.toBuilder().continuationToken(response.nextContinuationToken()).build(), maxKeys, objects);
+        });
+    }
+
+    private static ObjectInfo toInfo(String key, Long size, String eTag, String contentType, Instant lastModified) {
+        ObjectInfo info = new ObjectInfo();
+        info.setKey(key);
+        info.setSize(size == null ? 0 : size);
+        info.setETag(unquote(eTag));
+        info.setContentType(contentType);
+        info.setLastModified(lastModified == null ? null : Date.from(lastModified));
+        return info;
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteObject(String bucketName, String key) {
+        return this.call(this.s3AsyncClient.deleteObject(b -> b.bucket(bucketName).key(key)), response -> null);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> deleteObjects(String bucketName, List<String> keys) {
+        List<ObjectIdentifier> identifiers = keys.stream().map(key -> ObjectIdentifier.builder().key(key).build()).collect(Collectors.toList());
+        return this.call(this.s3AsyncClient.deleteObjects(b -> b.bucket(bucketName).delete(Delete.builder().objects(identifiers).quiet(true).build())),
+                response -> response.errors().stream().map(S3Error::key).collect(Collectors.toList()));
+    }
+
+    @Override
+    public CompletableFuture<String> copyObject(String sourceBucketName, String sourceKey, String destinationBucketName, String destinationKey) {
+        return this.call(this.s3AsyncClient.copyObject(b -> b.sourceBucket(sourceBucketName).sourceKey(sourceKey)
+                        .destinationBucket(destinationBucketName).destinationKey(destinationKey)),
+                response -> unquote(response.copyObjectResult().eTag()));
+    }
+
+    @Override
+    public CompletableFuture<String> createMultipartUpload(String bucketName, String key, String contentType) {
+        return this.call(this.s3AsyncClient.createMultipartUpload(b -> b.bucket(bucketName).key(key).contentType(contentType)),
+                response -> response.uploadId());
+    }
+
+    @Override
+    public CompletableFuture<PartInfo> uploadPart(String bucketName, String key, String uploadId, int partNumber, InputStream stream, long partSize) {
+        return this.call(this.s3AsyncClient.uploadPart(b -> b.bucket(bucketName).key(key).uploadId(uploadId).partNumber(partNumber).contentLength(partSize),
+                        AsyncRequestBody.fromInputStream(stream, partSize, this.streamExecutor)),
+                response -> new PartInfo(partNumber, unquote(response.eTag())));
+    }
+
+    @Override
+    public CompletableFuture<String> completeMultipartUpload(String bucketName, String key, String uploadId, List<PartInfo> parts) {
+        List<CompletedPart> completedParts = parts.stream()
+                .map(part -> CompletedPart.builder().partNumber(part.getPartNumber()).eTag(part.getETag()).build())
+                .collect(Collectors.toList());
+        return this.call(this.s3AsyncClient.completeMultipartUpload(b -> b.bucket(bucketName).key(key).uploadId(uploadId)
+                        .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())),
+                response -> unquote(response.eTag()));
+    }
+
+    @Override
+    public CompletableFuture<Void> abortMultipartUpload(String bucketName, String key, String uploadId) {
+        return this.call(this.s3AsyncClient.abortMultipartUpload(b -> b.bucket(bucketName).key(key).uploadId(uploadId)), response -> null);
+    }
+
+    @Override
+    public void close() {
+        this.s3AsyncClient.close();
+    }
+
+    /**
+     * 转换结果，并把 SDK v2 的异常转换为 {@link S3EngineException}
+     */
+    private <R, T> CompletableFuture<T> call(CompletableFuture<R> response, Function<R, T> mapper) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        response.whenComplete((result, e) -> {
+            if (e == null) {
+                try {
+                    future.complete(mapper.apply(result));
+                } catch (Throwable mapError) {
+                    future.completeExceptionally(mapError);
+                }
+                return;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof AwsServiceException) {
+                AwsServiceException ase = (AwsServiceException) cause;
+                String errorCode = ase.awsErrorDetails() == null ? null : ase.awsErrorDetails().errorCode();
+                future.completeExceptionally(new S3EngineException(ase.statusCode(), errorCode, ase.getMessage(), ase));
+            } else if (cause instanceof SdkException) {
+                future.completeExceptionally(new S3EngineException(0, null, cause.getMessage(), cause));
+            } else {
+                future.completeExceptionally(cause);
+            }
+        });
+        return future;
+    }
+
+    private static String unquote(String eTag) {
+        if (eTag != null && eTag.length() >= 2 && eTag.startsWith("\"") && eTag.endsWith("\"")) {
+            return eTag.substring(1, eTag.length() - 1);
+        }
+        return eTag;
+    }
+}
@@ -0,0 +1,199 @@
+package com.zsq.winter.minio.engine;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 传输引擎：与 SDK 版本无关的对象读写接口，由 winter-aws.engine 选择实现
+ * 1. v1（默认）：基于 aws-java-sdk-s3 的 {@link AmazonS3Engine}，阻塞调用在异步线程池中执行，经过集群路由、重试限流等拦截器
+ * 2. v2：基于 SDK v2 S3AsyncClient 与 Netty 的 {@link S3AsyncClientEngine}，非阻塞 IO
+ * 所有方法立即返回，失败时 future 以 {@link S3EngineException} 结束
+ */
+public interface S3Engine extends Closeable {
+
+    /**
+     * 上传对象
+     *
+     * @param bucketName    存储桶名称
+     * @param key           对象键
+     * @param stream        对象内容
+     * @param contentLength 内容长度
+     * @param contentType   内容类型
+     * @return ETag
+     */
+    CompletableFuture<String> putObject(String bucketName, String key, InputStream stream, long contentLength, String contentType);
+
+    /**
+     * 下载对象，调用方负责关闭返回的输入流
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @return {@link InputStream}
+     */
+    default CompletableFuture<InputStream> getObject(String bucketName, String key) {
+        return this.getObjectContent(bucketName, key).thenApply(ObjectContent::getStream);
+    }
+
+    /**
+     * 下载对象的指定范围，调用方负责关闭返回的输入流
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @param start      开始位置
+     * @param end        结束位置（包含）
+     * @return {@link InputStream}
+     */
+    default CompletableFuture<InputStream> getObject(String bucketName, String key, long start, long end) {
+        return this.getObjectContent(bucketName, key, start, end).thenApply(ObjectContent::getStream);
+    }
+
+    /**
+     * 下载对象，同时返回响应中的对象信息（含用户自定义元数据），调用方负责关闭输入流
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @return {@link ObjectContent}
+     */
+    CompletableFuture<ObjectContent> getObjectContent(String bucketName, String key);
+
+    /**
+     * 下载对象的指定范围，同时返回响应中的对象信息，调用方负责关闭输入流
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @param start      开始位置
+     * @param end        结束位置（包含）
+     * @return {@link ObjectContent}
+     */
+    CompletableFuture<ObjectContent> getObjectContent(String bucketName, String key, long start, long end);
+
+    /**
+     * 获取对象信息
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @return {@link ObjectInfo}
+     */
+    CompletableFuture<ObjectInfo> headObject(String bucketName, String key);
+
+    /**
+     * 对象是否存在
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @return {@link Boolean}
+     */
+    default CompletableFuture<Boolean> doesObjectExist(String bucketName, String key) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        this.headObject(bucketName, key).whenComplete((info, e) -> {
+            if (e == null) {
+                future.complete(true);
+                return;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof S3EngineException && ((S3EngineException) cause).isNotFound()) {
+                future.complete(false);
+            } else {
+                future.completeExceptionally(cause);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 列出前缀下的全部对象（自动翻页）
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     前缀
+     * @return {@link List}<{@link ObjectInfo}>
+     */
+    default CompletableFuture<List<ObjectInfo>> listObjects(String bucketName, String prefix) {
+        return this.listObjects(bucketName, prefix, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 按键的顺序列出前缀下的对象，最多 maxKeys 个（自动翻页）
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     前缀
+     * @param maxKeys    最多返回的对象数
+     * @return {@link List}<{@link ObjectInfo}>
+     */
+    CompletableFuture<List<ObjectInfo>> listObjects(String bucketName, String prefix, int maxKeys);
+
+    /**
+     * 删除对象
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @return 删除完成信号
+     */
+    CompletableFuture<Void> deleteObject(String bucketName, String key);
+
+    /**
+     * 批量删除对象
+     *
+     * @param bucketName 存储桶名称
+     * @param keys       对象键，单次不超过 1000 个
+     * @return 删除失败的对象键
+     */
+    CompletableFuture<List<String>> deleteObjects(String bucketName, List<String> keys);
+
+    /**
+     * 复制对象
+     *
+     * @param sourceBucketName      源存储桶名称
+     * @param sourceKey             源对象键
+     * @param destinationBucketName 目标存储桶名称
+     * @param destinationKey        目标对象键
+     * @return ETag
+     */
+    CompletableFuture<String> copyObject(String sourceBucketName, String sourceKey, String destinationBucketName, String destinationKey);
+
+    /**
+     * 初始化分块上传
+     *
+     * @param bucketName  存储桶名称
+     * @param key         对象键
+     * @param contentType 内容类型
+     * @return uploadId
+     */
+    CompletableFuture<String> createMultipartUpload(String bucketName, String key, String contentType);
+
+    /**
+     * 上传分块
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @param uploadId   分块上传的 UploadId
+     * @param partNumber 分块编号
+     * @param stream     分块内容
+     * @param partSize   分块大小
+     * @return {@link PartInfo}
+     */
+    CompletableFuture<PartInfo> uploadPart(String bucketName, String key, String uploadId, int partNumber, InputStream stream, long partSize);
+
+    /**
+     * 完成分块上传
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @param uploadId   分块上传的 UploadId
+     * @param parts      已上传的分块
+     * @return ETag
+     */
+    CompletableFuture<String> completeMultipartUpload(String bucketName, String key, String uploadId, List<PartInfo> parts);
+
+    /**
+     * 取消分块上传
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @param uploadId   分块上传的 UploadId
+     * @return 完成信号
+     */
+    CompletableFuture<Void> abortMultipartUpload(String bucketName, String key, String uploadId);
+}
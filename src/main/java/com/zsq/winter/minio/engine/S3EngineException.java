@@ -0,0 +1,37 @@
+package com.zsq.winter.minio.engine;
+
+import lombok.Getter;
+
+/**
+ * 引擎统一的存储异常，屏蔽不同 SDK 的异常类型
+ */
+@Getter
+public class S3EngineException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * HTTP 状态码，未收到响应时为 0
+     */
+    private final int statusCode;
+
+    /**
+     * S3 错误码，如 NoSuchKey、SlowDown
+     */
+    private final String errorCode;
+
+    public S3EngineException(int statusCode, String errorCode, String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+        this.errorCode = errorCode;
+    }
+
+    /**
+     * 对象或存储桶不存在
+     *
+     * @return boolean
+     */
+    public boolean isNotFound() {
+        return this.statusCode == 404;
+    }
+}
@@ -0,0 +1,31 @@
+package com.zsq.winter.minio.hedge;
+
+/**
+ * 对冲请求预算：每个主请求积累 ratio 个额度，每个对冲请求消耗 1 个额度
+ * 长期来看对冲请求数不超过主请求数的 ratio 倍，额度上限避免空闲后突然集中对冲
+ */
+public class HedgeBudget {
+
+    private final double ratio;
+
+    private final double maxCredits;
+
+    private double credits;
+
+    public HedgeBudget(double ratio, double maxCredits) {
+        this.ratio = ratio;
+        this.maxCredits = maxCredits;
+    }
+
+    public synchronized void onRequest() {
+        this.credits = Math.min(this.maxCredits, this.credits + this.ratio);
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (this.credits >= 1) {
+            this.credits -= 1;
+            return true;
+        }
+        return false;
+    }
+}
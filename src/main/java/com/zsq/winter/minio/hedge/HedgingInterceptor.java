@@ -0,0 +1,237 @@
+package com.zsq.winter.minio.hedge;
+
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.support.AmazonS3Interceptor;
+import com.zsq.winter.minio.support.AmazonS3Invocation;
+import com.zsq.winter.minio.support.TransferExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对冲读请求：getObject / getObjectMetadata 在动态统计的百分位耗时内还没有响应时，再发出一个相同的请求，
+ * 先返回的结果被采用，另一个请求返回后立即中止（不读取剩余内容），对冲请求的数量受预算限制
+ * 只对幂等读请求生效，写入本地文件的 getObject(GetObjectRequest, File) 不参与对冲
+ */
+@Slf4j
+public class HedgingInterceptor implements AmazonS3Interceptor, Ordered, Closeable {
+
+    /**
+     * 位于指标统计之内、弹性调用层之外：对冲发出的每个请求各自经过熔断、限流与重试
+     */
+    public static final int ORDER = 100;
+
+    private final AmazonS3Properties.Hedge hedge;
+
+    private final HedgeBudget budget;
+
+    private final Map<String, LatencyTracker> trackers = new ConcurrentHashMap<>();
+
+    private final ThreadPoolExecutor executor;
+
+    public HedgingInterceptor(AmazonS3Properties.Hedge hedge) {
+        this(hedge, false);
+    }
+
+    /**
+     * @param hedge          对冲配置
+     * @param virtualThreads 是否使用虚拟线程执行请求，max-threads 仍限制同时执行的请求数
+     */
+    public HedgingInterceptor(AmazonS3Properties.Hedge hedge, boolean virtualThreads) {
+        this(hedge, new ThreadPoolExecutor(0, hedge.getMaxThreads(), 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                TransferExecutors.threadFactory("winter-s3-hedge-", virtualThreads)));
+    }
+
+    private HedgingInterceptor(AmazonS3Properties.Hedge hedge, ThreadPoolExecutor executor) {
+        this.hedge = hedge;
+        this.budget = new HedgeBudget(hedge.getBudgetPercent() / 100, Math.max(1, hedge.getMaxBurst()));
+        this.executor = executor;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * 独立的耗时统计与对冲预算，线程池与本实例共用，由本实例关闭
+     */
+    @Override
+    public AmazonS3Interceptor forClient() {
+        return new HedgingInterceptor(this.hedge, this.executor);
+    }
+
+    @Override
+    public Object intercept(AmazonS3Invocation invocation) throws Throwable {
+        if (!this.isHedgeable(invocation)) {
+            return invocation.proceed();
+        }
+        LatencyTracker tracker = this.trackers.computeIfAbsent(invocation.getMethodName(),
+                k -> new LatencyTracker(this.hedge.getSampleSize(), this.hedge.getPercentile()));
+        this.budget.onRequest();
+        long threshold = tracker.percentileNanos();
+        if (threshold < 0) {
+            // 样本不足时不对冲，只统计耗时
+            long start = System.nanoTime();
+            Object result = invocation.proceed();
+            tracker.record(System.nanoTime() - start);
+            return result;
+        }
+        long delay = Math.max(threshold, this.hedge.getMinDelay().toNanos());
+        BlockingQueue<Attempt> completions = new LinkedBlockingQueue<>();
+        Attempt primary = new Attempt(invocation, tracker, completions);
+        try {
+            this.executor.execute(primary);
+        } catch (RejectedExecutionException e) {
+            return invocation.proceed();
+        }
+        Attempt hedged = null;
+        try {
+            Attempt first = completions.poll(delay, TimeUnit.NANOSECONDS);
+            if (first == null && this.budget.tryAcquire()) {
+                hedged = new Attempt(invocation, tracker, completions);
+                try {
+                    this.executor.execute(hedged);
+                    log.debug("S3 {} 超过 {}ms 未响应，发出对冲请求", invocation.getMethodName(), TimeUnit.NANOSECONDS.toMillis(delay));
+                    return this.awaitWinner(completions, primary, hedged);
+                } catch (RejectedExecutionException ignored) {
+                    // 线程池已满，只等待主请求
+                    hedged = null;
+                }
+            }
+            if (first == null) {
+                first = completions.take();
+            }
+            return first.get();
+        } catch (InterruptedException e) {
+            // 调用方放弃等待，请求返回后直接中止
+            primary.abandon();
+            if (hedged != null) {
+                hedged.abandon();
+            }
+            throw e;
+        }
+    }
+
+    private Object awaitWinner(BlockingQueue<Attempt> completions, Attempt primary, Attempt hedged) throws Throwable {
+        Attempt first = completions.take();
+        if (first.error == null) {
+            Attempt loser = first == primary ? hedged : primary;
+            loser.abandon();
+            return first.result;
+        }
+        // 先返回的请求失败，等待另一个
+        Attempt second = completions.take();
+        if (second.error == null) {
+            return second.result;
+        }
+        throw primary.error;
+    }
+
+    private boolean isHedgeable(AmazonS3Invocation invocation) {
+        String name = invocation.getMethodName();
+        Object[] args = invocation.getArgs();
+        if ("getObjectMetadata".equals(name)) {
+            return true;
+        }
+        if (!"getObject".equals(name) || args == null) {
+            return false;
+        }
+        // getObject(bucket, key) 或 getObject(GetObjectRequest)
+        return args.length == 2 && args[0] instanceof String || args.length == 1 && args[0] instanceof GetObjectRequest;
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * 一次请求尝试，完成后放入完成队列；被放弃的尝试在完成时立即中止响应流
+     */
+    private static class Attempt implements Runnable {
+
+        private final AmazonS3Invocation invocation;
+
+        private final LatencyTracker tracker;
+
+        private final BlockingQueue<Attempt> completions;
+
+        private volatile Object result;
+
+        private volatile Throwable error;
+
+        private boolean done;
+
+        private boolean abandoned;
+
+        Attempt(AmazonS3Invocation invocation, LatencyTracker tracker, BlockingQueue<Attempt> completions) {
+            this.invocation = invocation;
+            this.tracker = tracker;
+            this.completions = completions;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            try {
+                this.result = this.invocation.proceed();
+                this.tracker.record(System.nanoTime() - start);
+            } catch (Throwable e) {
+                this.error = e;
+            }
+            boolean release;
+            synchronized (this) {
+                this.done = true;
+                release = this.abandoned;
+            }
+            if (release) {
+                release(this.result);
+            }
+            this.completions.add(this);
+        }
+
+        Object get() throws Throwable {
+            if (this.error != null) {
+                throw this.error;
+            }
+            return this.result;
+        }
+
+        void abandon() {
+            boolean release;
+            synchronized (this) {
+                this.abandoned = true;
+                release = this.done;
+            }
+            if (release) {
+                release(this.result);
+            }
+        }
+
+        private static void release(Object result) {
+            if (result instanceof S3Object) {
+                S3Object object = (S3Object) result;
+                // abort 直接断开连接，不读取剩余内容
+                object.getObjectContent().abort();
+                try {
+                    object.close();
+                } catch (IOException ignored) {
+                    // 已中止，忽略关闭异常
+                }
+            }
+        }
+    }
+}
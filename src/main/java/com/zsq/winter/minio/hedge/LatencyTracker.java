@@ -0,0 +1,61 @@
+package com.zsq.winter.minio.hedge;
+
+import java.util.Arrays;
+
+/**
+ * 记录最近 N 次请求的耗时，按需计算百分位数
+ * 百分位数每新增 sampleSize / 10 个样本重新计算一次，读取时不排序
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+
+    private final double percentile;
+
+    private final int refreshEvery;
+
+    private int position;
+
+    /**
+     * 只在 record 中持锁修改，percentileNanos 不加锁读取
+     */
+    private volatile int count;
+
+    private int sinceRefresh;
+
+    private volatile long cachedNanos = -1;
+
+    /**
+     * @param sampleSize 样本窗口大小
+     * @param percentile 百分位，如 95 表示 p95
+     */
+    public LatencyTracker(int sampleSize, double percentile) {
+        this.samples = new long[Math.max(10, sampleSize)];
+        this.percentile = percentile;
+        this.refreshEvery = Math.max(1, this.samples.length / 10);
+    }
+
+    public synchronized void record(long nanos) {
+        this.samples[this.position] = nanos;
+        this.position = (this.position + 1) % this.samples.length;
+        if (this.count < this.samples.length) {
+            this.count++;
+        }
+        if (++this.sinceRefresh >= this.refreshEvery || this.cachedNanos < 0) {
+            this.sinceRefresh = 0;
+            long[] copy = Arrays.copyOf(this.samples, this.count);
+            Arrays.sort(copy);
+            int index = (int) Math.ceil(this.percentile / 100 * copy.length) - 1;
+            this.cachedNanos = copy[Math.max(0, Math.min(copy.length - 1, index))];
+        }
+    }
+
+    /**
+     * 当前百分位耗时
+     *
+     * @return 纳秒，样本不足时返回 -1
+     */
+    public long percentileNanos() {
+        return this.count < this.refreshEvery ? -1 : this.cachedNanos;
+    }
+}
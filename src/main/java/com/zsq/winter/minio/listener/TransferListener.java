@@ -0,0 +1,82 @@
+package com.zsq.winter.minio.listener;
+
+/**
+ * 分块上传的进度与耗时事件，用于进度条、吞吐监控和自适应调优
+ * 1. 所有方法都有空的默认实现，只需覆盖关心的事件
+ * 2. 参数均为基本类型或已有对象，默认实现 {@link #NOOP} 不产生任何对象分配
+ * 3. 回调在执行上传的线程上同步调用，实现应尽量轻量；注册为 Bean 的监听器经 {@link TransferListeners} 组合，抛出的异常只记录日志，不影响上传
+ */
+public interface TransferListener {
+
+    /**
+     * 不做任何处理的监听器
+     */
+    TransferListener NOOP = new TransferListener() {
+    };
+
+    /**
+     * 分块上传已初始化
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @param uploadId   分块上传的 UploadId
+     */
+    default void transferStarted(String bucketName, String key, String uploadId) {
+    }
+
+    /**
+     * 开始上传分块
+     *
+     * @param uploadId   分块上传的 UploadId
+     * @param partNumber 分块编号
+     * @param bytes      分块大小
+     */
+    default void partStarted(String uploadId, int partNumber, long bytes) {
+    }
+
+    /**
+     * 分块上传结束
+     *
+     * @param uploadId      分块上传的 UploadId
+     * @param partNumber    分块编号
+     * @param bytes         分块大小
+     * @param durationNanos 耗时（纳秒），包含重试
+     * @param error         失败原因，成功时为 null
+     */
+    default void partFinished(String uploadId, int partNumber, long bytes, long durationNanos, Throwable error) {
+    }
+
+    /**
+     * 请求失败后即将重试
+     *
+     * @param operation   AmazonS3 方法名
+     * @param bucketName  存储桶名称，可能为 null
+     * @param attempt     已失败的尝试次数
+     * @param delayMillis 重试前的等待时间
+     * @param cause       本次失败的原因
+     */
+    default void retried(String operation, String bucketName, int attempt, long delayMillis, Throwable cause) {
+    }
+
+    /**
+     * 分块合并完成
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @param uploadId   分块上传的 UploadId
+     * @param partCount  分块数量
+     */
+    default void transferCompleted(String bucketName, String key, String uploadId, int partCount) {
+    }
+
+    /**
+     * 分块合并失败或分块上传被取消
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @param uploadId   分块上传的 UploadId
+     * @param error      失败原因，主动取消时为 null
+     */
+    default void transferFailed(String bucketName, String key, String uploadId, Throwable error) {
+    }
+}
@@ -0,0 +1,101 @@
+package com.zsq.winter.minio.listener;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 组合多个监听器，单个监听器抛出的异常只记录日志，不影响其他监听器和上传本身
+ */
+@Slf4j
+public final class TransferListeners implements TransferListener {
+
+    private final TransferListener[] listeners;
+
+    private TransferListeners(List<TransferListener> listeners) {
+        this.listeners = listeners.toArray(new TransferListener[0]);
+    }
+
+    /**
+     * 组合监听器，没有监听器时返回 {@link TransferListener#NOOP}
+     *
+     * @param listeners 监听器
+     * @return {@link TransferListener}
+     */
+    public static TransferListener of(List<TransferListener> listeners) {
+        List<TransferListener> effective = new ArrayList<>();
+        for (TransferListener listener : listeners) {
+            if (listener != null && listener != NOOP) {
+                effective.add(listener);
+            }
+        }
+        return effective.isEmpty() ? NOOP : new TransferListeners(effective);
+    }
+
+    @Override
+    public void transferStarted(String bucketName, String key, String uploadId) {
+        for (TransferListener listener : this.listeners) {
+            try {
+                listener.transferStarted(bucketName, key, uploadId);
+            } catch (RuntimeException e) {
+                log.warn("TransferListener {} 处理 transferStarted 出错", listener, e);
+            }
+        }
+    }
+
+    @Override
+    public void partStarted(String uploadId, int partNumber, long bytes) {
+        for (TransferListener listener : this.listeners) {
+            try {
+                listener.partStarted(uploadId, partNumber, bytes);
+            } catch (RuntimeException e) {
+                log.warn("TransferListener {} 处理 partStarted 出错", listener, e);
+            }
+        }
+    }
+
+    @Override
+    public void partFinished(String uploadId, int partNumber, long bytes, long durationNanos, Throwable error) {
+        for (TransferListener listener : this.listeners) {
+            try {
+                listener.partFinished(uploadId, partNumber, bytes, durationNanos, error);
+            } catch (RuntimeException e) {
+                log.warn("TransferListener {} 处理 partFinished 出错", listener, e);
+            }
+        }
+    }
+
+    @Override
+    public void retried(String operation, String bucketName, int attempt, long delayMillis, Throwable cause) {
+        for (TransferListener listener : this.listeners) {
+            try {
+                listener.retried(operation, bucketName, attempt, delayMillis, cause);
+            } catch (RuntimeException e) {
+                log.warn("TransferListener {} 处理 retried 出错", listener, e);
+            }
+        }
+    }
+
+    @Override
+    public void transferCompleted(String bucketName, String key, String uploadId, int partCount) {
+        for (TransferListener listener : this.listeners) {
+            try {
+                listener.transferCompleted(bucketName, key, uploadId, partCount);
+            } catch (RuntimeException e) {
+                log.warn("TransferListener {} 处理 transferCompleted 出错", listener, e);
+            }
+        }
+    }
+
+    @Override
+    public void transferFailed(String bucketName, String key, String uploadId, Throwable error) {
+        for (TransferListener listener : this.listeners) {
+            try {
+                listener.transferFailed(bucketName, key, uploadId, error);
+            } catch (RuntimeException e) {
+                log.warn("TransferListener {} 处理 transferFailed 出错", listener, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.zsq.winter.minio.metrics;
+
+import com.amazonaws.http.IdleConnectionReaper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * HTTP 连接池指标 winter.s3.connections，标签 state（leased/available/pending/max）
+ * 统计的是 JVM 内所有 aws-java-sdk v1 客户端注册到 {@link IdleConnectionReaper} 的连接池之和，包括多节点和多租户客户端
+ */
+public class AmazonS3ConnectionPoolMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.gauge(registry, "leased", "正在使用的连接数", PoolStats::getLeased);
+        this.gauge(registry, "available", "空闲的连接数", PoolStats::getAvailable);
+        this.gauge(registry, "pending", "等待获取连接的请求数", PoolStats::getPending);
+        this.gauge(registry, "max", "最大连接数", PoolStats::getMax);
+    }
+
+    private void gauge(MeterRegistry registry, String state, String description, ToIntFunction<PoolStats> value) {
+        Gauge.builder("winter.s3.connections", this, metrics -> sum(value))
+                .description(description)
+                .tag("state", state)
+                .register(registry);
+    }
+
+    private static double sum(ToIntFunction<PoolStats> value) {
+        int total = 0;
+        for (HttpClientConnectionManager manager : IdleConnectionReaper.getRegisteredConnectionManagers()) {
+            if (manager instanceof ConnPoolControl) {
+                total += value.applyAsInt(((ConnPoolControl<?>) manager).getTotalStats());
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,154 @@
+package com.zsq.winter.minio.metrics;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.zsq.winter.minio.support.AmazonS3Interceptor;
+import com.zsq.winter.minio.support.AmazonS3Invocation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.Ordered;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录每个 AmazonS3 操作的耗时、上传下载字节数和错误次数，位于拦截器最外层，耗时包含重试、对冲和节点切换
+ * 1. winter.s3.requests：耗时直方图，标签 operation（AmazonS3 方法名）、outcome（SUCCESS/ERROR）
+ * 2. winter.s3.bytes：上传/下载字节数，标签 operation、direction（upload/download），下载按响应的 Content-Length 统计
+ * 3. winter.s3.errors：错误次数，标签 operation、code（S3 错误码或异常类名）、status（HTTP 状态码，未收到响应时为 0）
+ */
+public class AmazonS3MetricsInterceptor implements AmazonS3Interceptor, Ordered {
+
+    /**
+     * 最外层
+     */
+    public static final int ORDER = 0;
+
+    private final MeterRegistry registry;
+
+    private final boolean percentileHistogram;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public AmazonS3MetricsInterceptor(MeterRegistry registry, boolean percentileHistogram) {
+        this.registry = registry;
+        this.percentileHistogram = percentileHistogram;
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Object intercept(AmazonS3Invocation invocation) throws Throwable {
+        String operation = invocation.getMethodName();
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            this.timer(operation, "SUCCESS").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            this.recordBytes(operation, invocation.getArgs(), result);
+            return result;
+        } catch (Throwable e) {
+            this.timer(operation, "ERROR").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            this.recordError(operation, e);
+            throw e;
+        }
+    }
+
+    private void recordBytes(String operation, Object[] args, Object result) {
+        long uploaded = uploadedBytes(args);
+        if (uploaded > 0) {
+            this.counter("winter.s3.bytes", operation, "direction", "upload").increment(uploaded);
+        }
+        long downloaded = -1;
+        if (result instanceof S3Object) {
+            downloaded = ((S3Object) result).getObjectMetadata().getContentLength();
+        } else if ("getObject".equals(operation) && result instanceof ObjectMetadata) {
+            // getObject(GetObjectRequest, File)
+            downloaded = ((ObjectMetadata) result).getContentLength();
+        }
+        if (downloaded > 0) {
+            this.counter("winter.s3.bytes", operation, "direction", "download").increment(downloaded);
+        }
+    }
+
+    private static long uploadedBytes(Object[] args) {
+        if (args == null) {
+            return -1;
+        }
+        for (Object arg : args) {
+            if (arg instanceof UploadPartRequest) {
+                UploadPartRequest request = (UploadPartRequest) arg;
+                return request.getFile() != null && request.getPartSize() <= 0 ? request.getFile().length() : request.getPartSize();
+            }
+            if (arg instanceof PutObjectRequest) {
+                PutObjectRequest request = (PutObjectRequest) arg;
+                if (request.getFile() != null) {
+                    return request.getFile().length();
+                }
+                return request.getMetadata() == null ? -1 : request.getMetadata().getContentLength();
+            }
+        }
+        // putObject(bucket, key, File) / putObject(bucket, key, InputStream, ObjectMetadata) / putObject(bucket, key, String)
+        if (args.length == 3 && args[2] instanceof File) {
+            return ((File) args[2]).length();
+        }
+        if (args.length == 4 && args[3] instanceof ObjectMetadata) {
+            return ((ObjectMetadata) args[3]).getContentLength();
+        }
+        if (args.length == 3 && args[0] instanceof String && args[2] instanceof String) {
+            return ((String) args[2]).getBytes(StandardCharsets.UTF_8).length;
+        }
+        return -1;
+    }
+
+    private void recordError(String operation, Throwable e) {
+        String code = e.getClass().getSimpleName();
+        int status = 0;
+        if (e instanceof AmazonServiceException) {
+            AmazonServiceException ase = (AmazonServiceException) e;
+            status = ase.getStatusCode();
+            if (ase.getErrorCode() != null) {
+                code = ase.getErrorCode();
+            }
+        }
+        this.errorCounter(operation, code, status).increment();
+    }
+
+    private Counter errorCounter(String operation, String code, int status) {
+        return this.counters.computeIfAbsent("winter.s3.errors|" + operation + "|" + code + "|" + status, k -> Counter.builder("winter.s3.errors")
+                .description("S3 请求错误次数")
+                .tag("operation", operation)
+                .tag("code", code)
+                .tag("status", String.valueOf(status))
+                .register(this.registry));
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return this.timers.computeIfAbsent(operation + "|" + outcome, k -> Timer.builder("winter.s3.requests")
+                .description("S3 请求耗时")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram(this.percentileHistogram)
+                .register(this.registry));
+    }
+
+    private Counter counter(String name, String operation, String tagKey, String tagValue) {
+        return this.counters.computeIfAbsent(name + "|" + operation + "|" + tagValue, k -> Counter.builder(name)
+                .baseUnit("bytes")
+                .description("S3 传输字节数")
+                .tag("operation", operation)
+                .tag(tagKey, tagValue)
+                .register(this.registry));
+    }
+}
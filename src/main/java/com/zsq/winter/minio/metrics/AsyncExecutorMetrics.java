@@ -0,0 +1,54 @@
+package com.zsq.winter.minio.metrics;
+
+import com.zsq.winter.minio.async.InstrumentedThreadPoolExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步模板线程池指标，前缀 winter.s3.async：活跃线程、排队任务、拒绝次数、排队和执行耗时
+ * 使用虚拟线程或自定义的非 InstrumentedThreadPoolExecutor 线程池时不注册指标
+ */
+public class AsyncExecutorMetrics implements MeterBinder {
+
+    private final Executor executor;
+
+    public AsyncExecutorMetrics(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!(this.executor instanceof InstrumentedThreadPoolExecutor)) {
+            return;
+        }
+        InstrumentedThreadPoolExecutor pool = (InstrumentedThreadPoolExecutor) this.executor;
+        Gauge.builder("winter.s3.async.active", pool, InstrumentedThreadPoolExecutor::getActiveCount)
+                .description("正在执行任务的线程数")
+                .register(registry);
+        Gauge.builder("winter.s3.async.queued", pool, e -> e.getQueue().size())
+                .description("排队等待的任务数")
+                .register(registry);
+        FunctionCounter.builder("winter.s3.async.rejected", pool, InstrumentedThreadPoolExecutor::getRejectedCount)
+                .description("线程池已满被拒绝的任务数")
+                .register(registry);
+        FunctionTimer.builder("winter.s3.async.queue.wait", pool, InstrumentedThreadPoolExecutor::getCompletedTaskCount,
+                        e -> e.getTotalQueueWaitTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS)
+                .description("任务排队耗时")
+                .register(registry);
+        TimeGauge.builder("winter.s3.async.queue.wait.max", pool, TimeUnit.NANOSECONDS,
+                        e -> e.getMaxQueueWaitTime(TimeUnit.NANOSECONDS))
+                .description("任务最长排队耗时")
+                .register(registry);
+        FunctionTimer.builder("winter.s3.async.execution", pool, InstrumentedThreadPoolExecutor::getCompletedTaskCount,
+                        e -> e.getTotalExecutionTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS)
+                .description("任务执行耗时")
+                .register(registry);
+    }
+}
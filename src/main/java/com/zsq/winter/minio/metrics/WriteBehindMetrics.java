@@ -0,0 +1,53 @@
+package com.zsq.winter.minio.metrics;
+
+import com.zsq.winter.minio.writebehind.WriteBehindQueue;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 异步写回队列指标，前缀 winter.s3.write-behind：排队请求数与字节数、正在上传数、溢出文件积压，以及合并、丢弃、溢出、上传和失败次数
+ * 未启用写回队列时不注册指标
+ */
+public class WriteBehindMetrics implements MeterBinder {
+
+    private final WriteBehindQueue queue;
+
+    public WriteBehindMetrics(WriteBehindQueue queue) {
+        this.queue = queue;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (this.queue == null) {
+            return;
+        }
+        Gauge.builder("winter.s3.write-behind.queued", this.queue, WriteBehindQueue::getQueuedCount)
+                .description("排队等待上传的请求数")
+                .register(registry);
+        Gauge.builder("winter.s3.write-behind.queued.bytes", this.queue, WriteBehindQueue::getQueuedBytes)
+                .description("排队与正在上传的请求占用的字节数")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("winter.s3.write-behind.in-flight", this.queue, WriteBehindQueue::getInFlightCount)
+                .description("正在上传的请求数")
+                .register(registry);
+        Gauge.builder("winter.s3.write-behind.spill.backlog", this.queue, WriteBehindQueue::getSpillBacklog)
+                .description("尚未加载回内存的溢出文件数")
+                .register(registry);
+        this.counter(registry, "coalesced", "排队期间被同一对象键的新写入覆盖的请求数", WriteBehindQueue::getCoalescedCount);
+        this.counter(registry, "dropped", "队列已满或写入溢出文件失败而丢弃的请求数", WriteBehindQueue::getDroppedCount);
+        this.counter(registry, "spilled", "队列已满时写入溢出文件的请求数", WriteBehindQueue::getSpilledCount);
+        this.counter(registry, "uploaded", "上传成功的请求数", WriteBehindQueue::getUploadedCount);
+        this.counter(registry, "failed", "重试后仍上传失败的请求数", WriteBehindQueue::getFailedCount);
+    }
+
+    private void counter(MeterRegistry registry, String name, String description, ToDoubleFunction<WriteBehindQueue> count) {
+        FunctionCounter.builder("winter.s3.write-behind." + name, this.queue, count)
+                .description(description)
+                .register(registry);
+    }
+}
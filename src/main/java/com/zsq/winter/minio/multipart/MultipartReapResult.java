@@ -0,0 +1,33 @@
+package com.zsq.winter.minio.multipart;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一次清理的结果
+ */
+@Data
+public class MultipartReapResult {
+
+    /**
+     * 列出的分片上传数
+     */
+    private int scanned;
+
+    /**
+     * 已取消的过期分片上传，dry-run 时为本应取消的分片上传
+     */
+    private List<ReapedUpload> aborted = new ArrayList<>();
+
+    /**
+     * 取消失败的分片上传数，下一轮清理时重试
+     */
+    private int failed;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private long durationMillis;
+}
@@ -0,0 +1,174 @@
+package com.zsq.winter.minio.multipart;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.ListMultipartUploadsRequest;
+import com.amazonaws.services.s3.model.MultipartUpload;
+import com.amazonaws.services.s3.model.MultipartUploadListing;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.listener.TransferListener;
+import com.zsq.winter.minio.support.TransferExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 过期分片上传清理：客户端中断后遗留的分片上传会一直占用存储，并拖慢 MinIO 的列举与自愈
+ * 1. 按 KeyMarker / UploadIdMarker 翻页列出存储桶中的分片上传，取消发起时间早于 max-age 的上传
+ * 2. 每页的取消请求由 parallelism 个线程并行执行，一页处理完再列下一页，内存占用与分片上传总数无关
+ * 3. interval 大于 0 时在后台按间隔定期清理；也可以直接调用 {@link #reap()}
+ * 取消成功的上传会通知 {@link TransferListener#transferFailed}（error 为 null），已被其他实例取消或已完成的上传直接跳过
+ */
+@Slf4j
+public class MultipartUploadReaper implements Closeable {
+
+    private final AmazonS3 amazonS3;
+
+    private final List<String> bucketNames;
+
+    private final String prefix;
+
+    private final long maxAgeMillis;
+
+    private final boolean dryRun;
+
+    private final ExecutorService aborter;
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile TransferListener transferListener = TransferListener.NOOP;
+
+    public MultipartUploadReaper(AmazonS3Properties amazonS3Properties, AmazonS3 amazonS3) {
+        AmazonS3Properties.MultipartReaper reaper = amazonS3Properties.getMultipartReaper();
+        this.amazonS3 = amazonS3;
+        this.bucketNames = reaper.getBuckets().isEmpty()
+                ? Collections.singletonList(amazonS3Properties.getBucket()) : new ArrayList<>(reaper.getBuckets());
+        this.prefix = StringUtils.hasText(reaper.getPrefix()) ? reaper.getPrefix() : null;
+        this.maxAgeMillis = reaper.getMaxAge().toMillis();
+        this.dryRun = reaper.getDryRun();
+        if (reaper.getParallelism() <= 0) {
+            throw new IllegalArgumentException("winter-aws.multipart-reaper.parallelism 必须大于 0");
+        }
+        this.aborter = Executors.newFixedThreadPool(reaper.getParallelism(),
+                TransferExecutors.threadFactory("winter-s3-reaper-", amazonS3Properties.getVirtualThreads()));
+        long interval = reaper.getInterval().toMillis();
+        if (interval > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(TransferExecutors.threadFactory("winter-s3-reaper-timer-", false));
+            this.scheduler.scheduleWithFixedDelay(this::reapQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    public void setTransferListener(TransferListener transferListener) {
+        this.transferListener = transferListener == null ? TransferListener.NOOP : transferListener;
+    }
+
+    /**
+     * 清理所有配置的存储桶
+     *
+     * @return {@link MultipartReapResult}
+     */
+    public MultipartReapResult reap() {
+        MultipartReapResult total = new MultipartReapResult();
+        long start = System.currentTimeMillis();
+        for (String bucketName : this.bucketNames) {
+            MultipartReapResult result = this.reap(bucketName);
+            total.setScanned(total.getScanned() + result.getScanned());
+            total.setFailed(total.getFailed() + result.getFailed());
+            total.getAborted().addAll(result.getAborted());
+        }
+        total.setDurationMillis(System.currentTimeMillis() - start);
+        return total;
+    }
+
+    /**
+     * 清理一个存储桶中发起时间早于 max-age 的分片上传
+     *
+     * @param bucketName 存储桶名称
+     * @return {@link MultipartReapResult}
+     */
+    public synchronized MultipartReapResult reap(String bucketName) {
+        long start = System.currentTimeMillis();
+        Date cutoff = new Date(start - this.maxAgeMillis);
+        MultipartReapResult result = new MultipartReapResult();
+        ListMultipartUploadsRequest request = new ListMultipartUploadsRequest(bucketName).withPrefix(this.prefix);
+        MultipartUploadListing listing;
+        do {
+            listing = this.amazonS3.listMultipartUploads(request);
+            result.setScanned(result.getScanned() + listing.getMultipartUploads().size());
+            List<CompletableFuture<ReapedUpload>> aborts = new ArrayList<>();
+            for (MultipartUpload upload : listing.getMultipartUploads()) {
+                if (upload.getInitiated() == null || !upload.getInitiated().before(cutoff)) {
+                    continue;
+                }
+                ReapedUpload reaped = new ReapedUpload(bucketName, upload.getKey(), upload.getUploadId(), upload.getInitiated());
+                aborts.add(this.dryRun ? CompletableFuture.completedFuture(reaped)
+                        : CompletableFuture.supplyAsync(() -> this.abort(reaped), this.aborter));
+            }
+            for (CompletableFuture<ReapedUpload> abort : aborts) {
+                ReapedUpload reaped = abort.exceptionally(e -> null).join();
+                if (reaped != null) {
+                    result.getAborted().add(reaped);
+                }
+            }
+            result.setFailed(result.getFailed() + (int) aborts.stream().filter(CompletableFuture::isCompletedExceptionally).count());
+            // 标记指向本页最后一个上传，取消本页的上传不影响下一页的位置
+            request.setKeyMarker(listing.getNextKeyMarker());
+            request.setUploadIdMarker(listing.getNextUploadIdMarker());
+        } while (listing.isTruncated() && listing.getNextKeyMarker() != null);
+        result.setDurationMillis(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    @Override
+    public void close() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+        }
+        this.aborter.shutdownNow();
+    }
+
+    /**
+     * 取消分片上传
+     *
+     * @return 上传已不存在时为 null
+     */
+    private ReapedUpload abort(ReapedUpload upload) {
+        try {
+            this.amazonS3.abortMultipartUpload(new AbortMultipartUploadRequest(upload.getBucketName(), upload.getKey(), upload.getUploadId()));
+        } catch (SdkClientException e) {
+            if (e instanceof AmazonS3Exception && ((AmazonS3Exception) e).getStatusCode() == 404) {
+                return null;
+            }
+            log.warn("取消分片上传 {}/{}（{}）失败", upload.getBucketName(), upload.getKey(), upload.getUploadId(), e);
+            throw e;
+        }
+        this.transferListener.transferFailed(upload.getBucketName(), upload.getKey(), upload.getUploadId(), null);
+        return upload;
+    }
+
+    private void reapQuietly() {
+        try {
+            MultipartReapResult result = this.reap();
+            if (!result.getAborted().isEmpty() || result.getFailed() > 0) {
+                log.info("清理过期分片上传：扫描 {} 个，{} {} 个，失败 {} 个，耗时 {}ms", result.getScanned(),
+                        this.dryRun ? "待取消" : "已取消", result.getAborted().size(), result.getFailed(), result.getDurationMillis());
+            }
+        } catch (Exception e) {
+            log.warn("清理过期分片上传失败", e);
+        }
+    }
+}
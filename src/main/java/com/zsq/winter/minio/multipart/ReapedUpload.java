@@ -0,0 +1,34 @@
+package com.zsq.winter.minio.multipart;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 被清理的分片上传
+ */
+@Data
+@AllArgsConstructor
+public class ReapedUpload {
+
+    /**
+     * 存储桶名称
+     */
+    private String bucketName;
+
+    /**
+     * 对象键
+     */
+    private String key;
+
+    /**
+     * 分片上传的 UploadId
+     */
+    private String uploadId;
+
+    /**
+     * 发起时间
+     */
+    private Date initiated;
+}
@@ -0,0 +1,42 @@
+package com.zsq.winter.minio.pack;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存中的打包索引，进程重启后由 {@link PackedAmazonS3Template#recover()} 从索引清单重建
+ */
+public class InMemoryPackIndex implements PackIndex {
+
+    private final Map<String, PackEntry> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public PackEntry get(String key) {
+        return this.entries.get(key);
+    }
+
+    @Override
+    public PackEntry put(String key, PackEntry entry) {
+        return this.entries.put(key, entry);
+    }
+
+    @Override
+    public PackEntry remove(String key) {
+        return this.entries.remove(key);
+    }
+
+    @Override
+    public boolean replace(String key, PackEntry expected, PackEntry entry) {
+        return this.entries.replace(key, expected, entry);
+    }
+
+    @Override
+    public boolean remove(String key, PackEntry expected) {
+        return this.entries.remove(key, expected);
+    }
+
+    @Override
+    public long size() {
+        return this.entries.size();
+    }
+}
@@ -0,0 +1,25 @@
+package com.zsq.winter.minio.pack;
+
+import lombok.Data;
+
+/**
+ * 一次压缩的结果
+ */
+@Data
+public class PackCompactionResult {
+
+    /**
+     * 删除的打包对象数
+     */
+    private int packs;
+
+    /**
+     * 迁移到新打包对象的有效条目数
+     */
+    private int relocatedEntries;
+
+    /**
+     * 回收的存储空间（字节），即被删除打包对象中的无效数据
+     */
+    private long reclaimedBytes;
+}
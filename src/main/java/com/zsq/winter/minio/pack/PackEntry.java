@@ -0,0 +1,32 @@
+package com.zsq.winter.minio.pack;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 逻辑对象在打包对象中的位置
+ */
+@Data
+@AllArgsConstructor
+public class PackEntry {
+
+    /**
+     * 打包对象的对象键
+     */
+    private String packKey;
+
+    /**
+     * 在打包对象中的起始位置
+     */
+    private long offset;
+
+    /**
+     * 长度
+     */
+    private int length;
+
+    /**
+     * 内容类型
+     */
+    private String contentType;
+}
@@ -0,0 +1,60 @@
+package com.zsq.winter.minio.pack;
+
+/**
+ * 逻辑对象键到 {@link PackEntry} 的索引
+ * 默认实现 {@link InMemoryPackIndex} 只保存在内存中，启动时从打包对象的索引清单重建；
+ * 声明该类型的 Bean 可替换为 Redis、数据库等外部存储，多个实例共享同一份索引
+ */
+public interface PackIndex {
+
+    /**
+     * 查询
+     *
+     * @param key 逻辑对象键
+     * @return 不存在时为 null
+     */
+    PackEntry get(String key);
+
+    /**
+     * 写入
+     *
+     * @param key   逻辑对象键
+     * @param entry 位置
+     * @return 原来的位置，不存在时为 null
+     */
+    PackEntry put(String key, PackEntry entry);
+
+    /**
+     * 删除
+     *
+     * @param key 逻辑对象键
+     * @return 原来的位置，不存在时为 null
+     */
+    PackEntry remove(String key);
+
+    /**
+     * 当前位置等于 expected 时替换为 entry，用于压缩时迁移条目，避免覆盖并发写入的新位置
+     *
+     * @param key      逻辑对象键
+     * @param expected 期望的当前位置
+     * @param entry    新位置
+     * @return 是否替换
+     */
+    boolean replace(String key, PackEntry expected, PackEntry entry);
+
+    /**
+     * 当前位置等于 expected 时删除
+     *
+     * @param key      逻辑对象键
+     * @param expected 期望的当前位置
+     * @return 是否删除
+     */
+    boolean remove(String key, PackEntry expected);
+
+    /**
+     * 条目数
+     *
+     * @return long
+     */
+    long size();
+}
@@ -0,0 +1,124 @@
+package com.zsq.winter.minio.pack;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 打包对象的索引清单：按写入顺序记录条目与删除标记，与打包对象一同上传，重启时按打包顺序回放即可重建索引
+ * 每行一条记录，字段以制表符分隔，对象键经过 URL 编码：
+ * <pre>
+ * P  offset  length  contentType  key   写入
+ * D  key                                删除
+ * </pre>
+ */
+final class PackManifest {
+
+    private static final String HEADER = "# winter-pack 1";
+
+    private static final String NO_CONTENT_TYPE = "-";
+
+    private PackManifest() {
+    }
+
+    static final class Record {
+
+        final String key;
+
+        /**
+         * 删除标记时为 null
+         */
+        final PackEntry entry;
+
+        private Record(String key, PackEntry entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+
+        static Record put(String key, PackEntry entry) {
+            return new Record(key, entry);
+        }
+
+        static Record delete(String key) {
+            return new Record(key, null);
+        }
+
+        boolean isDelete() {
+            return this.entry == null;
+        }
+    }
+
+    static byte[] encode(List<Record> records) {
+        StringBuilder builder = new StringBuilder(HEADER).append('\n');
+        for (Record record : records) {
+            if (record.isDelete()) {
+                builder.append("D\t").append(escape(record.key)).append('\n');
+            } else {
+                PackEntry entry = record.entry;
+                builder.append("P\t").append(entry.getOffset())
+                        .append('\t').append(entry.getLength())
+                        .append('\t').append(entry.getContentType() == null ? NO_CONTENT_TYPE : escape(entry.getContentType()))
+                        .append('\t').append(escape(record.key)).append('\n');
+            }
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 解析索引清单
+     *
+     * @param packKey 打包对象的对象键，写入解析出的条目
+     * @param in      清单内容
+     * @return 按写入顺序排列的记录
+     * @throws IOException 读取失败或格式错误
+     */
+    static List<Record> decode(String packKey, InputStream in) throws IOException {
+        List<Record> records = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (!HEADER.equals(header)) {
+                throw new IOException("不支持的打包索引清单: " + header);
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] fields = line.split("\t", -1);
+                if ("D".equals(fields[0]) && fields.length == 2) {
+                    records.add(Record.delete(unescape(fields[1])));
+                } else if ("P".equals(fields[0]) && fields.length == 5) {
+                    String contentType = NO_CONTENT_TYPE.equals(fields[3]) ? null : unescape(fields[3]);
+                    records.add(Record.put(unescape(fields[4]),
+                            new PackEntry(packKey, Long.parseLong(fields[1]), Integer.parseInt(fields[2]), contentType)));
+                } else {
+                    throw new IOException("打包索引清单格式错误: " + line);
+                }
+            }
+        }
+        return records;
+    }
+
+    private static String escape(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String unescape(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
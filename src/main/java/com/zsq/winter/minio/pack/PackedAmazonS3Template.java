@@ -0,0 +1,767 @@
+package com.zsq.winter.minio.pack;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.util.IOUtils;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import com.zsq.winter.minio.support.TransferExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 小文件打包模板：不超过 winter-aws.pack.threshold 的对象先写入内存中的打包对象，
+ * 打包对象达到 target-size 或最早的写入超过 max-age 时封包，作为一个对象上传，省去每个小文件一次 PUT 的开销
+ * 1. 索引 {@link PackIndex} 记录逻辑对象键到 (打包对象, 偏移, 长度) 的映射，读取时按范围 GET；
+ * 超过阈值的对象直接上传，读取时索引中不存在的对象按普通对象读取
+ * 2. 每个打包对象附带一份索引清单（同名 .index 对象），按顺序记录写入与删除，{@link #recover()} 按打包顺序回放清单重建索引
+ * 3. 删除与覆盖只更新索引，原数据留在打包对象中；后台压缩把有效数据占比低于 min-live-ratio 的打包对象中的有效条目
+ * 写入新的打包对象，再删除原对象，回收空间
+ * 写入返回的 CompletableFuture 在所在打包对象上传成功后完成，封包前进程退出会丢失尚未封包的写入，需要持久化的调用方应等待该 Future
+ */
+@Slf4j
+public class PackedAmazonS3Template implements Closeable {
+
+    private static final String PACK_SUFFIX = ".pack";
+
+    private static final String MANIFEST_SUFFIX = ".index";
+
+    /**
+     * 正在上传的打包对象达到该数量时写入阻塞，避免存储变慢时内存无限增长
+     */
+    private static final int MAX_SEALING_PACKS = 4;
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final AmazonS3 amazonS3;
+
+    private final PackIndex index;
+
+    private final String bucketName;
+
+    private final String prefix;
+
+    private final int threshold;
+
+    private final int targetSize;
+
+    private final long maxAgeNanos;
+
+    private final double minLiveRatio;
+
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    /**
+     * 按顺序上传打包对象，保证清单的先后与写入顺序一致
+     */
+    private final ExecutorService sealer;
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * 所有打包对象（包括未封包的）的统计，键为打包对象的对象键，以下字段均由 this 保护
+     */
+    private final Map<String, PackStats> packs = new TreeMap<>();
+
+    private final Map<String, OpenPack> sealing = new LinkedHashMap<>();
+
+    /**
+     * 逻辑对象键 -> 仍保存着该键旧数据的打包对象，删除标记只在这些打包对象存在时才需要保留
+     */
+    private final Map<String, Set<String>> stale = new HashMap<>();
+
+    private OpenPack current;
+
+    private boolean closed;
+
+    /**
+     * 调用 {@link #recoverInBackground()} 后到重建成功前为 true，期间的读写先等待或执行重建
+     */
+    private volatile boolean recoveryPending;
+
+    public PackedAmazonS3Template(AmazonS3Properties amazonS3Properties, AmazonS3 amazonS3, PackIndex index) {
+        AmazonS3Properties.Pack pack = amazonS3Properties.getPack();
+        this.amazonS3 = amazonS3;
+        this.index = index;
+        this.bucketName = StringUtils.hasText(pack.getBucket()) ? pack.getBucket() : amazonS3Properties.getBucket();
+        this.prefix = pack.getPrefix().isEmpty() || pack.getPrefix().endsWith("/") ? pack.getPrefix() : pack.getPrefix() + "/";
+        this.threshold = (int) pack.getThreshold().toBytes();
+        this.targetSize = (int) Math.min(pack.getTargetSize().toBytes(), Integer.MAX_VALUE / 2);
+        this.maxAgeNanos = pack.getMaxAge().toNanos();
+        this.minLiveRatio = pack.getMinLiveRatio();
+        if (this.threshold <= 0 || this.targetSize < this.threshold) {
+            throw new IllegalArgumentException("winter-aws.pack.threshold 必须大于 0 且不大于 target-size");
+        }
+        if (this.maxAgeNanos <= 0) {
+            throw new IllegalArgumentException("winter-aws.pack.max-age 必须大于 0");
+        }
+        this.sealer = Executors.newSingleThreadExecutor(TransferExecutors.threadFactory("winter-s3-pack-", false));
+        this.scheduler = Executors.newScheduledThreadPool(2, TransferExecutors.threadFactory("winter-s3-pack-timer-", false));
+        this.current = this.newPack();
+        long tick = Math.max(TimeUnit.MILLISECONDS.toNanos(50), this.maxAgeNanos / 4);
+        this.scheduler.scheduleWithFixedDelay(this::sealIfExpired, tick, tick, TimeUnit.NANOSECONDS);
+        long compactionInterval = pack.getCompactionInterval().toMillis();
+        if (compactionInterval > 0) {
+            this.scheduler.scheduleWithFixedDelay(this::compactQuietly, compactionInterval, compactionInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public String getBucketName() {
+        return this.bucketName;
+    }
+
+    /**
+     * 上传对象，不超过阈值的对象写入打包对象
+     *
+     * @param objectName  对象名称
+     * @param data        内容
+     * @param contentType 内容类型
+     * @return 写入持久化后完成；直接上传的大对象返回已完成的 Future
+     */
+    public CompletableFuture<Void> putObject(String objectName, byte[] data, String contentType) {
+        this.awaitRecovery();
+        String key = AmazonS3Template.getObjectName(objectName);
+        if (data.length > this.threshold) {
+            this.upload(key, data, data.length, contentType);
+            synchronized (this) {
+                this.removeEntry(key);
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+        synchronized (this) {
+            this.awaitCapacity();
+            PackEntry entry = this.current.nextEntry(data.length, contentType);
+            PackEntry previous = this.index.put(key, entry);
+            this.current.append(key, entry, data, 0, previous);
+            this.markStale(key, previous);
+            this.packs.get(entry.getPackKey()).add(entry.getLength());
+            CompletableFuture<Void> sealed = this.current.sealed;
+            if (this.current.size >= this.targetSize) {
+                this.sealCurrent();
+            }
+            return sealed.thenApply(v -> v);
+        }
+    }
+
+    /**
+     * 读取对象
+     *
+     * @param objectName 对象名称
+     * @return 对象内容，不存在时为空
+     */
+    public Optional<byte[]> getObject(String objectName) {
+        this.awaitRecovery();
+        String key = AmazonS3Template.getObjectName(objectName);
+        for (int attempt = 0; ; attempt++) {
+            PackEntry entry = this.index.get(key);
+            if (entry == null) {
+                return this.readObject(key);
+            }
+            if (entry.getLength() == 0) {
+                return Optional.of(new byte[0]);
+            }
+            byte[] buffered = this.readBuffered(entry);
+            if (buffered != null) {
+                return Optional.of(buffered);
+            }
+            try {
+                return Optional.of(this.readRange(entry.getPackKey(), entry.getOffset(), entry.getLength()));
+            } catch (AmazonS3Exception e) {
+                // 打包对象刚被压缩删除时，重新查询索引中的新位置
+                if (e.getStatusCode() != 404 || attempt > 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 对象是否存在
+     *
+     * @param objectName 对象名称
+     * @return boolean
+     */
+    public boolean doesObjectExist(String objectName) {
+        this.awaitRecovery();
+        String key = AmazonS3Template.getObjectName(objectName);
+        return this.index.get(key) != null || this.amazonS3.doesObjectExist(this.bucketName, key);
+    }
+
+    /**
+     * 对象在打包对象中的位置
+     *
+     * @param objectName 对象名称
+     * @return 未打包时为 null
+     */
+    public PackEntry getPackEntry(String objectName) {
+        this.awaitRecovery();
+        return this.index.get(AmazonS3Template.getObjectName(objectName));
+    }
+
+    /**
+     * 删除对象：删除索引条目并记录删除标记，同时删除同名的直接上传的对象
+     *
+     * @param objectName 对象名称
+     */
+    public void removeObject(String objectName) {
+        this.awaitRecovery();
+        String key = AmazonS3Template.getObjectName(objectName);
+        synchronized (this) {
+            this.removeEntry(key);
+        }
+        this.amazonS3.deleteObject(this.bucketName, key);
+    }
+
+    /**
+     * 立即封包，并等待所有打包对象上传完成
+     *
+     * @return 所有写入持久化后完成
+     */
+    public synchronized CompletableFuture<Void> flush() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (OpenPack pack : this.sealing.values()) {
+            futures.add(pack.sealed);
+        }
+        futures.add(this.sealCurrent());
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * 在后台线程中从索引清单重建索引，存储暂时不可用时只记录日志，不影响应用启动；
+     * 重建完成前的读写会等待重建，后台重建失败时由下一次读写重新执行（自动配置创建 Bean 时已调用）
+     */
+    public void recoverInBackground() {
+        this.recoveryPending = true;
+        this.scheduler.execute(() -> {
+            try {
+                this.awaitRecovery();
+            } catch (RuntimeException e) {
+                log.warn("后台重建打包索引失败，将在首次读写时重试", e);
+            }
+        });
+    }
+
+    private void awaitRecovery() {
+        if (this.recoveryPending) {
+            synchronized (this) {
+                if (this.recoveryPending) {
+                    this.recover();
+                }
+            }
+        }
+    }
+
+    /**
+     * 从存储中的索引清单重建索引，应在写入前调用，也可以用 {@link #recoverInBackground()} 在后台执行
+     *
+     * @return 加载的打包对象数
+     */
+    public synchronized int recover() {
+        List<String> manifestKeys = new ArrayList<>();
+        ObjectListing listing = this.amazonS3.listObjects(new ListObjectsRequest().withBucketName(this.bucketName).withPrefix(this.prefix));
+        while (true) {
+            for (S3ObjectSummary summary : listing.getObjectSummaries()) {
+                if (summary.getKey().endsWith(MANIFEST_SUFFIX)) {
+                    manifestKeys.add(summary.getKey());
+                }
+            }
+            if (!listing.isTruncated()) {
+                break;
+            }
+            listing = this.amazonS3.listNextBatchOfObjects(listing);
+        }
+        // 打包对象名以时间开头，按名称排序即按封包顺序回放
+        manifestKeys.sort(null);
+        for (String manifestKey : manifestKeys) {
+            String packKey = manifestKey.substring(0, manifestKey.length() - MANIFEST_SUFFIX.length()) + PACK_SUFFIX;
+            PackStats stats = new PackStats(packKey, manifestKey);
+            stats.sealed = true;
+            this.packs.put(packKey, stats);
+            for (PackManifest.Record record : this.readManifest(packKey, manifestKey)) {
+                if (record.isDelete()) {
+                    this.markStale(record.key, this.index.remove(record.key));
+                    stats.tombstones.add(record.key);
+                } else {
+                    this.markStale(record.key, this.index.put(record.key, record.entry));
+                    stats.add(record.entry.getLength());
+                }
+            }
+        }
+        this.recoveryPending = false;
+        log.info("从 {} 个打包对象重建索引，共 {} 个条目", manifestKeys.size(), this.index.size());
+        return manifestKeys.size();
+    }
+
+    /**
+     * 压缩有效数据占比低于 min-live-ratio 的打包对象，以及删除标记已不再需要的打包对象
+     * 有效条目先写入新的打包对象，新打包对象上传成功后才删除原对象；同一时间只有一次压缩在执行
+     *
+     * @return {@link PackCompactionResult}
+     */
+    public PackCompactionResult compact() {
+        this.awaitRecovery();
+        PackCompactionResult result = new PackCompactionResult();
+        if (!this.compacting.compareAndSet(false, true)) {
+            return result;
+        }
+        try {
+            List<PackStats> compacted = new ArrayList<>();
+            List<List<PackManifest.Record>> manifests = new ArrayList<>();
+            for (PackStats stats : this.candidates()) {
+                List<PackManifest.Record> records = this.readManifest(stats.packKey, stats.manifestKey);
+                long relocatedBytes = this.relocate(stats, records, result);
+                compacted.add(stats);
+                manifests.add(records);
+                result.setReclaimedBytes(result.getReclaimedBytes() + stats.totalBytes - relocatedBytes);
+            }
+            if (compacted.isEmpty()) {
+                return result;
+            }
+            this.flush().get();
+            for (int i = 0; i < compacted.size(); i++) {
+                PackStats stats = compacted.get(i);
+                // 先删清单：中途失败时只留下无人引用的数据，不会回放出已迁移的旧位置
+                this.amazonS3.deleteObject(this.bucketName, stats.manifestKey);
+                if (stats.totalBytes > 0) {
+                    this.amazonS3.deleteObject(this.bucketName, stats.packKey);
+                }
+                this.dropPack(stats, manifests.get(i));
+                result.setPacks(result.getPacks() + 1);
+            }
+            log.info("压缩了 {} 个打包对象，迁移 {} 个条目，回收 {} 字节", result.getPacks(), result.getRelocatedEntries(), result.getReclaimedBytes());
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待打包对象上传时被中断", e);
+        } catch (ExecutionException e) {
+            // 新打包对象上传失败，迁移的条目已恢复到原位置，保留原打包对象
+            throw new SdkClientException("压缩时上传打包对象失败", e.getCause());
+        } finally {
+            this.compacting.set(false);
+        }
+    }
+
+    /**
+     * 封包并等待剩余的打包对象上传完成，之后不再接受写入
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.notifyAll();
+        }
+        this.scheduler.shutdownNow();
+        try {
+            this.flush().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn("关闭时上传打包对象失败", e.getCause());
+        }
+        this.sealer.shutdown();
+    }
+
+    private synchronized List<PackStats> candidates() {
+        List<PackStats> candidates = new ArrayList<>();
+        for (PackStats stats : this.packs.values()) {
+            if (!stats.sealed) {
+                continue;
+            }
+            if (stats.totalBytes > 0 ? stats.liveBytes < stats.totalBytes * this.minLiveRatio
+                    : this.neededTombstones(stats) < stats.tombstones.size()) {
+                candidates.add(stats);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * 把打包对象中仍有效的条目与仍需要的删除标记写入当前打包对象
+     *
+     * @return 迁移的字节数
+     */
+    private long relocate(PackStats stats, List<PackManifest.Record> records, PackCompactionResult result) {
+        byte[] data = null;
+        if (stats.liveBytes > 0) {
+            data = this.readRange(stats.packKey, 0, (int) stats.totalBytes);
+        }
+        long relocatedBytes = 0;
+        synchronized (this) {
+            for (PackManifest.Record record : records) {
+                if (record.isDelete() || !record.entry.equals(this.index.get(record.key))) {
+                    continue;
+                }
+                this.awaitCapacity();
+                PackEntry entry = this.current.nextEntry(record.entry.getLength(), record.entry.getContentType());
+                if (!this.index.replace(record.key, record.entry, entry)) {
+                    continue;
+                }
+                this.current.append(record.key, entry, data, (int) record.entry.getOffset(), record.entry);
+                this.packs.get(entry.getPackKey()).add(entry.getLength());
+                stats.liveBytes -= entry.getLength();
+                this.stale.computeIfAbsent(record.key, k -> new HashSet<>()).add(stats.packKey);
+                relocatedBytes += entry.getLength();
+                result.setRelocatedEntries(result.getRelocatedEntries() + 1);
+                if (this.current.size >= this.targetSize) {
+                    this.sealCurrent();
+                }
+            }
+            for (String key : stats.tombstones) {
+                if (this.needsTombstone(key, stats.packKey)) {
+                    this.appendTombstone(key);
+                }
+            }
+        }
+        return relocatedBytes;
+    }
+
+    private synchronized void dropPack(PackStats stats, List<PackManifest.Record> records) {
+        this.packs.remove(stats.packKey);
+        for (PackManifest.Record record : records) {
+            Set<String> packKeys = this.stale.get(record.key);
+            if (packKeys != null && packKeys.remove(stats.packKey) && packKeys.isEmpty()) {
+                this.stale.remove(record.key);
+            }
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            this.compact();
+        } catch (Exception e) {
+            log.warn("压缩打包对象失败", e);
+        }
+    }
+
+    private synchronized void sealIfExpired() {
+        if (!this.current.records.isEmpty() && System.nanoTime() - this.current.firstRecordNanos >= this.maxAgeNanos) {
+            this.sealCurrent();
+        }
+    }
+
+    /**
+     * 调用方需持有 this
+     */
+    private CompletableFuture<Void> sealCurrent() {
+        if (this.current.records.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        OpenPack pack = this.current;
+        this.current = this.newPack();
+        this.sealing.put(pack.packKey, pack);
+        this.sealer.execute(() -> this.seal(pack));
+        return pack.sealed;
+    }
+
+    /**
+     * 先上传数据再上传清单，清单存在即表示打包对象完整
+     */
+    private void seal(OpenPack pack) {
+        try {
+            if (pack.size > 0) {
+                this.upload(pack.packKey, pack.buffer, pack.size, "application/octet-stream");
+            }
+            byte[] manifest = PackManifest.encode(pack.records);
+            this.upload(pack.manifestKey, manifest, manifest.length, "text/plain; charset=utf-8");
+            synchronized (this) {
+                this.packs.get(pack.packKey).sealed = true;
+                this.sealing.remove(pack.packKey);
+                this.notifyAll();
+            }
+            pack.sealed.complete(null);
+        } catch (RuntimeException e) {
+            log.warn("上传打包对象 {} 失败，其中的 {} 条记录未写入", pack.packKey, pack.records.size(), e);
+            synchronized (this) {
+                this.discard(pack);
+                this.sealing.remove(pack.packKey);
+                this.notifyAll();
+            }
+            pack.sealed.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 上传失败：索引中仍指向该打包对象的条目恢复为写入前的位置，删除标记转入当前打包对象
+     */
+    private void discard(OpenPack pack) {
+        this.packs.remove(pack.packKey);
+        for (int i = 0; i < pack.records.size(); i++) {
+            PackManifest.Record record = pack.records.get(i);
+            if (record.isDelete()) {
+                if (this.needsTombstone(record.key, pack.packKey)) {
+                    this.appendTombstone(record.key);
+                }
+                continue;
+            }
+            PackEntry previous = pack.previous.get(i);
+            if (previous != null && this.packs.containsKey(previous.getPackKey())) {
+                if (this.index.replace(record.key, record.entry, previous)) {
+                    this.packs.get(previous.getPackKey()).liveBytes += previous.getLength();
+                }
+            } else {
+                this.index.remove(record.key, record.entry);
+            }
+        }
+    }
+
+    private void removeEntry(String key) {
+        PackEntry previous = this.index.remove(key);
+        if (previous != null) {
+            this.markStale(key, previous);
+            this.appendTombstone(key);
+        }
+    }
+
+    private void appendTombstone(String key) {
+        this.current.tombstone(key);
+        this.packs.get(this.current.packKey).tombstones.add(key);
+    }
+
+    /**
+     * 条目被覆盖或删除后，原打包对象中的数据失效
+     */
+    private void markStale(String key, PackEntry previous) {
+        if (previous == null) {
+            return;
+        }
+        PackStats stats = this.packs.get(previous.getPackKey());
+        if (stats != null) {
+            stats.liveBytes -= previous.getLength();
+        }
+        this.stale.computeIfAbsent(key, k -> new HashSet<>()).add(previous.getPackKey());
+    }
+
+    /**
+     * 删除标记是否仍需要：对象仍处于删除状态，且除 excludePackKey 外还有打包对象保存着该键的旧数据
+     */
+    private boolean needsTombstone(String key, String excludePackKey) {
+        if (this.index.get(key) != null) {
+            return false;
+        }
+        Set<String> packKeys = this.stale.get(key);
+        if (packKeys == null) {
+            return false;
+        }
+        for (String packKey : packKeys) {
+            if (!packKey.equals(excludePackKey)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int neededTombstones(PackStats stats) {
+        int needed = 0;
+        for (String key : stats.tombstones) {
+            if (this.needsTombstone(key, stats.packKey)) {
+                needed++;
+            }
+        }
+        return needed;
+    }
+
+    /**
+     * 调用方需持有 this
+     */
+    private void awaitCapacity() {
+        while (!this.closed && this.sealing.size() >= MAX_SEALING_PACKS) {
+            try {
+                this.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待打包对象上传时被中断", e);
+            }
+        }
+        if (this.closed) {
+            throw new IllegalStateException("PackedAmazonS3Template 已关闭");
+        }
+    }
+
+    private synchronized byte[] readBuffered(PackEntry entry) {
+        OpenPack pack = this.current.packKey.equals(entry.getPackKey()) ? this.current : this.sealing.get(entry.getPackKey());
+        if (pack == null) {
+            return null;
+        }
+        int offset = (int) entry.getOffset();
+        return Arrays.copyOfRange(pack.buffer, offset, offset + entry.getLength());
+    }
+
+    private Optional<byte[]> readObject(String key) {
+        try (S3Object object = this.amazonS3.getObject(this.bucketName, key)) {
+            return Optional.of(IOUtils.toByteArray(object.getObjectContent()));
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                return Optional.empty();
+            }
+            throw e;
+        } catch (IOException e) {
+            throw new SdkClientException("读取对象失败: " + key, e);
+        }
+    }
+
+    private byte[] readRange(String packKey, long offset, int length) {
+        GetObjectRequest request = new GetObjectRequest(this.bucketName, packKey).withRange(offset, offset + length - 1);
+        try (S3Object object = this.amazonS3.getObject(request)) {
+            byte[] data = IOUtils.toByteArray(object.getObjectContent());
+            if (data.length != length) {
+                throw new SdkClientException("打包对象 " + packKey + " 长度不足，期望 " + length + " 字节，实际 " + data.length + " 字节");
+            }
+            return data;
+        } catch (IOException e) {
+            throw new SdkClientException("读取打包对象失败: " + packKey, e);
+        }
+    }
+
+    private List<PackManifest.Record> readManifest(String packKey, String manifestKey) {
+        try (S3Object object = this.amazonS3.getObject(this.bucketName, manifestKey)) {
+            return PackManifest.decode(packKey, object.getObjectContent());
+        } catch (IOException e) {
+            throw new SdkClientException("读取打包索引清单失败: " + manifestKey, e);
+        }
+    }
+
+    private void upload(String key, byte[] data, int length, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(length);
+        metadata.setContentType(contentType);
+        PutObjectRequest request = new PutObjectRequest(this.bucketName, key, new ByteArrayInputStream(data, 0, length), metadata);
+        request.getRequestClientOptions().setReadLimit(length + 1);
+        this.amazonS3.putObject(request);
+    }
+
+    /**
+     * 打包对象名：毫秒时间戳-序号-实例标识，按名称排序即按创建顺序排序
+     */
+    private OpenPack newPack() {
+        String id = String.format("%013d-%08d-%s", System.currentTimeMillis(), this.sequence.incrementAndGet(), this.instanceId);
+        OpenPack pack = new OpenPack(this.prefix + id + PACK_SUFFIX, this.prefix + id + MANIFEST_SUFFIX,
+                Math.min(INITIAL_BUFFER_SIZE, this.targetSize));
+        this.packs.put(pack.packKey, new PackStats(pack.packKey, pack.manifestKey));
+        return pack;
+    }
+
+    private static final class PackStats {
+
+        final String packKey;
+
+        final String manifestKey;
+
+        long totalBytes;
+
+        long liveBytes;
+
+        boolean sealed;
+
+        /**
+         * 清单中的删除标记
+         */
+        final Set<String> tombstones = new HashSet<>();
+
+        PackStats(String packKey, String manifestKey) {
+            this.packKey = packKey;
+            this.manifestKey = manifestKey;
+        }
+
+        void add(int length) {
+            this.totalBytes += length;
+            this.liveBytes += length;
+        }
+    }
+
+    /**
+     * 尚未上传的打包对象，封包后不再修改
+     */
+    private static final class OpenPack {
+
+        final String packKey;
+
+        final String manifestKey;
+
+        final List<PackManifest.Record> records = new ArrayList<>();
+
+        /**
+         * 与 records 一一对应，写入前的位置，上传失败时恢复
+         */
+        final List<PackEntry> previous = new ArrayList<>();
+
+        final CompletableFuture<Void> sealed = new CompletableFuture<>();
+
+        byte[] buffer;
+
+        int size;
+
+        long firstRecordNanos;
+
+        OpenPack(String packKey, String manifestKey, int initialCapacity) {
+            this.packKey = packKey;
+            this.manifestKey = manifestKey;
+            this.buffer = new byte[initialCapacity];
+        }
+
+        PackEntry nextEntry(int length, String contentType) {
+            return new PackEntry(this.packKey, this.size, length, contentType);
+        }
+
+        void append(String key, PackEntry entry, byte[] data, int offset, PackEntry previous) {
+            int length = entry.getLength();
+            if (this.size + length > this.buffer.length) {
+                this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.size + length));
+            }
+            System.arraycopy(data, offset, this.buffer, this.size, length);
+            this.size += length;
+            this.records.add(PackManifest.Record.put(key, entry));
+            this.previous.add(previous);
+            this.touch();
+        }
+
+        void tombstone(String key) {
+            this.records.add(PackManifest.Record.delete(key));
+            this.previous.add(null);
+            this.touch();
+        }
+
+        private void touch() {
+            if (this.records.size() == 1) {
+                this.firstRecordNanos = System.nanoTime();
+            }
+        }
+    }
+}
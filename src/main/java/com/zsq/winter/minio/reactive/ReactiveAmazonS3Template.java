@@ -0,0 +1,497 @@
+package com.zsq.winter.minio.reactive;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.listener.TransferListener;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 响应式模板：上传接收 Flux&lt;ByteBuffer&gt; / Flux&lt;DataBuffer&gt;，下载返回按需读取的 Flux
+ * 1. 上传时按下游消费速度向上游请求数据，攒满一个分块才发起一次分块上传，内存中最多保留两个分块；
+ * 数据不足一个分块时直接单次上传，出错或取消时中止分块上传
+ * 2. 下载时每次下游请求才从响应流读取一块数据，取消时直接断开连接，不读取剩余内容
+ * 3. 底层仍是阻塞客户端，阻塞调用在 scheduler 上执行，只在发送/读取数据时占用线程，等待上下游数据时不占用线程
+ */
+@Slf4j
+public class ReactiveAmazonS3Template {
+
+    /**
+     * S3 要求除最后一个分块外，每个分块不小于 5MB
+     */
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final AmazonS3 amazonS3;
+
+    private final Scheduler scheduler;
+
+    private final int partSize;
+
+    private final int readBufferSize;
+
+    private TransferListener transferListener = TransferListener.NOOP;
+
+    public ReactiveAmazonS3Template(AmazonS3Properties amazonS3Properties, AmazonS3 amazonS3, Scheduler scheduler) {
+        AmazonS3Properties.Reactive reactive = amazonS3Properties.getReactive();
+        this.amazonS3 = amazonS3;
+        this.scheduler = scheduler;
+        this.partSize = (int) reactive.getPartSize().toBytes();
+        this.readBufferSize = (int) reactive.getReadBufferSize().toBytes();
+        if (this.partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("winter-aws.reactive.part-size 不能小于 5MB");
+        }
+    }
+
+    /**
+     * 设置分块上传的进度监听器
+     *
+     * @param transferListener 监听器，为 null 时不监听
+     */
+    public void setTransferListener(TransferListener transferListener) {
+        this.transferListener = transferListener == null ? TransferListener.NOOP : transferListener;
+    }
+
+    /**
+     * 上传对象
+     *
+     * @param bucketName  存储桶名称
+     * @param objectName  对象名称
+     * @param contentType 内容类型
+     * @param body        对象内容，不会修改传入 ByteBuffer 的读写位置
+     * @return 对象的 ETag
+     */
+    public Mono<String> putObject(String bucketName, String objectName, String contentType, Flux<ByteBuffer> body) {
+        return this.upload(bucketName, objectName, contentType, body, ByteBuffer::duplicate, buffer -> {
+        });
+    }
+
+    /**
+     * 上传对象，DataBuffer 读取后即释放
+     *
+     * @param bucketName  存储桶名称
+     * @param objectName  对象名称
+     * @param contentType 内容类型
+     * @param body        对象内容，例如 FilePart.content()
+     * @return 对象的 ETag
+     */
+    public Mono<String> putDataBuffers(String bucketName, String objectName, String contentType, Flux<DataBuffer> body) {
+        return this.upload(bucketName, objectName, contentType, body.doOnDiscard(DataBuffer.class, DataBufferUtils::release),
+                DataBuffer::asByteBuffer, DataBufferUtils::release);
+    }
+
+    /**
+     * 下载对象
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 对象名称
+     * @return 对象内容
+     */
+    public Flux<ByteBuffer> getObject(String bucketName, String objectName) {
+        return this.read(new GetObjectRequest(bucketName, AmazonS3Template.getObjectName(objectName)));
+    }
+
+    /**
+     * 下载对象的指定范围
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 对象名称
+     * @param start      开始位置
+     * @param end        结束位置（包含）
+     * @return 对象内容
+     */
+    public Flux<ByteBuffer> getObject(String bucketName, String objectName, long start, long end) {
+        return this.read(new GetObjectRequest(bucketName, AmazonS3Template.getObjectName(objectName)).withRange(start, end));
+    }
+
+    /**
+     * 下载对象，可直接写入 ServerHttpResponse
+     *
+     * @param bucketName        存储桶名称
+     * @param objectName        对象名称
+     * @param dataBufferFactory 例如 response.bufferFactory()
+     * @return 对象内容
+     */
+    public Flux<DataBuffer> getDataBuffers(String bucketName, String objectName, DataBufferFactory dataBufferFactory) {
+        return this.getObject(bucketName, objectName).map(dataBufferFactory::wrap);
+    }
+
+    /**
+     * 获取对象元数据
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 对象名称
+     * @return {@link ObjectMetadata}
+     */
+    public Mono<ObjectMetadata> getObjectMetadata(String bucketName, String objectName) {
+        return Mono.fromCallable(() -> this.amazonS3.getObjectMetadata(bucketName, AmazonS3Template.getObjectName(objectName)))
+                .subscribeOn(this.scheduler);
+    }
+
+    /**
+     * 对象是否存在
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 对象名称
+     * @return {@link Boolean}
+     */
+    public Mono<Boolean> doesObjectExist(String bucketName, String objectName) {
+        return Mono.fromCallable(() -> this.amazonS3.doesObjectExist(bucketName, AmazonS3Template.getObjectName(objectName)))
+                .subscribeOn(this.scheduler);
+    }
+
+    /**
+     * 删除对象
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 对象名称
+     * @return 删除完成信号
+     */
+    public Mono<Void> removeObject(String bucketName, String objectName) {
+        return Mono.<Void>fromRunnable(() -> this.amazonS3.deleteObject(bucketName, AmazonS3Template.getObjectName(objectName)))
+                .subscribeOn(this.scheduler);
+    }
+
+    private <T> Mono<String> upload(String bucketName, String objectName, String contentType, Flux<T> body,
+                                    Function<T, ByteBuffer> toByteBuffer, Consumer<T> release) {
+        String key = AmazonS3Template.getObjectName(objectName);
+        return Mono.defer(() -> {
+            PartBuffer buffer = new PartBuffer(this.partSize);
+            Upload upload = new Upload(bucketName, key, contentType);
+            // prefetch 为 1：只有当前分块上传完成后才继续向上游请求数据
+            Flux<Part> parts = body.concatMapIterable(item -> {
+                try {
+                    return buffer.append(toByteBuffer.apply(item));
+                } finally {
+                    release.accept(item);
+                }
+            }, 1).concatWith(Mono.fromSupplier(buffer::finish));
+            return parts.concatMap(upload::sendAsync, 1)
+                    .last()
+                    .onErrorResume(e -> upload.cancel(e).then(Mono.error(e)))
+                    .doOnCancel(() -> upload.cancel(null).subscribe(null, e -> log.warn("中止分块上传失败: {}", e.toString())));
+        });
+    }
+
+    private Flux<ByteBuffer> read(GetObjectRequest request) {
+        return Flux.using(() -> new ObjectBody(this.amazonS3.getObject(request), this.readBufferSize),
+                        body -> Flux.<ByteBuffer>generate(sink -> {
+                            try {
+                                ByteBuffer chunk = body.read();
+                                if (chunk == null) {
+                                    sink.complete();
+                                } else {
+                                    sink.next(chunk);
+                                }
+                            } catch (Exception e) {
+                                sink.error(e);
+                            }
+                        }),
+                        ObjectBody::close)
+                // 订阅和每次 request 都在 scheduler 上执行，读取只在下游有需求时发生
+                .subscribeOn(this.scheduler);
+    }
+
+    /**
+     * 一次上传：首个分块即最后一个分块时单次上传，否则懒创建分块上传
+     */
+    private class Upload {
+
+        private final String bucketName;
+
+        private final String key;
+
+        private final String contentType;
+
+        private final List<PartETag> partETags = new ArrayList<>();
+
+        private volatile String uploadId;
+
+        private volatile boolean completed;
+
+        /**
+         * 以下三个字段由 this 保护：正在发送的分块不会被打断，取消后由发送线程在发送结束时中止上传
+         */
+        private boolean sending;
+
+        private boolean cancelled;
+
+        private Throwable cancelCause;
+
+        /**
+         * 发送线程完成中止后发出信号
+         */
+        private final Sinks.Empty<Void> aborted = Sinks.empty();
+
+        Upload(String bucketName, String key, String contentType) {
+            this.bucketName = bucketName;
+            this.key = key;
+            this.contentType = contentType;
+        }
+
+        /**
+         * 在 scheduler 上发送一个分块；下游取消不会中断正在执行的请求，避免分块上传已创建但 uploadId 丢失
+         */
+        Mono<String> sendAsync(Part part) {
+            return Mono.create(sink -> ReactiveAmazonS3Template.this.scheduler.schedule(() -> {
+                synchronized (this) {
+                    if (this.cancelled) {
+                        return;
+                    }
+                    this.sending = true;
+                }
+                String eTag = null;
+                Throwable error = null;
+                try {
+                    eTag = this.send(part);
+                } catch (Throwable e) {
+                    error = e;
+                }
+                boolean cancelled;
+                Throwable cause;
+                synchronized (this) {
+                    this.sending = false;
+                    cancelled = this.cancelled;
+                    cause = this.cancelCause == null ? error : this.cancelCause;
+                }
+                if (cancelled) {
+                    // 发送期间已被取消，下游不再接收结果，由这里中止上传
+                    this.abortNow(cause);
+                    this.aborted.tryEmitEmpty();
+                } else if (error != null) {
+                    sink.error(error);
+                } else {
+                    sink.success(eTag);
+                }
+            }));
+        }
+
+        /**
+         * 取消上传：没有正在发送的分块时立即中止，否则等正在发送的分块结束后由发送线程中止
+         *
+         * @param error 导致取消的异常，下游主动取消时为 null
+         * @return 中止完成信号
+         */
+        Mono<Void> cancel(Throwable error) {
+            synchronized (this) {
+                this.cancelled = true;
+                this.cancelCause = error;
+                if (this.sending) {
+                    return this.aborted.asMono();
+                }
+            }
+            return this.abort(error);
+        }
+
+        /**
+         * 发送一个分块，最后一个分块返回 ETag，其余返回 null
+         */
+        String send(Part part) {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentType(this.contentType);
+            if (part.last && part.number == 1) {
+                metadata.setContentLength(part.length);
+                PutObjectRequest request = new PutObjectRequest(this.bucketName, this.key, part.stream(), metadata);
+                request.getRequestClientOptions().setReadLimit(part.length + 1);
+                return ReactiveAmazonS3Template.this.amazonS3.putObject(request).getETag();
+            }
+            TransferListener listener = ReactiveAmazonS3Template.this.transferListener;
+            if (this.uploadId == null) {
+                this.uploadId = ReactiveAmazonS3Template.this.amazonS3
+                        .initiateMultipartUpload(new InitiateMultipartUploadRequest(this.bucketName, this.key, metadata)).getUploadId();
+                listener.transferStarted(this.bucketName, this.key, this.uploadId);
+            }
+            if (part.length > 0) {
+                UploadPartRequest request = new UploadPartRequest()
+                        .withBucketName(this.bucketName)
+                        .withKey(this.key)
+                        .withUploadId(this.uploadId)
+                        .withPartNumber(part.number)
+                        .withPartSize(part.length)
+                        .withInputStream(part.stream());
+                request.getRequestClientOptions().setReadLimit(part.length + 1);
+                listener.partStarted(this.uploadId, part.number, part.length);
+                long start = System.nanoTime();
+                try {
+                    this.partETags.add(ReactiveAmazonS3Template.this.amazonS3.uploadPart(request).getPartETag());
+                } catch (RuntimeException e) {
+                    listener.partFinished(this.uploadId, part.number, part.length, System.nanoTime() - start, e);
+                    throw e;
+                }
+                listener.partFinished(this.uploadId, part.number, part.length, System.nanoTime() - start, null);
+            }
+            if (!part.last) {
+                return null;
+            }
+            String eTag = ReactiveAmazonS3Template.this.amazonS3.completeMultipartUpload(
+                    new CompleteMultipartUploadRequest(this.bucketName, this.key, this.uploadId, this.partETags)).getETag();
+            this.completed = true;
+            listener.transferCompleted(this.bucketName, this.key, this.uploadId, this.partETags.size());
+            return eTag;
+        }
+
+        Mono<Void> abort(Throwable error) {
+            return Mono.<Void>fromRunnable(() -> this.abortNow(error)).subscribeOn(ReactiveAmazonS3Template.this.scheduler);
+        }
+
+        private void abortNow(Throwable error) {
+            String id = this.uploadId;
+            if (id == null || this.completed) {
+                return;
+            }
+            ReactiveAmazonS3Template.this.transferListener.transferFailed(this.bucketName, this.key, id, error);
+            try {
+                ReactiveAmazonS3Template.this.amazonS3.abortMultipartUpload(new AbortMultipartUploadRequest(this.bucketName, this.key, id));
+            } catch (RuntimeException e) {
+                log.warn("中止分块上传 {} 失败，未完成的分块需要清理: {}", id, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 对象响应流，未读完就结束时直接中止连接
+     */
+    private static class ObjectBody {
+
+        private final S3Object s3Object;
+
+        private final S3ObjectInputStream content;
+
+        private final int bufferSize;
+
+        private boolean eof;
+
+        ObjectBody(S3Object s3Object, int bufferSize) {
+            this.s3Object = s3Object;
+            this.content = s3Object.getObjectContent();
+            this.bufferSize = bufferSize;
+        }
+
+        ByteBuffer read() throws IOException {
+            byte[] buffer = new byte[this.bufferSize];
+            int length = this.content.read(buffer);
+            if (length < 0) {
+                this.eof = true;
+                return null;
+            }
+            return ByteBuffer.wrap(buffer, 0, length);
+        }
+
+        void close() {
+            if (!this.eof) {
+                this.content.abort();
+            }
+            try {
+                this.s3Object.close();
+            } catch (IOException ignored) {
+                // 已中止，忽略关闭异常
+            }
+        }
+    }
+
+    /**
+     * 把上游数据攒成分块，缓冲区按需扩容，小对象不会占用整个分块的内存
+     */
+    private static class PartBuffer {
+
+        private static final int INITIAL_CAPACITY = 64 * 1024;
+
+        private final int partSize;
+
+        private byte[] current = new byte[0];
+
+        private int position;
+
+        private int partNumber;
+
+        PartBuffer(int partSize) {
+            this.partSize = partSize;
+        }
+
+        List<Part> append(ByteBuffer source) {
+            List<Part> full = null;
+            while (source.hasRemaining()) {
+                int length = Math.min(source.remaining(), this.partSize - this.position);
+                this.ensureCapacity(this.position + length);
+                source.get(this.current, this.position, length);
+                this.position += length;
+                if (this.position == this.partSize) {
+                    if (full == null) {
+                        full = new ArrayList<>(1);
+                    }
+                    full.add(new Part(++this.partNumber, this.current, this.position, false));
+                    this.current = new byte[0];
+                    this.position = 0;
+                }
+            }
+            return full == null ? Collections.emptyList() : full;
+        }
+
+        Part finish() {
+            Part part = new Part(++this.partNumber, this.current, this.position, true);
+            this.current = new byte[0];
+            this.position = 0;
+            return part;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= this.current.length) {
+                return;
+            }
+            int size = Math.max(this.current.length, INITIAL_CAPACITY);
+            while (size < capacity) {
+                size = size << 1;
+            }
+            byte[] grown = new byte[Math.min(size, this.partSize)];
+            System.arraycopy(this.current, 0, grown, 0, this.position);
+            this.current = grown;
+        }
+    }
+
+    private static class Part {
+
+        private final int number;
+
+        private final byte[] data;
+
+        private final int length;
+
+        private final boolean last;
+
+        Part(int number, byte[] data, int length, boolean last) {
+            this.number = number;
+            this.data = data;
+            this.length = length;
+            this.last = last;
+        }
+
+        ByteArrayInputStream stream() {
+            return new ByteArrayInputStream(this.data, 0, this.length);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.zsq.winter.minio.resilience;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 自适应并发限制（AIMD）：请求成功时并发上限加性增长，被限流时乘性减半
+ * 后端过载时自动收缩在途请求数，恢复后再逐步放开
+ */
+public class AimdConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private double limit;
+
+    @Getter
+    private int inFlight;
+
+    /**
+     * @param initialLimit 初始并发上限
+     * @param minLimit     并发上限的下限
+     * @param maxLimit     并发上限的上限
+     * @param backoffRatio 被限流时上限乘以的系数，如 0.5
+     */
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * 获取一个并发许可，超过等待时间返回 false
+     *
+     * @param timeout 等待时间
+     * @param unit    时间单位
+     * @return boolean
+     * @throws InterruptedException 等待被中断
+     */
+    public synchronized boolean acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (this.inFlight >= (int) this.limit) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        this.inFlight++;
+        return true;
+    }
+
+    /**
+     * 释放许可
+     */
+    public synchronized void release() {
+        this.inFlight--;
+        this.notifyAll();
+    }
+
+    /**
+     * 请求成功：每完成约一个窗口的请求，上限加一
+     */
+    public synchronized void onSuccess() {
+        if (this.limit < this.maxLimit) {
+            this.limit = Math.min(this.maxLimit, this.limit + 1.0 / this.limit);
+            this.notifyAll();
+        }
+    }
+
+    /**
+     * 请求被限流：上限按比例收缩
+     */
+    public synchronized void onThrottle() {
+        this.limit = Math.max(this.minLimit, this.limit * this.backoffRatio);
+    }
+
+    public synchronized int getLimit() {
+        return (int) this.limit;
+    }
+}
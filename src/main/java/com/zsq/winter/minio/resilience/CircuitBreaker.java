@@ -0,0 +1,138 @@
+package com.zsq.winter.minio.resilience;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 熔断器：统计最近 windowSize 次调用的失败率
+ * 1. CLOSED：失败率达到阈值（且调用数不少于 minimumCalls）时打开
+ * 2. OPEN：直接拒绝调用，openDuration 后进入半开
+ * 3. HALF_OPEN：放行 halfOpenCalls 次试探调用，全部成功则关闭，任一失败重新打开
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int windowSize;
+
+    private final int minimumCalls;
+
+    private final double failureRateThreshold;
+
+    private final long openNanos;
+
+    private final int halfOpenCalls;
+
+    /**
+     * 环形窗口，true 表示失败
+     */
+    private final boolean[] outcomes;
+
+    private int position;
+
+    private int recorded;
+
+    private int failures;
+
+    @Getter
+    private State state = State.CLOSED;
+
+    private long openedAt;
+
+    private int halfOpenPermits;
+
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openDuration, TimeUnit unit, int halfOpenCalls) {
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = unit.toNanos(openDuration);
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.outcomes = new boolean[this.windowSize];
+    }
+
+    /**
+     * 是否允许本次调用
+     *
+     * @return boolean
+     */
+    public synchronized boolean tryAcquire() {
+        if (this.state == State.OPEN) {
+            if (System.nanoTime() - this.openedAt < this.openNanos) {
+                return false;
+            }
+            this.state = State.HALF_OPEN;
+            this.halfOpenPermits = this.halfOpenCalls;
+            this.halfOpenSuccesses = 0;
+        }
+        if (this.state == State.HALF_OPEN) {
+            if (this.halfOpenPermits == 0) {
+                return false;
+            }
+            this.halfOpenPermits--;
+        }
+        return true;
+    }
+
+    /**
+     * 获取许可后没有真正发出请求，归还半开状态下的试探名额，不计入统计
+     */
+    public synchronized void cancel() {
+        if (this.state == State.HALF_OPEN && this.halfOpenPermits < this.halfOpenCalls) {
+            this.halfOpenPermits++;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (this.state == State.HALF_OPEN) {
+            if (++this.halfOpenSuccesses >= this.halfOpenCalls) {
+                this.reset();
+            }
+            return;
+        }
+        this.record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (this.state == State.HALF_OPEN) {
+            this.open();
+            return;
+        }
+        this.record(true);
+        if (this.state == State.CLOSED && this.recorded >= this.minimumCalls
+                && (double) this.failures / this.recorded >= this.failureRateThreshold) {
+            this.open();
+        }
+    }
+
+    private void record(boolean failure) {
+        if (this.recorded == this.windowSize) {
+            if (this.outcomes[this.position]) {
+                this.failures--;
+            }
+        } else {
+            this.recorded++;
+        }
+        this.outcomes[this.position] = failure;
+        if (failure) {
+            this.failures++;
+        }
+        this.position = (this.position + 1) % this.windowSize;
+    }
+
+    private void open() {
+        this.state = State.OPEN;
+        this.openedAt = System.nanoTime();
+    }
+
+    private void reset() {
+        this.state = State.CLOSED;
+        this.position = 0;
+        this.recorded = 0;
+        this.failures = 0;
+    }
+}
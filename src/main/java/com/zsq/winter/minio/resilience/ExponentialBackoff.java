@@ -0,0 +1,31 @@
+package com.zsq.winter.minio.resilience;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 带随机抖动的指数退避（full jitter）：第 n 次重试等待 [0, min(maxDelay, baseDelay * 2^(n-1))) 之间的随机时间
+ * 避免大量客户端在同一时刻重试，加剧后端过载
+ */
+public class ExponentialBackoff {
+
+    private final long baseDelayMillis;
+
+    private final long maxDelayMillis;
+
+    public ExponentialBackoff(long baseDelayMillis, long maxDelayMillis) {
+        this.baseDelayMillis = Math.max(1, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+    }
+
+    /**
+     * 第 attempt 次重试前的等待时间
+     *
+     * @param attempt 重试次数，从 1 开始
+     * @return 毫秒
+     */
+    public long delayMillis(int attempt) {
+        int shift = Math.min(attempt - 1, 30);
+        long ceiling = Math.min(this.maxDelayMillis, this.baseDelayMillis << shift);
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
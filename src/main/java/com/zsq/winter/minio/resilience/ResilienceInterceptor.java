@@ -0,0 +1,146 @@
+package com.zsq.winter.minio.resilience;
+
+import com.amazonaws.AbortedException;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.listener.TransferListener;
+import com.zsq.winter.minio.support.AmazonS3Interceptor;
+import com.zsq.winter.minio.support.AmazonS3Invocation;
+import com.zsq.winter.minio.support.AmazonS3Invocations;
+import org.springframework.core.Ordered;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 弹性调用层，依次经过：
+ * 1. 熔断器：后端持续失败时直接拒绝，不再发出请求
+ * 2. 令牌桶：按存储桶限制请求速率
+ * 3. AIMD 并发限制：收到 503 SlowDown 时收缩并发，成功后逐步放开
+ * 4. 带抖动的指数退避重试：仅重试限流、5xx 和网络异常，调用方被中断、参数校验等客户端异常与带输入流的上传请求不重试
+ */
+public class ResilienceInterceptor implements AmazonS3Interceptor, Ordered {
+
+    /**
+     * 位于指标统计与对冲之内、节点路由之外：对冲发出的每个请求各自经过熔断、限流与重试
+     */
+    public static final int ORDER = 200;
+
+    private final AmazonS3Properties.Resilience resilience;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final AimdConcurrencyLimiter concurrencyLimiter;
+
+    private final ExponentialBackoff backoff;
+
+    private final Map<String, TokenBucket> rateLimiters = new ConcurrentHashMap<>();
+
+    private final TransferListener transferListener;
+
+    public ResilienceInterceptor(AmazonS3Properties.Resilience resilience) {
+        this(resilience, TransferListener.NOOP);
+    }
+
+    /**
+     * @param resilience       弹性配置
+     * @param transferListener 每次重试前回调 {@link TransferListener#retried}
+     */
+    public ResilienceInterceptor(AmazonS3Properties.Resilience resilience, TransferListener transferListener) {
+        this.resilience = resilience;
+        this.transferListener = transferListener;
+        this.circuitBreaker = new CircuitBreaker(resilience.getWindowSize(), resilience.getMinimumCalls(),
+                resilience.getFailureRateThreshold(), resilience.getOpenDuration().toMillis(), TimeUnit.MILLISECONDS,
+                resilience.getHalfOpenCalls());
+        this.concurrencyLimiter = new AimdConcurrencyLimiter(resilience.getInitialConcurrency(),
+                resilience.getMinConcurrency(), resilience.getMaxConcurrency(), 0.5);
+        this.backoff = new ExponentialBackoff(resilience.getBaseDelay().toMillis(), resilience.getMaxDelay().toMillis());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+
+    public AimdConcurrencyLimiter getConcurrencyLimiter() {
+        return this.concurrencyLimiter;
+    }
+
+    /**
+     * 相同配置、独立的熔断器、并发限制与令牌桶
+     */
+    @Override
+    public AmazonS3Interceptor forClient() {
+        return new ResilienceInterceptor(this.resilience, this.transferListener);
+    }
+
+    @Override
+    public Object intercept(AmazonS3Invocation invocation) throws Throwable {
+        if (invocation.isLocal()) {
+            return invocation.proceed();
+        }
+        boolean replayable = AmazonS3Invocations.isReplayable(invocation.getArgs());
+        int maxAttempts = replayable ? Math.max(1, this.resilience.getMaxAttempts()) : 1;
+        for (int attempt = 1; ; attempt++) {
+            Throwable failure;
+            if (!this.circuitBreaker.tryAcquire()) {
+                throw new S3RequestRejectedException("S3 熔断器已打开，请求被拒绝: " + invocation.getMethodName());
+            }
+            boolean acquired;
+            try {
+                this.acquireRate(invocation.getBucketName());
+                acquired = this.concurrencyLimiter.acquire(this.resilience.getAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (Throwable e) {
+                // 等待限流时被中断，没有发出请求，归还半开状态的试探名额
+                this.circuitBreaker.cancel();
+                throw e;
+            }
+            if (!acquired) {
+                // 没有发出请求，不计入熔断统计
+                this.circuitBreaker.cancel();
+                throw new S3RequestRejectedException("等待 S3 并发许可超时: " + invocation.getMethodName());
+            }
+            try {
+                Object result = invocation.proceed();
+                this.concurrencyLimiter.onSuccess();
+                this.circuitBreaker.onSuccess();
+                return result;
+            } catch (Throwable e) {
+                boolean serverFailure = AmazonS3Invocations.isServerFailure(e);
+                if (AmazonS3Invocations.isThrottle(e)) {
+                    this.concurrencyLimiter.onThrottle();
+                }
+                if (serverFailure) {
+                    this.circuitBreaker.onFailure();
+                } else if (e instanceof AbortedException) {
+                    // 调用方被中断或取消，结果不说明节点状态
+                    this.circuitBreaker.cancel();
+                } else {
+                    this.circuitBreaker.onSuccess();
+                }
+                if (!serverFailure || attempt >= maxAttempts) {
+                    throw e;
+                }
+                failure = e;
+            } finally {
+                this.concurrencyLimiter.release();
+            }
+            long delay = this.backoff.delayMillis(attempt);
+            this.transferListener.retried(invocation.getMethodName(), invocation.getBucketName(), attempt, delay, failure);
+            TimeUnit.MILLISECONDS.sleep(delay);
+        }
+    }
+
+    private void acquireRate(String bucketName) throws InterruptedException {
+        double permitsPerSecond = this.resilience.getRequestsPerSecond();
+        if (permitsPerSecond <= 0) {
+            return;
+        }
+        String key = bucketName == null ? "" : bucketName;
+        this.rateLimiters.computeIfAbsent(key, k -> new TokenBucket(permitsPerSecond, this.resilience.getBurst())).acquire();
+    }
+}
@@ -0,0 +1,20 @@
+package com.zsq.winter.minio.resilience;
+
+import com.amazonaws.SdkClientException;
+
+/**
+ * 熔断器打开、并发许可等待超时等由客户端主动拒绝请求时抛出的异常，不会被重试
+ */
+public class S3RequestRejectedException extends SdkClientException {
+
+    private static final long serialVersionUID = 1L;
+
+    public S3RequestRejectedException(String message) {
+        super(message);
+    }
+
+    @Override
+    public boolean isRetryable() {
+        return false;
+    }
+}
@@ -0,0 +1,68 @@
+package com.zsq.winter.minio.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶限流器：按固定速率补充令牌，允许一定的突发量
+ * 令牌不足时预支令牌并让调用方等待相应时间，保证请求按到达顺序被放行
+ */
+public class TokenBucket {
+
+    private final double permitsPerNanos;
+
+    private final double capacity;
+
+    private double tokens;
+
+    private long lastRefill;
+
+    /**
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @param burst            桶容量，即允许的最大突发请求数
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be greater than 0");
+        }
+        this.permitsPerNanos = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, burst);
+        this.tokens = this.capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * 获取一个令牌，必要时阻塞等待
+     *
+     * @throws InterruptedException 等待被中断
+     */
+    public void acquire() throws InterruptedException {
+        this.acquire(1);
+    }
+
+    /**
+     * 获取多个令牌（如按字节限速时的字节数），必要时阻塞等待；permits 可以超过桶容量，等待时间按缺少的令牌数计算
+     *
+     * @param permits 令牌数
+     * @throws InterruptedException 等待被中断
+     */
+    public void acquire(long permits) throws InterruptedException {
+        long waitNanos = this.reserve(permits);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * 预支令牌
+     *
+     * @param permits 令牌数
+     * @return 需要等待的纳秒数
+     */
+    synchronized long reserve(long permits) {
+        long now = System.nanoTime();
+        this.tokens = Math.min(this.capacity, this.tokens + (now - this.lastRefill) * this.permitsPerNanos);
+        this.lastRefill = now;
+        this.tokens -= permits;
+        return this.tokens >= 0 ? 0 : (long) (-this.tokens / this.permitsPerNanos);
+    }
+}
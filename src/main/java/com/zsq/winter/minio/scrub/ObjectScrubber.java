@@ -0,0 +1,627 @@
+package com.zsq.winter.minio.scrub;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.util.BinaryUtils;
+import com.zsq.winter.minio.checksum.ChecksumAlgorithm;
+import com.zsq.winter.minio.checksum.ObjectChecksums;
+import com.zsq.winter.minio.resilience.TokenBucket;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import com.zsq.winter.minio.support.MultipartUploads;
+import com.zsq.winter.minio.support.TransferExecutors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Checksum;
+
+/**
+ * 对象完整性巡检：更换磁盘、节点自愈后确认存储中的对象仍然完整，代替逐个 downloadObject
+ * 1. 分页列举前缀下的对象，边列举边由 parallelism 个线程并行读取；正在检查的对象不超过 parallelism 的两倍，内存占用与对象总数无关
+ * 2. ETag 是 MD5 的对象整体读取并比较 MD5；服务端保存了整对象 CRC 的对象按 rangeSize 分段并行读取，各段的 CRC 合并后比较；
+ * 其余分块上传的对象按分块号（partNumber）并行读取各分块，重建 "MD5-分块数" 形式的 ETag 比较
+ * 3. 所有读取共用一个按字节计的令牌桶限速；内容不一致与读取失败（如 MinIO 读取时检测到磁盘数据损坏）都记为问题对象并追加到报告文件
+ * 4. 按列举顺序已全部完成的最后一个对象键定期写入检查点文件，中断后用同一个检查点从该位置继续列举
+ * 每次读取都带 If-Match，检查期间被覆盖或删除的对象跳过；以 / 结尾的空目录占位对象不检查
+ */
+@Slf4j
+public class ObjectScrubber {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Pattern MD5_ETAG = Pattern.compile("[0-9a-f]{32}");
+
+    private static final Pattern MULTIPART_ETAG = Pattern.compile("[0-9a-f]{32}-(\\d{1,5})");
+
+    private static final String CHECKPOINT_BUCKET = "bucket";
+
+    private static final String CHECKPOINT_PREFIX = "prefix";
+
+    private static final String CHECKPOINT_START_AFTER = "startAfter";
+
+    private final AmazonS3 amazonS3;
+
+    private final boolean virtualThreads;
+
+    public ObjectScrubber(AmazonS3 amazonS3, boolean virtualThreads) {
+        this.amazonS3 = amazonS3;
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * 巡检前缀下的所有对象
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     前缀，为空时巡检整个存储桶
+     * @param options    巡检选项
+     * @return {@link ScrubResult}
+     * @throws IOException 读取检查点或打开报告文件失败
+     */
+    public ScrubResult scrub(String bucketName, String prefix, ScrubOptions options) throws IOException {
+        if (options.getParallelism() <= 0 || options.getRangeSize() <= 0 || options.getCheckpointInterval() <= 0 || options.getBytesPerSecond() < 0) {
+            throw new IllegalArgumentException("parallelism、rangeSize、checkpointInterval 必须大于 0，bytesPerSecond 不能小于 0");
+        }
+        String keyPrefix = prefix == null ? "" : AmazonS3Template.getObjectName(prefix);
+        String startAfter = options.getCheckpoint() == null ? null : readCheckpoint(options.getCheckpoint(), bucketName, keyPrefix);
+        return new Run(bucketName, keyPrefix, startAfter, options).execute();
+    }
+
+    /**
+     * 检查点记录的开始位置
+     *
+     * @return 文件不存在时为 null
+     */
+    private static String readCheckpoint(Path checkpoint, String bucketName, String keyPrefix) throws IOException {
+        if (!Files.exists(checkpoint)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(checkpoint, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        String recordedBucket = properties.getProperty(CHECKPOINT_BUCKET);
+        String recordedPrefix = properties.getProperty(CHECKPOINT_PREFIX, "");
+        if (!bucketName.equals(recordedBucket) || !keyPrefix.equals(recordedPrefix)) {
+            throw new IllegalArgumentException("检查点 " + checkpoint + " 记录的是 " + recordedBucket + "/" + recordedPrefix + " 的巡检进度");
+        }
+        String startAfter = properties.getProperty(CHECKPOINT_START_AFTER);
+        return startAfter == null || startAfter.isEmpty() ? null : startAfter;
+    }
+
+    /**
+     * 报告以制表符分隔、每个对象一行，去掉字段中的制表符与换行
+     */
+    private static String field(String value) {
+        return value == null ? "-" : value.replaceAll("[\\t\\r\\n]", " ");
+    }
+
+    private static String describe(Throwable error) {
+        if (error instanceof AmazonServiceException) {
+            AmazonServiceException e = (AmazonServiceException) error;
+            return e.getStatusCode() + " " + e.getErrorCode();
+        }
+        return error.getClass().getSimpleName() + ": " + error.getMessage();
+    }
+
+    /**
+     * 对象的校验方式
+     */
+    private enum Mode {
+        /**
+         * 整体读取，比较内容的 MD5 与 ETag
+         */
+        MD5,
+        /**
+         * 按分块号读取，比较各分块 MD5 的 MD5 与 ETag
+         */
+        PARTS,
+        /**
+         * 分段读取，比较合并后的 CRC 与整对象校验和
+         */
+        CHECKSUM,
+        /**
+         * 只读取，无法校验内容
+         */
+        READ
+    }
+
+    /**
+     * 一次巡检：列举线程按顺序提交对象，对象的各段在线程池中读取，最后一段读完的线程给出结论
+     */
+    private final class Run {
+
+        private final String bucketName;
+
+        private final String keyPrefix;
+
+        private final String startAfter;
+
+        private final ScrubOptions options;
+
+        private final ScrubResult result = new ScrubResult();
+
+        private final int maxInFlight;
+
+        private final Semaphore inFlight;
+
+        private final TokenBucket throttle;
+
+        private final ExecutorService executor;
+
+        /**
+         * 按列举顺序排列、从第一个未完成对象开始的对象
+         */
+        private final Deque<ObjectCheck> pending = new ArrayDeque<>();
+
+        private Writer report;
+
+        /**
+         * 按列举顺序已全部完成的最后一个对象键
+         */
+        private String lastCompleted;
+
+        private int uncheckpointed;
+
+        private Run(String bucketName, String keyPrefix, String startAfter, ScrubOptions options) {
+            this.bucketName = bucketName;
+            this.keyPrefix = keyPrefix;
+            this.startAfter = startAfter;
+            this.options = options;
+            this.maxInFlight = options.getParallelism() * 2;
+            this.inFlight = new Semaphore(this.maxInFlight);
+            this.throttle = options.getBytesPerSecond() == 0 ? null
+                    : new TokenBucket(options.getBytesPerSecond(), (int) Math.min(Integer.MAX_VALUE, Math.max(BUFFER_SIZE, options.getBytesPerSecond() / 10)));
+            this.executor = Executors.newFixedThreadPool(options.getParallelism(),
+                    TransferExecutors.threadFactory("winter-s3-scrub-", ObjectScrubber.this.virtualThreads));
+            this.lastCompleted = startAfter;
+        }
+
+        private ScrubResult execute() throws IOException {
+            long start = System.currentTimeMillis();
+            this.result.setStartAfter(this.startAfter);
+            boolean completed = false;
+            try {
+                if (this.options.getReport() != null) {
+                    this.report = Files.newBufferedWriter(this.options.getReport(), StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                }
+                completed = this.list();
+            } finally {
+                // 列举失败或被中断时也等已提交的对象检查完，检查点才能记录到它们之后
+                this.inFlight.acquireUninterruptibly(this.maxInFlight);
+                this.executor.shutdown();
+                this.close(completed);
+            }
+            this.result.setCompleted(completed);
+            this.result.setDurationMillis(System.currentTimeMillis() - start);
+            return this.result;
+        }
+
+        /**
+         * 分页列举并提交对象
+         *
+         * @return 列举完所有对象时为 true，调用线程被中断时为 false
+         */
+        private boolean list() {
+            ListObjectsV2Request request = new ListObjectsV2Request().withBucketName(this.bucketName)
+                    .withPrefix(this.keyPrefix).withStartAfter(this.startAfter);
+            ListObjectsV2Result listing;
+            do {
+                listing = ObjectScrubber.this.amazonS3.listObjectsV2(request);
+                for (S3ObjectSummary summary : listing.getObjectSummaries()) {
+                    if (summary.getKey().endsWith("/") && summary.getSize() == 0) {
+                        continue;
+                    }
+                    try {
+                        this.inFlight.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                    ObjectCheck check = new ObjectCheck(summary);
+                    synchronized (this) {
+                        this.pending.add(check);
+                    }
+                    this.executor.execute(check::start);
+                }
+                request.setContinuationToken(listing.getNextContinuationToken());
+            } while (listing.isTruncated() && listing.getNextContinuationToken() != null);
+            return true;
+        }
+
+        /**
+         * 记录对象的结论，推进检查点
+         */
+        private void complete(ObjectCheck check) {
+            ScrubMismatch mismatch = check.verdict();
+            synchronized (this) {
+                this.result.setScanned(this.result.getScanned() + 1);
+                this.result.setBytes(this.result.getBytes() + check.bytes());
+                if (check.gone) {
+                    this.result.setSkipped(this.result.getSkipped() + 1);
+                } else if (mismatch == null) {
+                    if (check.mode == Mode.READ) {
+                        this.result.setUnverified(this.result.getUnverified() + 1);
+                    } else {
+                        this.result.setVerified(this.result.getVerified() + 1);
+                    }
+                } else {
+                    if (mismatch.getReason() == ScrubMismatch.Reason.READ_FAILED) {
+                        this.result.setFailed(this.result.getFailed() + 1);
+                    } else {
+                        this.result.setMismatched(this.result.getMismatched() + 1);
+                    }
+                    this.result.getMismatches().add(mismatch);
+                    this.writeReport(mismatch);
+                }
+                check.done = true;
+                while (!this.pending.isEmpty() && this.pending.peek().done) {
+                    this.lastCompleted = this.pending.poll().summary.getKey();
+                    this.uncheckpointed++;
+                }
+                if (this.uncheckpointed >= this.options.getCheckpointInterval()) {
+                    this.writeCheckpoint();
+                }
+            }
+            this.inFlight.release();
+        }
+
+        private void writeReport(ScrubMismatch mismatch) {
+            log.warn("巡检发现问题对象 {}/{}：{}，期望 {}，实际 {}", this.bucketName, mismatch.getKey(), mismatch.getReason(),
+                    mismatch.getExpected(), mismatch.getActual());
+            if (this.report == null) {
+                return;
+            }
+            try {
+                this.report.write(mismatch.getReason() + "\t" + field(mismatch.getKey()) + "\t" + mismatch.getSize() + "\t"
+                        + field(mismatch.getExpected()) + "\t" + field(mismatch.getActual()) + "\n");
+            } catch (IOException e) {
+                log.warn("写入巡检报告 {} 失败", this.options.getReport(), e);
+            }
+        }
+
+        /**
+         * 先刷新报告再写检查点，检查点之前的问题对象都已在报告中；检查点先写临时文件再改名
+         */
+        private void writeCheckpoint() {
+            this.uncheckpointed = 0;
+            Path checkpoint = this.options.getCheckpoint();
+            if (checkpoint == null || this.lastCompleted == null) {
+                return;
+            }
+            try {
+                if (this.report != null) {
+                    this.report.flush();
+                }
+                Properties properties = new Properties();
+                properties.setProperty(CHECKPOINT_BUCKET, this.bucketName);
+                properties.setProperty(CHECKPOINT_PREFIX, this.keyPrefix);
+                properties.setProperty(CHECKPOINT_START_AFTER, this.lastCompleted);
+                Path temp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+                try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    properties.store(writer, "winter-aws scrub checkpoint");
+                }
+                try {
+                    Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                log.warn("写入巡检检查点 {} 失败", checkpoint, e);
+            }
+        }
+
+        /**
+         * 完成时删除检查点，否则记录当前进度
+         */
+        private synchronized void close(boolean completed) {
+            if (completed && this.options.getCheckpoint() != null) {
+                try {
+                    Files.deleteIfExists(this.options.getCheckpoint());
+                } catch (IOException e) {
+                    log.warn("删除巡检检查点 {} 失败", this.options.getCheckpoint(), e);
+                }
+            } else {
+                this.writeCheckpoint();
+            }
+            if (this.report != null) {
+                try {
+                    this.report.close();
+                } catch (IOException e) {
+                    log.warn("写入巡检报告 {} 失败", this.options.getReport(), e);
+                }
+            }
+        }
+
+        /**
+         * 一个对象的检查：按校验方式拆成若干段，每段一次 GET
+         */
+        private final class ObjectCheck {
+
+            private final S3ObjectSummary summary;
+
+            private final String eTag;
+
+            private Mode mode = Mode.READ;
+
+            private ChecksumAlgorithm algorithm;
+
+            private Long expectedChecksum;
+
+            private Segment[] segments = new Segment[0];
+
+            private final AtomicInteger remaining = new AtomicInteger();
+
+            /**
+             * 检查期间被删除或覆盖
+             */
+            private volatile boolean gone;
+
+            private volatile Throwable error;
+
+            /**
+             * 由 Run 的锁保护
+             */
+            private boolean done;
+
+            private ObjectCheck(S3ObjectSummary summary) {
+                this.summary = summary;
+                this.eTag = summary.getETag() == null ? "" : summary.getETag().replace("\"", "").toLowerCase();
+            }
+
+            private void start() {
+                try {
+                    this.plan();
+                } catch (RuntimeException e) {
+                    this.fail(e);
+                }
+                if (this.gone || this.error != null) {
+                    Run.this.complete(this);
+                    return;
+                }
+                this.remaining.set(this.segments.length);
+                for (int i = 1; i < this.segments.length; i++) {
+                    Segment segment = this.segments[i];
+                    Run.this.executor.execute(() -> this.read(segment));
+                }
+                this.read(this.segments[0]);
+            }
+
+            /**
+             * ETag 是 MD5 时不需要 HEAD；其余对象先 HEAD 取整对象校验和，再决定分段方式
+             */
+            private void plan() {
+                long size = this.summary.getSize();
+                if (MD5_ETAG.matcher(this.eTag).matches()) {
+                    this.mode = Mode.MD5;
+                    this.segments = new Segment[]{new Segment(0, size - 1, 0)};
+                    return;
+                }
+                GetObjectMetadataRequest head = new GetObjectMetadataRequest(Run.this.bucketName, this.summary.getKey());
+                head.putCustomRequestHeader(ObjectChecksums.MODE_HEADER, ObjectChecksums.ENABLED);
+                ObjectMetadata metadata;
+                try {
+                    metadata = ObjectScrubber.this.amazonS3.getObjectMetadata(head);
+                } catch (AmazonS3Exception e) {
+                    if (e.getStatusCode() == 404) {
+                        this.gone = true;
+                        return;
+                    }
+                    throw e;
+                }
+                if (metadata.getETag() == null || !this.eTag.equals(metadata.getETag().replace("\"", "").toLowerCase())) {
+                    this.gone = true;
+                    return;
+                }
+                this.algorithm = ObjectChecksums.algorithmOf(metadata);
+                if (this.algorithm != null) {
+                    this.mode = Mode.CHECKSUM;
+                    this.expectedChecksum = ObjectChecksums.expectedOf(metadata, this.algorithm);
+                    long rangeSize = Run.this.options.getRangeSize();
+                    int count = (int) Math.max(1, (size + rangeSize - 1) / rangeSize);
+                    this.segments = new Segment[count];
+                    for (int i = 0; i < count; i++) {
+                        long from = i * rangeSize;
+                        this.segments[i] = new Segment(from, Math.min(from + rangeSize, size) - 1, 0);
+                    }
+                    return;
+                }
+                Matcher multipart = MULTIPART_ETAG.matcher(this.eTag);
+                int parts = multipart.matches() ? Integer.parseInt(multipart.group(1)) : 0;
+                if (parts > 0 && parts <= MultipartUploads.MAX_PARTS) {
+                    this.mode = Mode.PARTS;
+                    this.segments = new Segment[parts];
+                    for (int i = 0; i < parts; i++) {
+                        this.segments[i] = new Segment(0, -1, i + 1);
+                    }
+                    return;
+                }
+                this.segments = new Segment[]{new Segment(0, size - 1, 0)};
+            }
+
+            private void read(Segment segment) {
+                try {
+                    // 已确定有问题或已跳过的对象不再读取剩余的段
+                    if (!this.gone && this.error == null) {
+                        this.fetch(segment, segment.request(Run.this.bucketName, this.summary.getKey(), this.eTag));
+                    }
+                } catch (AmazonS3Exception e) {
+                    if (e.getStatusCode() == 404 || e.getStatusCode() == 412) {
+                        this.gone = true;
+                    } else {
+                        this.fail(e);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    this.fail(e);
+                }
+                if (this.remaining.decrementAndGet() == 0) {
+                    Run.this.complete(this);
+                }
+            }
+
+            private void fetch(Segment segment, GetObjectRequest request) throws IOException {
+                S3Object object = ObjectScrubber.this.amazonS3.getObject(request);
+                if (object == null) {
+                    // If-Match 不满足
+                    this.gone = true;
+                    return;
+                }
+                MessageDigest digest = this.mode == Mode.MD5 || this.mode == Mode.PARTS ? MultipartUploads.md5() : null;
+                Checksum checksum = this.algorithm == null ? null : this.algorithm.newChecksum();
+                S3ObjectInputStream content = object.getObjectContent();
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long length = 0;
+                try {
+                    int n;
+                    while ((n = content.read(buffer)) >= 0) {
+                        if (Run.this.throttle != null) {
+                            try {
+                                Run.this.throttle.acquire(n);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new InterruptedIOException("巡检被中断");
+                            }
+                        }
+                        if (digest != null) {
+                            digest.update(buffer, 0, n);
+                        }
+                        if (checksum != null) {
+                            checksum.update(buffer, 0, n);
+                        }
+                        length += n;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    content.abort();
+                    throw e;
+                } finally {
+                    object.close();
+                }
+                segment.length = length;
+                segment.md5 = digest == null ? null : digest.digest();
+                segment.checksum = checksum == null ? 0 : checksum.getValue();
+            }
+
+            private void fail(Throwable e) {
+                if (this.error == null) {
+                    this.error = e;
+                }
+            }
+
+            private long bytes() {
+                long bytes = 0;
+                for (Segment segment : this.segments) {
+                    bytes += segment.length;
+                }
+                return bytes;
+            }
+
+            /**
+             * 所有段读完后比较
+             *
+             * @return 没有问题或已跳过时为 null
+             */
+            private ScrubMismatch verdict() {
+                String key = this.summary.getKey();
+                long size = this.summary.getSize();
+                if (this.gone) {
+                    return null;
+                }
+                if (this.error != null) {
+                    return new ScrubMismatch(key, size, ScrubMismatch.Reason.READ_FAILED, null, describe(this.error));
+                }
+                long length = this.bytes();
+                if (length != size) {
+                    return new ScrubMismatch(key, size, ScrubMismatch.Reason.SIZE, String.valueOf(size), String.valueOf(length));
+                }
+                switch (this.mode) {
+                    case MD5: {
+                        String actual = BinaryUtils.toHex(this.segments[0].md5);
+                        return this.eTag.equals(actual) ? null : new ScrubMismatch(key, size, ScrubMismatch.Reason.ETAG, this.eTag, actual);
+                    }
+                    case PARTS: {
+                        MessageDigest whole = MultipartUploads.md5();
+                        for (Segment segment : this.segments) {
+                            whole.update(segment.md5);
+                        }
+                        String actual = BinaryUtils.toHex(whole.digest()) + "-" + this.segments.length;
+                        return this.eTag.equals(actual) ? null : new ScrubMismatch(key, size, ScrubMismatch.Reason.ETAG, this.eTag, actual);
+                    }
+                    case CHECKSUM: {
+                        long actual = this.segments[0].checksum;
+                        for (int i = 1; i < this.segments.length; i++) {
+                            actual = this.algorithm.combine(actual, this.segments[i].checksum, this.segments[i].length);
+                        }
+                        return actual == this.expectedChecksum ? null : new ScrubMismatch(key, size, ScrubMismatch.Reason.CHECKSUM,
+                                this.algorithm.encode(this.expectedChecksum), this.algorithm.encode(actual));
+                    }
+                    default:
+                        return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 一次 GET：partNumber 大于 0 时按分块号读取，否则读取 [start, end]
+     */
+    private static final class Segment {
+
+        private final long start;
+
+        private final long end;
+
+        private final int partNumber;
+
+        private long length;
+
+        private byte[] md5;
+
+        private long checksum;
+
+        private Segment(long start, long end, int partNumber) {
+            this.start = start;
+            this.end = end;
+            this.partNumber = partNumber;
+        }
+
+        /**
+         * 整体读取也带 Range（空对象除外）：SDK 只在完整读取时自行校验 MD5，不一致时抛出的异常无法与读取失败区分
+         */
+        private GetObjectRequest request(String bucketName, String key, String eTag) {
+            GetObjectRequest request = new GetObjectRequest(bucketName, key).withMatchingETagConstraint("\"" + eTag + "\"");
+            if (this.partNumber > 0) {
+                request.setPartNumber(this.partNumber);
+            } else if (this.end >= this.start) {
+                request.setRange(this.start, this.end);
+            }
+            return request;
+        }
+    }
+}
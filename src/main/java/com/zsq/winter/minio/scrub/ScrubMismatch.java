@@ -0,0 +1,56 @@
+package com.zsq.winter.minio.scrub;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 巡检发现的问题对象
+ */
+@Data
+@AllArgsConstructor
+public class ScrubMismatch {
+
+    /**
+     * 对象键
+     */
+    private String key;
+
+    /**
+     * 列举结果中的大小
+     */
+    private long size;
+
+    /**
+     * 原因
+     */
+    private Reason reason;
+
+    /**
+     * 期望值：ETag、Base64 编码的校验和或大小
+     */
+    private String expected;
+
+    /**
+     * 读取内容计算出的值，读取失败时为异常信息
+     */
+    private String actual;
+
+    public enum Reason {
+        /**
+         * 内容的 MD5（分块上传的对象为各分块 MD5 的 MD5）与 ETag 不一致
+         */
+        ETAG,
+        /**
+         * 内容的 CRC 与服务端保存的整对象校验和不一致
+         */
+        CHECKSUM,
+        /**
+         * 读取的字节数与对象大小不一致
+         */
+        SIZE,
+        /**
+         * 读取失败，如服务端检测到磁盘数据损坏而返回错误
+         */
+        READ_FAILED
+    }
+}
@@ -0,0 +1,42 @@
+package com.zsq.winter.minio.scrub;
+
+import lombok.Data;
+
+import java.nio.file.Path;
+
+/**
+ * 完整性巡检选项
+ */
+@Data
+public class ScrubOptions {
+
+    /**
+     * 同时读取的对象或分段数
+     */
+    private int parallelism = 8;
+
+    /**
+     * 所有读取合计的带宽上限（字节/秒），0 为不限制；在业务高峰期巡检时用来避免挤占磁盘与网络
+     */
+    private long bytesPerSecond;
+
+    /**
+     * 带整对象 CRC 的对象按该大小分段并行读取
+     */
+    private long rangeSize = 16L * 1024 * 1024;
+
+    /**
+     * 检查点文件，为空时不记录进度；文件存在时从记录的对象键之后继续，巡检完成后删除
+     */
+    private Path checkpoint;
+
+    /**
+     * 每完成多少个对象写一次检查点，中断后最多重新检查这么多个对象
+     */
+    private int checkpointInterval = 1000;
+
+    /**
+     * 报告文件，为空时不写；每个问题对象追加一行：原因、对象键、大小、期望值、实际值，以制表符分隔
+     */
+    private Path report;
+}
@@ -0,0 +1,77 @@
+package com.zsq.winter.minio.scrub;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一次完整性巡检的结果，从检查点继续时只统计本次检查的对象
+ */
+@Data
+public class ScrubResult {
+
+    /**
+     * 从检查点继续时为开始位置（不含），从头开始时为 null
+     */
+    private String startAfter;
+
+    /**
+     * 检查的对象数
+     */
+    private long scanned;
+
+    /**
+     * 按 ETag 或整对象校验和校验通过的对象数
+     */
+    private long verified;
+
+    /**
+     * 能完整读取、但既没有整对象校验和、ETag 也不是 MD5（如 SSE-KMS）而无法校验的对象数
+     */
+    private long unverified;
+
+    /**
+     * 内容或大小不一致的对象数
+     */
+    private long mismatched;
+
+    /**
+     * 读取失败的对象数
+     */
+    private long failed;
+
+    /**
+     * 检查期间被删除或覆盖而跳过的对象数
+     */
+    private long skipped;
+
+    /**
+     * 读取的字节数
+     */
+    private long bytes;
+
+    /**
+     * 本次发现的问题对象，包括内容不一致与读取失败
+     */
+    private List<ScrubMismatch> mismatches = new ArrayList<>();
+
+    /**
+     * 是否检查到了最后一个对象；被中断时为 false，可以用同一个检查点继续
+     */
+    private boolean completed;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private long durationMillis;
+
+    /**
+     * 平均读取速度（字节/秒）
+     *
+     * @return double
+     */
+    public double getBytesPerSecond() {
+        return this.durationMillis == 0 ? 0 : this.bytes * 1000.0 / this.durationMillis;
+    }
+}
@@ -1,28 +1,68 @@
 package com.zsq.winter.minio.service;
 
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.HttpMethod;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.internal.ResettableInputStream;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
 import com.amazonaws.services.s3.model.*;
 
 import com.amazonaws.util.Base64;
+import com.zsq.winter.minio.archive.ArchiveExtractOptions;
+import com.zsq.winter.minio.archive.ArchiveExtractResult;
+import com.zsq.winter.minio.archive.ArchiveExtractor;
+import com.zsq.winter.minio.archive.ArchiveFormat;
+import com.zsq.winter.minio.archive.ZipExportOptions;
+import com.zsq.winter.minio.archive.ZipExportResult;
+import com.zsq.winter.minio.archive.ZipExporter;
+import com.zsq.winter.minio.bulk.BulkUploadOptions;
+import com.zsq.winter.minio.bulk.BulkUploadResult;
+import com.zsq.winter.minio.bulk.BulkUploader;
+import com.zsq.winter.minio.checksum.ChecksumAlgorithm;
+import com.zsq.winter.minio.checksum.ChecksumInputStream;
+import com.zsq.winter.minio.checksum.MultipartChecksum;
+import com.zsq.winter.minio.checksum.ObjectChecksums;
+import com.zsq.winter.minio.compression.ObjectCompression;
 import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.engine.ObjectContent;
+import com.zsq.winter.minio.engine.ObjectInfo;
+import com.zsq.winter.minio.engine.PartInfo;
+import com.zsq.winter.minio.engine.S3Engine;
+import com.zsq.winter.minio.engine.S3EngineException;
 import com.zsq.winter.minio.enums.PolicyType;
+import com.zsq.winter.minio.listener.TransferListener;
+import com.zsq.winter.minio.scrub.ObjectScrubber;
+import com.zsq.winter.minio.scrub.ScrubOptions;
+import com.zsq.winter.minio.scrub.ScrubResult;
+import com.zsq.winter.minio.support.TransferExecutors;
+import com.zsq.winter.minio.sync.DirectorySync;
+import com.zsq.winter.minio.sync.SyncOptions;
+import com.zsq.winter.minio.sync.SyncResult;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.MediaTypeFactory;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletResponse;
+
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
@@ -30,21 +70,73 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class AmazonS3Template {
+    /**
+     * 一次列举（最多 1000 个键）大致相当于多少次 HEAD 的开销，批量检查存在性时据此决定列举还是 HEAD
+     */
+    private static final int LIST_PAGE_COST = 10;
+    /**
+     * 批量检查存在性时并行 HEAD 的最大请求数
+     */
+    private static final int EXISTS_PARALLELISM = 16;
     private final AmazonS3Properties amazonS3Properties;
     private final AmazonS3 amazonS3;
+    /**
+     * 传输引擎，不为 null 时与 SDK 版本无关的对象读写（上传、下载、HEAD、删除、复制、列举、分块上传）经引擎执行，
+     * 需要 v1 请求选项的操作（压缩元数据、校验和、预签名、存储桶配置等）仍使用 amazonS3
+     */
+    private final S3Engine engine;
+    private TransferListener transferListener = TransferListener.NOOP;
+    private final ObjectCompression objectCompression;
+    /**
+     * 声明了整对象校验和的分块上传 uploadId -> 各分块的校验和，完成或取消上传时移除，
+     * 超过 winter-aws.checksum.multipart-idle-timeout 没有新分块时在发起新上传时清理
+     */
+    private final Map<String, MultipartChecksum> multipartChecksums = new ConcurrentHashMap<>();
 
     public AmazonS3Template(final AmazonS3Properties amazonS3Properties, final AmazonS3 amazonS3) {
+        this(amazonS3Properties, amazonS3, null);
+    }
+
+    /**
+     * @param amazonS3Properties 配置
+     * @param amazonS3           v1 客户端
+     * @param engine             传输引擎，为 null 时所有操作直接使用 v1 客户端
+     */
+    public AmazonS3Template(final AmazonS3Properties amazonS3Properties, final AmazonS3 amazonS3, final S3Engine engine) {
         this.amazonS3Properties = amazonS3Properties;
         this.amazonS3 = amazonS3;
+        this.engine = engine;
+        this.objectCompression = new ObjectCompression(amazonS3Properties.getCompression());
+    }
+
+    /**
+     * 设置分块上传的进度监听器
+     *
+     * @param transferListener 监听器，为 null 时不监听
+     */
+    public void setTransferListener(TransferListener transferListener) {
+        this.transferListener = transferListener == null ? TransferListener.NOOP : transferListener;
     }
 
     /**
@@ -184,6 +276,11 @@ public class AmazonS3Template {
      * @return {@link List}<{@link S3ObjectSummary}>
      */
     public List<S3ObjectSummary> getAllObjectsByPrefix(String bucketName, String prefix, String delimiter, Integer maxNum) {
+        if (this.engine != null && ObjectUtils.isEmpty(delimiter)) {
+            // 引擎不返回 CommonPrefixes，带分隔符的列举仍使用 v1 客户端
+            List<ObjectInfo> objects = this.await(this.engine.listObjects(bucketName, prefix, ObjectUtils.isEmpty(maxNum) ? 1000 : maxNum));
+            return objects.stream().map(info -> toObjectSummary(bucketName, info)).collect(Collectors.toList());
+        }
         ListObjectsRequest listObjectsRequest = new ListObjectsRequest()
                 .withBucketName(bucketName) // 指定存储桶名称
                 .withPrefix(prefix) // 设置前缀，只列出以 prefix字段值开头的对象，
@@ -453,6 +550,16 @@ public class AmazonS3Template {
         if (contentLength <= 0) {
             throw new IllegalArgumentException("Content length must be greater than 0. Do not use stream.available()");
         }
+        // 匹配 winter-aws.compression.rules 的对象压缩后上传
+        AmazonS3Properties.CompressionRule compressionRule = this.objectCompression.match(bucketName, getObjectName(objectName), contentLength);
+        if (compressionRule != null) {
+            return this.objectCompression.putObject(this, this.amazonS3, bucketName, getObjectName(objectName), mediaType, stream, contentLength, compressionRule);
+        }
+        if (this.engine != null) {
+            PutObjectResult result = new PutObjectResult();
+            result.setETag(this.await(this.engine.putObject(bucketName, getObjectName(objectName), stream, contentLength, mediaType)));
+            return result;
+        }
 
         // 设置对象元数据
         ObjectMetadata objectMetadata = new ObjectMetadata();
@@ -504,9 +611,173 @@ public class AmazonS3Template {
      * @return boolean
      */
     public boolean doesObjectExist(String bucketName, String objectName) {
+        if (this.engine != null) {
+            return this.await(this.engine.doesObjectExist(bucketName, objectName));
+        }
         return this.amazonS3.doesObjectExist(bucketName, objectName);
     }
 
+    /**
+     * 批量检查对象是否存在（使用默认存储桶）
+     *
+     * @param objectNames 对象名称
+     * @return 对象名称 -> 是否存在，顺序与参数一致
+     */
+    public Map<String, Boolean> existsAll(Collection<String> objectNames) {
+        return this.existsAll(this.getBucketName(), objectNames);
+    }
+
+    /**
+     * 批量检查对象是否存在，代替逐个调用 {@link #doesObjectExist(String, String)}
+     * 1. 按目录分组，同一目录下的键较多时，以这些键的公共前缀分页列举（ListObjectsV2 + StartAfter 跳过键之间的空档），从列举结果中判断
+     * 2. 零散的键，以及目录中其他对象过多、继续列举已不如 HEAD 划算时剩下的键，并行 HEAD
+     *
+     * @param bucketName  bucket名称
+     * @param objectNames 对象名称
+     * @return 对象名称 -> 是否存在，顺序与参数一致
+     */
+    public Map<String, Boolean> existsAll(String bucketName, Collection<String> objectNames) {
+        TreeSet<String> sorted = new TreeSet<>(AmazonS3Template::compareKeys);
+        sorted.addAll(objectNames);
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (String objectName : sorted) {
+            groups.computeIfAbsent(objectName.substring(0, objectName.lastIndexOf('/') + 1), k -> new ArrayList<>()).add(objectName);
+        }
+        Set<String> existing = new HashSet<>();
+        List<String> headNames = new ArrayList<>();
+        for (List<String> group : groups.values()) {
+            if (group.size() < LIST_PAGE_COST) {
+                headNames.addAll(group);
+            } else {
+                headNames.addAll(this.listExisting(bucketName, group, existing));
+            }
+        }
+        existing.addAll(this.headExisting(bucketName, headNames));
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        for (String objectName : objectNames) {
+            result.put(objectName, existing.contains(objectName));
+        }
+        return result;
+    }
+
+    /**
+     * 列举覆盖一组已排序的键的范围，把存在的键加入 existing；已列举的页数折算成 HEAD 后超过剩余键数时停止
+     *
+     * @return 未能通过列举确定的键
+     */
+    private List<String> listExisting(String bucketName, List<String> sortedNames, Set<String> existing) {
+        String prefix = commonPrefix(sortedNames.get(0), sortedNames.get(sortedNames.size() - 1));
+        Set<String> wanted = new HashSet<>(sortedNames);
+        int next = 0;
+        int pages = 0;
+        String startAfter = null;
+        while (next < sortedNames.size() && pages * LIST_PAGE_COST < sortedNames.size() - next) {
+            // 下一个待确定的键离上一页末尾较远时直接跳到它前面
+            String jump = justBefore(sortedNames.get(next));
+            if (jump != null && (startAfter == null || compareKeys(jump, startAfter) > 0)) {
+                startAfter = jump;
+            }
+            ListObjectsV2Result listing = this.amazonS3.listObjectsV2(new ListObjectsV2Request()
+                    .withBucketName(bucketName)
+                    .withPrefix(prefix)
+                    .withStartAfter(startAfter));
+            pages++;
+            List<S3ObjectSummary> summaries = listing.getObjectSummaries();
+            for (S3ObjectSummary summary : summaries) {
+                if (wanted.contains(summary.getKey())) {
+                    existing.add(summary.getKey());
+                }
+            }
+            if (!listing.isTruncated() || summaries.isEmpty()) {
+                return Collections.emptyList();
+            }
+            startAfter = summaries.get(summaries.size() - 1).getKey();
+            while (next < sortedNames.size() && compareKeys(sortedNames.get(next), startAfter) <= 0) {
+                next++;
+            }
+        }
+        return sortedNames.subList(next, sortedNames.size());
+    }
+
+    /**
+     * 并行 HEAD
+     *
+     * @return 存在的键
+     */
+    private Set<String> headExisting(String bucketName, List<String> objectNames) {
+        if (objectNames.isEmpty()) {
+            return Collections.emptySet();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(objectNames.size(), EXISTS_PARALLELISM),
+                TransferExecutors.threadFactory("winter-s3-exists-", this.amazonS3Properties.getVirtualThreads()));
+        try {
+            List<CompletableFuture<Boolean>> futures = objectNames.stream()
+                    .map(objectName -> CompletableFuture.supplyAsync(() -> this.doesObjectExist(bucketName, objectName), executor))
+                    .collect(Collectors.toList());
+            Set<String> existing = new HashSet<>();
+            for (int i = 0; i < objectNames.size(); i++) {
+                if (futures.get(i).join()) {
+                    existing.add(objectNames.get(i));
+                }
+            }
+            return existing;
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 按 S3 列举的顺序（UTF-8 字节序，即码点顺序）比较对象键
+     *
+     * @param a 对象键
+     * @param b 对象键
+     * @return int
+     */
+    public static int compareKeys(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int x = a.codePointAt(i);
+            int y = b.codePointAt(j);
+            if (x != y) {
+                return Integer.compare(x, y);
+            }
+            i += Character.charCount(x);
+            j += Character.charCount(y);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    /**
+     * 公共前缀，不截断代理对
+     */
+    private static String commonPrefix(String a, String b) {
+        int n = 0;
+        while (n < a.length() && n < b.length() && a.charAt(n) == b.charAt(n)) {
+            n++;
+        }
+        if (n > 0 && Character.isHighSurrogate(a.charAt(n - 1))) {
+            n--;
+        }
+        return a.substring(0, n);
+    }
+
+    /**
+     * 排在 objectName 之前且与它之间通常没有其他键的字符串，用作 StartAfter；无法构造时为 null
+     */
+    private static String justBefore(String objectName) {
+        if (objectName.isEmpty()) {
+            return null;
+        }
+        char last = objectName.charAt(objectName.length() - 1);
+        if (last == 0 || Character.isSurrogate(last)) {
+            return null;
+        }
+        return objectName.substring(0, objectName.length() - 1) + (char) (last - 1);
+    }
+
 
     /**
      * put对象
@@ -623,17 +894,55 @@ public class AmazonS3Template {
         使用initiateMultipartUpload方法初始化分块上传后，可以使用UploadId以及其他方法（如uploadPart、completeMultipartUpload等）来管理和操作这个分块上传过程。
         分块上传可以提高上传效率，并且在上传过程中如果中断或失败，可以更容易地重试或取消上传，而不需要重新上传整个对象。
         */
+        if (this.engine != null && this.amazonS3Properties.getChecksum().getAlgorithm() == null) {
+            InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+            result.setBucketName(bucketName);
+            result.setKey(getObjectName(objectName));
+            result.setUploadId(this.await(this.engine.createMultipartUpload(bucketName, result.getKey(), contentType)));
+            this.transferListener.transferStarted(bucketName, result.getKey(), result.getUploadId());
+            return result;
+        }
         ObjectMetadata objectMetadata = new ObjectMetadata();
         objectMetadata.setContentType(contentType);
         InitiateMultipartUploadRequest initiateMultipartUploadRequest = new InitiateMultipartUploadRequest(bucketName, getObjectName(objectName), objectMetadata);
-        return this.amazonS3.initiateMultipartUpload(initiateMultipartUploadRequest);
+        return this.initiateMultipartUpload(initiateMultipartUploadRequest);
+    }
+
+    /**
+     * 启动初始化分块上传操作，可以在请求中带上用户元数据等
+     * 配置了 winter-aws.checksum.algorithm 时声明整对象校验和（FULL_OBJECT），之后经模板上传的分块边上传边计算 CRC，
+     * 完成上传时合并为整个对象的校验和一起提交，由服务端校验并保存
+     *
+     * @param initiateMultipartUploadRequest 请求
+     * @return {@link InitiateMultipartUploadResult}
+     */
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest initiateMultipartUploadRequest) {
+        ChecksumAlgorithm algorithm = this.amazonS3Properties.getChecksum().getAlgorithm();
+        if (algorithm != null) {
+            initiateMultipartUploadRequest.putCustomRequestHeader(ObjectChecksums.ALGORITHM_HEADER, algorithm.getAlgorithmName());
+            initiateMultipartUploadRequest.putCustomRequestHeader(ObjectChecksums.TYPE_HEADER, ObjectChecksums.FULL_OBJECT);
+        }
+        InitiateMultipartUploadResult result = this.amazonS3.initiateMultipartUpload(initiateMultipartUploadRequest);
+        if (algorithm != null) {
+            this.expireMultipartChecksums();
+            this.multipartChecksums.put(result.getUploadId(), new MultipartChecksum(algorithm));
+        }
+        this.transferListener.transferStarted(initiateMultipartUploadRequest.getBucketName(), result.getKey(), result.getUploadId());
+        return result;
+    }
+
+    /**
+     * 清理长期没有新分块的上传记录：上传被放弃、被 {@link com.zsq.winter.minio.multipart.MultipartUploadReaper} 取消或由其他实例完成时，
+     * 本实例收不到完成或取消的调用
+     */
+    private void expireMultipartChecksums() {
+        long idleMillis = this.amazonS3Properties.getChecksum().getMultipartIdleTimeout().toMillis();
+        long now = System.currentTimeMillis();
+        this.multipartChecksums.values().removeIf(multipartChecksum -> multipartChecksum.isIdle(idleMillis, now));
     }
 
     public InitiateMultipartUploadResult initiateMultipartUpload(String objectName, String contentType) {
-        ObjectMetadata objectMetadata = new ObjectMetadata();
-        objectMetadata.setContentType(contentType);
-        InitiateMultipartUploadRequest initiateMultipartUploadRequest = new InitiateMultipartUploadRequest(this.getBucketName(), getObjectName(objectName), objectMetadata);
-        return this.amazonS3.initiateMultipartUpload(initiateMultipartUploadRequest);
+        return this.initiateMultipartUpload(this.getBucketName(), objectName, contentType);
     }
 
 
@@ -669,7 +978,111 @@ public class AmazonS3Template {
                 .withPartNumber(partNumber)
                 .withPartSize(partSize)
                 .withInputStream(inputStream);
-        return this.amazonS3.uploadPart(uploadPartRequest);
+        return this.uploadPart(uploadPartRequest);
+    }
+
+    /**
+     * 上传文件中的一段作为一个分块，失败重试时 SDK 直接从文件重新读取，不需要缓冲分块内容
+     *
+     * @param bucketName 目标S3存储桶的名称
+     * @param uploadId   初始化多部分上传时返回的唯一标识符
+     * @param objectName 对象在存储桶中的唯一标识符(必须和初始化分片initiateMultipartUpload使用的objectName一样)
+     * @param partNumber 当前上传部分的编号，必须是1到10000之间的整数
+     * @param file       文件
+     * @param fileOffset 分块在文件中的起始位置
+     * @param partSize   分块大小，单位是字节
+     * @return {@link UploadPartResult}
+     */
+    public UploadPartResult uploadPart(String bucketName, String uploadId, String objectName, int partNumber, File file, long fileOffset, long partSize) {
+        UploadPartRequest uploadPartRequest = (new UploadPartRequest())
+                .withBucketName(bucketName)
+                .withUploadId(uploadId)
+                .withKey(getObjectName(objectName))
+                .withPartNumber(partNumber)
+                .withFile(file)
+                .withFileOffset(fileOffset)
+                .withPartSize(partSize);
+        return this.uploadPart(uploadPartRequest);
+    }
+
+    private UploadPartResult uploadPart(UploadPartRequest uploadPartRequest) {
+        String uploadId = uploadPartRequest.getUploadId();
+        int partNumber = uploadPartRequest.getPartNumber();
+        long partSize = uploadPartRequest.getPartSize();
+        MultipartChecksum multipartChecksum = this.multipartChecksums.get(uploadId);
+        InputStream fileStream = null;
+        ChecksumInputStream checksumStream = null;
+        if (multipartChecksum != null) {
+            // 在 SDK 读取分块内容的同时计算校验和，各分块在各自的上传线程中并行计算
+            if (uploadPartRequest.getFile() != null) {
+                fileStream = openFileRange(uploadPartRequest.getFile(), uploadPartRequest.getFileOffset());
+                uploadPartRequest.setFile(null);
+                uploadPartRequest.setFileOffset(0);
+            }
+            checksumStream = new ChecksumInputStream(fileStream != null ? fileStream : uploadPartRequest.getInputStream(), multipartChecksum.getAlgorithm());
+            uploadPartRequest.setInputStream(checksumStream);
+        }
+        this.transferListener.partStarted(uploadId, partNumber, partSize);
+        long start = System.nanoTime();
+        try {
+            // 文件分块、带 MD5 或需要计算校验和的分块使用 v1 客户端
+            boolean viaEngine = this.engine != null && checksumStream == null
+                    && uploadPartRequest.getFile() == null && uploadPartRequest.getMd5Digest() == null;
+            UploadPartResult result = viaEngine ? this.uploadPartWithEngine(uploadPartRequest) : this.amazonS3.uploadPart(uploadPartRequest);
+            if (checksumStream != null) {
+                if (checksumStream.getLength() == partSize) {
+                    multipartChecksum.put(partNumber, checksumStream.getValue(), partSize);
+                } else {
+                    multipartChecksum.remove(partNumber);
+                }
+            }
+            this.transferListener.partFinished(uploadId, partNumber, partSize, System.nanoTime() - start, null);
+            return result;
+        } catch (RuntimeException e) {
+            this.transferListener.partFinished(uploadId, partNumber, partSize, System.nanoTime() - start, e);
+            throw e;
+        } finally {
+            if (fileStream != null) {
+                try {
+                    fileStream.close();
+                } catch (IOException ignored) {
+                    // 只读文件，关闭失败不影响结果
+                }
+            }
+        }
+    }
+
+    private UploadPartResult uploadPartWithEngine(UploadPartRequest uploadPartRequest) {
+        PartInfo part = this.await(this.engine.uploadPart(uploadPartRequest.getBucketName(), uploadPartRequest.getKey(), uploadPartRequest.getUploadId(),
+                uploadPartRequest.getPartNumber(), uploadPartRequest.getInputStream(), uploadPartRequest.getPartSize()));
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(part.getPartNumber());
+        result.setETag(part.getETag());
+        return result;
+    }
+
+    /**
+     * 从 offset 开始读取文件，支持 SDK 重试时 mark/reset
+     */
+    private static InputStream openFileRange(File file, long offset) {
+        ResettableInputStream inputStream = null;
+        try {
+            inputStream = new ResettableInputStream(file);
+            long skipped = 0;
+            while (skipped < offset) {
+                long n = inputStream.skip(offset - skipped);
+                if (n <= 0) {
+                    throw new IOException("文件 " + file + " 的长度小于分块位置 " + offset);
+                }
+                skipped += n;
+            }
+            return inputStream;
+        } catch (IOException e) {
+            if (inputStream != null) {
+                inputStream.release();
+            }
+            throw new SdkClientException("读取分块文件失败: " + file, e);
+        }
     }
 
     /**
@@ -699,15 +1112,18 @@ public class AmazonS3Template {
      * @throws Exception 例外
      */
     public UploadPartResult uploadPart(String bucketName, String uploadId, String objectName, int partNumber, MultipartFile file) throws Exception {
-        String md5Digest;
+        String md5Digest = null;
         long partSize;
         InputStream inputStream;
         try {
-            // 生成md5
-            byte[] md5s = MessageDigest.getInstance("MD5").digest(file.getBytes());
-            md5Digest = Base64.encodeAsString(md5s);
+            byte[] bytes = file.getBytes();
+            // 声明了整对象校验和的上传在发送时计算 CRC，不再预先计算 MD5
+            if (!this.multipartChecksums.containsKey(uploadId)) {
+                byte[] md5s = MessageDigest.getInstance("MD5").digest(bytes);
+                md5Digest = Base64.encodeAsString(md5s);
+            }
             partSize = file.getSize();
-            inputStream = new ByteArrayInputStream(file.getBytes());
+            inputStream = new ByteArrayInputStream(bytes);
         } catch (NoSuchAlgorithmException | IOException e) {
             throw new Exception("分块上传MD5加密出错");
         }
@@ -832,7 +1248,38 @@ public class AmazonS3Template {
                 .withKey(getObjectName(objectName))
                 .withBucketName(bucketName)
                 .withPartETags(parts.stream().map(partSummary -> new PartETag(partSummary.getPartNumber(), partSummary.getETag())).collect(Collectors.toList()));
-        return this.amazonS3.completeMultipartUpload(completeMultipartUploadRequest);
+        MultipartChecksum multipartChecksum = this.multipartChecksums.get(uploadId);
+        if (multipartChecksum != null) {
+            // 各分块的 CRC 按顺序合并为整个对象的 CRC；有分块未经模板上传时不提交，由服务端自行计算
+            Long checksum = multipartChecksum.combine(parts.stream().map(PartSummary::getPartNumber).collect(Collectors.toList()));
+            if (checksum != null) {
+                ChecksumAlgorithm algorithm = multipartChecksum.getAlgorithm();
+                completeMultipartUploadRequest.putCustomRequestHeader(algorithm.getHeaderName(), algorithm.encode(checksum));
+                completeMultipartUploadRequest.putCustomRequestHeader(ObjectChecksums.TYPE_HEADER, ObjectChecksums.FULL_OBJECT);
+            }
+        }
+        try {
+            CompleteMultipartUploadResult result = this.engine != null && multipartChecksum == null
+                    ? this.completeMultipartUploadWithEngine(completeMultipartUploadRequest)
+                    : this.amazonS3.completeMultipartUpload(completeMultipartUploadRequest);
+            this.multipartChecksums.remove(uploadId);
+            this.transferListener.transferCompleted(bucketName, completeMultipartUploadRequest.getKey(), uploadId, parts.size());
+            return result;
+        } catch (RuntimeException e) {
+            this.transferListener.transferFailed(bucketName, completeMultipartUploadRequest.getKey(), uploadId, e);
+            throw e;
+        }
+    }
+
+    private CompleteMultipartUploadResult completeMultipartUploadWithEngine(CompleteMultipartUploadRequest request) {
+        List<PartInfo> parts = request.getPartETags().stream()
+                .map(partETag -> new PartInfo(partETag.getPartNumber(), partETag.getETag()))
+                .collect(Collectors.toList());
+        CompleteMultipartUploadResult result = new CompleteMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        result.setETag(this.await(this.engine.completeMultipartUpload(request.getBucketName(), request.getKey(), request.getUploadId(), parts)));
+        return result;
     }
 
     /**
@@ -853,8 +1300,33 @@ public class AmazonS3Template {
      * @param uploadId   初始化多部分上传时返回的唯一标识符，用于跟踪整个多部分上传过程（从InitiateMultipartUploadResult获取）
      */
     public void abortMultipartUpload(String bucketName, String objectName, String uploadId) {
+        this.abortMultipartUpload(bucketName, objectName, uploadId, null);
+    }
+
+    /**
+     * 因上传出错而取消分片上传，监听器收到的失败原因为 cause；取消请求本身失败时仍通知监听器上传失败
+     *
+     * @param bucketName 目标S3存储桶的名称
+     * @param objectName 对象在存储桶中的唯一标识符，可以理解为文件路径
+     * @param uploadId   初始化多部分上传时返回的唯一标识符
+     * @param cause      导致取消的异常，主动取消时为 null
+     */
+    public void abortMultipartUpload(String bucketName, String objectName, String uploadId, Throwable cause) {
         AbortMultipartUploadRequest abortMultipartUploadRequest = new AbortMultipartUploadRequest(bucketName, getObjectName(objectName), uploadId);
-        this.amazonS3.abortMultipartUpload(abortMultipartUploadRequest);
+        try {
+            if (this.engine != null) {
+                this.await(this.engine.abortMultipartUpload(bucketName, abortMultipartUploadRequest.getKey(), uploadId));
+            } else {
+                this.amazonS3.abortMultipartUpload(abortMultipartUploadRequest);
+            }
+        } catch (RuntimeException e) {
+            if (cause != null) {
+                this.transferListener.transferFailed(bucketName, abortMultipartUploadRequest.getKey(), uploadId, cause);
+            }
+            throw e;
+        }
+        this.multipartChecksums.remove(uploadId);
+        this.transferListener.transferFailed(bucketName, abortMultipartUploadRequest.getKey(), uploadId, cause);
     }
 
     /**
@@ -886,7 +1358,46 @@ public class AmazonS3Template {
     }
 
     /**
-     * 列出指定存储桶中所有正在进行的分片上传作业的详细文件信息
+     * 按前缀列出所有正在进行的分片上传作业(存储桶为配置文件中的)，按 KeyMarker / UploadIdMarker 翻页直到列完
+     *
+     * @param prefix 前缀,列出具有特定前缀的对象
+     * @return {@link List}<{@link MultipartUpload}>
+     */
+    public List<MultipartUpload> listAllMultipartUploads(String prefix) {
+        return this.listAllMultipartUploads(this.getBucketName(), prefix);
+    }
+
+    /**
+     * 按前缀列出所有正在进行的分片上传作业，按 KeyMarker / UploadIdMarker 翻页直到列完
+     * {@link #listMultipartUploads(String, String, String)} 只返回第一页（最多 1000 个）
+     *
+     * @param bucketName bucket名称
+     * @param prefix     前缀,列出具有特定前缀的对象
+     * @return {@link List}<{@link MultipartUpload}>
+     */
+    public List<MultipartUpload> listAllMultipartUploads(String bucketName, String prefix) {
+        return this.listAllMultipartUploads(bucketName, prefix, null);
+    }
+
+    private List<MultipartUpload> listAllMultipartUploads(String bucketName, String prefix, String delimiter) {
+        ListMultipartUploadsRequest listMultipartUploadsRequest = new ListMultipartUploadsRequest(bucketName)
+                .withPrefix(prefix)
+                .withDelimiter(delimiter);
+        List<MultipartUpload> uploads = new ArrayList<>();
+        MultipartUploadListing multipartUploadListing;
+        do {
+            multipartUploadListing = this.amazonS3.listMultipartUploads(listMultipartUploadsRequest);
+            uploads.addAll(multipartUploadListing.getMultipartUploads());
+            listMultipartUploadsRequest.setKeyMarker(multipartUploadListing.getNextKeyMarker());
+            listMultipartUploadsRequest.setUploadIdMarker(multipartUploadListing.getNextUploadIdMarker());
+            // 个别兼容实现在截断时不返回 NextKeyMarker，此时停止翻页，避免重复读取第一页
+        } while (multipartUploadListing.isTruncated() && multipartUploadListing.getNextKeyMarker() != null);
+        return uploads;
+    }
+
+    /**
+     * 列出指定存储桶中所有正在进行的分片上传作业的详细文件信息，会翻页列出全部
+     * 需要按时间排序或过滤时使用 {@link #listAllMultipartUploads(String, String)}，直接得到类型化的 {@link MultipartUpload}
      *
      * @param bucketName bucket名称
      * @param prefix     前缀
@@ -894,10 +1405,9 @@ public class AmazonS3Template {
      * @return {@link List}<{@link Map}<{@link String}, {@link Object}>>
      */
     public List<Map<String, Object>> getMultipartInfoArr(String bucketName, String prefix, String delimiter) {
-        MultipartUploadListing multipartUploadListing = this.listMultipartUploads(bucketName, prefix, delimiter);
         // 遍历分块上传列表
         List<Map<String, Object>> dataList = new ArrayList<>();
-        for (MultipartUpload multipartUpload : multipartUploadListing.getMultipartUploads()) {
+        for (MultipartUpload multipartUpload : this.listAllMultipartUploads(bucketName, prefix, delimiter)) {
             /*
             Key: 对象在存储桶中的唯一标识符，即上传文件的路径或名称。
             UploadId: 分块上传的唯一标识符。每个分块上传都会生成一个Upload ID，用于在后续的操作中引用这个分块上传任务。
@@ -946,10 +1456,11 @@ public class AmazonS3Template {
             return this.amazonS3Properties.getCustomDomain() + "/" + objectName;
         } else {
             // 构建默认的S3访问URL
-            String url = this.amazonS3Properties.getEndpoint() + "/" + bucketName;
+            String endpoint = this.amazonS3Properties.resolveEndpoint();
+            String url = endpoint + "/" + bucketName;
             // 如果不使用路径风格访问，则转换为虚拟主机风格的端点
             if (this.amazonS3Properties.getPathStyleAccess().equals(Boolean.FALSE)) {
-                url = convertToVirtualHostEndpoint(URI.create(this.amazonS3Properties.getEndpoint()), bucketName).toString();
+                url = convertToVirtualHostEndpoint(URI.create(endpoint), bucketName).toString();
             }
 
             return url + "/" + objectName;
@@ -1039,6 +1550,11 @@ public class AmazonS3Template {
                                        String destinationBucketName, String destinationKey) {
         CopyObjectRequest copyObjectRequest = new CopyObjectRequest(sourceBucketName, sourceKey,
                 destinationBucketName, getObjectName(destinationKey));
+        if (this.engine != null) {
+            CopyObjectResult result = new CopyObjectResult();
+            result.setETag(this.await(this.engine.copyObject(sourceBucketName, sourceKey, destinationBucketName, copyObjectRequest.getDestinationKey())));
+            return result;
+        }
         return this.amazonS3.copyObject(copyObjectRequest);
     }
 
@@ -1094,6 +1610,10 @@ public class AmazonS3Template {
      * @param objectName 对象在存储桶中的唯一标识符，可以理解为文件路径
      */
     public void removeObject(String bucketName, String objectName) {
+        if (this.engine != null) {
+            this.await(this.engine.deleteObject(bucketName, getObjectName(objectName)));
+            return;
+        }
         this.amazonS3.deleteObject(bucketName, getObjectName(objectName));
     }
 
@@ -1105,6 +1625,9 @@ public class AmazonS3Template {
      * @return {@link DeleteObjectsResult}
      */
     public DeleteObjectsResult removeObjects(String bucketName, List<String> objectNames) {
+        if (this.engine != null) {
+            return this.removeObjectsWithEngine(bucketName, objectNames);
+        }
         List<DeleteObjectsRequest.KeyVersion> keyVersions = objectNames.stream()
                 .map(DeleteObjectsRequest.KeyVersion::new)
                 .collect(Collectors.toList());
@@ -1115,6 +1638,30 @@ public class AmazonS3Template {
         return this.amazonS3.deleteObjects(deleteObjectsRequest);
     }
 
+    /**
+     * 与 v1 客户端一致：全部删除成功时返回结果，部分失败时抛出 {@link MultiObjectDeleteException}
+     */
+    private DeleteObjectsResult removeObjectsWithEngine(String bucketName, List<String> objectNames) {
+        Set<String> failedKeys = new HashSet<>(this.await(this.engine.deleteObjects(bucketName, objectNames)));
+        List<DeleteObjectsResult.DeletedObject> deletedObjects = new ArrayList<>();
+        List<MultiObjectDeleteException.DeleteError> errors = new ArrayList<>();
+        for (String objectName : objectNames) {
+            if (failedKeys.contains(objectName)) {
+                MultiObjectDeleteException.DeleteError error = new MultiObjectDeleteException.DeleteError();
+                error.setKey(objectName);
+                errors.add(error);
+            } else {
+                DeleteObjectsResult.DeletedObject deletedObject = new DeleteObjectsResult.DeletedObject();
+                deletedObject.setKey(objectName);
+                deletedObjects.add(deletedObject);
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new MultiObjectDeleteException(errors, deletedObjects);
+        }
+        return new DeleteObjectsResult(deletedObjects);
+    }
+
     /**
      * 批量删除对象（使用默认存储桶）
      *
@@ -1134,6 +1681,9 @@ public class AmazonS3Template {
      * @return {@link ObjectMetadata}
      */
     public ObjectMetadata getObjectMetadata(String bucketName, String key) {
+        if (this.engine != null) {
+            return toObjectMetadata(this.await(this.engine.headObject(bucketName, getObjectName(key))));
+        }
         return this.amazonS3.getObjectMetadata(bucketName, getObjectName(key));
     }
 
@@ -1273,7 +1823,7 @@ public class AmazonS3Template {
     }
 
     /**
-     * 下载对象到文件
+     * 下载对象到文件，压缩上传的对象会先解压
      *
      * @param bucketName 存储桶名称
      * @param key        对象键
@@ -1281,8 +1831,7 @@ public class AmazonS3Template {
      * @throws IOException IOException
      */
     public void downloadObject(String bucketName, String key, File file) throws IOException {
-        S3Object s3Object = this.amazonS3.getObject(bucketName, getObjectName(key));
-        try (InputStream inputStream = s3Object.getObjectContent();
+        try (InputStream inputStream = this.openObject(bucketName, key);
              FileOutputStream outputStream = new FileOutputStream(file);
              ReadableByteChannel readableByteChannel = Channels.newChannel(inputStream)) {
 
@@ -1302,15 +1851,45 @@ public class AmazonS3Template {
     }
 
     /**
-     * 获取对象输入流
+     * 获取对象输入流，压缩上传的对象返回解压后的内容
      *
      * @param bucketName 存储桶名称
      * @param key        对象键
      * @return {@link InputStream}
      */
     public InputStream getObjectInputStream(String bucketName, String key) {
-        S3Object s3Object = this.amazonS3.getObject(bucketName, getObjectName(key));
-        return s3Object.getObjectContent();
+        try {
+            return this.openObject(bucketName, key);
+        } catch (IOException e) {
+            throw new IllegalStateException("解压对象 " + bucketName + "/" + key + " 失败", e);
+        }
+    }
+
+    /**
+     * 读取整个对象并按元数据解压；需要校验和时使用 v1 客户端（引擎不返回校验和）
+     */
+    private InputStream openObject(String bucketName, String key) throws IOException {
+        boolean verify = Boolean.TRUE.equals(this.amazonS3Properties.getChecksum().getVerify());
+        if (this.engine != null && !verify) {
+            ObjectContent content = this.await(this.engine.getObjectContent(bucketName, getObjectName(key)));
+            return ObjectCompression.decompress(content.getStream(), toObjectMetadata(content.getInfo()));
+        }
+        return ObjectCompression.decompress(this.getFullObject(bucketName, key, verify));
+    }
+
+    /**
+     * 读取整个对象；winter-aws.checksum.verify=true 时请求返回整对象校验和，边读边校验，读到末尾时不一致抛出 IOException
+     */
+    private S3Object getFullObject(String bucketName, String key, boolean verify) {
+        GetObjectRequest getObjectRequest = new GetObjectRequest(bucketName, getObjectName(key));
+        if (verify) {
+            getObjectRequest.putCustomRequestHeader(ObjectChecksums.MODE_HEADER, ObjectChecksums.ENABLED);
+        }
+        S3Object s3Object = this.amazonS3.getObject(getObjectRequest);
+        if (verify) {
+            ObjectChecksums.verify(s3Object);
+        }
+        return s3Object;
     }
 
     /**
@@ -1325,6 +1904,7 @@ public class AmazonS3Template {
 
     /**
      * 获取对象输入流（带范围）
+     * 压缩上传的对象按解压后的位置计算范围，需要重新读取整个对象并跳过 start 之前的内容
      *
      * @param bucketName 存储桶名称
      * @param key        对象键
@@ -1333,10 +1913,30 @@ public class AmazonS3Template {
      * @return {@link InputStream}
      */
     public InputStream getObjectInputStream(String bucketName, String key, long start, long end) {
+        if (this.engine != null) {
+            ObjectContent content = this.await(this.engine.getObjectContent(bucketName, getObjectName(key), start, end));
+            if (ObjectCompression.codecOf(toObjectMetadata(content.getInfo())) == null) {
+                return content.getStream();
+            }
+            closeQuietly(content.getStream());
+            try {
+                return ObjectCompression.range(this.getObjectInputStream(bucketName, key), start, end);
+            } catch (IOException e) {
+                throw new IllegalStateException("解压对象 " + bucketName + "/" + key + " 失败", e);
+            }
+        }
         GetObjectRequest getObjectRequest = new GetObjectRequest(bucketName, getObjectName(key))
                 .withRange(start, end);
         S3Object s3Object = this.amazonS3.getObject(getObjectRequest);
-        return s3Object.getObjectContent();
+        if (ObjectCompression.codecOf(s3Object.getObjectMetadata()) == null) {
+            return s3Object.getObjectContent();
+        }
+        s3Object.getObjectContent().abort();
+        try {
+            return ObjectCompression.range(this.getObjectInputStream(bucketName, key), start, end);
+        } catch (IOException e) {
+            throw new IllegalStateException("解压对象 " + bucketName + "/" + key + " 失败", e);
+        }
     }
 
     /**
@@ -1351,6 +1951,280 @@ public class AmazonS3Template {
         return this.getObjectInputStream(this.getBucketName(), key, start, end);
     }
 
+    /**
+     * 把本地目录增量同步到前缀下（使用默认存储桶）
+     *
+     * @param localDir 本地目录
+     * @param prefix   前缀，为空时同步到存储桶根目录
+     * @param options  同步选项
+     * @return {@link SyncResult}
+     * @throws IOException 遍历本地目录失败
+     */
+    public SyncResult syncToBucket(Path localDir, String prefix, SyncOptions options) throws IOException {
+        return this.syncToBucket(localDir, this.getBucketName(), prefix, options);
+    }
+
+    /**
+     * 把本地目录增量同步到前缀下：同时遍历本地目录与分页列举结果，只上传新增和变化的文件，
+     * options.delete 为 true 时删除本地已不存在的对象，比较规则见 {@link DirectorySync}
+     *
+     * @param localDir   本地目录
+     * @param bucketName 存储桶名称
+     * @param prefix     前缀，为空时同步到存储桶根目录
+     * @param options    同步选项
+     * @return {@link SyncResult}
+     * @throws IOException 遍历本地目录失败
+     */
+    public SyncResult syncToBucket(Path localDir, String bucketName, String prefix, SyncOptions options) throws IOException {
+        return this.directorySync().toBucket(localDir, bucketName, prefix, options);
+    }
+
+    /**
+     * 把前缀下的对象增量同步到本地目录（使用默认存储桶）
+     *
+     * @param prefix   前缀，为空时同步整个存储桶
+     * @param localDir 本地目录，不存在时创建
+     * @param options  同步选项
+     * @return {@link SyncResult}
+     * @throws IOException 遍历本地目录失败
+     */
+    public SyncResult syncFromBucket(String prefix, Path localDir, SyncOptions options) throws IOException {
+        return this.syncFromBucket(this.getBucketName(), prefix, localDir, options);
+    }
+
+    /**
+     * 把前缀下的对象增量同步到本地目录：只下载新增和变化的对象，下载后本地文件的修改时间设为对象的最后修改时间，
+     * options.delete 为 true 时删除前缀下已不存在的本地文件，比较规则见 {@link DirectorySync}
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     前缀，为空时同步整个存储桶
+     * @param localDir   本地目录，不存在时创建
+     * @param options    同步选项
+     * @return {@link SyncResult}
+     * @throws IOException 遍历本地目录失败
+     */
+    public SyncResult syncFromBucket(String bucketName, String prefix, Path localDir, SyncOptions options) throws IOException {
+        return this.directorySync().fromBucket(bucketName, prefix, localDir, options);
+    }
+
+    /**
+     * 批量上传目录（使用默认存储桶）
+     *
+     * @param localDir 本地目录
+     * @param prefix   前缀，为空时上传到存储桶根目录
+     * @param options  上传选项
+     * @return {@link BulkUploadResult}
+     * @throws IOException 遍历目录失败
+     */
+    public BulkUploadResult uploadDirectory(Path localDir, String prefix, BulkUploadOptions options) throws IOException {
+        return this.uploadDirectory(localDir, this.getBucketName(), prefix, options);
+    }
+
+    /**
+     * 批量上传目录下的所有文件，对象键为前缀加相对路径；小文件并行上传，大文件的各分块并行上传，
+     * 正在上传的字节数不超过 options.maxInFlightBytes，调度方式见 {@link BulkUploader}
+     *
+     * @param localDir   本地目录
+     * @param bucketName 存储桶名称
+     * @param prefix     前缀，为空时上传到存储桶根目录
+     * @param options    上传选项
+     * @return {@link BulkUploadResult}
+     * @throws IOException 遍历目录失败
+     */
+    public BulkUploadResult uploadDirectory(Path localDir, String bucketName, String prefix, BulkUploadOptions options) throws IOException {
+        return this.bulkUploader().uploadDirectory(localDir, bucketName, prefix, options);
+    }
+
+    /**
+     * 批量上传一组文件（使用默认存储桶）
+     *
+     * @param files   文件
+     * @param prefix  前缀，为空时上传到存储桶根目录
+     * @param options 上传选项
+     * @return {@link BulkUploadResult}
+     */
+    public BulkUploadResult uploadFiles(Collection<Path> files, String prefix, BulkUploadOptions options) {
+        return this.uploadFiles(files, this.getBucketName(), prefix, options);
+    }
+
+    /**
+     * 批量上传一组文件，对象键为前缀加文件名，文件名不能重复
+     *
+     * @param files      文件
+     * @param bucketName 存储桶名称
+     * @param prefix     前缀，为空时上传到存储桶根目录
+     * @param options    上传选项
+     * @return {@link BulkUploadResult}
+     */
+    public BulkUploadResult uploadFiles(Collection<Path> files, String bucketName, String prefix, BulkUploadOptions options) {
+        return this.bulkUploader().uploadFiles(files, bucketName, prefix, options);
+    }
+
+    /**
+     * 把一组对象打包成 ZIP 写入输出流（使用默认存储桶）
+     *
+     * @param objectNames  对象名称，条目名与对象名称相同
+     * @param outputStream 输出流，写完后不关闭
+     * @param options      导出选项
+     * @return {@link ZipExportResult}
+     * @throws IOException 写出失败
+     */
+    public ZipExportResult exportZip(List<String> objectNames, OutputStream outputStream, ZipExportOptions options) throws IOException {
+        return this.exportZip(this.getBucketName(), objectNames, outputStream, options);
+    }
+
+    /**
+     * 把一组对象打包成 ZIP 写入输出流，写入当前条目时并行预取后续对象，预取方式见 {@link ZipExporter}
+     *
+     * @param bucketName   存储桶名称
+     * @param objectNames  对象名称，条目名与对象名称相同
+     * @param outputStream 输出流，写完后不关闭
+     * @param options      导出选项
+     * @return {@link ZipExportResult}
+     * @throws IOException 写出失败
+     */
+    public ZipExportResult exportZip(String bucketName, List<String> objectNames, OutputStream outputStream, ZipExportOptions options) throws IOException {
+        return this.zipExporter().export(bucketName, objectNames, outputStream, options);
+    }
+
+    /**
+     * 把前缀下的所有对象打包成 ZIP 写入输出流，条目名为相对前缀的路径
+     *
+     * @param bucketName   存储桶名称
+     * @param prefix       前缀
+     * @param outputStream 输出流，写完后不关闭
+     * @param options      导出选项
+     * @return {@link ZipExportResult}
+     * @throws IOException 写出失败
+     */
+    public ZipExportResult exportZipByPrefix(String bucketName, String prefix, OutputStream outputStream, ZipExportOptions options) throws IOException {
+        return this.zipExporter().exportPrefix(bucketName, prefix, outputStream, options);
+    }
+
+    /**
+     * 把一组对象打包成 ZIP 作为附件下载
+     *
+     * @param bucketName  存储桶名称
+     * @param objectNames 对象名称
+     * @param response    响应
+     * @param fileName    下载的文件名
+     * @param options     导出选项
+     * @return {@link ZipExportResult}
+     * @throws IOException 写出失败
+     */
+    public ZipExportResult exportZip(String bucketName, List<String> objectNames, HttpServletResponse response, String fileName, ZipExportOptions options) throws IOException {
+        return this.exportZip(bucketName, objectNames, zipResponse(response, fileName), options);
+    }
+
+    /**
+     * 把前缀下的所有对象打包成 ZIP 作为附件下载
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     前缀
+     * @param response   响应
+     * @param fileName   下载的文件名
+     * @param options    导出选项
+     * @return {@link ZipExportResult}
+     * @throws IOException 写出失败
+     */
+    public ZipExportResult exportZipByPrefix(String bucketName, String prefix, HttpServletResponse response, String fileName, ZipExportOptions options) throws IOException {
+        return this.exportZipByPrefix(bucketName, prefix, zipResponse(response, fileName), options);
+    }
+
+    private static OutputStream zipResponse(HttpServletResponse response, String fileName) throws IOException {
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString());
+        return response.getOutputStream();
+    }
+
+    /**
+     * 把存储中的 ZIP、TAR、TAR.GZ 归档解压到前缀下（使用默认存储桶），不落盘
+     *
+     * @param archiveKey   归档的对象键
+     * @param targetPrefix 目标前缀
+     * @param options      解压选项
+     * @return {@link ArchiveExtractResult}
+     * @throws IOException 归档损坏或读取失败
+     */
+    public ArchiveExtractResult extractArchive(String archiveKey, String targetPrefix, ArchiveExtractOptions options) throws IOException {
+        return this.extractArchive(this.getBucketName(), archiveKey, targetPrefix, options);
+    }
+
+    /**
+     * 把存储中的 ZIP、TAR、TAR.GZ 归档解压到同一存储桶的前缀下，不落盘；ZIP 的各条目按范围并行读取
+     *
+     * @param bucketName   存储桶名称
+     * @param archiveKey   归档的对象键
+     * @param targetPrefix 目标前缀
+     * @param options      解压选项
+     * @return {@link ArchiveExtractResult}
+     * @throws IOException 归档损坏或读取失败
+     */
+    public ArchiveExtractResult extractArchive(String bucketName, String archiveKey, String targetPrefix, ArchiveExtractOptions options) throws IOException {
+        return this.archiveExtractor().extract(bucketName, archiveKey, bucketName, targetPrefix, options);
+    }
+
+    /**
+     * 边读边解压流中的归档，条目并行上传到前缀下
+     *
+     * @param inputStream  归档内容，不关闭
+     * @param format       归档格式
+     * @param bucketName   存储桶名称
+     * @param targetPrefix 目标前缀
+     * @param options      解压选项
+     * @return {@link ArchiveExtractResult}
+     * @throws IOException 归档损坏或读取失败
+     */
+    public ArchiveExtractResult extractArchive(InputStream inputStream, ArchiveFormat format, String bucketName, String targetPrefix,
+                                               ArchiveExtractOptions options) throws IOException {
+        return this.archiveExtractor().extract(inputStream, format, bucketName, targetPrefix, options);
+    }
+
+    /**
+     * 巡检前缀下对象的完整性（使用默认存储桶）
+     *
+     * @param prefix  前缀，为空时巡检整个存储桶
+     * @param options 巡检选项
+     * @return {@link ScrubResult}
+     * @throws IOException 读取检查点或打开报告文件失败
+     */
+    public ScrubResult scrub(String prefix, ScrubOptions options) throws IOException {
+        return this.scrub(this.getBucketName(), prefix, options);
+    }
+
+    /**
+     * 巡检前缀下对象的完整性：边列举边并行读取，按 ETag 或整对象校验和比较内容，可限速、可从检查点继续，校验方式见 {@link ObjectScrubber}
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     前缀，为空时巡检整个存储桶
+     * @param options    巡检选项
+     * @return {@link ScrubResult}
+     * @throws IOException 读取检查点或打开报告文件失败
+     */
+    public ScrubResult scrub(String bucketName, String prefix, ScrubOptions options) throws IOException {
+        return this.objectScrubber().scrub(bucketName, prefix, options);
+    }
+
+    private ArchiveExtractor archiveExtractor() {
+        return new ArchiveExtractor(this, this.amazonS3, this.amazonS3Properties.getVirtualThreads());
+    }
+
+    private ZipExporter zipExporter() {
+        return new ZipExporter(this.amazonS3, this.amazonS3Properties.getVirtualThreads());
+    }
+
+    private BulkUploader bulkUploader() {
+        return new BulkUploader(this, this.amazonS3, this.amazonS3Properties.getVirtualThreads());
+    }
+
+    private DirectorySync directorySync() {
+        return new DirectorySync(this, this.amazonS3, this.amazonS3Properties.getVirtualThreads());
+    }
+
+    private ObjectScrubber objectScrubber() {
+        return new ObjectScrubber(this.amazonS3, this.amazonS3Properties.getVirtualThreads());
+    }
+
 
     /**
      * 设置存储桶通知配置
@@ -1444,4 +2318,66 @@ public class AmazonS3Template {
     public Date getObjectLastModified(String key) {
         return this.getObjectLastModified(this.getBucketName(), key);
     }
+
+    /**
+     * 等待引擎的结果，{@link S3EngineException} 转换为 v1 客户端的异常，调用方的异常处理与是否使用引擎无关
+     */
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AbortedException(e);
+        } catch (ExecutionException e) {
+            throw toSdkException(e.getCause());
+        }
+    }
+
+    private static RuntimeException toSdkException(Throwable e) {
+        if (e instanceof S3EngineException) {
+            S3EngineException engineException = (S3EngineException) e;
+            if (engineException.getStatusCode() == 0) {
+                return new SdkClientException(e.getMessage(), e.getCause() != null ? e.getCause() : e);
+            }
+            AmazonS3Exception amazonS3Exception = new AmazonS3Exception(e.getMessage(), engineException);
+            amazonS3Exception.setStatusCode(engineException.getStatusCode());
+            amazonS3Exception.setErrorCode(engineException.getErrorCode());
+            amazonS3Exception.setErrorType(engineException.getStatusCode() >= 500
+                    ? AmazonServiceException.ErrorType.Service : AmazonServiceException.ErrorType.Client);
+            return amazonS3Exception;
+        }
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        return new SdkClientException(e.getMessage(), e);
+    }
+
+    private static ObjectMetadata toObjectMetadata(ObjectInfo info) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(info.getSize());
+        metadata.setContentType(info.getContentType());
+        metadata.setLastModified(info.getLastModified());
+        metadata.setHeader(Headers.ETAG, info.getETag());
+        metadata.setUserMetadata(info.getUserMetadata());
+        return metadata;
+    }
+
+    private static S3ObjectSummary toObjectSummary(String bucketName, ObjectInfo info) {
+        S3ObjectSummary summary = new S3ObjectSummary();
+        summary.setBucketName(bucketName);
+        summary.setKey(info.getKey());
+        summary.setSize(info.getSize());
+        summary.setETag(info.getETag());
+        summary.setLastModified(info.getLastModified());
+        return summary;
+    }
+
+    private static void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException ignored) {
+            // 丢弃的响应，关闭失败不影响结果
+        }
+    }
 }
@@ -0,0 +1,57 @@
+package com.zsq.winter.minio.support;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 一次经拦截器链的调用（包括其中的全部重试）在当前线程共享的状态，由 {@link AmazonS3InterceptorChain} 在最外层调用开始时创建、结束时清除，
+ * 不会带到同一线程之后的其他调用；不在拦截器链内（如对冲请求的其他线程）时写入被忽略
+ */
+public final class AmazonS3CallContext {
+
+    private static final ThreadLocal<Map<Object, Object>> CURRENT = new ThreadLocal<>();
+
+    private AmazonS3CallContext() {
+    }
+
+    /**
+     * 开始一次调用，已在调用内（嵌套调用）时沿用外层的状态
+     *
+     * @return 是否由本次开始，是时调用结束后需要 {@link #end()}
+     */
+    static boolean begin() {
+        if (CURRENT.get() != null) {
+            return false;
+        }
+        CURRENT.set(new HashMap<>());
+        return true;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 记录状态
+     *
+     * @param key   键，通常为写入方自身
+     * @param value 值
+     */
+    public static void put(Object key, Object value) {
+        Map<Object, Object> attributes = CURRENT.get();
+        if (attributes != null) {
+            attributes.put(key, value);
+        }
+    }
+
+    /**
+     * 取出并移除状态
+     *
+     * @param key 键
+     * @return 不在调用内或没有记录时为 null
+     */
+    public static Object remove(Object key) {
+        Map<Object, Object> attributes = CURRENT.get();
+        return attributes == null ? null : attributes.remove(key);
+    }
+}
@@ -0,0 +1,27 @@
+package com.zsq.winter.minio.support;
+
+/**
+ * {@link com.amazonaws.services.s3.AmazonS3} 调用拦截器，容器中的拦截器按 {@link org.springframework.core.Ordered} 顺序由外到内包裹客户端
+ */
+@FunctionalInterface
+public interface AmazonS3Interceptor {
+
+    /**
+     * 拦截一次调用，调用 {@link AmazonS3Invocation#proceed()} 继续执行
+     *
+     * @param invocation 调用
+     * @return 调用结果
+     * @throws Throwable 异常
+     */
+    Object intercept(AmazonS3Invocation invocation) throws Throwable;
+
+    /**
+     * 为另一个客户端（如多租户注册表中的租户）提供拦截器：带熔断、限流、延迟统计等状态的拦截器返回状态独立的新实例，
+     * 避免一个客户端的故障影响其他客户端；无状态的拦截器返回自身
+     *
+     * @return {@link AmazonS3Interceptor}
+     */
+    default AmazonS3Interceptor forClient() {
+        return this;
+    }
+}
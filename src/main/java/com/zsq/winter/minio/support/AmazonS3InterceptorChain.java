@@ -0,0 +1,66 @@
+package com.zsq.winter.minio.support;
+
+import com.amazonaws.services.s3.AmazonS3;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 用一组拦截器包裹 {@link AmazonS3}，列表中靠前的拦截器位于外层
+ */
+public class AmazonS3InterceptorChain implements InvocationHandler {
+
+    private final AmazonS3 target;
+
+    private final List<AmazonS3Interceptor> interceptors;
+
+    private AmazonS3InterceptorChain(AmazonS3 target, List<AmazonS3Interceptor> interceptors) {
+        this.target = target;
+        this.interceptors = Collections.unmodifiableList(new ArrayList<>(interceptors));
+    }
+
+    /**
+     * 包裹客户端，没有拦截器时原样返回
+     *
+     * @param target       客户端
+     * @param interceptors 拦截器
+     * @return {@link AmazonS3}
+     */
+    public static AmazonS3 wrap(AmazonS3 target, List<AmazonS3Interceptor> interceptors) {
+        if (interceptors.isEmpty()) {
+            return target;
+        }
+        return (AmazonS3) Proxy.newProxyInstance(AmazonS3.class.getClassLoader(), new Class<?>[]{AmazonS3.class},
+                new AmazonS3InterceptorChain(target, interceptors));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return "AmazonS3InterceptorChain[" + this.target + "]";
+            }
+        }
+        if ("shutdown".equals(method.getName())) {
+            this.target.shutdown();
+            return null;
+        }
+        boolean began = AmazonS3CallContext.begin();
+        try {
+            return new AmazonS3Invocation(this.target, this.interceptors, 0, method, args).proceed();
+        } finally {
+            if (began) {
+                AmazonS3CallContext.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.zsq.winter.minio.support;
+
+import com.amazonaws.services.s3.AmazonS3;
+import lombok.Getter;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * 一次 {@link AmazonS3} 方法调用，沿拦截器链向内传递
+ */
+public class AmazonS3Invocation {
+
+    private final AmazonS3 target;
+
+    private final List<AmazonS3Interceptor> interceptors;
+
+    private final int index;
+
+    @Getter
+    private final Method method;
+
+    @Getter
+    private final Object[] args;
+
+    AmazonS3Invocation(AmazonS3 target, List<AmazonS3Interceptor> interceptors, int index, Method method, Object[] args) {
+        this.target = target;
+        this.interceptors = interceptors;
+        this.index = index;
+        this.method = method;
+        this.args = args;
+    }
+
+    /**
+     * 交给下一个拦截器，没有拦截器时调用真实客户端；可多次调用（重试、对冲请求）
+     *
+     * @return 调用结果
+     * @throws Throwable 异常
+     */
+    public Object proceed() throws Throwable {
+        if (this.index == this.interceptors.size()) {
+            return AmazonS3Invocations.invoke(this.target, this.method, this.args);
+        }
+        AmazonS3Invocation next = new AmazonS3Invocation(this.target, this.interceptors, this.index + 1, this.method, this.args);
+        return this.interceptors.get(this.index).intercept(next);
+    }
+
+    /**
+     * 方法名称
+     *
+     * @return {@link String}
+     */
+    public String getMethodName() {
+        return this.method.getName();
+    }
+
+    /**
+     * 请求涉及的存储桶名称，无法识别时返回 null
+     *
+     * @return {@link String}
+     */
+    public String getBucketName() {
+        return AmazonS3Invocations.bucketName(this.args);
+    }
+
+    /**
+     * 是否为不发起网络请求的本地方法（生成 URL、预签名等）
+     *
+     * @return boolean
+     */
+    public boolean isLocal() {
+        return AmazonS3Invocations.isLocal(this.method);
+    }
+}
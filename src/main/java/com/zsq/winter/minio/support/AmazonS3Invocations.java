@@ -0,0 +1,163 @@
+package com.zsq.winter.minio.support;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 对 {@link com.amazonaws.services.s3.AmazonS3} 做动态代理时共用的工具方法
+ */
+public final class AmazonS3Invocations {
+
+    /**
+     * 不发起网络请求的方法
+     */
+    private static final Set<String> LOCAL_METHODS = new HashSet<>(Arrays.asList(
+            "getUrl", "generatePresignedUrl", "getRegion", "getRegionName", "setEndpoint", "setRegion",
+            "setS3ClientOptions", "getCachedResponseMetadata", "waiters", "shutdown"));
+
+    /**
+     * 请求对象上的 getBucketName 方法缓存
+     */
+    private static final Map<Class<?>, Optional<Method>> BUCKET_NAME_GETTERS = new ConcurrentHashMap<>();
+
+    private AmazonS3Invocations() {
+    }
+
+    /**
+     * 在目标客户端上执行方法，并把反射异常还原为原始异常
+     *
+     * @param target 目标对象
+     * @param method 方法
+     * @param args   参数
+     * @return {@link Object}
+     * @throws Throwable 原始异常
+     */
+    public static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * 请求是否可以安全地重新发送：带有输入流的上传请求，流被读取后无法重放（以文件形式上传的请求可以重放）
+     *
+     * @param args 参数
+     * @return boolean
+     */
+    public static boolean isReplayable(Object[] args) {
+        if (args == null) {
+            return true;
+        }
+        for (Object arg : args) {
+            if (arg instanceof InputStream) {
+                return false;
+            }
+            if (arg instanceof PutObjectRequest && ((PutObjectRequest) arg).getInputStream() != null) {
+                return false;
+            }
+            if (arg instanceof UploadPartRequest && ((UploadPartRequest) arg).getInputStream() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 异常是否说明节点本身不可用：网络层异常或 5xx 服务端错误
+     * 4xx、调用方被中断或取消（AbortedException）以及请求参数校验等客户端异常属于调用方问题，不重试也不计入节点故障
+     *
+     * @param e 异常
+     * @return boolean
+     */
+    public static boolean isServerFailure(Throwable e) {
+        if (e instanceof AmazonServiceException) {
+            return ((AmazonServiceException) e).getStatusCode() >= 500;
+        }
+        if (!(e instanceof SdkClientException) || e instanceof AbortedException) {
+            return false;
+        }
+        // SDK 把连接、读写超时等网络异常包装为 SdkClientException，原因为 IOException
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否为限流响应：MinIO 过载时返回 503 SlowDown
+     *
+     * @param e 异常
+     * @return boolean
+     */
+    public static boolean isThrottle(Throwable e) {
+        if (!(e instanceof AmazonServiceException)) {
+            return false;
+        }
+        AmazonServiceException ase = (AmazonServiceException) e;
+        return ase.getStatusCode() == 503 || ase.getStatusCode() == 429
+                || "SlowDown".equals(ase.getErrorCode()) || "RequestLimitExceeded".equals(ase.getErrorCode());
+    }
+
+    /**
+     * 是否为不发起网络请求的本地方法
+     *
+     * @param method 方法
+     * @return boolean
+     */
+    public static boolean isLocal(Method method) {
+        return LOCAL_METHODS.contains(method.getName());
+    }
+
+    /**
+     * 从参数中识别存储桶名称：第一个字符串参数，或请求对象的 getBucketName()
+     *
+     * @param args 参数
+     * @return {@link String}，无法识别时返回 null
+     */
+    public static String bucketName(Object[] args) {
+        if (args == null || args.length == 0) {
+            return null;
+        }
+        Object first = args[0];
+        if (first instanceof String) {
+            return (String) first;
+        }
+        if (first == null) {
+            return null;
+        }
+        Optional<Method> getter = BUCKET_NAME_GETTERS.computeIfAbsent(first.getClass(), type -> {
+            try {
+                Method method = type.getMethod("getBucketName");
+                return method.getReturnType() == String.class ? Optional.of(method) : Optional.empty();
+            } catch (NoSuchMethodException e) {
+                return Optional.empty();
+            }
+        });
+        if (!getter.isPresent()) {
+            return null;
+        }
+        try {
+            return (String) getter.get().invoke(first);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
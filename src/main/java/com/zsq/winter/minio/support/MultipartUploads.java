@@ -0,0 +1,140 @@
+package com.zsq.winter.minio.support;
+
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.PartSummary;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import lombok.extern.slf4j.Slf4j;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * 经 {@link AmazonS3Template} 分块上传的公共逻辑：分块大小、并行分块的合并或取消、ETag 计算
+ */
+@Slf4j
+public final class MultipartUploads {
+
+    /**
+     * 单次分块上传最多的分块数
+     */
+    public static final int MAX_PARTS = 10000;
+
+    private MultipartUploads() {
+    }
+
+    /**
+     * 分块大小：不小于配置的大小，且分块数不超过 {@link #MAX_PARTS}
+     *
+     * @param size        对象大小
+     * @param minPartSize 配置的分块大小
+     * @return 分块大小
+     */
+    public static long partSize(long size, long minPartSize) {
+        return Math.max(minPartSize, (size + MAX_PARTS - 1) / MAX_PARTS);
+    }
+
+    /**
+     * 由分块上传的结果得到合并时提交的分块信息
+     *
+     * @param partNumber 分块编号
+     * @param result     分块上传的结果
+     * @return {@link PartSummary}
+     */
+    public static PartSummary partSummary(int partNumber, UploadPartResult result) {
+        PartSummary part = new PartSummary();
+        part.setPartNumber(partNumber);
+        part.setETag(result.getETag());
+        return part;
+    }
+
+    /**
+     * 所有分块结束后在 executor 中处理：全部成功时合并，有分块失败或合并失败时取消上传
+     *
+     * @param template   模板
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @param uploadId   分块上传的 UploadId
+     * @param parts      按分块编号排列的各分块
+     * @param executor   执行合并或取消的线程池
+     * @return 合并结果，失败时以分块或合并的异常结束
+     */
+    public static CompletableFuture<CompleteMultipartUploadResult> completeOrAbort(AmazonS3Template template, String bucketName, String key, String uploadId,
+                                                                                   List<CompletableFuture<PartSummary>> parts, Executor executor) {
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).handleAsync((ignored, partError) -> {
+            Throwable error = unwrap(partError);
+            if (error == null) {
+                try {
+                    List<PartSummary> summaries = new ArrayList<>();
+                    for (CompletableFuture<PartSummary> part : parts) {
+                        summaries.add(part.join());
+                    }
+                    return template.completeMultipartUpload(bucketName, key, uploadId, summaries);
+                } catch (RuntimeException e) {
+                    error = e;
+                }
+            }
+            abortQuietly(template, bucketName, key, uploadId, error);
+            throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+        }, executor);
+    }
+
+    /**
+     * 已提交的分块全部结束后取消上传，用于提交分块的过程中失败的情况
+     *
+     * @param template   模板
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @param uploadId   分块上传的 UploadId
+     * @param parts      已提交的分块
+     * @param cause      提交分块过程中的异常
+     * @param executor   执行取消的线程池
+     * @return 取消结束的信号
+     */
+    public static CompletableFuture<Void> abortAfter(AmazonS3Template template, String bucketName, String key, String uploadId,
+                                                     List<CompletableFuture<PartSummary>> parts, Throwable cause, Executor executor) {
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).handleAsync((ignored, error) -> {
+            abortQuietly(template, bucketName, key, uploadId, cause);
+            return null;
+        }, executor);
+    }
+
+    /**
+     * 取消上传，失败时只记录日志，未取消的上传由 {@link com.zsq.winter.minio.multipart.MultipartUploadReaper} 清理
+     *
+     * @param template   模板
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @param uploadId   分块上传的 UploadId
+     * @param cause      导致取消的异常，通知监听器上传失败
+     */
+    public static void abortQuietly(AmazonS3Template template, String bucketName, String key, String uploadId, Throwable cause) {
+        try {
+            template.abortMultipartUpload(bucketName, key, uploadId, cause);
+        } catch (RuntimeException e) {
+            log.debug("取消分片上传 {}/{}（{}）失败", bucketName, key, uploadId, e);
+        }
+    }
+
+    /**
+     * 计算 ETag 用的 MD5（分块上传的 ETag 为各分块 MD5 的 MD5）
+     *
+     * @return {@link MessageDigest}
+     */
+    public static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
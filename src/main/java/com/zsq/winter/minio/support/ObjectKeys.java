@@ -0,0 +1,26 @@
+package com.zsq.winter.minio.support;
+
+import com.zsq.winter.minio.service.AmazonS3Template;
+
+/**
+ * 对象键的处理
+ */
+public final class ObjectKeys {
+
+    private ObjectKeys() {
+    }
+
+    /**
+     * 把前缀规范为“目录”：去掉开头的 /，非空时以 / 结尾
+     *
+     * @param prefix 前缀，可以为空
+     * @return 规范后的前缀，为空时返回空字符串
+     */
+    public static String directoryPrefix(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return "";
+        }
+        String keyPrefix = AmazonS3Template.getObjectName(prefix);
+        return keyPrefix.isEmpty() || keyPrefix.endsWith("/") ? keyPrefix : keyPrefix + "/";
+    }
+}
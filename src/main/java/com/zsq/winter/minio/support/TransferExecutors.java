@@ -0,0 +1,70 @@
+package com.zsq.winter.minio.support;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 传输线程池的线程来源：winter-aws.virtual-threads=true 且运行在 Java 21 及以上时使用虚拟线程，否则使用平台守护线程
+ * 虚拟线程只减少等待网络时占用的平台线程，实际并发仍受 HTTP 连接池大小限制
+ */
+@Slf4j
+public final class TransferExecutors {
+
+    private static final AtomicBoolean WARNED = new AtomicBoolean();
+
+    private TransferExecutors() {
+    }
+
+    /**
+     * 是否使用虚拟线程，开启了虚拟线程但当前 JDK 不支持时打印一次警告并退回平台线程
+     *
+     * @param virtualThreads winter-aws.virtual-threads
+     * @return boolean
+     */
+    public static boolean useVirtualThreads(boolean virtualThreads) {
+        if (!virtualThreads) {
+            return false;
+        }
+        if (VirtualThreads.isSupported()) {
+            return true;
+        }
+        if (WARNED.compareAndSet(false, true)) {
+            log.warn("已开启 winter-aws.virtual-threads，但当前运行环境 Java {} 不支持虚拟线程（需要 Java 21 及以上，且以 JDK 21 构建的多版本 jar 包方式加载），使用平台线程",
+                    System.getProperty("java.specification.version"));
+        }
+        return false;
+    }
+
+    /**
+     * 线程工厂
+     *
+     * @param prefix         线程名前缀
+     * @param virtualThreads 是否使用虚拟线程
+     * @return {@link ThreadFactory}
+     */
+    public static ThreadFactory threadFactory(String prefix, boolean virtualThreads) {
+        if (useVirtualThreads(virtualThreads)) {
+            return VirtualThreads.threadFactory(prefix);
+        }
+        AtomicInteger index = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 每个任务一个虚拟线程的执行器，调用前需先通过 {@link #useVirtualThreads(boolean)} 确认支持虚拟线程
+     *
+     * @param prefix 线程名前缀
+     * @return {@link ExecutorService}
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String prefix) {
+        return VirtualThreads.newThreadPerTaskExecutor(prefix);
+    }
+}
@@ -0,0 +1,26 @@
+package com.zsq.winter.minio.support;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程支持，Java 8 版本：不支持虚拟线程
+ * Java 21 及以上版本的实现位于 src/main/java21，打包为多版本 jar 的 META-INF/versions/21
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        return false;
+    }
+
+    static ThreadFactory threadFactory(String prefix) {
+        throw new UnsupportedOperationException("当前 JDK 不支持虚拟线程");
+    }
+
+    static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        throw new UnsupportedOperationException("当前 JDK 不支持虚拟线程");
+    }
+}
@@ -0,0 +1,591 @@
+package com.zsq.winter.minio.sync;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.amazonaws.services.s3.model.PartSummary;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.amazonaws.util.BinaryUtils;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import com.zsq.winter.minio.support.MultipartUploads;
+import com.zsq.winter.minio.support.ObjectKeys;
+import com.zsq.winter.minio.support.TransferExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 本地目录与前缀之间的增量同步，代替每次全量上传或下载
+ * 1. 本地文件按对象键排序后，与按键有序的 ListObjectsV2 分页结果逐个归并比较，对象列表不整体加载到内存；
+ * 先比较出全部需要执行的操作再执行，列举结果顺序异常时在修改任何数据之前失败
+ * 2. 两端都有的文件：大小不同则传输；大小相同时按修改时间（精确到秒）判断源端是否较新，不较新则跳过；
+ * 较新且开启 checksum 时计算本地文件的 ETag 与对象比较（分块上传的对象按候选分块大小重建 "MD5-分块数" 形式的 ETag），相同则跳过
+ * 3. 上传时与对象的最后修改时间比较；下载后把本地文件的修改时间设为对象的最后修改时间，下一次同步据此跳过
+ * 4. 上传、下载由 parallelism 个线程并行执行，删除在传输完成后执行（对象按 1000 个一批删除），单个文件失败不影响其他文件
+ * 以 / 结尾的目录占位对象、无法映射为本地路径的键（含空、. 或 .. 路径段）以及符号链接不参与同步
+ */
+@Slf4j
+public class DirectorySync {
+
+    /**
+     * 下载时临时文件的前缀，遍历本地目录时跳过
+     */
+    private static final String TEMP_PREFIX = ".winter-sync-";
+
+    /**
+     * 一次 DeleteObjects 最多删除的对象数
+     */
+    private static final int DELETE_BATCH = 1000;
+
+    private static final long MB = 1024L * 1024;
+
+    /**
+     * 重建分块 ETag 时尝试的常见分块大小：S3 最小分块与常见客户端的默认值
+     */
+    private static final long[] COMMON_PART_SIZES = {5 * MB, 8 * MB, 10 * MB, 15 * MB, 16 * MB, 32 * MB, 64 * MB, 100 * MB, 128 * MB, 256 * MB, 512 * MB};
+
+    private final AmazonS3Template amazonS3Template;
+
+    private final AmazonS3 amazonS3;
+
+    private final boolean virtualThreads;
+
+    public DirectorySync(AmazonS3Template amazonS3Template, AmazonS3 amazonS3, boolean virtualThreads) {
+        this.amazonS3Template = amazonS3Template;
+        this.amazonS3 = amazonS3;
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * 把本地目录同步到前缀下
+     *
+     * @param localDir   本地目录
+     * @param bucketName 存储桶名称
+     * @param prefix     前缀
+     * @param options    同步选项
+     * @return {@link SyncResult}
+     * @throws IOException 遍历本地目录失败
+     */
+    public SyncResult toBucket(Path localDir, String bucketName, String prefix, SyncOptions options) throws IOException {
+        if (!Files.isDirectory(localDir)) {
+            throw new IllegalArgumentException("本地目录不存在：" + localDir);
+        }
+        return new Run(localDir, bucketName, prefix, options, true).execute();
+    }
+
+    /**
+     * 把前缀下的对象同步到本地目录
+     *
+     * @param bucketName 存储桶名称
+     * @param prefix     前缀
+     * @param localDir   本地目录，不存在时创建
+     * @param options    同步选项
+     * @return {@link SyncResult}
+     * @throws IOException 遍历本地目录失败
+     */
+    public SyncResult fromBucket(String bucketName, String prefix, Path localDir, SyncOptions options) throws IOException {
+        if (!options.isDryRun()) {
+            Files.createDirectories(localDir);
+        }
+        return new Run(localDir, bucketName, prefix, options, false).execute();
+    }
+
+    /**
+     * 本地文件的内容是否与对象的 ETag 一致；分块上传的 ETag 按候选分块大小逐个重建，都不一致（或 ETag 不是 MD5，如 SSE-KMS）时为 false
+     *
+     * @param file     本地文件
+     * @param size     文件大小
+     * @param eTag     对象的 ETag
+     * @param partSize 优先尝试的分块大小
+     * @return boolean
+     * @throws IOException 读取文件失败
+     */
+    public static boolean matchesETag(Path file, long size, String eTag, long partSize) throws IOException {
+        String expected = eTag.replace("\"", "").toLowerCase();
+        int dash = expected.indexOf('-');
+        if (dash < 0) {
+            return expected.equals(md5Hex(file, Long.MAX_VALUE));
+        }
+        int parts;
+        try {
+            parts = Integer.parseInt(expected.substring(dash + 1));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        List<Long> candidates = new ArrayList<>();
+        candidates.add(partSize);
+        for (long common : COMMON_PART_SIZES) {
+            candidates.add(common);
+        }
+        // 不在常见值中时，按分块数反推：客户端通常取整到 MB
+        long even = (size + parts - 1) / parts;
+        candidates.add((even + MB - 1) / MB * MB);
+        candidates.add(even);
+        // 只有一个分块时，不小于文件大小的分块大小结果都相同
+        Set<Long> tried = new LinkedHashSet<>();
+        for (long candidate : candidates) {
+            if (candidate > 0 && (size + candidate - 1) / candidate == parts && tried.add(Math.min(candidate, size))
+                    && expected.equals(md5Hex(file, candidate))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 分块上传的 ETag：各分块 MD5 拼接后的 MD5 加 "-分块数"，partSize 为 Long.MAX_VALUE 时为整个文件的 MD5
+     */
+    private static String md5Hex(Path file, long partSize) throws IOException {
+        MessageDigest whole = MultipartUploads.md5();
+        MessageDigest part = MultipartUploads.md5();
+        byte[] buffer = new byte[64 * 1024];
+        long inPart = 0;
+        int parts = 0;
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            int n;
+            while ((n = inputStream.read(buffer, 0, (int) Math.min(buffer.length, partSize - inPart))) > 0) {
+                part.update(buffer, 0, n);
+                inPart += n;
+                if (inPart == partSize) {
+                    whole.update(part.digest());
+                    parts++;
+                    inPart = 0;
+                }
+            }
+        }
+        if (partSize == Long.MAX_VALUE) {
+            return BinaryUtils.toHex(part.digest());
+        }
+        if (inPart > 0 || parts == 0) {
+            whole.update(part.digest());
+            parts++;
+        }
+        return BinaryUtils.toHex(whole.digest()) + "-" + parts;
+    }
+
+    private static String relativeKey(Path root, Path file) {
+        StringBuilder key = new StringBuilder();
+        for (Path name : root.relativize(file)) {
+            if (key.length() > 0) {
+                key.append('/');
+            }
+            key.append(name.toString());
+        }
+        return key.toString();
+    }
+
+    /**
+     * 对象键对应的本地路径，目录占位对象或无法原样映射的键为 null
+     */
+    private static Path localPath(Path root, String keyPrefix, String key) {
+        String relative = key.substring(keyPrefix.length());
+        if (relative.isEmpty() || relative.endsWith("/")) {
+            return null;
+        }
+        Path path = root;
+        try {
+            for (String segment : relative.split("/", -1)) {
+                if (segment.isEmpty() || ".".equals(segment) || "..".equals(segment)) {
+                    return null;
+                }
+                path = path.resolve(segment);
+            }
+        } catch (InvalidPathException e) {
+            return null;
+        }
+        // 键中含有本地路径分隔符等情况，映射回去的键与原键不同
+        return path.normalize().startsWith(root) && relative.equals(relativeKey(root, path)) ? path : null;
+    }
+
+    private static final class LocalFile {
+
+        private final Path path;
+
+        private final String key;
+
+        private final long size;
+
+        private final long lastModified;
+
+        private LocalFile(Path path, String key, long size, long lastModified) {
+            this.path = path;
+            this.key = key;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private static final class Transfer {
+
+        private final SyncAction action;
+
+        /**
+         * 对象的最后修改时间，对象不存在时为 0
+         */
+        private final long remoteLastModified;
+
+        /**
+         * 需要先比较 ETag 时为对象的 ETag
+         */
+        private final String eTag;
+
+        private Transfer(SyncAction action, long remoteLastModified, String eTag) {
+            this.action = action;
+            this.remoteLastModified = remoteLastModified;
+            this.eTag = eTag;
+        }
+    }
+
+    /**
+     * 一次同步
+     */
+    private final class Run {
+
+        private final Path root;
+
+        private final String bucketName;
+
+        private final String keyPrefix;
+
+        private final SyncOptions options;
+
+        private final boolean upload;
+
+        private final List<Transfer> transfers = new ArrayList<>();
+
+        private final List<SyncAction> deletes = new ArrayList<>();
+
+        private final List<SyncAction> actions = Collections.synchronizedList(new ArrayList<>());
+
+        private final List<SyncAction> failed = Collections.synchronizedList(new ArrayList<>());
+
+        private final AtomicInteger unchanged = new AtomicInteger();
+
+        private final AtomicLong transferredBytes = new AtomicLong();
+
+        private Run(Path localDir, String bucketName, String prefix, SyncOptions options, boolean upload) {
+            if (options.getParallelism() <= 0) {
+                throw new IllegalArgumentException("parallelism 必须大于 0");
+            }
+            this.root = localDir.toAbsolutePath().normalize();
+            this.bucketName = bucketName;
+            this.keyPrefix = ObjectKeys.directoryPrefix(prefix);
+            this.options = options;
+            this.upload = upload;
+        }
+
+        private SyncResult execute() throws IOException {
+            long start = System.currentTimeMillis();
+            this.plan();
+            this.transfer();
+            if (this.upload) {
+                this.deleteObjects();
+            } else {
+                this.deleteFiles();
+            }
+            SyncResult result = new SyncResult();
+            result.getActions().addAll(this.actions);
+            result.getFailed().addAll(this.failed);
+            result.setUnchanged(this.unchanged.get());
+            result.setTransferredBytes(this.transferredBytes.get());
+            result.setDurationMillis(System.currentTimeMillis() - start);
+            return result;
+        }
+
+        /**
+         * 归并比较本地文件与对象列表
+         */
+        private void plan() throws IOException {
+            Iterator<LocalFile> localFiles = this.scan().iterator();
+            RemoteListing remoteListing = new RemoteListing();
+            LocalFile local = localFiles.hasNext() ? localFiles.next() : null;
+            S3ObjectSummary remote = remoteListing.next();
+            while (local != null || remote != null) {
+                int c = local == null ? 1 : remote == null ? -1 : AmazonS3Template.compareKeys(local.key, remote.getKey());
+                if (c < 0) {
+                    this.onlyLocal(local);
+                    local = localFiles.hasNext() ? localFiles.next() : null;
+                } else if (c > 0) {
+                    this.onlyRemote(remote);
+                    remote = remoteListing.next();
+                } else {
+                    this.both(local, remote);
+                    local = localFiles.hasNext() ? localFiles.next() : null;
+                    remote = remoteListing.next();
+                }
+            }
+        }
+
+        private List<LocalFile> scan() throws IOException {
+            List<LocalFile> files = new ArrayList<>();
+            if (!Files.isDirectory(this.root)) {
+                return files;
+            }
+            // 读取失败时直接失败：漏掉的文件在开启 delete 时会被当作已删除
+            Files.walkFileTree(this.root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && !file.getFileName().toString().startsWith(TEMP_PREFIX)) {
+                        files.add(new LocalFile(file, Run.this.keyPrefix + relativeKey(Run.this.root, file),
+                                attrs.size(), attrs.lastModifiedTime().toMillis()));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            files.sort((a, b) -> AmazonS3Template.compareKeys(a.key, b.key));
+            return files;
+        }
+
+        private void onlyLocal(LocalFile local) {
+            if (this.upload) {
+                this.transfers.add(new Transfer(new SyncAction(SyncAction.Type.UPLOAD, SyncAction.Reason.MISSING,
+                        local.key, local.path, local.size), 0, null));
+            } else if (this.options.isDelete()) {
+                this.deletes.add(new SyncAction(SyncAction.Type.DELETE_LOCAL, SyncAction.Reason.EXTRANEOUS, local.key, local.path, 0));
+            }
+        }
+
+        private void onlyRemote(S3ObjectSummary remote) {
+            Path path = localPath(this.root, this.keyPrefix, remote.getKey());
+            if (path == null) {
+                return;
+            }
+            if (!this.upload) {
+                this.transfers.add(new Transfer(new SyncAction(SyncAction.Type.DOWNLOAD, SyncAction.Reason.MISSING,
+                        remote.getKey(), path, remote.getSize()), remote.getLastModified().getTime(), null));
+            } else if (this.options.isDelete()) {
+                this.deletes.add(new SyncAction(SyncAction.Type.DELETE_REMOTE, SyncAction.Reason.EXTRANEOUS, remote.getKey(), path, 0));
+            }
+        }
+
+        private void both(LocalFile local, S3ObjectSummary remote) {
+            long remoteLastModified = remote.getLastModified().getTime();
+            SyncAction.Reason reason;
+            if (local.size != remote.getSize()) {
+                reason = SyncAction.Reason.SIZE_CHANGED;
+            } else {
+                // 对象的最后修改时间只精确到秒
+                long localSeconds = Math.floorDiv(local.lastModified, 1000L);
+                long remoteSeconds = Math.floorDiv(remoteLastModified, 1000L);
+                if (this.upload ? localSeconds <= remoteSeconds : remoteSeconds <= localSeconds) {
+                    this.unchanged.incrementAndGet();
+                    return;
+                }
+                reason = SyncAction.Reason.MODIFIED;
+            }
+            SyncAction action = this.upload
+                    ? new SyncAction(SyncAction.Type.UPLOAD, reason, local.key, local.path, local.size)
+                    : new SyncAction(SyncAction.Type.DOWNLOAD, reason, remote.getKey(), local.path, remote.getSize());
+            String eTag = reason == SyncAction.Reason.MODIFIED && this.options.isChecksum() ? remote.getETag() : null;
+            this.transfers.add(new Transfer(action, remoteLastModified, eTag));
+        }
+
+        private void transfer() {
+            if (this.transfers.isEmpty()) {
+                return;
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.transfers.size(), this.options.getParallelism()),
+                    TransferExecutors.threadFactory("winter-s3-sync-", DirectorySync.this.virtualThreads));
+            try {
+                CompletableFuture.allOf(this.transfers.stream()
+                        .map(transfer -> CompletableFuture.runAsync(() -> this.transfer(transfer), executor))
+                        .toArray(CompletableFuture[]::new)).join();
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        private void transfer(Transfer transfer) {
+            SyncAction action = transfer.action;
+            try {
+                if (transfer.eTag != null) {
+                    if (matchesETag(action.getPath(), action.getSize(), transfer.eTag, this.options.getPartSize())) {
+                        this.unchanged.incrementAndGet();
+                        if (!this.upload && !this.options.isDryRun()) {
+                            // 内容一致，只同步修改时间，下一次同步不再比较 ETag
+                            Files.setLastModifiedTime(action.getPath(), FileTime.fromMillis(transfer.remoteLastModified));
+                        }
+                        return;
+                    }
+                    action.setReason(SyncAction.Reason.CHECKSUM_CHANGED);
+                }
+                if (!this.options.isDryRun()) {
+                    if (this.upload) {
+                        this.upload(action);
+                    } else {
+                        this.download(action, transfer.remoteLastModified);
+                    }
+                }
+                this.transferredBytes.addAndGet(action.getSize());
+                this.actions.add(action);
+            } catch (Exception e) {
+                log.warn("同步 {}/{} 失败（{}）", this.bucketName, action.getKey(), action.getType(), e);
+                this.failed.add(action);
+            }
+        }
+
+        private void upload(SyncAction action) {
+            File file = action.getPath().toFile();
+            long size = action.getSize();
+            if (size < this.options.getMultipartThreshold()) {
+                DirectorySync.this.amazonS3.putObject(new PutObjectRequest(this.bucketName, action.getKey(), file));
+                return;
+            }
+            long partSize = MultipartUploads.partSize(size, this.options.getPartSize());
+            String contentType = MediaTypeFactory.getMediaType(file.getName()).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+            AmazonS3Template template = DirectorySync.this.amazonS3Template;
+            String uploadId = template.initiateMultipartUpload(this.bucketName, action.getKey(), contentType).getUploadId();
+            try {
+                List<PartSummary> parts = new ArrayList<>();
+                int partNumber = 1;
+                for (long offset = 0; offset < size; offset += partSize, partNumber++) {
+                    UploadPartResult result = template.uploadPart(this.bucketName, uploadId, action.getKey(), partNumber,
+                            file, offset, Math.min(partSize, size - offset));
+                    parts.add(MultipartUploads.partSummary(partNumber, result));
+                }
+                template.completeMultipartUpload(this.bucketName, action.getKey(), uploadId, parts);
+            } catch (RuntimeException e) {
+                try {
+                    template.abortMultipartUpload(this.bucketName, action.getKey(), uploadId, e);
+                } catch (RuntimeException abortError) {
+                    e.addSuppressed(abortError);
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * 先下载到同一目录下的临时文件，设置修改时间后再替换，中断时不会留下不完整的文件
+         */
+        private void download(SyncAction action, long remoteLastModified) throws IOException {
+            Path target = action.getPath();
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), TEMP_PREFIX, ".tmp");
+            try {
+                DirectorySync.this.amazonS3Template.downloadObject(this.bucketName, action.getKey(), temp.toFile());
+                Files.setLastModifiedTime(temp, FileTime.fromMillis(remoteLastModified));
+                try {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private void deleteObjects() {
+            for (int from = 0; from < this.deletes.size(); from += DELETE_BATCH) {
+                List<SyncAction> batch = this.deletes.subList(from, Math.min(from + DELETE_BATCH, this.deletes.size()));
+                if (this.options.isDryRun()) {
+                    this.actions.addAll(batch);
+                    continue;
+                }
+                try {
+                    DirectorySync.this.amazonS3.deleteObjects(new DeleteObjectsRequest(this.bucketName).withQuiet(true)
+                            .withKeys(batch.stream().map(SyncAction::getKey).toArray(String[]::new)));
+                    this.actions.addAll(batch);
+                } catch (MultiObjectDeleteException e) {
+                    Set<String> errorKeys = e.getErrors().stream().map(MultiObjectDeleteException.DeleteError::getKey).collect(Collectors.toSet());
+                    log.warn("同步删除 {} 中的 {} 个对象失败", this.bucketName, errorKeys.size(), e);
+                    for (SyncAction action : batch) {
+                        (errorKeys.contains(action.getKey()) ? this.failed : this.actions).add(action);
+                    }
+                } catch (SdkClientException e) {
+                    log.warn("同步删除 {} 中的 {} 个对象失败", this.bucketName, batch.size(), e);
+                    this.failed.addAll(batch);
+                }
+            }
+        }
+
+        private void deleteFiles() {
+            for (SyncAction action : this.deletes) {
+                if (this.options.isDryRun()) {
+                    this.actions.add(action);
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(action.getPath());
+                } catch (IOException e) {
+                    log.warn("同步删除 {} 失败", action.getPath(), e);
+                    this.failed.add(action);
+                    continue;
+                }
+                this.actions.add(action);
+                // 删除因此变空的目录
+                for (Path dir = action.getPath().getParent(); dir != null && !dir.equals(this.root); dir = dir.getParent()) {
+                    try {
+                        Files.delete(dir);
+                    } catch (IOException e) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * 逐页列举前缀下的对象，并检查是否按键有序
+         */
+        private final class RemoteListing {
+
+            private final ListObjectsV2Request request = new ListObjectsV2Request()
+                    .withBucketName(Run.this.bucketName)
+                    .withPrefix(Run.this.keyPrefix);
+
+            private Iterator<S3ObjectSummary> page = Collections.emptyIterator();
+
+            private boolean truncated = true;
+
+            private String lastKey;
+
+            private S3ObjectSummary next() {
+                while (!this.page.hasNext() && this.truncated) {
+                    ListObjectsV2Result listing = DirectorySync.this.amazonS3.listObjectsV2(this.request);
+                    this.page = listing.getObjectSummaries().iterator();
+                    this.truncated = listing.isTruncated() && listing.getNextContinuationToken() != null;
+                    this.request.setContinuationToken(listing.getNextContinuationToken());
+                }
+                if (!this.page.hasNext()) {
+                    return null;
+                }
+                S3ObjectSummary summary = this.page.next();
+                if (this.lastKey != null && AmazonS3Template.compareKeys(summary.getKey(), this.lastKey) <= 0) {
+                    throw new IllegalStateException("列举结果未按对象键排序（" + this.lastKey + " 之后是 " + summary.getKey() + "），无法增量比较");
+                }
+                this.lastKey = summary.getKey();
+                return summary;
+            }
+        }
+    }
+}
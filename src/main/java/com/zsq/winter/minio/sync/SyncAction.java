@@ -0,0 +1,81 @@
+package com.zsq.winter.minio.sync;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.file.Path;
+
+/**
+ * 同步中对一个文件执行（dry-run 时为需要执行）的操作
+ */
+@Data
+@AllArgsConstructor
+public class SyncAction {
+
+    /**
+     * 操作类型
+     */
+    private Type type;
+
+    /**
+     * 原因
+     */
+    private Reason reason;
+
+    /**
+     * 对象键
+     */
+    private String key;
+
+    /**
+     * 本地文件
+     */
+    private Path path;
+
+    /**
+     * 传输的字节数，删除时为 0
+     */
+    private long size;
+
+    public enum Type {
+        /**
+         * 上传本地文件
+         */
+        UPLOAD,
+        /**
+         * 下载对象
+         */
+        DOWNLOAD,
+        /**
+         * 删除对象
+         */
+        DELETE_REMOTE,
+        /**
+         * 删除本地文件
+         */
+        DELETE_LOCAL
+    }
+
+    public enum Reason {
+        /**
+         * 目标端不存在
+         */
+        MISSING,
+        /**
+         * 大小不同
+         */
+        SIZE_CHANGED,
+        /**
+         * 大小相同，源端修改时间较新
+         */
+        MODIFIED,
+        /**
+         * 大小相同，源端修改时间较新且 ETag 不同
+         */
+        CHECKSUM_CHANGED,
+        /**
+         * 源端已不存在
+         */
+        EXTRANEOUS
+    }
+}
@@ -0,0 +1,41 @@
+package com.zsq.winter.minio.sync;
+
+import lombok.Data;
+
+/**
+ * 目录同步选项
+ */
+@Data
+public class SyncOptions {
+
+    /**
+     * 删除目标端多出的文件（源端已不存在），默认只新增与更新
+     */
+    private boolean delete = false;
+
+    /**
+     * 只比较并返回需要执行的操作，不上传、下载或删除
+     */
+    private boolean dryRun = false;
+
+    /**
+     * 并行传输的文件数
+     */
+    private int parallelism = 8;
+
+    /**
+     * 大小相同但源端较新时，再读取本地文件计算 ETag（含分块上传的 ETag）与对象比较，内容相同则跳过；
+     * 关闭时直接按修改时间传输
+     */
+    private boolean checksum = false;
+
+    /**
+     * 上传时文件不小于该大小则使用分块上传
+     */
+    private long multipartThreshold = 64L * 1024 * 1024;
+
+    /**
+     * 分块上传的分块大小，也是重建分块 ETag 时优先尝试的分块大小
+     */
+    private long partSize = 16L * 1024 * 1024;
+}
@@ -0,0 +1,38 @@
+package com.zsq.winter.minio.sync;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一次同步的结果
+ */
+@Data
+public class SyncResult {
+
+    /**
+     * 已执行的操作，dry-run 时为需要执行的操作
+     */
+    private List<SyncAction> actions = new ArrayList<>();
+
+    /**
+     * 执行失败的操作，原因见日志，下一次同步时重新比较
+     */
+    private List<SyncAction> failed = new ArrayList<>();
+
+    /**
+     * 两端一致、跳过的文件数
+     */
+    private int unchanged;
+
+    /**
+     * 上传与下载的字节数
+     */
+    private long transferredBytes;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private long durationMillis;
+}
@@ -0,0 +1,259 @@
+package com.zsq.winter.minio.tenant;
+
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.s3.AmazonS3;
+import com.zsq.winter.minio.config.AmazonS3ClientFactory;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.listener.TransferListener;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import com.zsq.winter.minio.support.AmazonS3Interceptor;
+import com.zsq.winter.minio.support.AmazonS3InterceptorChain;
+import com.zsq.winter.minio.support.AmazonS3Invocations;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 多租户模板注册表：按 winter-aws.clients.&lt;name&gt; 配置懒加载各租户的 {@link AmazonS3Template}
+ * 1. 节点地址、区域、访问风格相同的租户共用一个底层客户端（即共用一个 HTTP 连接池），请求时按租户凭证签名，
+ * 熔断、限流与对冲等拦截器状态按租户隔离
+ * 2. 租户空闲超过 winter-aws.client-idle-timeout 后释放底层客户端，最后一个租户释放时关闭连接池
+ * 3. 模板对象本身一直有效，释放后再次调用会自动重新创建底层客户端
+ */
+@Slf4j
+public class AmazonS3TemplateRegistry implements Closeable {
+
+    private final AmazonS3Properties amazonS3Properties;
+
+    private final Map<String, AmazonS3Template> templates = new ConcurrentHashMap<>();
+
+    private final Map<String, TenantClient> tenants = new ConcurrentHashMap<>();
+
+    /**
+     * 共享客户端，key 为 节点地址|区域|访问风格，受 this 锁保护
+     */
+    private final Map<String, SharedClient> sharedClients = new HashMap<>();
+
+    /**
+     * 空闲检查线程，首次创建模板时启动
+     */
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * 默认客户端的拦截器，每个租户通过 {@link AmazonS3Interceptor#forClient()} 取得各自的实例
+     */
+    private final List<AmazonS3Interceptor> interceptors;
+
+    /**
+     * 各租户模板共用的传输监听器
+     */
+    private final TransferListener transferListener;
+
+    public AmazonS3TemplateRegistry(AmazonS3Properties amazonS3Properties) {
+        this(amazonS3Properties, Collections.emptyList());
+    }
+
+    public AmazonS3TemplateRegistry(AmazonS3Properties amazonS3Properties, List<AmazonS3Interceptor> interceptors) {
+        this(amazonS3Properties, interceptors, TransferListener.NOOP);
+    }
+
+    public AmazonS3TemplateRegistry(AmazonS3Properties amazonS3Properties, List<AmazonS3Interceptor> interceptors, TransferListener transferListener) {
+        this.amazonS3Properties = amazonS3Properties;
+        this.interceptors = interceptors;
+        this.transferListener = transferListener;
+    }
+
+    /**
+     * 获取指定名称的模板，首次获取时创建
+     *
+     * @param name winter-aws.clients 下配置的客户端名称
+     * @return {@link AmazonS3Template}
+     */
+    public AmazonS3Template getTemplate(String name) {
+        return this.templates.computeIfAbsent(name, this::createTemplate);
+    }
+
+    /**
+     * 已配置的客户端名称
+     *
+     * @return {@link Set}<{@link String}>
+     */
+    public Set<String> getClientNames() {
+        return this.amazonS3Properties.getClients().keySet();
+    }
+
+    private AmazonS3Template createTemplate(String name) {
+        AmazonS3Properties.Client client = this.amazonS3Properties.getClients().get(name);
+        if (client == null) {
+            throw new IllegalArgumentException("未配置名为 " + name + " 的客户端");
+        }
+        this.startSweeper();
+        AmazonS3Properties properties = client.merge(this.amazonS3Properties);
+        TenantClient tenant = new TenantClient(name, properties);
+        this.tenants.put(name, tenant);
+        AmazonS3 amazonS3 = (AmazonS3) Proxy.newProxyInstance(AmazonS3.class.getClassLoader(), new Class<?>[]{AmazonS3.class}, tenant);
+        // 熔断、并发限制与对冲统计按租户隔离，一个租户的故障不影响其他租户
+        List<AmazonS3Interceptor> interceptors = this.interceptors.stream().map(AmazonS3Interceptor::forClient).collect(Collectors.toList());
+        AmazonS3Template template = new AmazonS3Template(properties, AmazonS3InterceptorChain.wrap(amazonS3, interceptors));
+        template.setTransferListener(this.transferListener);
+        return template;
+    }
+
+    private synchronized void startSweeper() {
+        if (this.sweeper != null) {
+            return;
+        }
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "winter-s3-tenant-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long idleMillis = this.amazonS3Properties.getClientIdleTimeout().toMillis();
+        long period = Math.max(1000, Math.min(idleMillis / 2, TimeUnit.MINUTES.toMillis(1)));
+        this.sweeper.scheduleWithFixedDelay(this::closeIdleClients, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized SharedClient acquire(TenantClient tenant) {
+        if (tenant.lease == null) {
+            SharedClient shared = this.sharedClients.get(tenant.sharedKey);
+            if (shared == null) {
+                AmazonS3Properties properties = tenant.properties;
+                AmazonS3 client = AmazonS3ClientFactory.create(properties.getEndpoint(), properties.getRegion(),
+                        new TenantCredentialsProvider(tenant.credentialsProvider), properties.getPathStyleAccess(),
+                        AmazonS3ClientFactory.clientConfiguration(this.amazonS3Properties));
+                shared = new SharedClient(tenant.sharedKey, client);
+                this.sharedClients.put(tenant.sharedKey, shared);
+            }
+            shared.references++;
+            tenant.lease = shared;
+        }
+        tenant.inFlight++;
+        tenant.lastAccess = System.nanoTime();
+        return tenant.lease;
+    }
+
+    private synchronized void release(TenantClient tenant) {
+        tenant.inFlight--;
+        tenant.lastAccess = System.nanoTime();
+    }
+
+    /**
+     * 释放空闲租户占用的共享客户端
+     */
+    synchronized void closeIdleClients() {
+        long idleNanos = this.amazonS3Properties.getClientIdleTimeout().toNanos();
+        long now = System.nanoTime();
+        for (TenantClient tenant : this.tenants.values()) {
+            if (tenant.lease != null && tenant.inFlight == 0 && now - tenant.lastAccess > idleNanos) {
+                log.debug("S3 客户端 {} 空闲超时，释放连接", tenant.name);
+                this.releaseLease(tenant);
+            }
+        }
+    }
+
+    private void releaseLease(TenantClient tenant) {
+        SharedClient shared = tenant.lease;
+        tenant.lease = null;
+        if (--shared.references == 0) {
+            this.sharedClients.remove(shared.key);
+            shared.client.shutdown();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.sweeper != null) {
+            this.sweeper.shutdownNow();
+        }
+        for (SharedClient shared : this.sharedClients.values()) {
+            shared.client.shutdown();
+        }
+        this.sharedClients.clear();
+        for (TenantClient tenant : this.tenants.values()) {
+            tenant.lease = null;
+        }
+    }
+
+    private static class SharedClient {
+
+        private final String key;
+
+        private final AmazonS3 client;
+
+        private int references;
+
+        SharedClient(String key, AmazonS3 client) {
+            this.key = key;
+            this.client = client;
+        }
+    }
+
+    /**
+     * 租户客户端：每次调用时租用共享客户端并绑定本租户的凭证
+     */
+    private class TenantClient implements InvocationHandler {
+
+        private final String name;
+
+        private final AmazonS3Properties properties;
+
+        private final AWSCredentialsProvider credentialsProvider;
+
+        private final String sharedKey;
+
+        private SharedClient lease;
+
+        private int inFlight;
+
+        private long lastAccess;
+
+        TenantClient(String name, AmazonS3Properties properties) {
+            this.name = name;
+            this.properties = properties;
+            this.credentialsProvider = new AWSStaticCredentialsProvider(new BasicAWSCredentials(properties.getAccessKey(), properties.getSecretKey()));
+            this.sharedKey = properties.getEndpoint() + "|" + properties.getRegion() + "|" + properties.getPathStyleAccess();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return "AmazonS3[" + this.name + "]";
+                }
+            }
+            if ("shutdown".equals(method.getName())) {
+                // 底层客户端由注册表统一管理
+                return null;
+            }
+            // 凭证绑定在当前线程上，由共享客户端的凭证提供者读取（包括预签名 URL），不修改调用方传入的请求对象
+            SharedClient shared = AmazonS3TemplateRegistry.this.acquire(this);
+            AWSCredentialsProvider previous = TenantCredentialsProvider.bind(this.credentialsProvider);
+            try {
+                return AmazonS3Invocations.invoke(shared.client, method, args);
+            } finally {
+                TenantCredentialsProvider.restore(previous);
+                AmazonS3TemplateRegistry.this.release(this);
+            }
+        }
+    }
+}
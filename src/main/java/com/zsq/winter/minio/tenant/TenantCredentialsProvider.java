@@ -0,0 +1,48 @@
+package com.zsq.winter.minio.tenant;
+
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSCredentialsProvider;
+
+/**
+ * 共享客户端的凭证提供者：返回当前线程绑定的租户凭证，使多个租户在同一个连接池上各自使用自己的凭证签名
+ * 凭证不写入请求对象，调用方传入的请求不会被修改；请求自带凭证时仍以请求上的为准
+ */
+class TenantCredentialsProvider implements AWSCredentialsProvider {
+
+    private static final ThreadLocal<AWSCredentialsProvider> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 当前线程未绑定租户时使用的凭证，即创建共享客户端的租户的凭证
+     */
+    private final AWSCredentialsProvider fallback;
+
+    TenantCredentialsProvider(AWSCredentialsProvider fallback) {
+        this.fallback = fallback;
+    }
+
+    static AWSCredentialsProvider bind(AWSCredentialsProvider credentialsProvider) {
+        AWSCredentialsProvider previous = CURRENT.get();
+        CURRENT.set(credentialsProvider);
+        return previous;
+    }
+
+    static void restore(AWSCredentialsProvider previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    @Override
+    public AWSCredentials getCredentials() {
+        AWSCredentialsProvider credentialsProvider = CURRENT.get();
+        return (credentialsProvider != null ? credentialsProvider : this.fallback).getCredentials();
+    }
+
+    @Override
+    public void refresh() {
+        AWSCredentialsProvider credentialsProvider = CURRENT.get();
+        (credentialsProvider != null ? credentialsProvider : this.fallback).refresh();
+    }
+}
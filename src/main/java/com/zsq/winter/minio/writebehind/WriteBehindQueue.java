@@ -0,0 +1,831 @@
+package com.zsq.winter.minio.writebehind;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.listener.TransferListener;
+import com.zsq.winter.minio.resilience.ExponentialBackoff;
+import com.zsq.winter.minio.resilience.S3RequestRejectedException;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import com.zsq.winter.minio.support.TransferExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 异步写回队列：调用方提交上传后立即返回，由后台线程池上传，请求耗时与存储耗时无关，适合审计日志、归档等只需最终持久化的写入
+ * 1. 同一对象键在排队期间多次提交时只保留最后一次（合并），正在上传的键的新写入等上传结束后再上传，保证同一键按提交顺序落盘
+ * 2. 队列以请求数 capacity 和字节数 max-queued-bytes 限制内存占用，同时上传的请求数不超过 max-in-flight
+ * 3. 队列已满时按 overflow 处理：BLOCK 阻塞等待（超过 block-timeout 抛出 {@link S3RequestRejectedException}），
+ * DROP 丢弃并返回 false，SPILL 写入 spill-directory 下的文件，内存有空位时按顺序加载回队列；溢出文件在进程重启后继续上传
+ * 4. 上传失败按指数退避重试，最多 max-attempts 次；SPILL 模式下可重试的失败（5xx、限流、网络错误）一直重试直到成功或关闭，
+ * 存储不可用期间新的写入进入溢出文件
+ * 5. {@link #close()} 不再接受新的写入，最多等待 shutdown-timeout 上传完内存中的请求；超时仍未上传的请求在 SPILL 模式下写入溢出文件，
+ * 其他模式下丢失并打印日志
+ * 非 SPILL 模式下写入只保存在内存中，进程异常退出会丢失尚未上传的请求
+ */
+@Slf4j
+public class WriteBehindQueue implements Closeable {
+
+    private static final String SPILL_SUFFIX = ".spill";
+
+    private static final int SPILL_MAGIC = 0x57425131;
+
+    private final AmazonS3 amazonS3;
+
+    private final String bucketName;
+
+    private final int capacity;
+
+    private final long maxQueuedBytes;
+
+    private final int maxAttempts;
+
+    private final ExponentialBackoff backoff;
+
+    private final AmazonS3Properties.OverflowPolicy overflow;
+
+    private final long blockTimeoutNanos;
+
+    private final Duration shutdownTimeout;
+
+    private final Path spillDirectory;
+
+    private final ExecutorService workers;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 有可上传的请求或可加载的溢出文件
+     */
+    private final Condition workAvailable = this.lock.newCondition();
+
+    /**
+     * 队列有空位
+     */
+    private final Condition notFull = this.lock.newCondition();
+
+    /**
+     * 队列状态变化，用于 flush 与 close 等待
+     */
+    private final Condition progressed = this.lock.newCondition();
+
+    /**
+     * 排队中的请求，键为 存储桶/对象键，按提交顺序排列，以下字段均由 lock 保护
+     */
+    private final LinkedHashMap<String, PendingWrite> pending = new LinkedHashMap<>();
+
+    /**
+     * 正在上传的 存储桶/对象键
+     */
+    private final Set<String> inFlight = new HashSet<>();
+
+    /**
+     * 尚未加载回内存的溢出文件，按写入顺序排列
+     */
+    private final Deque<SpillFile> spilled = new ArrayDeque<>();
+
+    /**
+     * 排队中与正在上传的请求的字节数
+     */
+    private long queuedBytes;
+
+    /**
+     * 正在写入溢出文件的请求数，大于 0 时新的写入也进入溢出文件，保证顺序
+     */
+    private int spilling;
+
+    /**
+     * 是否有线程正在加载溢出文件，同一时间只有一个线程按顺序加载
+     */
+    private boolean loading;
+
+    private boolean closed;
+
+    private boolean stopped;
+
+    /**
+     * 溢出文件名的前缀，保证上次运行留下的文件排在本次运行的文件之前
+     */
+    private final long startMillis = System.currentTimeMillis();
+
+    /**
+     * 提交序号，溢出文件按序号命名
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicLong submittedCount = new AtomicLong();
+
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final AtomicLong spilledCount = new AtomicLong();
+
+    private final AtomicLong uploadedCount = new AtomicLong();
+
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private volatile TransferListener transferListener = TransferListener.NOOP;
+
+    public WriteBehindQueue(AmazonS3Properties amazonS3Properties, AmazonS3 amazonS3) {
+        AmazonS3Properties.WriteBehind writeBehind = amazonS3Properties.getWriteBehind();
+        this.amazonS3 = amazonS3;
+        this.bucketName = amazonS3Properties.getBucket();
+        this.capacity = writeBehind.getCapacity();
+        this.maxQueuedBytes = writeBehind.getMaxQueuedBytes().toBytes();
+        this.maxAttempts = Math.max(1, writeBehind.getMaxAttempts());
+        this.backoff = new ExponentialBackoff(writeBehind.getBaseDelay().toMillis(), writeBehind.getMaxDelay().toMillis());
+        this.overflow = writeBehind.getOverflow();
+        this.blockTimeoutNanos = writeBehind.getBlockTimeout().toNanos();
+        this.shutdownTimeout = writeBehind.getShutdownTimeout();
+        int maxInFlight = writeBehind.getMaxInFlight();
+        if (this.capacity <= 0 || this.maxQueuedBytes <= 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("winter-aws.write-behind.capacity、max-queued-bytes、max-in-flight 必须大于 0");
+        }
+        if (this.overflow == AmazonS3Properties.OverflowPolicy.SPILL) {
+            this.spillDirectory = StringUtils.hasText(writeBehind.getSpillDirectory())
+                    ? Paths.get(writeBehind.getSpillDirectory())
+                    : Paths.get(System.getProperty("java.io.tmpdir"), "winter-s3-write-behind");
+            this.loadSpillDirectory();
+        } else {
+            this.spillDirectory = null;
+        }
+        this.workers = Executors.newFixedThreadPool(maxInFlight,
+                TransferExecutors.threadFactory("winter-s3-write-behind-", amazonS3Properties.getVirtualThreads()));
+        for (int i = 0; i < maxInFlight; i++) {
+            this.workers.execute(this::work);
+        }
+    }
+
+    public void setTransferListener(TransferListener transferListener) {
+        this.transferListener = transferListener == null ? TransferListener.NOOP : transferListener;
+    }
+
+    public String getBucketName() {
+        return this.bucketName;
+    }
+
+    /**
+     * 提交上传到默认存储桶
+     *
+     * @param objectName  对象名称
+     * @param data        内容，提交后调用方不应再修改
+     * @param contentType 内容类型，可为 null
+     * @return 是否已接受，DROP 模式下队列已满时为 false
+     */
+    public boolean submit(String objectName, byte[] data, String contentType) {
+        return this.submit(this.bucketName, objectName, data, contentType);
+    }
+
+    /**
+     * 提交上传
+     *
+     * @param bucketName  存储桶名称
+     * @param objectName  对象名称
+     * @param data        内容，提交后调用方不应再修改
+     * @param contentType 内容类型，可为 null
+     * @return 是否已接受，DROP 模式下队列已满时为 false
+     * @throws S3RequestRejectedException BLOCK 模式下等待超过 block-timeout
+     */
+    public boolean submit(String bucketName, String objectName, byte[] data, String contentType) {
+        PendingWrite write = new PendingWrite(bucketName, AmazonS3Template.getObjectName(objectName), data, contentType,
+                this.sequence.incrementAndGet(), null);
+        this.submittedCount.incrementAndGet();
+        this.lock.lock();
+        try {
+            if (this.closed) {
+                throw new IllegalStateException("WriteBehindQueue 已关闭");
+            }
+            if (!this.spillPending() && this.coalesce(write)) {
+                return true;
+            }
+            long deadline = System.nanoTime() + this.blockTimeoutNanos;
+            while (this.spillPending() || !this.hasRoomFor(write)) {
+                if (this.overflow == AmazonS3Properties.OverflowPolicy.DROP) {
+                    this.droppedCount.incrementAndGet();
+                    log.debug("写回队列已满，丢弃 {}/{}", bucketName, write.key);
+                    return false;
+                }
+                if (this.overflow == AmazonS3Properties.OverflowPolicy.SPILL) {
+                    this.spilling++;
+                    break;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new S3RequestRejectedException("写回队列已满，等待超过 " + Duration.ofNanos(this.blockTimeoutNanos));
+                }
+                try {
+                    this.notFull.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new S3RequestRejectedException("等待写回队列空位时被中断");
+                }
+                if (this.closed) {
+                    throw new IllegalStateException("WriteBehindQueue 已关闭");
+                }
+                if (this.coalesce(write)) {
+                    return true;
+                }
+            }
+            if (this.spilling == 0) {
+                this.enqueue(write);
+                return true;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        // 溢出文件在锁外写入，完成后登记；文件名按提交顺序排列，加载顺序与提交顺序一致
+        SpillFile file = null;
+        try {
+            file = this.writeSpillFile(write);
+        } finally {
+            this.lock.lock();
+            try {
+                this.spilling--;
+                if (file != null) {
+                    this.spilled.add(file);
+                    this.spilledCount.incrementAndGet();
+                }
+                this.workAvailable.signalAll();
+                this.progressed.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+        return file != null;
+    }
+
+    /**
+     * 等待所有已接受的请求（包括溢出文件中的）上传完成，持续有新写入时可能等到超时
+     *
+     * @param timeout 最长等待时间
+     * @return 是否已全部上传
+     * @throws InterruptedException 等待时被中断
+     */
+    public boolean flush(Duration timeout) throws InterruptedException {
+        long remaining = timeout.toNanos();
+        this.lock.lock();
+        try {
+            while (!this.isIdle(true)) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = this.progressed.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * 不再接受新的写入，等待内存中的请求上传完成，超时后按 overflow 写入溢出文件或丢弃
+     */
+    @Override
+    public void close() {
+        List<PendingWrite> remaining;
+        this.lock.lock();
+        try {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.workAvailable.signalAll();
+            this.notFull.signalAll();
+            long nanos = this.shutdownTimeout.toNanos();
+            while (!this.isIdle(false) && nanos > 0) {
+                nanos = this.progressed.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.stopped = true;
+            remaining = new ArrayList<>(this.pending.values());
+            this.pending.clear();
+            this.lock.unlock();
+        }
+        // 中断仍在重试的上传，SPILL 模式下由上传线程把未完成的请求写入溢出文件
+        this.workers.shutdownNow();
+        int lost = 0;
+        for (PendingWrite write : remaining) {
+            if (write.spillFile != null) {
+                // 来自溢出文件的请求，文件仍在，下次启动时继续上传
+                continue;
+            }
+            if (this.spillDirectory == null || this.writeSpillFile(write) == null) {
+                lost++;
+            }
+        }
+        try {
+            if (!this.workers.awaitTermination(1, TimeUnit.SECONDS)) {
+                log.warn("写回队列关闭时仍有 {} 个上传未结束", this.getInFlightCount());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (lost > 0) {
+            log.warn("写回队列关闭时仍有 {} 个请求未上传，已丢弃", lost);
+        }
+    }
+
+    /**
+     * 排队中的请求数，不包括正在上传的和溢出文件中的
+     *
+     * @return int
+     */
+    public int getQueuedCount() {
+        this.lock.lock();
+        try {
+            return this.pending.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * 排队中与正在上传的请求占用的字节数
+     *
+     * @return long
+     */
+    public long getQueuedBytes() {
+        this.lock.lock();
+        try {
+            return this.queuedBytes;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * 正在上传的请求数
+     *
+     * @return int
+     */
+    public int getInFlightCount() {
+        this.lock.lock();
+        try {
+            return this.inFlight.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * 尚未加载回内存的溢出文件数
+     *
+     * @return int
+     */
+    public int getSpillBacklog() {
+        this.lock.lock();
+        try {
+            return this.spilled.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public long getSubmittedCount() {
+        return this.submittedCount.get();
+    }
+
+    /**
+     * 排队期间被同一对象键的新写入覆盖的请求数
+     *
+     * @return long
+     */
+    public long getCoalescedCount() {
+        return this.coalescedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    /**
+     * 队列已满时写入溢出文件的请求数
+     *
+     * @return long
+     */
+    public long getSpilledCount() {
+        return this.spilledCount.get();
+    }
+
+    public long getUploadedCount() {
+        return this.uploadedCount.get();
+    }
+
+    /**
+     * 重试用尽仍未上传且未写入溢出文件的请求数
+     *
+     * @return long
+     */
+    public long getFailedCount() {
+        return this.failedCount.get();
+    }
+
+    /**
+     * 上传线程：先按顺序加载溢出文件，再取出排队最久且对象键不在上传中的请求
+     */
+    private void work() {
+        while (true) {
+            this.loadSpilled();
+            PendingWrite write;
+            this.lock.lock();
+            try {
+                write = this.takeEligible();
+                while (write == null) {
+                    if (this.stopped || (this.closed && this.pending.isEmpty())) {
+                        return;
+                    }
+                    if (this.canLoad()) {
+                        break;
+                    }
+                    this.workAvailable.await();
+                    write = this.takeEligible();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                this.lock.unlock();
+            }
+            if (write != null) {
+                this.process(write);
+            }
+        }
+    }
+
+    private void process(PendingWrite write) {
+        SdkClientException failure = null;
+        try {
+            this.upload(write);
+        } catch (SdkClientException e) {
+            failure = e;
+        }
+        // 计数与溢出文件的处理在移出 inFlight 之前完成，flush 与 close 返回时结果已经可见
+        if (failure == null) {
+            this.uploadedCount.incrementAndGet();
+            deleteQuietly(write.spillFile);
+        } else if (this.spillDirectory != null && (isRetryable(failure) || this.isStopped())
+                && (write.spillFile != null || this.writeSpillFile(write) != null)) {
+            log.warn("上传 {}/{} 未完成，已保留在溢出文件中等待下次启动：{}", write.bucketName, write.key, failure.getMessage());
+        } else {
+            this.failedCount.incrementAndGet();
+            log.error("上传 {}/{} 失败，已放弃", write.bucketName, write.key, failure);
+            deleteQuietly(write.spillFile);
+        }
+        this.lock.lock();
+        try {
+            this.inFlight.remove(write.id());
+            this.queuedBytes -= write.data.length;
+            this.notFull.signalAll();
+            this.workAvailable.signalAll();
+            this.progressed.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * 上传，可重试的失败按指数退避重试；SPILL 模式下不限次数，直到关闭
+     */
+    private void upload(PendingWrite write) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                ObjectMetadata objectMetadata = new ObjectMetadata();
+                objectMetadata.setContentLength(write.data.length);
+                if (write.contentType != null) {
+                    objectMetadata.setContentType(write.contentType);
+                }
+                this.amazonS3.putObject(write.bucketName, write.key, new ByteArrayInputStream(write.data), objectMetadata);
+                return;
+            } catch (SdkClientException e) {
+                boolean exhausted = attempt >= this.maxAttempts && this.spillDirectory == null;
+                if (exhausted || !isRetryable(e) || this.isStopped()) {
+                    throw e;
+                }
+                long delay = this.backoff.delayMillis(attempt);
+                this.transferListener.retried("putObject", write.bucketName, attempt, delay, e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private boolean isStopped() {
+        this.lock.lock();
+        try {
+            return this.stopped;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private static boolean isRetryable(SdkClientException e) {
+        if (e instanceof AmazonServiceException) {
+            int status = ((AmazonServiceException) e).getStatusCode();
+            return status >= 500 || status == 429 || status == 408;
+        }
+        return e.isRetryable();
+    }
+
+    /**
+     * 排队中已有同一键且替换后不超过 max-queued-bytes 时替换其内容，调用前需持有 lock
+     */
+    private boolean coalesce(PendingWrite write) {
+        PendingWrite existing = this.pending.get(write.id());
+        if (existing == null || !this.hasRoomToReplace(existing, write.data.length)) {
+            return false;
+        }
+        this.replace(existing, write);
+        return true;
+    }
+
+    private void replace(PendingWrite existing, PendingWrite write) {
+        this.queuedBytes += write.data.length - existing.data.length;
+        Path replacedFile = existing.spillFile;
+        existing.data = write.data;
+        existing.contentType = write.contentType;
+        existing.sequence = write.sequence;
+        existing.spillFile = write.spillFile;
+        this.coalescedCount.incrementAndGet();
+        deleteQuietly(replacedFile);
+    }
+
+    /**
+     * 放入队列，已有同一键时替换其内容；调用前已确认有空位
+     */
+    private void enqueue(PendingWrite write) {
+        PendingWrite existing = this.pending.get(write.id());
+        if (existing != null) {
+            this.replace(existing, write);
+            return;
+        }
+        this.pending.put(write.id(), write);
+        this.queuedBytes += write.data.length;
+        this.workAvailable.signal();
+    }
+
+    /**
+     * 请求数与字节数都未达到上限；队列为空时总能放入一个请求，避免超过 max-queued-bytes 的对象永远无法提交
+     */
+    private boolean hasRoom(long length) {
+        if (this.pending.isEmpty() && this.inFlight.isEmpty()) {
+            return true;
+        }
+        return this.pending.size() < this.capacity && this.queuedBytes + length <= this.maxQueuedBytes;
+    }
+
+    /**
+     * 放入该请求是否有空位：排队中已有同一键时只替换内容，请求数不变，只检查增加的字节数
+     */
+    private boolean hasRoomFor(PendingWrite write) {
+        PendingWrite existing = this.pending.get(write.id());
+        return existing != null ? this.hasRoomToReplace(existing, write.data.length) : this.hasRoom(write.data.length);
+    }
+
+    /**
+     * 替换后不超过 max-queued-bytes；内容变小时总能替换，队列中只有该请求时同样总能替换
+     */
+    private boolean hasRoomToReplace(PendingWrite existing, long length) {
+        long growth = length - existing.data.length;
+        if (growth <= 0 || this.pending.size() == 1 && this.inFlight.isEmpty()) {
+            return true;
+        }
+        return this.queuedBytes + growth <= this.maxQueuedBytes;
+    }
+
+    /**
+     * 有溢出文件未加载或正在写入时，新的写入也进入溢出文件
+     */
+    private boolean spillPending() {
+        return this.spilling > 0 || this.loading || !this.spilled.isEmpty();
+    }
+
+    private boolean isIdle(boolean includeSpilled) {
+        if (!this.pending.isEmpty() || !this.inFlight.isEmpty() || this.spilling > 0) {
+            return false;
+        }
+        return !includeSpilled || (!this.loading && this.spilled.isEmpty());
+    }
+
+    private PendingWrite takeEligible() {
+        Iterator<PendingWrite> iterator = this.pending.values().iterator();
+        while (iterator.hasNext()) {
+            PendingWrite write = iterator.next();
+            if (this.inFlight.add(write.id())) {
+                iterator.remove();
+                return write;
+            }
+        }
+        return null;
+    }
+
+    private boolean canLoad() {
+        return !this.closed && !this.loading && !this.spilled.isEmpty() && this.hasRoom(this.spilled.peekFirst().length);
+    }
+
+    /**
+     * 内存有空位时按顺序把溢出文件加载回队列，关闭后不再加载，留待下次启动
+     */
+    private void loadSpilled() {
+        while (true) {
+            SpillFile file;
+            this.lock.lock();
+            try {
+                if (!this.canLoad()) {
+                    return;
+                }
+                file = this.spilled.pollFirst();
+                this.loading = true;
+            } finally {
+                this.lock.unlock();
+            }
+            PendingWrite write = null;
+            try {
+                write = readSpillFile(file.path);
+            } catch (IOException e) {
+                log.error("读取溢出文件 {} 失败，已重命名为 .bad 后跳过", file.path, e);
+                moveAside(file.path);
+            }
+            this.lock.lock();
+            try {
+                this.loading = false;
+                if (write != null) {
+                    this.enqueue(write);
+                }
+                this.notFull.signalAll();
+                this.workAvailable.signalAll();
+                this.progressed.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 启动时登记上次运行留下的溢出文件，文件名按写入时间排序
+     */
+    private void loadSpillDirectory() {
+        List<Path> files = new ArrayList<>();
+        try {
+            Files.createDirectories(this.spillDirectory);
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.spillDirectory, "*" + SPILL_SUFFIX)) {
+                for (Path path : stream) {
+                    files.add(path);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("无法读取溢出目录 " + this.spillDirectory, e);
+        }
+        Collections.sort(files);
+        for (Path path : files) {
+            try {
+                this.spilled.addLast(new SpillFile(path, Files.size(path)));
+            } catch (IOException e) {
+                log.warn("无法读取溢出文件 {}，已跳过", path, e);
+            }
+        }
+        if (!files.isEmpty()) {
+            log.info("写回队列从 {} 恢复 {} 个未上传的请求", this.spillDirectory, this.spilled.size());
+        }
+    }
+
+    /**
+     * 先写临时文件再改名，进程在写入过程中退出不会留下不完整的溢出文件
+     *
+     * @return 写入失败时为 null
+     */
+    private SpillFile writeSpillFile(PendingWrite write) {
+        String name = String.format("%013d-%019d", this.startMillis, write.sequence);
+        Path target = this.spillDirectory.resolve(name + SPILL_SUFFIX);
+        Path temp = this.spillDirectory.resolve(name + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SPILL_MAGIC);
+                out.writeUTF(write.bucketName);
+                out.writeUTF(write.key);
+                out.writeUTF(write.contentType == null ? "" : write.contentType);
+                out.writeInt(write.data.length);
+                out.write(write.data);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            return new SpillFile(target, write.data.length);
+        } catch (IOException e) {
+            log.error("写入溢出文件 {} 失败，请求 {}/{} 已丢弃", target, write.bucketName, write.key, e);
+            this.droppedCount.incrementAndGet();
+            deleteQuietly(temp);
+            return null;
+        }
+    }
+
+    private static PendingWrite readSpillFile(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SPILL_MAGIC) {
+                throw new IOException("不是写回队列的溢出文件");
+            }
+            String bucketName = in.readUTF();
+            String key = in.readUTF();
+            String contentType = in.readUTF();
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            return new PendingWrite(bucketName, key, data, contentType.isEmpty() ? null : contentType, 0, path);
+        }
+    }
+
+    private static void moveAside(Path path) {
+        try {
+            Files.move(path, path.resolveSibling(path.getFileName() + ".bad"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("重命名溢出文件 {} 失败", path, e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除溢出文件 {} 失败", path, e);
+        }
+    }
+
+    private static final class PendingWrite {
+
+        private final String bucketName;
+
+        private final String key;
+
+        private byte[] data;
+
+        private String contentType;
+
+        private long sequence;
+
+        /**
+         * 内容来自的溢出文件，上传成功或被新写入覆盖后删除
+         */
+        private Path spillFile;
+
+        private PendingWrite(String bucketName, String key, byte[] data, String contentType, long sequence, Path spillFile) {
+            this.bucketName = bucketName;
+            this.key = key;
+            this.data = data;
+            this.contentType = contentType;
+            this.sequence = sequence;
+            this.spillFile = spillFile;
+        }
+
+        private String id() {
+            return this.bucketName + "/" + this.key;
+        }
+    }
+
+    private static final class SpillFile {
+
+        private final Path path;
+
+        private final long length;
+
+        private SpillFile(Path path, long length) {
+            this.path = path;
+            this.length = length;
+        }
+    }
+}
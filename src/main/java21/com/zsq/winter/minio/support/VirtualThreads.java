@@ -0,0 +1,26 @@
+package com.zsq.winter.minio.support;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程支持，Java 21 版本
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        return true;
+    }
+
+    static ThreadFactory threadFactory(String prefix) {
+        return Thread.ofVirtual().name(prefix, 1).factory();
+    }
+
+    static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        return Executors.newThreadPerTaskExecutor(threadFactory(prefix));
+    }
+}
@@ -0,0 +1,47 @@
+package com.zsq.winter.minio;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.zsq.winter.minio.config.AmazonS3ClientFactory;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.stub.S3StubServer;
+import com.zsq.winter.minio.support.AmazonS3Interceptor;
+import com.zsq.winter.minio.support.AmazonS3InterceptorChain;
+
+import java.util.Arrays;
+
+/**
+ * 测试共用：指向 {@link S3StubServer} 的配置与客户端
+ */
+public final class TestStubs {
+
+    public static final String BUCKET = "test";
+
+    private TestStubs() {
+    }
+
+    /**
+     * 指向桩的配置，默认存储桶为 {@link #BUCKET}
+     *
+     * @param server 已启动的桩
+     * @return {@link AmazonS3Properties}
+     */
+    public static AmazonS3Properties properties(S3StubServer server) {
+        AmazonS3Properties properties = new AmazonS3Properties();
+        properties.setEndpoint(server.getEndpoint());
+        properties.setAccessKey(server.getAccessKey());
+        properties.setSecretKey(server.getSecretKey());
+        properties.setBucket(BUCKET);
+        return properties;
+    }
+
+    /**
+     * 按配置创建客户端，并按给定顺序由外到内包裹拦截器
+     *
+     * @param properties   配置
+     * @param interceptors 拦截器
+     * @return {@link AmazonS3}
+     */
+    public static AmazonS3 client(AmazonS3Properties properties, AmazonS3Interceptor... interceptors) {
+        return AmazonS3InterceptorChain.wrap(AmazonS3ClientFactory.create(properties.getEndpoint(), properties), Arrays.asList(interceptors));
+    }
+}
@@ -0,0 +1,62 @@
+package com.zsq.winter.minio.checksum;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ChecksumAlgorithmTest {
+
+    private static final byte[] CHECK = "123456789".getBytes(StandardCharsets.US_ASCII);
+
+    @Test
+    void matchesCatalogueCheckValues() {
+        assertEquals(0xCBF43926L, ChecksumAlgorithm.CRC32.compute(CHECK, 0, CHECK.length));
+        assertEquals(0xE3069283L, ChecksumAlgorithm.CRC32C.compute(CHECK, 0, CHECK.length));
+        assertEquals(0xAE8B14860A799888L, ChecksumAlgorithm.CRC64NVME.compute(CHECK, 0, CHECK.length));
+    }
+
+    @Test
+    void tableImplementationMatchesJdk() {
+        byte[] data = randomBytes(100_003);
+        for (ChecksumAlgorithm algorithm : new ChecksumAlgorithm[]{ChecksumAlgorithm.CRC32, ChecksumAlgorithm.CRC32C}) {
+            TableCrc tableCrc = new TableCrc(algorithm.tables, algorithm.mask);
+            tableCrc.update(data, 0, data.length);
+            assertEquals(algorithm.compute(data, 0, data.length), tableCrc.getValue(), algorithm.name());
+        }
+    }
+
+    @Test
+    void combineEqualsChecksumOfConcatenation() {
+        byte[] data = randomBytes(70_001);
+        for (ChecksumAlgorithm algorithm : ChecksumAlgorithm.values()) {
+            long whole = algorithm.compute(data, 0, data.length);
+            for (int split : new int[]{0, 1, 8, 4096, 65_536, data.length}) {
+                long head = algorithm.compute(data, 0, split);
+                long tail = algorithm.compute(data, split, data.length - split);
+                assertEquals(whole, algorithm.combine(head, tail, data.length - split), algorithm + " split at " + split);
+            }
+        }
+    }
+
+    @Test
+    void encodesBigEndianBase64() {
+        assertEquals("y/Q5Jg==", ChecksumAlgorithm.CRC32.encode(0xCBF43926L));
+        for (ChecksumAlgorithm algorithm : ChecksumAlgorithm.values()) {
+            long checksum = algorithm.compute(CHECK, 0, CHECK.length);
+            assertEquals(checksum, algorithm.decode(algorithm.encode(checksum)).longValue());
+        }
+        // 分块校验和的 "-分块数" 形式不是整对象校验和
+        assertNull(ChecksumAlgorithm.CRC32.decode("y/Q5Jg==-2"));
+        assertNull(ChecksumAlgorithm.CRC64NVME.decode("y/Q5Jg=="));
+    }
+
+    static byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+}
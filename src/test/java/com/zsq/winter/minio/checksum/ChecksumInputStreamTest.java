@@ -0,0 +1,53 @@
+package com.zsq.winter.minio.checksum;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChecksumInputStreamTest {
+
+    private static final byte[] DATA = ChecksumAlgorithmTest.randomBytes(50_000);
+
+    private static final ChecksumAlgorithm ALGORITHM = ChecksumAlgorithm.CRC32C;
+
+    @Test
+    void skippedBytesAreStillVerified() throws IOException {
+        long expected = ALGORITHM.compute(DATA, 0, DATA.length);
+        try (InputStream in = new ChecksumInputStream(new ByteArrayInputStream(DATA), ALGORITHM, expected)) {
+            assertEquals(20_000, in.skip(20_000));
+            drain(in);
+        }
+
+        byte[] corrupted = DATA.clone();
+        corrupted[100] ^= (byte) 0xFF;
+        InputStream in = new ChecksumInputStream(new ByteArrayInputStream(corrupted), ALGORITHM, expected);
+        assertEquals(20_000, in.skip(20_000));
+        assertThrows(IOException.class, () -> drain(in));
+    }
+
+    @Test
+    void replayAfterResetIsNotCountedTwice() throws IOException {
+        ChecksumInputStream in = new ChecksumInputStream(new ByteArrayInputStream(DATA), ALGORITHM);
+        byte[] buffer = new byte[1000];
+        in.read(buffer, 0, buffer.length);
+        in.mark(DATA.length);
+        in.read(buffer, 0, buffer.length);
+        in.reset();
+        drain(in);
+
+        assertEquals(DATA.length, in.getLength());
+        assertEquals(ALGORITHM.compute(DATA, 0, DATA.length), in.getValue());
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[4096];
+        while (in.read(buffer) >= 0) {
+            // 读到末尾时校验
+        }
+    }
+}
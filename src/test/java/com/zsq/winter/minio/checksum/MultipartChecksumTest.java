@@ -0,0 +1,91 @@
+package com.zsq.winter.minio.checksum;
+
+import com.amazonaws.util.IOUtils;
+import com.zsq.winter.minio.TestStubs;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import com.zsq.winter.minio.stub.S3StubServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MultipartChecksumTest {
+
+    private static final int PART_SIZE = 64 * 1024;
+
+    private static final byte[] DATA = ChecksumAlgorithmTest.randomBytes(PART_SIZE * 2 + 1234);
+
+    private S3StubServer server;
+
+    private AmazonS3Template template;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new S3StubServer().start().createBucket(TestStubs.BUCKET).setMinimumPartSize(1);
+        AmazonS3Properties properties = TestStubs.properties(this.server);
+        properties.getChecksum().setAlgorithm(ChecksumAlgorithm.CRC64NVME);
+        properties.getChecksum().setVerify(true);
+        this.template = new AmazonS3Template(properties, TestStubs.client(properties));
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.server.close();
+    }
+
+    @Test
+    void combinedChecksumIsAcceptedAndVerifiedOnDownload() throws IOException {
+        this.upload("key");
+
+        try (InputStream in = this.template.getObjectInputStream(TestStubs.BUCKET, "key")) {
+            assertArrayEquals(DATA, IOUtils.toByteArray(in));
+        }
+
+        this.server.corruptObject(TestStubs.BUCKET, "key", PART_SIZE + 1);
+        try (InputStream in = this.template.getObjectInputStream(TestStubs.BUCKET, "key")) {
+            assertThrows(IOException.class, () -> IOUtils.toByteArray(in));
+        }
+    }
+
+    @Test
+    void missingPartChecksumCombinesToNull() {
+        MultipartChecksum multipartChecksum = new MultipartChecksum(ChecksumAlgorithm.CRC32);
+        multipartChecksum.put(1, ChecksumAlgorithm.CRC32.compute(DATA, 0, PART_SIZE), PART_SIZE);
+        multipartChecksum.put(2, ChecksumAlgorithm.CRC32.compute(DATA, PART_SIZE, DATA.length - PART_SIZE), DATA.length - PART_SIZE);
+
+        assertEquals(ChecksumAlgorithm.CRC32.compute(DATA, 0, DATA.length), multipartChecksum.combine(Arrays.asList(1, 2)).longValue());
+        multipartChecksum.remove(2);
+        assertNull(multipartChecksum.combine(Arrays.asList(1, 2)));
+    }
+
+    @Test
+    void becomesIdleWithoutNewParts() {
+        MultipartChecksum multipartChecksum = new MultipartChecksum(ChecksumAlgorithm.CRC32);
+        long now = System.currentTimeMillis();
+
+        assertFalse(multipartChecksum.isIdle(60_000, now));
+        assertTrue(multipartChecksum.isIdle(60_000, now + 120_000));
+    }
+
+    private void upload(String key) {
+        String uploadId = this.template.initiateMultipartUpload(TestStubs.BUCKET, key, "application/octet-stream").getUploadId();
+        int partNumber = 1;
+        for (int offset = 0; offset < DATA.length; offset += PART_SIZE) {
+            int length = Math.min(PART_SIZE, DATA.length - offset);
+            this.template.uploadPart(TestStubs.BUCKET, uploadId, key, null, partNumber++, length, new ByteArrayInputStream(DATA, offset, length));
+        }
+        this.template.completeMultipartUpload(TestStubs.BUCKET, key, uploadId);
+    }
+}
@@ -0,0 +1,135 @@
+package com.zsq.winter.minio.cluster;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.zsq.winter.minio.TestStubs;
+import com.zsq.winter.minio.config.AmazonS3ClientFactory;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.resilience.ResilienceInterceptor;
+import com.zsq.winter.minio.stub.FaultRule;
+import com.zsq.winter.minio.stub.S3StubServer;
+import com.zsq.winter.minio.support.AmazonS3Interceptor;
+import com.zsq.winter.minio.support.AmazonS3InterceptorChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class S3ClusterRouterTest {
+
+    private S3StubServer preferred;
+
+    private S3StubServer other;
+
+    private AmazonS3Properties properties;
+
+    private S3ClusterRouter router;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.preferred = new S3StubServer().start().createBucket(TestStubs.BUCKET);
+        this.other = new S3StubServer().start().createBucket(TestStubs.BUCKET);
+        this.preferred.putObject(TestStubs.BUCKET, "key", new byte[]{1});
+        this.other.putObject(TestStubs.BUCKET, "key", new byte[]{1});
+        this.properties = TestStubs.properties(this.preferred);
+        this.properties.getCluster().setProbeInterval(Duration.ofHours(1));
+        // 只验证避开节点，不让连续失败摘除节点
+        this.properties.getCluster().setFailureThreshold(100);
+        AmazonS3Properties.Resilience resilience = this.properties.getResilience();
+        resilience.setEnabled(true);
+        resilience.setBaseDelay(Duration.ofMillis(1));
+        resilience.setMaxDelay(Duration.ofMillis(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (this.router != null) {
+            this.router.close();
+        }
+        this.preferred.close();
+        this.other.close();
+    }
+
+    @Test
+    void selectsCheaperNodeAndSkipsExcluded() {
+        AmazonS3 amazonS3 = this.cluster(true);
+        S3ClusterNode first = this.router.getNodes().get(0);
+        S3ClusterNode second = this.router.getNodes().get(1);
+
+        assertTrue(amazonS3.doesObjectExist(TestStubs.BUCKET, "key"));
+
+        assertEquals(1, this.preferred.getRequestCount("HeadObject"));
+        assertEquals(0, this.other.getRequestCount("HeadObject"));
+        assertEquals(first, this.router.select(null));
+        assertEquals(second, this.router.select(first));
+    }
+
+    @Test
+    void failsOverToAnotherNodeWithinCall() {
+        this.preferred.addFault(FaultRule.failNext("HeadObject", 1, 500, "InternalError"));
+        AmazonS3 amazonS3 = this.cluster(true);
+
+        assertTrue(amazonS3.doesObjectExist(TestStubs.BUCKET, "key"));
+
+        assertEquals(1, this.preferred.getRequestCount("HeadObject"));
+        assertEquals(1, this.other.getRequestCount("HeadObject"));
+    }
+
+    @Test
+    void retryAvoidsFailedNode() {
+        this.preferred.addFault(FaultRule.failNext("HeadObject", 1, 500, "InternalError"));
+        this.properties.getResilience().setMaxAttempts(2);
+        AmazonS3 amazonS3 = this.cluster(false, new ResilienceInterceptor(this.properties.getResilience()));
+
+        assertTrue(amazonS3.doesObjectExist(TestStubs.BUCKET, "key"));
+
+        assertEquals(1, this.preferred.getRequestCount("HeadObject"));
+        assertEquals(1, this.other.getRequestCount("HeadObject"));
+    }
+
+    @Test
+    void failedNodeIsNotAvoidedByLaterCalls() {
+        this.preferred.addFault(FaultRule.failNext("HeadObject", 1, 500, "InternalError"));
+        this.properties.getResilience().setMaxAttempts(1);
+        AmazonS3 amazonS3 = this.cluster(false, new ResilienceInterceptor(this.properties.getResilience()));
+
+        AmazonS3Exception e = assertThrows(AmazonS3Exception.class, () -> amazonS3.getObjectMetadata(TestStubs.BUCKET, "key"));
+        assertEquals(500, e.getStatusCode());
+
+        // 上一次调用失败的节点只在该调用的重试中避开
+        assertTrue(amazonS3.doesObjectExist(TestStubs.BUCKET, "key"));
+        assertEquals(2, this.preferred.getRequestCount("HeadObject"));
+        assertEquals(0, this.other.getRequestCount("HeadObject"));
+    }
+
+    /**
+     * 两个节点的集群客户端，第二个节点有大量在途请求，选择时总是优先第一个
+     */
+    private AmazonS3 cluster(boolean failover, AmazonS3Interceptor... interceptors) {
+        List<S3ClusterNode> nodes = Arrays.asList(this.node(this.preferred), this.node(this.other));
+        for (int i = 0; i < 1000; i++) {
+            nodes.get(1).acquire();
+        }
+        this.router = new S3ClusterRouter(nodes, this.properties.getCluster(), failover);
+        AmazonS3 amazonS3 = (AmazonS3) Proxy.newProxyInstance(AmazonS3.class.getClassLoader(), new Class<?>[]{AmazonS3.class}, this.router);
+        return AmazonS3InterceptorChain.wrap(amazonS3, Arrays.asList(interceptors));
+    }
+
+    /**
+     * 节点客户端与集群客户端一样不在 SDK 内重试
+     */
+    private S3ClusterNode node(S3StubServer server) {
+        AmazonS3Properties nodeProperties = TestStubs.properties(server);
+        nodeProperties.getResilience().setEnabled(true);
+        return new S3ClusterNode(server.getEndpoint(), AmazonS3ClientFactory.create(server.getEndpoint(), nodeProperties));
+    }
+}
@@ -0,0 +1,82 @@
+package com.zsq.winter.minio.compression;
+
+import com.amazonaws.util.IOUtils;
+import com.zsq.winter.minio.TestStubs;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import com.zsq.winter.minio.stub.S3StubServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ObjectCompressionTest {
+
+    private S3StubServer server;
+
+    private AmazonS3Template template;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new S3StubServer().start().createBucket(TestStubs.BUCKET);
+        AmazonS3Properties properties = TestStubs.properties(this.server);
+        AmazonS3Properties.Compression compression = properties.getCompression();
+        compression.setEnabled(true);
+        compression.setPartSize(DataSize.ofMegabytes(5));
+        compression.setRules(Collections.singletonList(new AmazonS3Properties.CompressionRule()));
+        this.template = new AmazonS3Template(properties, TestStubs.client(properties));
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.server.close();
+    }
+
+    @Test
+    void smallObjectIsCompressedInOneRequest() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 200; i++) {
+            json.append("{\"id\":").append(i).append(",\"name\":\"item\"},");
+        }
+        byte[] data = json.append("{}]").toString().getBytes(StandardCharsets.UTF_8);
+
+        this.put("small.json", data);
+
+        assertEquals(1, this.server.getRequestCount("PutObject"));
+        assertTrue(this.server.getObject(TestStubs.BUCKET, "small.json").length < data.length / 4);
+        assertArrayEquals(data, this.get("small.json"));
+    }
+
+    @Test
+    void incompressibleObjectLargerThanPartIsUploadedInParts() throws IOException {
+        byte[] data = new byte[6 * 1024 * 1024];
+        new Random(1).nextBytes(data);
+
+        this.put("large.bin", data);
+
+        assertEquals(0, this.server.getRequestCount("PutObject"));
+        assertEquals(2, this.server.getRequestCount("UploadPart"));
+        assertArrayEquals(data, this.get("large.bin"));
+    }
+
+    private void put(String key, byte[] data) throws IOException {
+        this.template.putObject(TestStubs.BUCKET, key, "application/octet-stream", new ByteArrayInputStream(data), data.length, null);
+    }
+
+    private byte[] get(String key) throws IOException {
+        try (InputStream in = this.template.getObjectInputStream(TestStubs.BUCKET, key)) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.zsq.winter.minio.config;
+
+import com.zsq.winter.minio.reactive.ReactiveAmazonS3Template;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import com.zsq.winter.minio.stub.S3StubServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AmazonS3AutoConfigurationTest {
+
+    private S3StubServer server;
+
+    private ApplicationContextRunner contextRunner;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new S3StubServer().start();
+        this.contextRunner = new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(AmazonS3AutoConfiguration.class))
+                .withPropertyValues(
+                        "winter-aws.endpoint=" + this.server.getEndpoint(),
+                        "winter-aws.access-key=" + this.server.getAccessKey(),
+                        "winter-aws.secret-key=" + this.server.getSecretKey(),
+                        "winter-aws.bucket=test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.server.close();
+    }
+
+    @Test
+    void registersReactiveTemplateAlongsideClient() {
+        this.contextRunner.run(context -> {
+            assertThat(context).hasSingleBean(AmazonS3Template.class);
+            assertThat(context).hasSingleBean(ReactiveAmazonS3Template.class);
+            assertThat(context).hasBean("amazonS3ReactiveScheduler");
+        });
+    }
+
+    @Test
+    void disposesReactiveSchedulerOnClose() {
+        AtomicReference<Scheduler> scheduler = new AtomicReference<>();
+        this.contextRunner.run(context -> scheduler.set(context.getBean("amazonS3ReactiveScheduler", Scheduler.class)));
+
+        assertThat(scheduler.get().isDisposed()).isTrue();
+    }
+
+    @Test
+    void backsOffWhenDisabled() {
+        this.contextRunner.withPropertyValues("winter-aws.enabled=false").run(context -> {
+            assertThat(context).doesNotHaveBean(AmazonS3Template.class);
+            assertThat(context).doesNotHaveBean(ReactiveAmazonS3Template.class);
+        });
+    }
+}
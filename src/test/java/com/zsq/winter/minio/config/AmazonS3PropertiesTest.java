@@ -0,0 +1,57 @@
+package com.zsq.winter.minio.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AmazonS3PropertiesTest {
+
+    @Test
+    void clientInheritsAllDefaultsAndOverridesItsOwnFields() {
+        AmazonS3Properties defaults = new AmazonS3Properties();
+        defaults.setEndpoints(Arrays.asList("http://node-1:9000", "http://node-2:9000"));
+        defaults.setAccessKey("default-ak");
+        defaults.setSecretKey("default-sk");
+        defaults.setBucket("default-bucket");
+        defaults.setVirtualThreads(true);
+        defaults.setEngine(AmazonS3Properties.EngineType.V2);
+        defaults.getAsync().setCorePoolSize(4);
+        defaults.getPack().setEnabled(true);
+        defaults.getWriteBehind().setEnabled(true);
+        AmazonS3Properties.Client client = new AmazonS3Properties.Client();
+        client.setEndpoint("http://tenant:9000");
+        client.setBucket("tenant-bucket");
+        defaults.getClients().put("tenant", client);
+
+        AmazonS3Properties merged = client.merge(defaults);
+
+        assertEquals("http://tenant:9000", merged.getEndpoint());
+        assertTrue(merged.getEndpoints().isEmpty());
+        assertTrue(merged.getClients().isEmpty());
+        assertEquals("tenant-bucket", merged.getBucket());
+        assertEquals("default-ak", merged.getAccessKey());
+        assertEquals("default-sk", merged.getSecretKey());
+        assertEquals(true, merged.getVirtualThreads());
+        assertEquals(AmazonS3Properties.EngineType.V2, merged.getEngine());
+        assertEquals(4, merged.getAsync().getCorePoolSize());
+        assertEquals(true, merged.getPack().getEnabled());
+        assertEquals(true, merged.getWriteBehind().getEnabled());
+        assertSame(defaults.getCompression(), merged.getCompression());
+        assertEquals(2, defaults.getEndpoints().size());
+    }
+
+    @Test
+    void clientWithoutEndpointUsesFirstClusterNode() {
+        AmazonS3Properties defaults = new AmazonS3Properties();
+        defaults.setEndpoints(Arrays.asList("http://node-1:9000", "http://node-2:9000"));
+
+        AmazonS3Properties merged = new AmazonS3Properties.Client().merge(defaults);
+
+        assertEquals("http://node-1:9000", merged.getEndpoint());
+        assertTrue(merged.getEndpoints().isEmpty());
+    }
+}
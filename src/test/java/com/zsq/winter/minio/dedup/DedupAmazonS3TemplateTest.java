@@ -0,0 +1,93 @@
+package com.zsq.winter.minio.dedup;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.util.IOUtils;
+import com.zsq.winter.minio.TestStubs;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.stub.FaultRule;
+import com.zsq.winter.minio.stub.S3StubServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DedupAmazonS3TemplateTest {
+
+    private static final byte[] SHARED = "shared content".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] OTHER = "other content".getBytes(StandardCharsets.UTF_8);
+
+    private S3StubServer server;
+
+    private AmazonS3Properties properties;
+
+    private AmazonS3 amazonS3;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new S3StubServer().start().createBucket(TestStubs.BUCKET);
+        this.properties = TestStubs.properties(this.server);
+        this.amazonS3 = TestStubs.client(this.properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.server.close();
+    }
+
+    @Test
+    void recoverRestoresHashesAndReferenceCounts() throws IOException {
+        DedupAmazonS3Template writer = new DedupAmazonS3Template(this.properties, this.amazonS3, new InMemoryDedupIndex());
+        String hash = writer.putObject("a", SHARED, "text/plain").getHash();
+        assertTrue(writer.putObject("b", SHARED, "text/plain").isDeduplicated());
+        writer.putObject("c", OTHER, "text/plain");
+        writer.removeObject("c");
+
+        InMemoryDedupIndex index = new InMemoryDedupIndex();
+        DedupAmazonS3Template template = new DedupAmazonS3Template(this.properties, this.amazonS3, index);
+        assertEquals(2, template.recover());
+
+        assertEquals(hash, template.getHash("a"));
+        assertEquals(hash, template.getHash("b"));
+        assertNull(template.getHash("c"));
+        assertEquals(2, template.getReferenceCount(hash));
+        try (InputStream in = template.getObjectInputStream("b")) {
+            assertArrayEquals(SHARED, IOUtils.toByteArray(in));
+        }
+
+        // 恢复的引用计数决定何时删除内容对象
+        template.removeObject("a");
+        assertNotNull(this.server.getObject(TestStubs.BUCKET, ".dedup/blobs/" + hash));
+        template.removeObject("b");
+        assertNull(this.server.getObject(TestStubs.BUCKET, ".dedup/blobs/" + hash));
+        assertFalse(template.doesObjectExist("b"));
+    }
+
+    @Test
+    void backgroundRecoveryFailureIsRetriedOnFirstRead() throws Exception {
+        new DedupAmazonS3Template(this.properties, this.amazonS3, new InMemoryDedupIndex()).putObject("a", SHARED, "text/plain");
+        this.server.addFault(FaultRule.failNext("ListObjects", 1, 503, "SlowDown"));
+
+        DedupAmazonS3Template template = new DedupAmazonS3Template(this.properties, this.amazonS3, new InMemoryDedupIndex());
+        template.recoverInBackground();
+        // 等后台重建收到注入的错误，再由读取重新执行
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (this.server.getRequestCount("ListObjects") == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertNotNull(template.getHash("a"));
+        assertEquals(2, this.server.getRequestCount("ListObjects"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.zsq.winter.minio.engine;
+
+import com.amazonaws.util.IOUtils;
+import com.zsq.winter.minio.TestStubs;
+import com.zsq.winter.minio.stub.S3StubServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class S3AsyncClientEngineTest {
+
+    private S3StubServer server;
+
+    private ExecutorService executor;
+
+    private S3Engine engine;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new S3StubServer().start().createBucket(TestStubs.BUCKET).setMinimumPartSize(1);
+        this.executor = Executors.newCachedThreadPool();
+        this.engine = new S3AsyncClientEngine(S3AsyncClientEngine.createClient(TestStubs.properties(this.server)), this.executor);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        this.engine.close();
+        this.executor.shutdownNow();
+        this.server.close();
+    }
+
+    @Test
+    void putGetHeadListDelete() throws IOException {
+        byte[] data = "hello engine".getBytes(StandardCharsets.UTF_8);
+
+        this.engine.putObject(TestStubs.BUCKET, "dir/a", new ByteArrayInputStream(data), data.length, "text/plain").join();
+
+        assertArrayEquals(data, this.server.getObject(TestStubs.BUCKET, "dir/a"));
+        try (InputStream in = this.engine.getObject(TestStubs.BUCKET, "dir/a").join()) {
+            assertArrayEquals(data, IOUtils.toByteArray(in));
+        }
+        try (InputStream in = this.engine.getObject(TestStubs.BUCKET, "dir/a", 6, 11).join()) {
+            assertArrayEquals("engine".getBytes(StandardCharsets.UTF_8), IOUtils.toByteArray(in));
+        }
+        ObjectInfo info = this.engine.headObject(TestStubs.BUCKET, "dir/a").join();
+        assertEquals(data.length, info.getSize());
+        assertEquals("text/plain", info.getContentType());
+        assertEquals(Arrays.asList("dir/a"), this.engine.listObjects(TestStubs.BUCKET, "dir/").join().stream().map(ObjectInfo::getKey).collect(Collectors.toList()));
+
+        this.engine.deleteObject(TestStubs.BUCKET, "dir/a").join();
+        assertFalse(this.engine.doesObjectExist(TestStubs.BUCKET, "dir/a").join());
+        CompletionException e = assertThrows(CompletionException.class, () -> this.engine.headObject(TestStubs.BUCKET, "dir/a").join());
+        assertTrue(((S3EngineException) e.getCause()).isNotFound());
+    }
+
+    @Test
+    void multipartUpload() throws IOException {
+        byte[] data = new byte[3000];
+        Arrays.fill(data, (byte) 'x');
+        String uploadId = this.engine.createMultipartUpload(TestStubs.BUCKET, "multi", "application/octet-stream").join();
+        List<PartInfo> parts = Arrays.asList(
+                this.engine.uploadPart(TestStubs.BUCKET, "multi", uploadId, 1, new ByteArrayInputStream(data, 0, 2000), 2000).join(),
+                this.engine.uploadPart(TestStubs.BUCKET, "multi", uploadId, 2, new ByteArrayInputStream(data, 2000, 1000), 1000).join());
+
+        this.engine.completeMultipartUpload(TestStubs.BUCKET, "multi", uploadId, parts).join();
+
+        assertArrayEquals(data, this.server.getObject(TestStubs.BUCKET, "multi"));
+    }
+}
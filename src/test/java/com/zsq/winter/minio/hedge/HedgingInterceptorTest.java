@@ -0,0 +1,115 @@
+package com.zsq.winter.minio.hedge;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.util.IOUtils;
+import com.zsq.winter.minio.TestStubs;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.stub.FaultRule;
+import com.zsq.winter.minio.stub.S3StubServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgingInterceptorTest {
+
+    private static final int WARM_UP = 10;
+
+    private static final Duration SLOW = Duration.ofSeconds(1);
+
+    private S3StubServer server;
+
+    private AmazonS3Properties properties;
+
+    private HedgingInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new S3StubServer().start().createBucket(TestStubs.BUCKET);
+        this.server.putObject(TestStubs.BUCKET, "key", new byte[]{1, 2, 3});
+        this.properties = TestStubs.properties(this.server);
+        AmazonS3Properties.Hedge hedge = this.properties.getHedge();
+        hedge.setEnabled(true);
+        hedge.setSampleSize(WARM_UP);
+        hedge.setMinDelay(Duration.ofMillis(20));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (this.interceptor != null) {
+            this.interceptor.close();
+        }
+        this.server.close();
+    }
+
+    @Test
+    void slowReadIsAnsweredByHedgedRequest() throws IOException {
+        this.properties.getHedge().setBudgetPercent(100D);
+        AmazonS3 amazonS3 = this.warmedUpClient();
+        this.server.addFault(FaultRule.delayNext("GetObject", 1, SLOW));
+
+        long start = System.nanoTime();
+        byte[] content = read(amazonS3);
+        long elapsed = System.nanoTime() - start;
+
+        assertArrayEquals(new byte[]{1, 2, 3}, content);
+        assertTrue(elapsed < SLOW.toNanos() / 2, "对冲请求应先返回，实际耗时 " + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms");
+        assertEquals(WARM_UP + 2, this.server.getRequestCount("GetObject"));
+    }
+
+    @Test
+    void noHedgeWithoutBudget() throws IOException {
+        this.properties.getHedge().setBudgetPercent(0D);
+        AmazonS3 amazonS3 = this.warmedUpClient();
+        this.server.addFault(FaultRule.delayNext("GetObject", 1, SLOW));
+
+        long start = System.nanoTime();
+        assertArrayEquals(new byte[]{1, 2, 3}, read(amazonS3));
+
+        assertTrue(System.nanoTime() - start >= SLOW.toNanos());
+        assertEquals(WARM_UP + 1, this.server.getRequestCount("GetObject"));
+    }
+
+    @Test
+    void latencyTrackerKeepsPercentileOfRecentSamples() {
+        LatencyTracker tracker = new LatencyTracker(10, 50);
+        assertEquals(-1, tracker.percentileNanos());
+
+        for (int i = 1; i <= 10; i++) {
+            tracker.record(i);
+        }
+        assertEquals(5, tracker.percentileNanos());
+
+        // 窗口只保留最近 10 个样本
+        for (int i = 101; i <= 110; i++) {
+            tracker.record(i);
+        }
+        assertEquals(105, tracker.percentileNanos());
+    }
+
+    /**
+     * 先发出足够的快速请求，使耗时统计有样本
+     */
+    private AmazonS3 warmedUpClient() throws IOException {
+        this.interceptor = new HedgingInterceptor(this.properties.getHedge());
+        AmazonS3 amazonS3 = TestStubs.client(this.properties, this.interceptor);
+        for (int i = 0; i < WARM_UP; i++) {
+            read(amazonS3);
+        }
+        return amazonS3;
+    }
+
+    private static byte[] read(AmazonS3 amazonS3) throws IOException {
+        try (S3Object object = amazonS3.getObject(TestStubs.BUCKET, "key")) {
+            return IOUtils.toByteArray(object.getObjectContent());
+        }
+    }
+}
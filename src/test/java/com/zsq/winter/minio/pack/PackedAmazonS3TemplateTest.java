@@ -0,0 +1,107 @@
+package com.zsq.winter.minio.pack;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.zsq.winter.minio.TestStubs;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.stub.FaultRule;
+import com.zsq.winter.minio.stub.S3StubServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PackedAmazonS3TemplateTest {
+
+    private S3StubServer server;
+
+    private AmazonS3Properties properties;
+
+    private AmazonS3 amazonS3;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new S3StubServer().start().createBucket(TestStubs.BUCKET);
+        this.properties = TestStubs.properties(this.server);
+        this.properties.getPack().setThreshold(DataSize.ofKilobytes(1));
+        this.properties.getPack().setTargetSize(DataSize.ofKilobytes(4));
+        this.amazonS3 = TestStubs.client(this.properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.server.close();
+    }
+
+    @Test
+    void recoverReplaysManifestsIntoEmptyIndex() throws Exception {
+        try (PackedAmazonS3Template template = new PackedAmazonS3Template(this.properties, this.amazonS3, new InMemoryPackIndex())) {
+            for (int i = 0; i < 20; i++) {
+                template.putObject("small/" + i, padded("v1-" + i), "text/plain");
+            }
+            template.putObject("small/1", padded("v2-1"), "text/plain");
+            template.removeObject("small/2");
+            template.flush().get(10, TimeUnit.SECONDS);
+        }
+
+        InMemoryPackIndex index = new InMemoryPackIndex();
+        try (PackedAmazonS3Template template = new PackedAmazonS3Template(this.properties, this.amazonS3, index)) {
+            assertTrue(template.recover() > 1);
+
+            assertEquals(19, index.size());
+            assertArrayEquals(padded("v1-0"), template.getObject("small/0").get());
+            assertArrayEquals(padded("v2-1"), template.getObject("small/1").get());
+            assertFalse(template.getObject("small/2").isPresent());
+            assertNotNull(template.getPackEntry("small/19"));
+        }
+    }
+
+    @Test
+    void backgroundRecoveryFailureIsRetriedOnFirstRead() throws Exception {
+        try (PackedAmazonS3Template template = new PackedAmazonS3Template(this.properties, this.amazonS3, new InMemoryPackIndex())) {
+            template.putObject("small/key", bytes("value"), "text/plain");
+            template.flush().get(10, TimeUnit.SECONDS);
+        }
+        this.server.addFault(FaultRule.failNext("ListObjects", 1, 503, "SlowDown"));
+
+        InMemoryPackIndex index = new InMemoryPackIndex();
+        try (PackedAmazonS3Template template = new PackedAmazonS3Template(this.properties, this.amazonS3, index)) {
+            template.recoverInBackground();
+            // 等后台重建收到注入的错误，再由读取重新执行
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (this.server.getRequestCount("ListObjects") == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertArrayEquals(bytes("value"), template.getObject("small/key").get());
+            assertEquals(2, this.server.getRequestCount("ListObjects"));
+            assertNull(template.getPackEntry("small/missing"));
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 不超过阈值、但几个就能写满一个打包对象的内容
+     */
+    private static byte[] padded(String value) {
+        byte[] data = new byte[600];
+        Arrays.fill(data, (byte) '.');
+        byte[] head = bytes(value);
+        System.arraycopy(head, 0, data, 0, head.length);
+        return data;
+    }
+}
@@ -0,0 +1,186 @@
+package com.zsq.winter.minio.reactive;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListMultipartUploadsRequest;
+import com.amazonaws.services.s3.model.MultipartUpload;
+import com.zsq.winter.minio.TestStubs;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.stub.FaultRule;
+import com.zsq.winter.minio.stub.S3StubServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReactiveAmazonS3TemplateTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    private S3StubServer server;
+
+    private Scheduler scheduler;
+
+    private AmazonS3 amazonS3;
+
+    private ReactiveAmazonS3Template template;
+
+    private final List<Throwable> droppedErrors = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new S3StubServer().start().createBucket(TestStubs.BUCKET);
+        AmazonS3Properties properties = TestStubs.properties(this.server);
+        this.scheduler = Schedulers.newBoundedElastic(4, 100, "test-reactive");
+        this.amazonS3 = TestStubs.client(properties);
+        this.template = new ReactiveAmazonS3Template(properties, this.amazonS3, this.scheduler);
+        Hooks.onErrorDropped(this.droppedErrors::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Hooks.resetOnErrorDropped();
+        this.scheduler.dispose();
+        this.server.close();
+        assertEquals(Collections.emptyList(), this.droppedErrors);
+    }
+
+    @Test
+    void largeBodyIsUploadedInParts() {
+        byte[] data = randomBytes(12 * CHUNK_SIZE + 123);
+
+        this.template.putObject(TestStubs.BUCKET, "large", "application/octet-stream", chunks(data)).block(TIMEOUT);
+
+        assertEquals(1, this.server.getRequestCount("CreateMultipartUpload"));
+        assertEquals(3, this.server.getRequestCount("UploadPart"));
+        assertEquals(1, this.server.getRequestCount("CompleteMultipartUpload"));
+        assertArrayEquals(data, this.server.getObject(TestStubs.BUCKET, "large"));
+        assertArrayEquals(data, collect(this.template.getObject(TestStubs.BUCKET, "large")));
+        assertArrayEquals(Arrays.copyOfRange(data, 100, 201), collect(this.template.getObject(TestStubs.BUCKET, "large", 100, 200)));
+    }
+
+    @Test
+    void smallBodyIsUploadedInOneRequest() {
+        byte[] data = randomBytes(CHUNK_SIZE / 2);
+
+        this.template.putObject(TestStubs.BUCKET, "small", "application/octet-stream", chunks(data)).block(TIMEOUT);
+
+        assertEquals(1, this.server.getRequestCount("PutObject"));
+        assertEquals(0, this.server.getRequestCount("CreateMultipartUpload"));
+        assertTrue(this.template.doesObjectExist(TestStubs.BUCKET, "small").block(TIMEOUT));
+        this.template.removeObject(TestStubs.BUCKET, "small").block(TIMEOUT);
+        assertFalse(this.template.doesObjectExist(TestStubs.BUCKET, "small").block(TIMEOUT));
+    }
+
+    @Test
+    void failedBodyAbortsMultipartUpload() {
+        byte[] data = randomBytes(6 * CHUNK_SIZE);
+        // 第一个分块开始上传后上游才出错，此时分块上传已经创建
+        Mono<ByteBuffer> failure = Mono.<ByteBuffer>fromRunnable(() -> this.awaitRequest("UploadPart"))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.error(new IllegalStateException("client went away")));
+        Flux<ByteBuffer> body = chunks(data).concatWith(failure);
+
+        assertThrows(IllegalStateException.class,
+                () -> this.template.putObject(TestStubs.BUCKET, "broken", "application/octet-stream", body).block(TIMEOUT));
+
+        assertEquals(1, this.server.getRequestCount("AbortMultipartUpload"));
+        assertEquals(0, this.server.getRequestCount("CompleteMultipartUpload"));
+    }
+
+    @Test
+    void errorBeforeFirstPartIsSentCreatesNoUpload() {
+        byte[] data = randomBytes(6 * CHUNK_SIZE);
+        Flux<ByteBuffer> body = chunks(data).concatWith(Flux.error(new IllegalStateException("client went away")));
+
+        assertThrows(IllegalStateException.class,
+                () -> this.template.putObject(TestStubs.BUCKET, "broken", "application/octet-stream", body).block(TIMEOUT));
+
+        assertEquals(this.server.getRequestCount("CreateMultipartUpload"), this.server.getRequestCount("AbortMultipartUpload"));
+        assertEquals(Collections.emptyList(), this.pendingUploads());
+    }
+
+    @Test
+    void cancelWhileCreatingUploadAbortsItOnceCreated() {
+        this.server.addFault(FaultRule.delayNext("CreateMultipartUpload", 1, Duration.ofMillis(500)));
+        Disposable subscription = this.template.putObject(TestStubs.BUCKET, "cancelled", "application/octet-stream",
+                chunks(randomBytes(12 * CHUNK_SIZE))).subscribe();
+        this.awaitRequest("CreateMultipartUpload");
+
+        subscription.dispose();
+
+        this.awaitRequest("AbortMultipartUpload");
+        assertEquals(Collections.emptyList(), this.pendingUploads());
+        assertEquals(0, this.server.getRequestCount("CompleteMultipartUpload"));
+    }
+
+    @Test
+    void cancelWhileSendingPartAbortsAfterPartEnds() {
+        this.server.addFault(FaultRule.delayNext("UploadPart", 1, Duration.ofMillis(500)));
+        Disposable subscription = this.template.putObject(TestStubs.BUCKET, "cancelled", "application/octet-stream",
+                chunks(randomBytes(12 * CHUNK_SIZE))).subscribe();
+        this.awaitRequest("UploadPart");
+
+        subscription.dispose();
+
+        this.awaitRequest("AbortMultipartUpload");
+        assertEquals(1, this.server.getRequestCount("UploadPart"));
+        assertEquals(Collections.emptyList(), this.pendingUploads());
+    }
+
+    private List<MultipartUpload> pendingUploads() {
+        return this.amazonS3.listMultipartUploads(new ListMultipartUploadsRequest(TestStubs.BUCKET)).getMultipartUploads();
+    }
+
+    private void awaitRequest(String operation) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (this.server.getRequestCount(operation) == 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+
+    private static Flux<ByteBuffer> chunks(byte[] data) {
+        return Flux.range(0, (data.length + CHUNK_SIZE - 1) / CHUNK_SIZE)
+                .map(i -> ByteBuffer.wrap(data, i * CHUNK_SIZE, Math.min(CHUNK_SIZE, data.length - i * CHUNK_SIZE)));
+    }
+
+    private static byte[] collect(Flux<ByteBuffer> body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.doOnNext(buffer -> {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            out.write(bytes, 0, bytes.length);
+        }).blockLast(TIMEOUT);
+        return out.toByteArray();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+}
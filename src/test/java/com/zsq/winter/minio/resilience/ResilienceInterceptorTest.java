@@ -0,0 +1,167 @@
+package com.zsq.winter.minio.resilience;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.util.IOUtils;
+import com.zsq.winter.minio.TestStubs;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.listener.TransferListener;
+import com.zsq.winter.minio.stub.FaultRule;
+import com.zsq.winter.minio.stub.S3StubServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResilienceInterceptorTest {
+
+    private S3StubServer server;
+
+    private AmazonS3Properties properties;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new S3StubServer().start().createBucket(TestStubs.BUCKET);
+        this.server.putObject(TestStubs.BUCKET, "key", new byte[]{1, 2, 3});
+        this.properties = TestStubs.properties(this.server);
+        AmazonS3Properties.Resilience resilience = this.properties.getResilience();
+        resilience.setEnabled(true);
+        resilience.setMaxAttempts(3);
+        resilience.setBaseDelay(Duration.ofMillis(1));
+        resilience.setMaxDelay(Duration.ofMillis(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.server.close();
+    }
+
+    @Test
+    void retriesServerErrorsUntilSuccess() throws IOException {
+        this.server.addFault(FaultRule.failNext("GetObject", 2, 503, "SlowDown"));
+        AmazonS3 amazonS3 = TestStubs.client(this.properties, new ResilienceInterceptor(this.properties.getResilience()));
+
+        try (S3Object object = amazonS3.getObject(TestStubs.BUCKET, "key")) {
+            assertArrayEquals(new byte[]{1, 2, 3}, IOUtils.toByteArray(object.getObjectContent()));
+        }
+        assertEquals(3, this.server.getRequestCount("GetObject"));
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        this.server.addFault(FaultRule.failNext("GetObject", 5, 500, "InternalError"));
+        AmazonS3 amazonS3 = TestStubs.client(this.properties, new ResilienceInterceptor(this.properties.getResilience()));
+
+        AmazonS3Exception e = assertThrows(AmazonS3Exception.class, () -> amazonS3.getObject(TestStubs.BUCKET, "key"));
+
+        assertEquals(500, e.getStatusCode());
+        assertEquals(3, this.server.getRequestCount("GetObject"));
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        AmazonS3 amazonS3 = TestStubs.client(this.properties, new ResilienceInterceptor(this.properties.getResilience()));
+
+        AmazonS3Exception e = assertThrows(AmazonS3Exception.class, () -> amazonS3.getObject(TestStubs.BUCKET, "missing"));
+
+        assertEquals(404, e.getStatusCode());
+        assertEquals(1, this.server.getRequestCount("GetObject"));
+    }
+
+    @Test
+    void retriesNetworkFailuresButNotAbortedCalls() {
+        AtomicInteger retries = new AtomicInteger();
+        TransferListener listener = new TransferListener() {
+            @Override
+            public void retried(String operation, String bucketName, int attempt, long delayMillis, Throwable cause) {
+                retries.incrementAndGet();
+            }
+        };
+        ResilienceInterceptor interceptor = new ResilienceInterceptor(this.properties.getResilience(), listener);
+        AmazonS3 amazonS3 = TestStubs.client(this.properties, interceptor);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(AbortedException.class, () -> amazonS3.getObject(TestStubs.BUCKET, "key"));
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(0, retries.get());
+
+        this.server.close();
+        assertThrows(SdkClientException.class, () -> amazonS3.getObject(TestStubs.BUCKET, "key"));
+        assertEquals(2, retries.get());
+    }
+
+    @Test
+    void circuitBreakerRejectsWithoutCallingServerOnceOpen() {
+        AmazonS3Properties.Resilience resilience = this.properties.getResilience();
+        resilience.setMaxAttempts(1);
+        resilience.setWindowSize(4);
+        resilience.setMinimumCalls(2);
+        resilience.setOpenDuration(Duration.ofMinutes(1));
+        this.server.addFault(FaultRule.failNext("GetObject", 10, 500, "InternalError"));
+        ResilienceInterceptor interceptor = new ResilienceInterceptor(resilience);
+        AmazonS3 amazonS3 = TestStubs.client(this.properties, interceptor);
+
+        assertThrows(AmazonS3Exception.class, () -> amazonS3.getObject(TestStubs.BUCKET, "key"));
+        assertThrows(AmazonS3Exception.class, () -> amazonS3.getObject(TestStubs.BUCKET, "key"));
+        assertEquals(CircuitBreaker.State.OPEN, interceptor.getCircuitBreaker().getState());
+
+        assertThrows(S3RequestRejectedException.class, () -> amazonS3.getObject(TestStubs.BUCKET, "key"));
+        assertEquals(2, this.server.getRequestCount("GetObject"));
+    }
+
+    @Test
+    void interruptedWaitReturnsHalfOpenPermit() throws InterruptedException {
+        AmazonS3Properties.Resilience resilience = this.properties.getResilience();
+        resilience.setMaxAttempts(1);
+        resilience.setWindowSize(4);
+        resilience.setMinimumCalls(2);
+        resilience.setOpenDuration(Duration.ofMillis(100));
+        resilience.setHalfOpenCalls(1);
+        // 两次失败用完令牌，之后的请求需要等待限流
+        resilience.setRequestsPerSecond(0.1);
+        resilience.setBurst(2);
+        this.server.addFault(FaultRule.failNext("GetObject", 2, 500, "InternalError"));
+        ResilienceInterceptor interceptor = new ResilienceInterceptor(resilience);
+        AmazonS3 amazonS3 = TestStubs.client(this.properties, interceptor);
+        assertThrows(AmazonS3Exception.class, () -> amazonS3.getObject(TestStubs.BUCKET, "key"));
+        assertThrows(AmazonS3Exception.class, () -> amazonS3.getObject(TestStubs.BUCKET, "key"));
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(Exception.class, () -> amazonS3.getObject(TestStubs.BUCKET, "key"));
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertTrue(interceptor.getCircuitBreaker().tryAcquire());
+        assertEquals(2, this.server.getRequestCount("GetObject"));
+    }
+
+    @Test
+    void copiesForOtherClientsHaveTheirOwnCircuitBreaker() {
+        ResilienceInterceptor interceptor = new ResilienceInterceptor(this.properties.getResilience());
+
+        ResilienceInterceptor copy = (ResilienceInterceptor) interceptor.forClient();
+
+        assertEquals(CircuitBreaker.State.CLOSED, copy.getCircuitBreaker().getState());
+        assertNotSame(interceptor.getCircuitBreaker(), copy.getCircuitBreaker());
+        assertNotSame(interceptor.getConcurrencyLimiter(), copy.getConcurrencyLimiter());
+    }
+}
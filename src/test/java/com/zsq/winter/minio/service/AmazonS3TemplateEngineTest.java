@@ -0,0 +1,137 @@
+package com.zsq.winter.minio.service;
+
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.PartSummary;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.amazonaws.util.IOUtils;
+import com.zsq.winter.minio.TestStubs;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.engine.S3AsyncClientEngine;
+import com.zsq.winter.minio.engine.S3Engine;
+import com.zsq.winter.minio.stub.S3StubServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AmazonS3TemplateEngineTest {
+
+    private S3StubServer server;
+
+    private ExecutorService executor;
+
+    private S3Engine engine;
+
+    private final AtomicInteger v1Calls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new S3StubServer().start().createBucket(TestStubs.BUCKET).setMinimumPartSize(1);
+        this.executor = Executors.newCachedThreadPool();
+        this.engine = new S3AsyncClientEngine(S3AsyncClientEngine.createClient(TestStubs.properties(this.server)), this.executor);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        this.engine.close();
+        this.executor.shutdownNow();
+        this.server.close();
+    }
+
+    private AmazonS3Template template(AmazonS3Properties properties) {
+        return new AmazonS3Template(properties, TestStubs.client(properties, invocation -> {
+            this.v1Calls.incrementAndGet();
+            return invocation.proceed();
+        }), this.engine);
+    }
+
+    @Test
+    void objectOperationsGoThroughEngine() throws IOException {
+        AmazonS3Template template = this.template(TestStubs.properties(this.server));
+        byte[] data = "hello template".getBytes(StandardCharsets.UTF_8);
+
+        template.putObject(TestStubs.BUCKET, "dir/a", "text/plain", new ByteArrayInputStream(data), data.length, null);
+        template.copyObject(TestStubs.BUCKET, "dir/a", TestStubs.BUCKET, "dir/b");
+
+        assertArrayEquals(data, IOUtils.toByteArray(template.getObjectInputStream(TestStubs.BUCKET, "dir/b")));
+        assertArrayEquals("template".getBytes(StandardCharsets.UTF_8), IOUtils.toByteArray(template.getObjectInputStream(TestStubs.BUCKET, "dir/a", 6, 13)));
+        assertEquals(data.length, template.getObjectSize(TestStubs.BUCKET, "dir/a"));
+        assertEquals("text/plain", template.getObjectMetadata(TestStubs.BUCKET, "dir/a").getContentType());
+        assertEquals(Arrays.asList("dir/a", "dir/b"), template.getAllObjectsByPrefix(TestStubs.BUCKET, "dir/", null, null).stream()
+                .map(S3ObjectSummary::getKey).collect(Collectors.toList()));
+        assertEquals(1, template.getAllObjectsByPrefix(TestStubs.BUCKET, "dir/", null, 1).size());
+
+        template.removeObject(TestStubs.BUCKET, "dir/a");
+        template.removeObjects(TestStubs.BUCKET, Collections.singletonList("dir/b"));
+        assertFalse(template.doesObjectExist(TestStubs.BUCKET, "dir/a"));
+        assertFalse(template.doesObjectExist(TestStubs.BUCKET, "dir/b"));
+        AmazonS3Exception e = assertThrows(AmazonS3Exception.class, () -> template.getObjectMetadata(TestStubs.BUCKET, "dir/a"));
+        assertEquals(404, e.getStatusCode());
+
+        assertEquals(0, this.v1Calls.get());
+    }
+
+    @Test
+    void multipartUploadGoesThroughEngine() throws IOException {
+        AmazonS3Template template = this.template(TestStubs.properties(this.server));
+        byte[] data = new byte[3000];
+        Arrays.fill(data, (byte) 'x');
+
+        InitiateMultipartUploadResult upload = template.initiateMultipartUpload(TestStubs.BUCKET, "multi", "application/octet-stream");
+        List<PartSummary> parts = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            UploadPartResult result = template.uploadPart(TestStubs.BUCKET, upload.getUploadId(), "multi", null, i + 1, 1500,
+                    new ByteArrayInputStream(data, i * 1500, 1500));
+            PartSummary part = new PartSummary();
+            part.setPartNumber(result.getPartNumber());
+            part.setETag(result.getETag());
+            parts.add(part);
+        }
+        template.completeMultipartUpload(TestStubs.BUCKET, "multi", upload.getUploadId(), parts);
+
+        assertArrayEquals(data, this.server.getObject(TestStubs.BUCKET, "multi"));
+        assertEquals(0, this.v1Calls.get());
+    }
+
+    @Test
+    void compressedObjectIsWrittenByClientAndReadThroughEngine() throws IOException {
+        AmazonS3Properties properties = TestStubs.properties(this.server);
+        properties.getCompression().setEnabled(true);
+        properties.getCompression().setRules(Collections.singletonList(new AmazonS3Properties.CompressionRule()));
+        AmazonS3Template template = this.template(properties);
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 200; i++) {
+            json.append("{\"id\":").append(i).append("},");
+        }
+        byte[] data = json.append("{}]").toString().getBytes(StandardCharsets.UTF_8);
+
+        template.putObject(TestStubs.BUCKET, "c.json", "application/json", new ByteArrayInputStream(data), data.length, null);
+        int uploadCalls = this.v1Calls.get();
+
+        assertTrue(uploadCalls > 0);
+        try (InputStream in = template.getObjectInputStream(TestStubs.BUCKET, "c.json")) {
+            assertArrayEquals(data, IOUtils.toByteArray(in));
+        }
+        assertEquals(uploadCalls, this.v1Calls.get());
+    }
+}
@@ -0,0 +1,90 @@
+package com.zsq.winter.minio.service;
+
+import com.zsq.winter.minio.TestStubs;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.stub.S3StubServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AmazonS3TemplateTest {
+
+    private static final int OBJECTS = 2500;
+
+    private S3StubServer server;
+
+    private AmazonS3Template template;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new S3StubServer().start().createBucket(TestStubs.BUCKET);
+        for (int i = 0; i < OBJECTS; i++) {
+            this.server.putObject(TestStubs.BUCKET, key(i), new byte[0]);
+        }
+        AmazonS3Properties properties = TestStubs.properties(this.server);
+        this.template = new AmazonS3Template(properties, TestStubs.client(properties));
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.server.close();
+    }
+
+    @Test
+    void existsAllPagesThroughDenseDirectory() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            names.add(key(i));
+        }
+        names.add("dir/01999-missing");
+
+        Map<String, Boolean> result = this.template.existsAll(names);
+
+        assertEquals(new ArrayList<>(names), new ArrayList<>(result.keySet()));
+        for (int i = 0; i < 2000; i++) {
+            assertEquals(true, result.get(key(i)));
+        }
+        assertEquals(false, result.get("dir/01999-missing"));
+        // 两页列举覆盖前 2000 个键，剩下的一个键 HEAD 比再列举一页划算
+        assertEquals(2, this.server.getRequestCount("ListObjectsV2"));
+        assertEquals(1, this.server.getRequestCount("HeadObject"));
+    }
+
+    @Test
+    void existsAllJumpsOverGapBetweenKeys() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            names.add(key(i));
+            names.add(key(2000 + i));
+        }
+        names.add("dir/00010-missing");
+
+        Map<String, Boolean> result = this.template.existsAll(names);
+
+        assertEquals(100, result.values().stream().filter(Boolean::booleanValue).count());
+        assertEquals(false, result.get("dir/00010-missing"));
+        assertEquals(2, this.server.getRequestCount("ListObjectsV2"));
+        assertEquals(0, this.server.getRequestCount("HeadObject"));
+    }
+
+    @Test
+    void existsAllHeadsScatteredKeys() {
+        Map<String, Boolean> result = this.template.existsAll(Arrays.asList(key(7), "a/x", "b/y", key(42)));
+
+        assertEquals(Arrays.asList(true, false, false, true), new ArrayList<>(result.values()));
+        assertEquals(0, this.server.getRequestCount("ListObjectsV2"));
+        assertEquals(4, this.server.getRequestCount("HeadObject"));
+    }
+
+    private static String key(int i) {
+        return String.format("dir/%05d", i);
+    }
+}
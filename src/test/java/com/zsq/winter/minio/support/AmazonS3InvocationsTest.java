@@ -0,0 +1,35 @@
+package com.zsq.winter.minio.support;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AmazonS3InvocationsTest {
+
+    @Test
+    void serverErrorsAndNetworkFailuresAreServerFailures() {
+        assertTrue(AmazonS3Invocations.isServerFailure(serviceException(503)));
+        assertTrue(AmazonS3Invocations.isServerFailure(new SdkClientException("Unable to execute HTTP request", new SocketTimeoutException())));
+    }
+
+    @Test
+    void callerSideErrorsAreNotServerFailures() {
+        assertFalse(AmazonS3Invocations.isServerFailure(serviceException(404)));
+        assertFalse(AmazonS3Invocations.isServerFailure(new AbortedException()));
+        assertFalse(AmazonS3Invocations.isServerFailure(new AbortedException("cancelled", new SocketTimeoutException())));
+        assertFalse(AmazonS3Invocations.isServerFailure(new SdkClientException("The bucket name parameter must be specified")));
+        assertFalse(AmazonS3Invocations.isServerFailure(new IllegalArgumentException()));
+    }
+
+    private static AmazonServiceException serviceException(int statusCode) {
+        AmazonServiceException e = new AmazonServiceException("error");
+        e.setStatusCode(statusCode);
+        return e;
+    }
+}
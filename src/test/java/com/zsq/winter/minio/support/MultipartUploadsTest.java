@@ -0,0 +1,98 @@
+package com.zsq.winter.minio.support;
+
+import com.amazonaws.services.s3.model.PartSummary;
+import com.zsq.winter.minio.TestStubs;
+import com.zsq.winter.minio.config.AmazonS3Properties;
+import com.zsq.winter.minio.listener.TransferListener;
+import com.zsq.winter.minio.service.AmazonS3Template;
+import com.zsq.winter.minio.stub.S3StubServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MultipartUploadsTest {
+
+    private S3StubServer server;
+
+    private ExecutorService executor;
+
+    private AmazonS3Template template;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = new S3StubServer().start().createBucket(TestStubs.BUCKET).setMinimumPartSize(1);
+        this.executor = Executors.newFixedThreadPool(2);
+        AmazonS3Properties properties = TestStubs.properties(this.server);
+        this.template = new AmazonS3Template(properties, TestStubs.client(properties));
+        this.template.setTransferListener(new TransferListener() {
+            @Override
+            public void transferFailed(String bucketName, String key, String uploadId, Throwable error) {
+                MultipartUploadsTest.this.failure.set(error);
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.executor.shutdownNow();
+        this.server.close();
+    }
+
+    @Test
+    void partSizeKeepsPartCountWithinLimit() {
+        assertEquals(5, MultipartUploads.partSize(100, 5));
+        assertEquals(3, MultipartUploads.partSize(2L * MultipartUploads.MAX_PARTS + 1, 1));
+    }
+
+    @Test
+    void completesWhenAllPartsSucceed() {
+        String uploadId = this.template.initiateMultipartUpload(TestStubs.BUCKET, "ok", "text/plain").getUploadId();
+        List<CompletableFuture<PartSummary>> parts = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            int partNumber = i;
+            parts.add(CompletableFuture.supplyAsync(() -> MultipartUploads.partSummary(partNumber,
+                    this.template.uploadPart(TestStubs.BUCKET, uploadId, "ok", null, partNumber, 1, new ByteArrayInputStream(new byte[]{(byte) ('0' + partNumber)}))),
+                    this.executor));
+        }
+
+        MultipartUploads.completeOrAbort(this.template, TestStubs.BUCKET, "ok", uploadId, parts, this.executor).join();
+
+        assertArrayEquals(new byte[]{'1', '2'}, this.server.getObject(TestStubs.BUCKET, "ok"));
+        assertEquals(0, this.server.getRequestCount("AbortMultipartUpload"));
+    }
+
+    @Test
+    void abortsWhenAPartFails() {
+        String uploadId = this.template.initiateMultipartUpload(TestStubs.BUCKET, "failed", "text/plain").getUploadId();
+        IllegalStateException partError = new IllegalStateException("part failed");
+        CompletableFuture<PartSummary> failed = new CompletableFuture<>();
+        failed.completeExceptionally(partError);
+
+        CompletionException e = assertThrows(CompletionException.class, () -> MultipartUploads.completeOrAbort(
+                this.template, TestStubs.BUCKET, "failed", uploadId, Arrays.asList(failed), this.executor).join());
+
+        assertSame(partError, e.getCause());
+        // 出错后的取消带上失败原因，监听器不会当作主动取消
+        assertSame(partError, this.failure.get());
+        assertEquals(1, this.server.getRequestCount("AbortMultipartUpload"));
+        assertEquals(0, this.server.getRequestCount("CompleteMultipartUpload"));
+    }
+}
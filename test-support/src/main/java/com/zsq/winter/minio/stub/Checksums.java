@@ -0,0 +1,70 @@
+package com.zsq.winter.minio.stub;
+
+import java.util.Base64;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+/**
+ * S3 支持的 CRC 校验和（x-amz-checksum-crc32、crc32c、crc64nvme），值为大端字节序的 Base64
+ */
+final class Checksums {
+
+    static final String[] ALGORITHMS = {"CRC32", "CRC32C", "CRC64NVME"};
+
+    private static final long[] CRC32C_TABLE = table(0x82F63B78L);
+
+    private static final long[] CRC64NVME_TABLE = table(0x9A6C9329AC4BC9B5L);
+
+    private Checksums() {
+    }
+
+    static String header(String algorithm) {
+        return "x-amz-checksum-" + algorithm.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return 不支持的算法返回 null
+     */
+    static String compute(String algorithm, byte[] data) {
+        switch (algorithm.toUpperCase(Locale.ROOT)) {
+            case "CRC32":
+                CRC32 crc32 = new CRC32();
+                crc32.update(data, 0, data.length);
+                return encode(crc32.getValue(), 4);
+            case "CRC32C":
+                return encode(crc(CRC32C_TABLE, 0xFFFFFFFFL, data), 4);
+            case "CRC64NVME":
+                return encode(crc(CRC64NVME_TABLE, -1L, data), 8);
+            default:
+                return null;
+        }
+    }
+
+    private static long crc(long[] table, long mask, byte[] data) {
+        long c = mask;
+        for (byte b : data) {
+            c = (c >>> 8) ^ table[(int) ((c ^ b) & 0xFF)];
+        }
+        return ~c & mask;
+    }
+
+    private static long[] table(long polynomial) {
+        long[] table = new long[256];
+        for (int i = 0; i < 256; i++) {
+            long c = i;
+            for (int bit = 0; bit < 8; bit++) {
+                c = (c & 1) != 0 ? (c >>> 1) ^ polynomial : c >>> 1;
+            }
+            table[i] = c;
+        }
+        return table;
+    }
+
+    private static String encode(long value, int bytes) {
+        byte[] encoded = new byte[bytes];
+        for (int i = 0; i < bytes; i++) {
+            encoded[i] = (byte) (value >>> (8 * (bytes - 1 - i)));
+        }
+        return Base64.getEncoder().encodeToString(encoded);
+    }
+}
@@ -0,0 +1,131 @@
+package com.zsq.winter.minio.stub;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 故障注入规则：按操作名（S3 API 名称，如 PutObject、GetObject、UploadPart，null 表示所有操作）匹配请求，
+ * 命中后先延迟，再返回指定的错误响应（status 为 0 时只延迟，请求照常处理）
+ */
+public final class FaultRule {
+
+    private final String operation;
+
+    private final double probability;
+
+    /**
+     * 剩余命中次数，小于 0 表示不限
+     */
+    private final AtomicInteger remaining;
+
+    private final long delayNanos;
+
+    private final int status;
+
+    private final String code;
+
+    private FaultRule(String operation, double probability, int times, long delayNanos, int status, String code) {
+        this.operation = operation;
+        this.probability = probability;
+        this.remaining = new AtomicInteger(times);
+        this.delayNanos = delayNanos;
+        this.status = status;
+        this.code = code;
+    }
+
+    /**
+     * 接下来的 times 次请求返回错误
+     *
+     * @param operation 操作名，null 表示所有操作
+     * @param times     次数
+     * @param status    HTTP 状态码
+     * @param code      S3 错误码，如 InternalError、SlowDown
+     * @return {@link FaultRule}
+     */
+    public static FaultRule failNext(String operation, int times, int status, String code) {
+        return new FaultRule(operation, 1, times, 0, status, code);
+    }
+
+    /**
+     * 按概率返回错误
+     *
+     * @param operation   操作名，null 表示所有操作
+     * @param probability 命中概率，0 ~ 1
+     * @param status      HTTP 状态码
+     * @param code        S3 错误码
+     * @return {@link FaultRule}
+     */
+    public static FaultRule failRandomly(String operation, double probability, int status, String code) {
+        return new FaultRule(operation, probability, -1, 0, status, code);
+    }
+
+    /**
+     * 按概率返回 503 SlowDown，模拟服务端限流
+     *
+     * @param operation   操作名，null 表示所有操作
+     * @param probability 命中概率，0 ~ 1
+     * @return {@link FaultRule}
+     */
+    public static FaultRule slowDown(String operation, double probability) {
+        return failRandomly(operation, probability, 503, "SlowDown");
+    }
+
+    /**
+     * 按概率延迟响应，请求照常处理，模拟慢节点或长尾
+     *
+     * @param operation   操作名，null 表示所有操作
+     * @param probability 命中概率，0 ~ 1
+     * @param delay       延迟时间
+     * @return {@link FaultRule}
+     */
+    public static FaultRule delay(String operation, double probability, Duration delay) {
+        return new FaultRule(operation, probability, -1, delay.toNanos(), 0, null);
+    }
+
+    /**
+     * 接下来的 times 次请求延迟响应，请求照常处理，用于构造确定的长尾请求
+     *
+     * @param operation 操作名，null 表示所有操作
+     * @param times     次数
+     * @param delay     延迟时间
+     * @return {@link FaultRule}
+     */
+    public static FaultRule delayNext(String operation, int times, Duration delay) {
+        return new FaultRule(operation, 1, times, delay.toNanos(), 0, null);
+    }
+
+    /**
+     * 判断请求是否命中，命中时消耗一次次数
+     */
+    boolean matches(String operation) {
+        if (this.operation != null && !this.operation.equals(operation)) {
+            return false;
+        }
+        if (this.probability < 1 && ThreadLocalRandom.current().nextDouble() >= this.probability) {
+            return false;
+        }
+        return this.remaining.getAndUpdate(r -> r > 0 ? r - 1 : r) != 0;
+    }
+
+    long getDelayNanos() {
+        return this.delayNanos;
+    }
+
+    int getStatus() {
+        return this.status;
+    }
+
+    String getCode() {
+        return this.code;
+    }
+
+    /**
+     * 剩余命中次数，不限次数时为 -1
+     *
+     * @return int
+     */
+    public int getRemaining() {
+        return Math.max(-1, this.remaining.get());
+    }
+}
@@ -0,0 +1,46 @@
+package com.zsq.winter.minio.stub;
+
+/**
+ * 处理请求时的 S3 错误，转换为 S3 格式的错误响应
+ */
+final class S3StubException extends Exception {
+
+    private final int status;
+
+    private final String code;
+
+    S3StubException(int status, String code, String message) {
+        super(message, null, false, false);
+        this.status = status;
+        this.code = code;
+    }
+
+    int getStatus() {
+        return this.status;
+    }
+
+    String getCode() {
+        return this.code;
+    }
+
+    static S3StubException noSuchBucket() {
+        return new S3StubException(404, "NoSuchBucket", "The specified bucket does not exist");
+    }
+
+    static S3StubException noSuchKey() {
+        return new S3StubException(404, "NoSuchKey", "The specified key does not exist.");
+    }
+
+    static S3StubException noSuchUpload() {
+        return new S3StubException(404, "NoSuchUpload", "The specified multipart upload does not exist. "
+                + "The upload ID might be invalid, or the multipart upload might have been aborted or completed.");
+    }
+
+    static S3StubException invalidArgument(String message) {
+        return new S3StubException(400, "InvalidArgument", message);
+    }
+
+    static S3StubException malformedXml() {
+        return new S3StubException(400, "MalformedXML", "The XML you provided was not well-formed or did not validate against our published schema.");
+    }
+}
@@ -0,0 +1,1190 @@
+package com.zsq.winter.minio.stub;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.w3c.dom.Element;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求分发与各 S3 操作的实现
+ */
+final class S3StubHandler implements HttpHandler {
+
+    private static final String OWNER_ID = "s3stub";
+
+    private static final int MAX_KEYS = 1000;
+
+    /**
+     * 发起分块上传时声明的校验和算法，保存在上传的请求头中，完成时移除
+     */
+    private static final String UPLOAD_CHECKSUM_ALGORITHM = "x-amz-checksum-algorithm";
+
+    private static final DateTimeFormatter RFC_1123 = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    /**
+     * 持久化到对象上的标准请求头，x-amz-meta-* 另外处理
+     */
+    private static final String[] STORED_HEADERS = {"content-type", "cache-control", "content-disposition", "content-encoding", "content-language", "expires"};
+
+    /**
+     * GetObject 支持的响应头覆盖参数
+     */
+    private static final String[][] RESPONSE_OVERRIDES = {
+            {"response-content-type", "Content-Type"},
+            {"response-content-disposition", "Content-Disposition"},
+            {"response-cache-control", "Cache-Control"},
+            {"response-content-encoding", "Content-Encoding"},
+            {"response-content-language", "Content-Language"},
+            {"response-expires", "Expires"}};
+
+    private static final Set<String> UNSUPPORTED_SUBRESOURCES = new HashSet<>(Arrays.asList(
+            "accelerate", "analytics", "attributes", "cors", "encryption", "intelligent-tiering", "inventory", "legal-hold",
+            "logging", "metrics", "object-lock", "ownershipControls", "policyStatus", "publicAccessBlock", "replication",
+            "requestPayment", "restore", "retention", "select", "tagging", "torrent", "website"));
+
+    private static final AtomicLong REQUEST_IDS = new AtomicLong(System.currentTimeMillis());
+
+    private final S3StubServer server;
+
+    private final S3StubStore store;
+
+    private final SigV4Verifier verifier;
+
+    S3StubHandler(S3StubServer server, S3StubStore store, SigV4Verifier verifier) {
+        this.server = server;
+        this.store = store;
+        this.verifier = verifier;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String requestId = String.format("%016X", REQUEST_IDS.incrementAndGet());
+        exchange.getResponseHeaders().set("x-amz-request-id", requestId);
+        exchange.getResponseHeaders().set("Server", "S3Stub");
+        StubRequest request = null;
+        try {
+            request = new StubRequest(exchange.getRequestMethod(), exchange.getRequestURI().getRawPath(),
+                    exchange.getRequestURI().getRawQuery(), exchange.getRequestHeaders());
+            byte[] raw = Throttle.readAll(exchange.getRequestBody(), Throttle.of(this.server.getBandwidth()));
+            request.operation = operation(request);
+            this.server.beforeHandle(request.operation);
+            request.body = decodeBody(request, raw);
+            if (this.server.isVerifySignatures()) {
+                this.verifier.verify(request);
+            }
+            this.dispatch(exchange, request);
+        } catch (S3StubException e) {
+            this.sendError(exchange, request, e.getStatus(), e.getCode(), e.getMessage(), requestId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            this.sendError(exchange, request, 500, "InternalError", String.valueOf(e), requestId);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * 按请求方法、路径与查询参数确定 S3 操作名
+     */
+    private static String operation(StubRequest request) throws S3StubException {
+        for (String name : request.query.keySet()) {
+            if (UNSUPPORTED_SUBRESOURCES.contains(name) || request.key != null && "acl".equals(name)) {
+                throw notImplemented();
+            }
+        }
+        String method = request.method;
+        if (request.bucket == null) {
+            if ("GET".equals(method)) {
+                return "ListBuckets";
+            }
+            throw notImplemented();
+        }
+        if (request.key == null) {
+            String config = configuration(request);
+            switch (method) {
+                case "PUT":
+                    return config != null ? "PutBucket" + config : "CreateBucket";
+                case "GET":
+                    if (config != null) {
+                        return "GetBucket" + config;
+                    }
+                    if (request.has("acl")) {
+                        return "GetBucketAcl";
+                    }
+                    if (request.has("location")) {
+                        return "GetBucketLocation";
+                    }
+                    if (request.has("versions")) {
+                        return "ListObjectVersions";
+                    }
+                    if (request.has("uploads")) {
+                        return "ListMultipartUploads";
+                    }
+                    return "2".equals(request.param("list-type")) ? "ListObjectsV2" : "ListObjects";
+                case "HEAD":
+                    return "HeadBucket";
+                case "DELETE":
+                    return config != null ? "DeleteBucket" + config : "DeleteBucket";
+                case "POST":
+                    if (request.has("delete")) {
+                        return "DeleteObjects";
+                    }
+                    throw notImplemented();
+                default:
+                    throw notImplemented();
+            }
+        }
+        boolean copy = request.header("x-amz-copy-source") != null;
+        switch (method) {
+            case "PUT":
+                if (request.has("uploadId")) {
+                    return copy ? "UploadPartCopy" : "UploadPart";
+                }
+                return copy ? "CopyObject" : "PutObject";
+            case "GET":
+                return request.has("uploadId") ? "ListParts" : "GetObject";
+            case "HEAD":
+                return "HeadObject";
+            case "DELETE":
+                return request.has("uploadId") ? "AbortMultipartUpload" : "DeleteObject";
+            case "POST":
+                if (request.has("uploads")) {
+                    return "CreateMultipartUpload";
+                }
+                if (request.has("uploadId")) {
+                    return "CompleteMultipartUpload";
+                }
+                throw notImplemented();
+            default:
+                throw notImplemented();
+        }
+    }
+
+    private static String configuration(StubRequest request) {
+        if (request.has("policy")) {
+            return "Policy";
+        }
+        if (request.has("lifecycle")) {
+            return "Lifecycle";
+        }
+        if (request.has("notification")) {
+            return "Notification";
+        }
+        if (request.has("versioning")) {
+            return "Versioning";
+        }
+        return null;
+    }
+
+    private void dispatch(HttpExchange exchange, StubRequest request) throws Exception {
+        switch (request.operation) {
+            case "ListBuckets":
+                this.listBuckets(exchange, request);
+                break;
+            case "CreateBucket":
+                this.createBucket(exchange, request);
+                break;
+            case "HeadBucket":
+                this.store.bucket(request.bucket);
+                this.sendEmpty(exchange, 200);
+                break;
+            case "DeleteBucket":
+                this.store.deleteBucket(request.bucket);
+                this.sendEmpty(exchange, 204);
+                break;
+            case "GetBucketAcl":
+                this.getBucketAcl(exchange, request);
+                break;
+            case "GetBucketLocation":
+                this.store.bucket(request.bucket);
+                this.sendXml(exchange, request, 200, new Xml("LocationConstraint").build("LocationConstraint"));
+                break;
+            case "PutBucketPolicy":
+            case "PutBucketLifecycle":
+            case "PutBucketNotification":
+            case "PutBucketVersioning":
+                this.putConfiguration(exchange, request);
+                break;
+            case "GetBucketPolicy":
+            case "GetBucketLifecycle":
+            case "GetBucketNotification":
+            case "GetBucketVersioning":
+                this.getConfiguration(exchange, request);
+                break;
+            case "DeleteBucketPolicy":
+            case "DeleteBucketLifecycle":
+            case "DeleteBucketNotification":
+            case "DeleteBucketVersioning":
+                this.store.bucket(request.bucket).configurations.remove(request.operation.substring("DeleteBucket".length()));
+                this.sendEmpty(exchange, 204);
+                break;
+            case "ListObjects":
+                this.listObjects(exchange, request);
+                break;
+            case "ListObjectsV2":
+                this.listObjectsV2(exchange, request);
+                break;
+            case "ListObjectVersions":
+                this.listObjectVersions(exchange, request);
+                break;
+            case "ListMultipartUploads":
+                this.listMultipartUploads(exchange, request);
+                break;
+            case "DeleteObjects":
+                this.deleteObjects(exchange, request);
+                break;
+            case "PutObject":
+                this.putObject(exchange, request);
+                break;
+            case "CopyObject":
+                this.copyObject(exchange, request);
+                break;
+            case "GetObject":
+            case "HeadObject":
+                this.getObject(exchange, request);
+                break;
+            case "DeleteObject":
+                this.store.bucket(request.bucket).objects.remove(request.key);
+                this.sendEmpty(exchange, 204);
+                break;
+            case "CreateMultipartUpload":
+                this.createMultipartUpload(exchange, request);
+                break;
+            case "UploadPart":
+                this.uploadPart(exchange, request);
+                break;
+            case "UploadPartCopy":
+                this.uploadPartCopy(exchange, request);
+                break;
+            case "ListParts":
+                this.listParts(exchange, request);
+                break;
+            case "CompleteMultipartUpload":
+                this.completeMultipartUpload(exchange, request);
+                break;
+            case "AbortMultipartUpload":
+                this.store.upload(request.param("uploadId"), request.bucket, request.key);
+                this.store.removeUpload(request.param("uploadId"));
+                this.sendEmpty(exchange, 204);
+                break;
+            default:
+                throw notImplemented();
+        }
+    }
+
+    // ---------------------------------------------------------------- 存储桶
+
+    private void listBuckets(HttpExchange exchange, StubRequest request) throws IOException {
+        Xml xml = new Xml("ListAllMyBucketsResult");
+        owner(xml, "Owner").start("Buckets");
+        for (S3StubStore.Bucket bucket : this.store.buckets()) {
+            xml.start("Bucket").element("Name", bucket.name).element("CreationDate", Xml.iso8601(bucket.created)).end("Bucket");
+        }
+        xml.end("Buckets");
+        this.sendXml(exchange, request, 200, xml.build("ListAllMyBucketsResult"));
+    }
+
+    private void createBucket(HttpExchange exchange, StubRequest request) throws S3StubException, IOException {
+        if (!this.store.createBucket(request.bucket)) {
+            throw new S3StubException(409, "BucketAlreadyOwnedByYou",
+                    "Your previous request to create the named bucket succeeded and you already own it.");
+        }
+        exchange.getResponseHeaders().set("Location", "/" + request.bucket);
+        this.sendEmpty(exchange, 200);
+    }
+
+    private void getBucketAcl(HttpExchange exchange, StubRequest request) throws S3StubException, IOException {
+        this.store.bucket(request.bucket);
+        Xml xml = new Xml("AccessControlPolicy");
+        owner(xml, "Owner").start("AccessControlList")
+                .raw("<Grant><Grantee xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:type=\"CanonicalUser\">")
+                .element("ID", OWNER_ID).element("DisplayName", OWNER_ID)
+                .raw("</Grantee>").element("Permission", "FULL_CONTROL").end("Grant")
+                .end("AccessControlList");
+        this.sendXml(exchange, request, 200, xml.build("AccessControlPolicy"));
+    }
+
+    private void putConfiguration(HttpExchange exchange, StubRequest request) throws S3StubException, IOException {
+        S3StubStore.Bucket bucket = this.store.bucket(request.bucket);
+        checkContentMd5(request);
+        String name = request.operation.substring("PutBucket".length());
+        if (!"Policy".equals(name)) {
+            // 只检查格式，不解析内容
+            Xml.parse(request.body);
+        }
+        bucket.configurations.put(name, request.body);
+        this.sendEmpty(exchange, "Policy".equals(name) ? 204 : 200);
+    }
+
+    private void getConfiguration(HttpExchange exchange, StubRequest request) throws S3StubException, IOException {
+        S3StubStore.Bucket bucket = this.store.bucket(request.bucket);
+        String name = request.operation.substring("GetBucket".length());
+        byte[] body = bucket.configurations.get(name);
+        if (body != null) {
+            exchange.getResponseHeaders().set("Content-Type", "Policy".equals(name) ? "application/json" : "application/xml");
+            this.sendBody(exchange, request, 200, body, 0, body.length);
+            return;
+        }
+        switch (name) {
+            case "Policy":
+                throw new S3StubException(404, "NoSuchBucketPolicy", "The bucket policy does not exist");
+            case "Lifecycle":
+                throw new S3StubException(404, "NoSuchLifecycleConfiguration", "The lifecycle configuration does not exist");
+            default:
+                String root = name + "Configuration";
+                this.sendXml(exchange, request, 200, new Xml(root).build(root));
+        }
+    }
+
+    // ---------------------------------------------------------------- 列举
+
+    private void listObjects(HttpExchange exchange, StubRequest request) throws S3StubException, IOException {
+        S3StubStore.Bucket bucket = this.store.bucket(request.bucket);
+        String prefix = nullToEmpty(request.param("prefix"));
+        String delimiter = emptyToNull(request.param("delimiter"));
+        String marker = emptyToNull(request.param("marker"));
+        int maxKeys = maxKeys(request, "max-keys");
+        boolean url = "url".equals(request.param("encoding-type"));
+        Page page = list(bucket, prefix, delimiter, marker, maxKeys);
+        Xml xml = new Xml("ListBucketResult")
+                .element("Name", bucket.name)
+                .element("Prefix", encode(prefix, url))
+                .element("Marker", encode(nullToEmpty(marker), url))
+                .element("MaxKeys", maxKeys)
+                .element("Delimiter", encode(delimiter, url))
+                .element("IsTruncated", page.truncated);
+        if (page.truncated) {
+            xml.element("NextMarker", encode(page.nextMarker, url));
+        }
+        if (url) {
+            xml.element("EncodingType", "url");
+        }
+        contents(xml, page, url);
+        this.sendXml(exchange, request, 200, xml.build("ListBucketResult"));
+    }
+
+    private void listObjectsV2(HttpExchange exchange, StubRequest request) throws S3StubException, IOException {
+        S3StubStore.Bucket bucket = this.store.bucket(request.bucket);
+        String prefix = nullToEmpty(request.param("prefix"));
+        String delimiter = emptyToNull(request.param("delimiter"));
+        String token = emptyToNull(request.param("continuation-token"));
+        String startAfter = emptyToNull(request.param("start-after"));
+        int maxKeys = maxKeys(request, "max-keys");
+        boolean url = "url".equals(request.param("encoding-type"));
+        String marker = startAfter;
+        if (token != null) {
+            try {
+                marker = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw S3StubException.invalidArgument("The continuation token provided is incorrect");
+            }
+        }
+        Page page = list(bucket, prefix, delimiter, marker, maxKeys);
+        Xml xml = new Xml("ListBucketResult")
+                .element("Name", bucket.name)
+                .element("Prefix", encode(prefix, url))
+                .element("MaxKeys", maxKeys)
+                .element("Delimiter", encode(delimiter, url))
+                .element("IsTruncated", page.truncated)
+                .element("KeyCount", page.contents.size() + page.commonPrefixes.size())
+                .element("ContinuationToken", token)
+                .element("StartAfter", encode(startAfter, url));
+        if (page.truncated) {
+            xml.element("NextContinuationToken", Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(page.nextMarker.getBytes(StandardCharsets.UTF_8)));
+        }
+        if (url) {
+            xml.element("EncodingType", "url");
+        }
+        contents(xml, page, url);
+        this.sendXml(exchange, request, 200, xml.build("ListBucketResult"));
+    }
+
+    private void listObjectVersions(HttpExchange exchange, StubRequest request) throws S3StubException, IOException {
+        S3StubStore.Bucket bucket = this.store.bucket(request.bucket);
+        String prefix = nullToEmpty(request.param("prefix"));
+        String delimiter = emptyToNull(request.param("delimiter"));
+        String marker = emptyToNull(request.param("key-marker"));
+        int maxKeys = maxKeys(request, "max-keys");
+        boolean url = "url".equals(request.param("encoding-type"));
+        Page page = list(bucket, prefix, delimiter, marker, maxKeys);
+        // 不保存历史版本，每个对象只有一个 null 版本
+        Xml xml = new Xml("ListVersionsResult")
+                .element("Name", bucket.name)
+                .element("Prefix", encode(prefix, url))
+                .element("KeyMarker", encode(nullToEmpty(marker), url))
+                .element("VersionIdMarker", "")
+                .element("MaxKeys", maxKeys)
+                .element("Delimiter", encode(delimiter, url))
+                .element("IsTruncated", page.truncated);
+        if (page.truncated) {
+            xml.element("NextKeyMarker", encode(page.nextMarker, url)).element("NextVersionIdMarker", "null");
+        }
+        if (url) {
+            xml.element("EncodingType", "url");
+        }
+        for (Map.Entry<String, S3StubStore.StoredObject> entry : page.contents) {
+            S3StubStore.StoredObject object = entry.getValue();
+            xml.start("Version")
+                    .element("Key", encode(entry.getKey(), url))
+                    .element("VersionId", "null")
+                    .element("IsLatest", true)
+                    .element("LastModified", Xml.iso8601(object.lastModified))
+                    .element("ETag", quote(object.etag))
+                    .element("Size", object.data.length);
+            owner(xml, "Owner").element("StorageClass", "STANDARD").end("Version");
+        }
+        commonPrefixes(xml, page, url);
+        this.sendXml(exchange, request, 200, xml.build("ListVersionsResult"));
+    }
+
+    private void listMultipartUploads(HttpExchange exchange, StubRequest request) throws S3StubException, IOException {
+        S3StubStore.Bucket bucket = this.store.bucket(request.bucket);
+        String prefix = nullToEmpty(request.param("prefix"));
+        String keyMarker = emptyToNull(request.param("key-marker"));
+        String uploadIdMarker = keyMarker == null ? null : emptyToNull(request.param("upload-id-marker"));
+        int maxUploads = maxKeys(request, "max-uploads");
+        boolean url = "url".equals(request.param("encoding-type"));
+        List<S3StubStore.Upload> uploads = this.store.uploads(bucket.name);
+        long markerSequence = Long.MAX_VALUE;
+        if (uploadIdMarker != null) {
+            for (S3StubStore.Upload upload : uploads) {
+                if (upload.id.equals(uploadIdMarker) && upload.key.equals(keyMarker)) {
+                    markerSequence = upload.sequence;
+                }
+            }
+        }
+        List<S3StubStore.Upload> page = new ArrayList<>();
+        boolean truncated = false;
+        for (S3StubStore.Upload upload : uploads) {
+            if (!upload.key.startsWith(prefix)) {
+                continue;
+            }
+            if (keyMarker != null) {
+                int compare = upload.key.compareTo(keyMarker);
+                // 指定 upload-id-marker 时包含 key-marker 上在其之后发起的上传
+                if (compare < 0 || compare == 0 && (uploadIdMarker == null || upload.sequence <= markerSequence)) {
+                    continue;
+                }
+            }
+            if (page.size() >= maxUploads) {
+                truncated = true;
+                break;
+            }
+            page.add(upload);
+        }
+        Xml xml = new Xml("ListMultipartUploadsResult")
+                .element("Bucket", bucket.name)
+                .element("KeyMarker", encode(nullToEmpty(keyMarker), url))
+                .element("UploadIdMarker", nullToEmpty(uploadIdMarker));
+        if (truncated) {
+            S3StubStore.Upload last = page.get(page.size() - 1);
+            xml.element("NextKeyMarker", encode(last.key, url)).element("NextUploadIdMarker", last.id);
+        }
+        xml.element("Prefix", encode(prefix, url))
+                .element("MaxUploads", maxUploads)
+                .element("IsTruncated", truncated);
+        if (url) {
+            xml.element("EncodingType", "url");
+        }
+        for (S3StubStore.Upload upload : page) {
+            xml.start("Upload").element("Key", encode(upload.key, url)).element("UploadId", upload.id);
+            owner(owner(xml, "Initiator"), "Owner")
+                    .element("StorageClass", "STANDARD")
+                    .element("Initiated", Xml.iso8601(upload.initiated))
+                    .end("Upload");
+        }
+        this.sendXml(exchange, request, 200, xml.build("ListMultipartUploadsResult"));
+    }
+
+    /**
+     * 按字典序从 marker 之后列举，delimiter 之前相同的键合并为一个公共前缀
+     */
+    private static Page list(S3StubStore.Bucket bucket, String prefix, String delimiter, String marker, int maxKeys) {
+        Page page = new Page();
+        Map.Entry<String, S3StubStore.StoredObject> entry;
+        if (marker != null && marker.compareTo(prefix) >= 0) {
+            // marker 本身是公共前缀时跳过该前缀下的所有键
+            boolean commonPrefix = delimiter != null && marker.startsWith(prefix) && marker.endsWith(delimiter)
+                    && marker.indexOf(delimiter, prefix.length()) == marker.length() - delimiter.length();
+            entry = bucket.objects.higherEntry(commonPrefix ? marker + Character.MAX_VALUE : marker);
+        } else {
+            entry = bucket.objects.ceilingEntry(prefix);
+        }
+        while (entry != null && entry.getKey().startsWith(prefix)) {
+            String key = entry.getKey();
+            if (page.contents.size() + page.commonPrefixes.size() >= maxKeys) {
+                page.truncated = true;
+                break;
+            }
+            int index = delimiter == null ? -1 : key.indexOf(delimiter, prefix.length());
+            if (index >= 0) {
+                String commonPrefix = key.substring(0, index + delimiter.length());
+                page.commonPrefixes.add(commonPrefix);
+                page.nextMarker = commonPrefix;
+                entry = bucket.objects.higherEntry(commonPrefix + Character.MAX_VALUE);
+            } else {
+                page.contents.add(entry);
+                page.nextMarker = key;
+                entry = bucket.objects.higherEntry(key);
+            }
+        }
+        return page;
+    }
+
+    private static void contents(Xml xml, Page page, boolean url) {
+        for (Map.Entry<String, S3StubStore.StoredObject> entry : page.contents) {
+            S3StubStore.StoredObject object = entry.getValue();
+            xml.start("Contents")
+                    .element("Key", encode(entry.getKey(), url))
+                    .element("LastModified", Xml.iso8601(object.lastModified))
+                    .element("ETag", quote(object.etag))
+                    .element("Size", object.data.length);
+            owner(xml, "Owner").element("StorageClass", "STANDARD").end("Contents");
+        }
+        commonPrefixes(xml, page, url);
+    }
+
+    private static void commonPrefixes(Xml xml, Page page, boolean url) {
+        for (String commonPrefix : page.commonPrefixes) {
+            xml.start("CommonPrefixes").element("Prefix", encode(commonPrefix, url)).end("CommonPrefixes");
+        }
+    }
+
+    private static int maxKeys(StubRequest request, String parameter) throws S3StubException {
+        int maxKeys = request.intParam(parameter, MAX_KEYS);
+        if (maxKeys < 0) {
+            throw S3StubException.invalidArgument(parameter + " cannot be negative");
+        }
+        return Math.min(maxKeys, MAX_KEYS);
+    }
+
+    // ---------------------------------------------------------------- 对象
+
+    private void putObject(HttpExchange exchange, StubRequest request) throws S3StubException, IOException {
+        S3StubStore.Bucket bucket = this.store.bucket(request.bucket);
+        checkContentMd5(request);
+        Map<String, String> headers = objectHeaders(request);
+        headers.putAll(checkChecksums(request));
+        S3StubStore.StoredObject object = new S3StubStore.StoredObject(request.body, headers);
+        bucket.objects.put(request.key, object);
+        exchange.getResponseHeaders().set("ETag", quote(object.etag));
+        this.sendEmpty(exchange, 200);
+    }
+
+    private void copyObject(HttpExchange exchange, StubRequest request) throws S3StubException, IOException {
+        String[] source = copySource(request);
+        S3StubStore.StoredObject sourceObject = this.object(source[0], source[1]);
+        S3StubStore.Bucket bucket = this.store.bucket(request.bucket);
+        boolean replace = "REPLACE".equalsIgnoreCase(request.header("x-amz-metadata-directive"));
+        if (!replace && source[0].equals(request.bucket) && source[1].equals(request.key)) {
+            throw new S3StubException(400, "InvalidRequest", "This copy request is illegal because it is trying to copy an object to itself "
+                    + "without changing the object's metadata, storage class, website redirect location or encryption attributes.");
+        }
+        S3StubStore.StoredObject object = new S3StubStore.StoredObject(sourceObject.data, replace ? objectHeaders(request) : sourceObject.headers);
+        bucket.objects.put(request.key, object);
+        Xml xml = new Xml("CopyObjectResult")
+                .element("LastModified", Xml.iso8601(object.lastModified))
+                .element("ETag", quote(object.etag));
+        this.sendXml(exchange, request, 200, xml.build("CopyObjectResult"));
+    }
+
+    private void getObject(HttpExchange exchange, StubRequest request) throws S3StubException, IOException {
+        S3StubStore.StoredObject object = this.object(request.bucket, request.key);
+        Headers headers = exchange.getResponseHeaders();
+        String ifMatch = request.header("If-Match");
+        if (ifMatch != null && !etagMatches(ifMatch, object.etag)) {
+            throw new S3StubException(412, "PreconditionFailed", "At least one of the pre-conditions you specified did not hold");
+        }
+        headers.set("ETag", quote(object.etag));
+        headers.set("Last-Modified", RFC_1123.format(Instant.ofEpochMilli(object.lastModified)));
+        String ifNoneMatch = request.header("If-None-Match");
+        if (ifNoneMatch != null && etagMatches(ifNoneMatch, object.etag)) {
+            this.sendEmpty(exchange, 304);
+            return;
+        }
+        headers.set("Accept-Ranges", "bytes");
+        headers.set("Content-Type", "binary/octet-stream");
+        int partNumber = request.intParam("partNumber", 0);
+        if (partNumber != 0 && request.header("Range") != null) {
+            throw S3StubException.invalidArgument("Cannot specify both Range header and partNumber query parameter");
+        }
+        // 与 S3 一致：请求带 x-amz-checksum-mode: ENABLED 且不是范围或分块读取时才返回整对象校验和
+        boolean checksums = "ENABLED".equalsIgnoreCase(request.header("x-amz-checksum-mode")) && request.header("Range") == null && partNumber == 0;
+        for (Map.Entry<String, String> header : object.headers.entrySet()) {
+            if (checksums || !header.getKey().startsWith("x-amz-checksum-")) {
+                headers.set(header.getKey(), header.getValue());
+            }
+        }
+        for (String[] override : RESPONSE_OVERRIDES) {
+            String value = request.param(override[0]);
+            if (value != null) {
+                headers.set(override[1], value);
+            }
+        }
+        int length = object.data.length;
+        if (partNumber != 0) {
+            int[] part = partRange(object, partNumber);
+            if (object.partSizes != null) {
+                headers.set("x-amz-mp-parts-count", String.valueOf(object.partSizes.length));
+            }
+            if (length > 0) {
+                headers.set("Content-Range", "bytes " + part[0] + "-" + (part[0] + part[1] - 1) + "/" + length);
+            }
+            this.sendBody(exchange, request, length > 0 ? 206 : 200, object.data, part[0], part[1]);
+            return;
+        }
+        long[] range = range(request.header("Range"), length);
+        if (range == null) {
+            this.sendBody(exchange, request, 200, object.data, 0, length);
+            return;
+        }
+        headers.set("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + length);
+        this.sendBody(exchange, request, 206, object.data, (int) range[0], (int) (range[1] - range[0] + 1));
+    }
+
+    private void deleteObjects(HttpExchange exchange, StubRequest request) throws S3StubException, IOException {
+        S3StubStore.Bucket bucket = this.store.bucket(request.bucket);
+        checkContentMd5(request);
+        Element root = Xml.parse(request.body);
+        List<Element> objects = Xml.children(root, "Object");
+        if (objects.isEmpty() || objects.size() > MAX_KEYS) {
+            throw S3StubException.malformedXml();
+        }
+        boolean quiet = "true".equalsIgnoreCase(Xml.childText(root, "Quiet"));
+        Xml xml = new Xml("DeleteResult");
+        for (Element object : objects) {
+            String key = Xml.childText(object, "Key");
+            if (key == null) {
+                throw S3StubException.malformedXml();
+            }
+            bucket.objects.remove(key);
+            if (!quiet) {
+                xml.start("Deleted").element("Key", key).end("Deleted");
+            }
+        }
+        this.sendXml(exchange, request, 200, xml.build("DeleteResult"));
+    }
+
+    // ---------------------------------------------------------------- 分块上传
+
+    private void createMultipartUpload(HttpExchange exchange, StubRequest request) throws S3StubException, IOException {
+        this.store.bucket(request.bucket);
+        Map<String, String> headers = objectHeaders(request);
+        String algorithm = request.header("x-amz-checksum-algorithm");
+        if (algorithm != null) {
+            if (Checksums.compute(algorithm, new byte[0]) == null) {
+                throw S3StubException.invalidArgument("Value for x-amz-checksum-algorithm header is invalid.");
+            }
+            // 完成上传时按该算法计算整对象校验和，不作为对象的响应头
+            headers.put(UPLOAD_CHECKSUM_ALGORITHM, algorithm.toUpperCase(Locale.ROOT));
+        }
+        S3StubStore.Upload upload = this.store.initiate(request.bucket, request.key, headers);
+        Xml xml = new Xml("InitiateMultipartUploadResult")
+                .element("Bucket", request.bucket)
+                .element("Key", request.key)
+                .element("UploadId", upload.id);
+        this.sendXml(exchange, request, 200, xml.build("InitiateMultipartUploadResult"));
+    }
+
+    private void uploadPart(HttpExchange exchange, StubRequest request) throws S3StubException, IOException {
+        S3StubStore.Upload upload = this.store.upload(request.param("uploadId"), request.bucket, request.key);
+        int partNumber = partNumber(request);
+        checkContentMd5(request);
+        checkChecksums(request);
+        S3StubStore.StoredObject part = new S3StubStore.StoredObject(request.body, Collections.<String, String>emptyMap());
+        upload.parts.put(partNumber, part);
+        exchange.getResponseHeaders().set("ETag", quote(part.etag));
+        this.sendEmpty(exchange, 200);
+    }
+
+    private void uploadPartCopy(HttpExchange exchange, StubRequest request) throws S3StubException, IOException {
+        S3StubStore.Upload upload = this.store.upload(request.param("uploadId"), request.bucket, request.key);
+        int partNumber = partNumber(request);
+        String[] source = copySource(request);
+        S3StubStore.StoredObject sourceObject = this.object(source[0], source[1]);
+        byte[] data = sourceObject.data;
+        String copyRange = request.header("x-amz-copy-source-range");
+        if (copyRange != null) {
+            long[] range = range(copyRange, data.length);
+            if (range == null) {
+                throw S3StubException.invalidArgument("The x-amz-copy-source-range value must be of the form bytes=first-last");
+            }
+            data = Arrays.copyOfRange(data, (int) range[0], (int) range[1] + 1);
+        }
+        S3StubStore.StoredObject part = new S3StubStore.StoredObject(data, Collections.<String, String>emptyMap());
+        upload.parts.put(partNumber, part);
+        Xml xml = new Xml("CopyPartResult")
+                .element("LastModified", Xml.iso8601(part.lastModified))
+                .element("ETag", quote(part.etag));
+        this.sendXml(exchange, request, 200, xml.build("CopyPartResult"));
+    }
+
+    private void listParts(HttpExchange exchange, StubRequest request) throws S3StubException, IOException {
+        S3StubStore.Upload upload = this.store.upload(request.param("uploadId"), request.bucket, request.key);
+        int marker = request.intParam("part-number-marker", 0);
+        int maxParts = maxKeys(request, "max-parts");
+        Xml xml = new Xml("ListPartsResult")
+                .element("Bucket", upload.bucket)
+                .element("Key", upload.key)
+                .element("UploadId", upload.id);
+        owner(owner(xml, "Initiator"), "Owner")
+                .element("StorageClass", "STANDARD")
+                .element("PartNumberMarker", marker)
+                .element("MaxParts", maxParts);
+        int count = 0;
+        Integer last = null;
+        boolean truncated = false;
+        for (Map.Entry<Integer, S3StubStore.StoredObject> entry : upload.parts.tailMap(marker, false).entrySet()) {
+            if (count >= maxParts) {
+                truncated = true;
+                break;
+            }
+            S3StubStore.StoredObject part = entry.getValue();
+            xml.start("Part")
+                    .element("PartNumber", entry.getKey())
+                    .element("LastModified", Xml.iso8601(part.lastModified))
+                    .element("ETag", quote(part.etag))
+                    .element("Size", part.data.length)
+                    .end("Part");
+            last = entry.getKey();
+            count++;
+        }
+        xml.element("NextPartNumberMarker", last == null ? marker : last).element("IsTruncated", truncated);
+        this.sendXml(exchange, request, 200, xml.build("ListPartsResult"));
+    }
+
+    private void completeMultipartUpload(HttpExchange exchange, StubRequest request) throws S3StubException, IOException {
+        S3StubStore.Bucket bucket = this.store.bucket(request.bucket);
+        S3StubStore.Upload upload = this.store.upload(request.param("uploadId"), request.bucket, request.key);
+        List<Element> requested = Xml.children(Xml.parse(request.body), "Part");
+        if (requested.isEmpty()) {
+            throw S3StubException.malformedXml();
+        }
+        List<S3StubStore.StoredObject> parts = new ArrayList<>(requested.size());
+        int previous = 0;
+        long size = 0;
+        for (Element element : requested) {
+            int partNumber;
+            try {
+                partNumber = Integer.parseInt(Xml.childText(element, "PartNumber").trim());
+            } catch (RuntimeException e) {
+                throw S3StubException.malformedXml();
+            }
+            if (partNumber <= previous) {
+                throw new S3StubException(400, "InvalidPartOrder", "The list of parts was not in ascending order. Parts must be ordered by part number.");
+            }
+            previous = partNumber;
+            S3StubStore.StoredObject part = upload.parts.get(partNumber);
+            String etag = Xml.childText(element, "ETag");
+            if (part == null || etag == null || !unquote(etag).equals(part.etag)) {
+                throw new S3StubException(400, "InvalidPart", "One or more of the specified parts could not be found. The part may not have been "
+                        + "uploaded, or the specified entity tag may not match the part's entity tag.");
+            }
+            parts.add(part);
+            size += part.data.length;
+        }
+        long minimumPartSize = this.server.getMinimumPartSize();
+        for (int i = 0; i < parts.size() - 1; i++) {
+            if (parts.get(i).data.length < minimumPartSize) {
+                throw new S3StubException(400, "EntityTooSmall", "Your proposed upload is smaller than the minimum allowed object size.");
+            }
+        }
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new S3StubException(400, "EntityTooLarge", "Your proposed upload exceeds the maximum allowed object size.");
+        }
+        ByteArrayOutputStream data = new ByteArrayOutputStream((int) size);
+        ByteArrayOutputStream digests = new ByteArrayOutputStream(parts.size() * 16);
+        int[] partSizes = new int[parts.size()];
+        for (int i = 0; i < parts.size(); i++) {
+            S3StubStore.StoredObject part = parts.get(i);
+            partSizes[i] = part.data.length;
+            data.write(part.data, 0, part.data.length);
+            byte[] digest = unhex(part.etag);
+            digests.write(digest, 0, digest.length);
+        }
+        // 与 S3 一致：各分块 MD5 拼接后再取 MD5，加上 -分块数
+        String etag = S3StubStore.md5Hex(digests.toByteArray()) + "-" + parts.size();
+        byte[] content = data.toByteArray();
+        Map<String, String> headers = new TreeMap<>(upload.headers);
+        String algorithm = headers.remove(UPLOAD_CHECKSUM_ALGORITHM);
+        if (algorithm != null) {
+            // 整对象校验和：与请求中提交的值比较，一致时保存
+            String checksum = Checksums.compute(algorithm, content);
+            String expected = request.header(Checksums.header(algorithm));
+            if (expected != null && !expected.trim().equals(checksum)) {
+                throw new S3StubException(400, "BadDigest", "The " + algorithm + " you specified did not match the calculated checksum.");
+            }
+            headers.put(Checksums.header(algorithm), checksum);
+            headers.put("x-amz-checksum-type", "FULL_OBJECT");
+        }
+        bucket.objects.put(upload.key, new S3StubStore.StoredObject(content, etag, headers, partSizes));
+        this.store.removeUpload(upload.id);
+        Xml xml = new Xml("CompleteMultipartUploadResult")
+                .element("Location", this.server.getEndpoint() + request.rawPath)
+                .element("Bucket", upload.bucket)
+                .element("Key", upload.key)
+                .element("ETag", quote(etag));
+        this.sendXml(exchange, request, 200, xml.build("CompleteMultipartUploadResult"));
+    }
+
+    private static int partNumber(StubRequest request) throws S3StubException {
+        int partNumber = request.intParam("partNumber", 0);
+        if (partNumber < 1 || partNumber > 10000) {
+            throw S3StubException.invalidArgument("Part number must be an integer between 1 and 10000, inclusive");
+        }
+        return partNumber;
+    }
+
+    // ---------------------------------------------------------------- 工具
+
+    private S3StubStore.StoredObject object(String bucketName, String key) throws S3StubException {
+        S3StubStore.StoredObject object = this.store.bucket(bucketName).objects.get(key);
+        if (object == null) {
+            throw S3StubException.noSuchKey();
+        }
+        return object;
+    }
+
+    /**
+     * x-amz-copy-source：[/]bucket/key[?versionId=...]，经过 URL 编码
+     */
+    private static String[] copySource(StubRequest request) throws S3StubException {
+        String source = request.header("x-amz-copy-source");
+        int query = source.indexOf('?');
+        if (query >= 0) {
+            source = source.substring(0, query);
+        }
+        source = StubRequest.decodePath(source.startsWith("/") ? source.substring(1) : source);
+        int slash = source.indexOf('/');
+        if (slash <= 0 || slash == source.length() - 1) {
+            throw S3StubException.invalidArgument("Copy Source must mention the source bucket and key: sourcebucket/sourcekey");
+        }
+        return new String[]{source.substring(0, slash), source.substring(slash + 1)};
+    }
+
+    /**
+     * 解析单个字节范围，格式错误时忽略（返回 null），超出对象大小时返回 416
+     */
+    private static long[] range(String header, long length) throws S3StubException {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        long start;
+        long end;
+        try {
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix == 0 || length == 0) {
+                    throw invalidRange();
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                if (dash == spec.length() - 1) {
+                    end = length - 1;
+                } else {
+                    long last = Long.parseLong(spec.substring(dash + 1));
+                    if (last < start) {
+                        return null;
+                    }
+                    end = Math.min(length - 1, last);
+                }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (start >= length) {
+            throw invalidRange();
+        }
+        return new long[]{start, end};
+    }
+
+    /**
+     * 分块在对象中的偏移与长度；单次上传的对象只有一个分块
+     */
+    private static int[] partRange(S3StubStore.StoredObject object, int partNumber) throws S3StubException {
+        int[] sizes = object.partSizes == null ? new int[]{object.data.length} : object.partSizes;
+        if (partNumber < 1 || partNumber > sizes.length) {
+            throw new S3StubException(416, "InvalidPartNumber", "The requested partnumber is not satisfiable");
+        }
+        int offset = 0;
+        for (int i = 0; i < partNumber - 1; i++) {
+            offset += sizes[i];
+        }
+        return new int[]{offset, sizes[partNumber - 1]};
+    }
+
+    private static S3StubException invalidRange() {
+        return new S3StubException(416, "InvalidRange", "The requested range is not satisfiable");
+    }
+
+    private static byte[] decodeBody(StubRequest request, byte[] raw) throws S3StubException {
+        String contentSha256 = request.header("x-amz-content-sha256");
+        String contentEncoding = request.header("Content-Encoding");
+        boolean chunked = contentSha256 != null && contentSha256.startsWith("STREAMING-")
+                || contentEncoding != null && contentEncoding.contains("aws-chunked");
+        if (!chunked) {
+            return raw;
+        }
+        byte[] body = decodeAwsChunked(raw);
+        String decodedLength = request.header("x-amz-decoded-content-length");
+        if (decodedLength != null && !decodedLength.trim().equals(String.valueOf(body.length))) {
+            throw new S3StubException(400, "IncompleteBody", "You did not provide the number of bytes specified by the Content-Length HTTP header");
+        }
+        return body;
+    }
+
+    /**
+     * aws-chunked：每块为 "十六进制长度[;chunk-signature=...]\r\n数据\r\n"，长度为 0 的块结束，其后的 trailer 忽略
+     */
+    static byte[] decodeAwsChunked(byte[] raw) throws S3StubException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length);
+        int pos = 0;
+        while (true) {
+            int lineEnd = indexOfCrlf(raw, pos);
+            if (lineEnd < 0) {
+                throw new S3StubException(400, "IncompleteBody", "Malformed aws-chunked body");
+            }
+            String header = new String(raw, pos, lineEnd - pos, StandardCharsets.US_ASCII);
+            int semicolon = header.indexOf(';');
+            int size;
+            try {
+                size = Integer.parseInt((semicolon < 0 ? header : header.substring(0, semicolon)).trim(), 16);
+            } catch (NumberFormatException e) {
+                throw new S3StubException(400, "IncompleteBody", "Malformed aws-chunked body");
+            }
+            pos = lineEnd + 2;
+            if (size == 0) {
+                return out.toByteArray();
+            }
+            if (size < 0 || pos + size > raw.length) {
+                throw new S3StubException(400, "IncompleteBody", "Malformed aws-chunked body");
+            }
+            out.write(raw, pos, size);
+            pos += size + 2;
+        }
+    }
+
+    private static int indexOfCrlf(byte[] data, int from) {
+        for (int i = from; i < data.length - 1; i++) {
+            if (data[i] == '\r' && data[i + 1] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 校验请求中的 x-amz-checksum-* 头
+     *
+     * @return 通过校验的校验和，随对象保存
+     */
+    private static Map<String, String> checkChecksums(StubRequest request) throws S3StubException {
+        Map<String, String> checksums = new TreeMap<>();
+        for (String algorithm : Checksums.ALGORITHMS) {
+            String expected = request.header(Checksums.header(algorithm));
+            if (expected == null) {
+                continue;
+            }
+            if (!expected.trim().equals(Checksums.compute(algorithm, request.body))) {
+                throw new S3StubException(400, "BadDigest", "The " + algorithm + " you specified did not match the calculated checksum.");
+            }
+            checksums.put(Checksums.header(algorithm), expected.trim());
+            checksums.put("x-amz-checksum-type", "FULL_OBJECT");
+        }
+        return checksums;
+    }
+
+    private static void checkContentMd5(StubRequest request) throws S3StubException {
+        String contentMd5 = request.header("Content-MD5");
+        if (contentMd5 == null) {
+            return;
+        }
+        byte[] expected;
+        try {
+            expected = Base64.getDecoder().decode(contentMd5.trim());
+        } catch (IllegalArgumentException e) {
+            throw new S3StubException(400, "InvalidDigest", "The Content-MD5 you specified was invalid.");
+        }
+        if (!MessageDigest.isEqual(expected, S3StubStore.md5(request.body))) {
+            throw new S3StubException(400, "BadDigest", "The Content-MD5 you specified did not match what we received.");
+        }
+    }
+
+    private static Map<String, String> objectHeaders(StubRequest request) {
+        Map<String, String> headers = new TreeMap<>();
+        for (String name : STORED_HEADERS) {
+            String value = request.header(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+        String contentEncoding = headers.remove("content-encoding");
+        if (contentEncoding != null) {
+            List<String> encodings = new ArrayList<>();
+            for (String encoding : contentEncoding.split(",")) {
+                if (!encoding.trim().isEmpty() && !"aws-chunked".equalsIgnoreCase(encoding.trim())) {
+                    encodings.add(encoding.trim());
+                }
+            }
+            if (!encodings.isEmpty()) {
+                headers.put("content-encoding", String.join(",", encodings));
+            }
+        }
+        for (Map.Entry<String, List<String>> header : request.headers.entrySet()) {
+            String name = header.getKey().toLowerCase(Locale.ROOT);
+            if (name.startsWith("x-amz-meta-")) {
+                headers.put(name, String.join(",", header.getValue()));
+            }
+        }
+        return headers;
+    }
+
+    private static Xml owner(Xml xml, String element) {
+        return xml.start(element).element("ID", OWNER_ID).element("DisplayName", OWNER_ID).end(element);
+    }
+
+    private static boolean etagMatches(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if ("*".equals(value) || unquote(value).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String quote(String etag) {
+        return "\"" + etag + "\"";
+    }
+
+    private static String unquote(String etag) {
+        String value = etag.trim();
+        return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"") ? value.substring(1, value.length() - 1) : value;
+    }
+
+    private static byte[] unhex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (Character.digit(hex.charAt(i * 2), 16) << 4 | Character.digit(hex.charAt(i * 2 + 1), 16));
+        }
+        return bytes;
+    }
+
+    private static String encode(String value, boolean url) {
+        if (value == null || !url) {
+            return value;
+        }
+        try {
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static S3StubException notImplemented() {
+        return new S3StubException(501, "NotImplemented", "A header or query you provided implies functionality that is not implemented.");
+    }
+
+    // ---------------------------------------------------------------- 响应
+
+    private void sendXml(HttpExchange exchange, StubRequest request, int status, byte[] xml) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        this.sendBody(exchange, request, status, xml, 0, xml.length);
+    }
+
+    private void sendEmpty(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    /**
+     * HEAD 请求只返回 Content-Length，不返回内容
+     */
+    private void sendBody(HttpExchange exchange, StubRequest request, int status, byte[] data, int offset, int length) throws IOException {
+        if (request != null && request.isHead()) {
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(length));
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        if (length == 0) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, length);
+        Throttle.write(exchange.getResponseBody(), data, offset, length, Throttle.of(this.server.getBandwidth()));
+    }
+
+    private void sendError(HttpExchange exchange, StubRequest request, int status, String code, String message, String requestId) {
+        if (exchange.getResponseCode() != -1) {
+            // 响应头已发出，只能断开连接
+            return;
+        }
+        try {
+            // 错误响应不带命名空间，与 S3 一致
+            byte[] body = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Error>"
+                    + "<Code>" + code + "</Code>"
+                    + "<Message>" + escape(message) + "</Message>"
+                    + "<Resource>" + escape(request == null ? "" : request.rawPath) + "</Resource>"
+                    + "<RequestId>" + requestId + "</RequestId></Error>").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/xml");
+            this.sendBody(exchange, request, status, body, 0, body.length);
+        } catch (IOException ignored) {
+            // 客户端已断开
+        }
+    }
+
+    private static String escape(String value) {
+        return value == null ? "" : value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    /**
+     * 一页列举结果
+     */
+    private static final class Page {
+
+        final List<Map.Entry<String, S3StubStore.StoredObject>> contents = new ArrayList<>();
+
+        final List<String> commonPrefixes = new ArrayList<>();
+
+        boolean truncated;
+
+        String nextMarker;
+    }
+}
@@ -0,0 +1,363 @@
+package com.zsq.winter.minio.stub;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内的 S3 兼容服务，基于 JDK 自带的 HttpServer，数据保存在内存中，用于测试与基准测试
+ * 1. 覆盖 AmazonS3Template 用到的接口：存储桶、对象上传下载（含 Range）、HEAD、ListObjects v1/v2、分块上传、复制、批量删除，
+ * 以及存储桶策略、生命周期、通知、版本控制配置的读写（只保存，不生效）
+ * 2. 校验 Signature V4 签名（请求头与预签名 URL），支持 aws-chunked 流式上传，ETag 与 S3 一致（MD5 / 分块 MD5-分块数）
+ * 3. 可注入固定延迟、带宽限制与错误（{@link FaultRule}），用于复现慢节点与限流
+ * 只支持路径风格访问（path-style-access: true）
+ * <pre>
+ * try (S3StubServer server = new S3StubServer().start()) {
+ *     server.createBucket("test");
+ *     server.setLatency(Duration.ofMillis(50)).addFault(FaultRule.slowDown("PutObject", 0.1));
+ *     // winter-aws.endpoint = server.getEndpoint()
+ * }
+ * </pre>
+ */
+public class S3StubServer implements Closeable {
+
+    public static final String DEFAULT_ACCESS_KEY = "stub-access-key";
+
+    public static final String DEFAULT_SECRET_KEY = "stub-secret-key";
+
+    private final int port;
+
+    private final Map<String, String> credentials = new ConcurrentHashMap<>();
+
+    private final S3StubStore store = new S3StubStore();
+
+    private final List<FaultRule> faults = new CopyOnWriteArrayList<>();
+
+    private final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+
+    private volatile long minLatencyNanos;
+
+    private volatile long maxLatencyNanos;
+
+    private volatile long bandwidth;
+
+    private volatile boolean verifySignatures = true;
+
+    private volatile long minimumPartSize = 5L * 1024 * 1024;
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    /**
+     * 监听随机端口
+     */
+    public S3StubServer() {
+        this(0);
+    }
+
+    /**
+     * @param port 监听端口，0 表示随机端口
+     */
+    public S3StubServer(int port) {
+        this.port = port;
+        this.credentials.put(DEFAULT_ACCESS_KEY, DEFAULT_SECRET_KEY);
+    }
+
+    /**
+     * 启动服务，只监听本机回环地址
+     *
+     * @return this
+     * @throws IOException 端口被占用等
+     */
+    public synchronized S3StubServer start() throws IOException {
+        if (this.server != null) {
+            return this;
+        }
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "s3-stub-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), this.port), 128);
+        httpServer.createContext("/", new S3StubHandler(this, this.store, new SigV4Verifier(this.credentials)));
+        httpServer.setExecutor(this.executor);
+        httpServer.start();
+        this.server = httpServer;
+        return this;
+    }
+
+    /**
+     * 服务地址，如 http://127.0.0.1:54321
+     *
+     * @return {@link String}
+     */
+    public String getEndpoint() {
+        return "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + this.getPort();
+    }
+
+    public synchronized int getPort() {
+        if (this.server == null) {
+            throw new IllegalStateException("S3StubServer 未启动");
+        }
+        return this.server.getAddress().getPort();
+    }
+
+    public String getAccessKey() {
+        return DEFAULT_ACCESS_KEY;
+    }
+
+    public String getSecretKey() {
+        return DEFAULT_SECRET_KEY;
+    }
+
+    /**
+     * 增加一组可用的凭证，用于多租户测试
+     *
+     * @param accessKey 访问密钥
+     * @param secretKey 秘密密钥
+     * @return this
+     */
+    public S3StubServer addCredentials(String accessKey, String secretKey) {
+        this.credentials.put(accessKey, secretKey);
+        return this;
+    }
+
+    /**
+     * 是否校验签名，默认校验；关闭后匿名请求也会被处理
+     *
+     * @param verifySignatures 是否校验
+     * @return this
+     */
+    public S3StubServer setVerifySignatures(boolean verifySignatures) {
+        this.verifySignatures = verifySignatures;
+        return this;
+    }
+
+    /**
+     * 每个请求的固定延迟，在读完请求体后、处理请求前生效
+     *
+     * @param latency 延迟
+     * @return this
+     */
+    public S3StubServer setLatency(Duration latency) {
+        return this.setLatency(latency, latency);
+    }
+
+    /**
+     * 每个请求的随机延迟，在 [min, max] 内均匀分布
+     *
+     * @param min 最小延迟
+     * @param max 最大延迟
+     * @return this
+     */
+    public S3StubServer setLatency(Duration min, Duration max) {
+        if (max.compareTo(min) < 0) {
+            throw new IllegalArgumentException("max 不能小于 min");
+        }
+        this.minLatencyNanos = min.toNanos();
+        this.maxLatencyNanos = max.toNanos();
+        return this;
+    }
+
+    /**
+     * 每个请求上传、下载各自的带宽上限
+     *
+     * @param bytesPerSecond 每秒字节数，小于等于 0 表示不限
+     * @return this
+     */
+    public S3StubServer setBandwidth(long bytesPerSecond) {
+        this.bandwidth = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * 分块上传中除最后一块外的最小分块大小，默认与 S3 一致为 5MB
+     *
+     * @param minimumPartSize 字节数
+     * @return this
+     */
+    public S3StubServer setMinimumPartSize(long minimumPartSize) {
+        this.minimumPartSize = minimumPartSize;
+        return this;
+    }
+
+    /**
+     * 增加故障注入规则，按加入顺序匹配，每个请求最多命中一条错误规则
+     *
+     * @param rule 规则
+     * @return this
+     */
+    public S3StubServer addFault(FaultRule rule) {
+        this.faults.add(rule);
+        return this;
+    }
+
+    public S3StubServer clearFaults() {
+        this.faults.clear();
+        return this;
+    }
+
+    /**
+     * 指定操作收到的请求数（包括被故障注入拒绝的请求）
+     *
+     * @param operation S3 API 名称，如 PutObject
+     * @return long
+     */
+    public long getRequestCount(String operation) {
+        AtomicLong count = this.requestCounts.get(operation);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * 各操作收到的请求数
+     *
+     * @return {@link Map}
+     */
+    public Map<String, Long> getRequestCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        this.requestCounts.forEach((operation, count) -> counts.put(operation, count.get()));
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * 直接创建存储桶，不经过 HTTP
+     *
+     * @param bucketName 存储桶名称
+     * @return this
+     */
+    public S3StubServer createBucket(String bucketName) {
+        this.store.createBucket(bucketName);
+        return this;
+    }
+
+    /**
+     * 直接写入对象，不经过 HTTP
+     *
+     * @param bucketName 存储桶名称，不存在时创建
+     * @param key        对象键
+     * @param data       内容
+     * @return this
+     */
+    public S3StubServer putObject(String bucketName, String key, byte[] data) {
+        this.store.createBucket(bucketName);
+        try {
+            this.store.bucket(bucketName).objects.put(key, new S3StubStore.StoredObject(data.clone(), Collections.<String, String>emptyMap()));
+        } catch (S3StubException e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+        return this;
+    }
+
+    /**
+     * 模拟磁盘数据损坏：翻转对象中一个字节，ETag、校验和与分块信息保持不变
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @param offset     翻转的字节位置
+     * @return this
+     */
+    public S3StubServer corruptObject(String bucketName, String key, int offset) {
+        try {
+            S3StubStore.Bucket bucket = this.store.bucket(bucketName);
+            S3StubStore.StoredObject object = bucket.objects.get(key);
+            if (object == null || offset < 0 || offset >= object.data.length) {
+                throw new IllegalArgumentException("对象 " + bucketName + "/" + key + " 不存在或 offset 超出对象大小");
+            }
+            // 复制对象可能共用同一个数组，只修改这个对象的内容
+            byte[] data = object.data.clone();
+            data[offset] ^= (byte) 0xFF;
+            bucket.objects.put(key, new S3StubStore.StoredObject(data, object.etag, object.headers, object.partSizes));
+        } catch (S3StubException e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+        return this;
+    }
+
+    /**
+     * 直接读取对象内容
+     *
+     * @param bucketName 存储桶名称
+     * @param key        对象键
+     * @return 对象不存在时为 null
+     */
+    public byte[] getObject(String bucketName, String key) {
+        try {
+            S3StubStore.StoredObject object = this.store.bucket(bucketName).objects.get(key);
+            return object == null ? null : object.data.clone();
+        } catch (S3StubException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 清空数据、故障规则与请求计数，延迟与带宽设置保持不变
+     */
+    public void reset() {
+        this.store.clear();
+        this.faults.clear();
+        this.requestCounts.clear();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.server != null) {
+            this.server.stop(0);
+            this.executor.shutdownNow();
+            this.server = null;
+        }
+    }
+
+    boolean isVerifySignatures() {
+        return this.verifySignatures;
+    }
+
+    long getBandwidth() {
+        return this.bandwidth;
+    }
+
+    long getMinimumPartSize() {
+        return this.minimumPartSize;
+    }
+
+    /**
+     * 计数、延迟与故障注入，命中错误规则时抛出对应的 S3 错误
+     */
+    void beforeHandle(String operation) throws S3StubException, InterruptedException {
+        this.requestCounts.computeIfAbsent(operation, k -> new AtomicLong()).incrementAndGet();
+        long min = this.minLatencyNanos;
+        long max = this.maxLatencyNanos;
+        long latency = max > min ? ThreadLocalRandom.current().nextLong(min, max + 1) : min;
+        if (latency > 0) {
+            TimeUnit.NANOSECONDS.sleep(latency);
+        }
+        for (FaultRule rule : this.faults) {
+            if (!rule.matches(operation)) {
+                continue;
+            }
+            if (rule.getDelayNanos() > 0) {
+                TimeUnit.NANOSECONDS.sleep(rule.getDelayNanos());
+            }
+            if (rule.getStatus() > 0) {
+                throw new S3StubException(rule.getStatus(), rule.getCode(), "Injected fault for " + operation);
+            }
+        }
+    }
+}
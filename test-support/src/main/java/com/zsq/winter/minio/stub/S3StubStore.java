@@ -0,0 +1,187 @@
+package com.zsq.winter.minio.stub;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内存存储：存储桶、对象与进行中的分块上传
+ */
+final class S3StubStore {
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+
+    private final AtomicLong uploadSequence = new AtomicLong();
+
+    Bucket bucket(String name) throws S3StubException {
+        Bucket bucket = this.buckets.get(name);
+        if (bucket == null) {
+            throw S3StubException.noSuchBucket();
+        }
+        return bucket;
+    }
+
+    boolean createBucket(String name) {
+        return this.buckets.putIfAbsent(name, new Bucket(name)) == null;
+    }
+
+    synchronized void deleteBucket(String name) throws S3StubException {
+        Bucket bucket = this.bucket(name);
+        if (!bucket.objects.isEmpty() || this.uploads.values().stream().anyMatch(u -> u.bucket.equals(name))) {
+            throw new S3StubException(409, "BucketNotEmpty", "The bucket you tried to delete is not empty");
+        }
+        this.buckets.remove(name);
+    }
+
+    List<Bucket> buckets() {
+        List<Bucket> result = new ArrayList<>(this.buckets.values());
+        result.sort(Comparator.comparing(b -> b.name));
+        return result;
+    }
+
+    Upload initiate(String bucket, String key, Map<String, String> headers) {
+        Upload upload = new Upload(UUID.randomUUID().toString(), bucket, key, this.uploadSequence.incrementAndGet(), headers);
+        this.uploads.put(upload.id, upload);
+        return upload;
+    }
+
+    Upload upload(String uploadId, String bucket, String key) throws S3StubException {
+        Upload upload = uploadId == null ? null : this.uploads.get(uploadId);
+        if (upload == null || !upload.bucket.equals(bucket) || !upload.key.equals(key)) {
+            throw S3StubException.noSuchUpload();
+        }
+        return upload;
+    }
+
+    boolean removeUpload(String uploadId) {
+        return this.uploads.remove(uploadId) != null;
+    }
+
+    /**
+     * 指定存储桶中进行中的分块上传，按对象键、发起顺序排序
+     */
+    List<Upload> uploads(String bucket) {
+        List<Upload> result = new ArrayList<>();
+        for (Upload upload : this.uploads.values()) {
+            if (upload.bucket.equals(bucket)) {
+                result.add(upload);
+            }
+        }
+        result.sort(Comparator.comparing((Upload u) -> u.key).thenComparingLong(u -> u.sequence));
+        return result;
+    }
+
+    void clear() {
+        this.buckets.clear();
+        this.uploads.clear();
+    }
+
+    static String md5Hex(byte[] data) {
+        return SigV4Verifier.hex(md5(data));
+    }
+
+    static byte[] md5(byte[] data) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 与 Last-Modified 响应头的精度一致，只保留到秒
+     */
+    static long now() {
+        return System.currentTimeMillis() / 1000 * 1000;
+    }
+
+    static final class Bucket {
+
+        final String name;
+
+        final long created = now();
+
+        final ConcurrentSkipListMap<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+
+        /**
+         * 存储桶配置（policy、lifecycle、notification、versioning），原样保存请求体
+         */
+        final Map<String, byte[]> configurations = new ConcurrentHashMap<>();
+
+        Bucket(String name) {
+            this.name = name;
+        }
+    }
+
+    static final class StoredObject {
+
+        final byte[] data;
+
+        /**
+         * 不带引号
+         */
+        final String etag;
+
+        final long lastModified;
+
+        /**
+         * Content-Type 等标准头与 x-amz-meta-* 用户元数据，键为小写
+         */
+        final Map<String, String> headers;
+
+        /**
+         * 分块上传的对象各分块的大小，用于按 partNumber 读取；单次上传的对象为 null
+         */
+        final int[] partSizes;
+
+        StoredObject(byte[] data, String etag, Map<String, String> headers, int[] partSizes) {
+            this.data = data;
+            this.etag = etag;
+            this.lastModified = now();
+            this.headers = headers;
+            this.partSizes = partSizes;
+        }
+
+        StoredObject(byte[] data, String etag, Map<String, String> headers) {
+            this(data, etag, headers, null);
+        }
+
+        StoredObject(byte[] data, Map<String, String> headers) {
+            this(data, md5Hex(data), headers);
+        }
+    }
+
+    static final class Upload {
+
+        final String id;
+
+        final String bucket;
+
+        final String key;
+
+        final long sequence;
+
+        final long initiated = now();
+
+        final Map<String, String> headers;
+
+        final ConcurrentSkipListMap<Integer, StoredObject> parts = new ConcurrentSkipListMap<>();
+
+        Upload(String id, String bucket, String key, long sequence, Map<String, String> headers) {
+            this.id = id;
+            this.bucket = bucket;
+            this.key = key;
+            this.sequence = sequence;
+            this.headers = headers;
+        }
+    }
+}
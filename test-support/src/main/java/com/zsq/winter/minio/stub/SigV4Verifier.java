@@ -0,0 +1,246 @@
+package com.zsq.winter.minio.stub;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * AWS Signature Version 4 校验，支持 Authorization 请求头与预签名 URL 两种方式
+ * 流式上传（aws-chunked）只校验请求头签名，不逐块校验 chunk-signature
+ */
+final class SigV4Verifier {
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private static final Duration MAX_SKEW = Duration.ofMinutes(15);
+
+    private static final long MAX_PRESIGN_EXPIRES = 7 * 24 * 3600;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Map<String, String> credentials;
+
+    SigV4Verifier(Map<String, String> credentials) {
+        this.credentials = credentials;
+    }
+
+    void verify(StubRequest request) throws S3StubException {
+        String authorization = request.header("Authorization");
+        if (authorization != null) {
+            this.verifyHeader(request, authorization);
+        } else if (request.has("X-Amz-Signature")) {
+            this.verifyPresigned(request);
+        } else {
+            throw accessDenied("Anonymous access is not allowed");
+        }
+    }
+
+    private void verifyHeader(StubRequest request, String authorization) throws S3StubException {
+        if (!authorization.startsWith(ALGORITHM + " ")) {
+            throw new S3StubException(400, "InvalidRequest", "Only " + ALGORITHM + " is supported");
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (String part : authorization.substring(ALGORITHM.length() + 1).split(",")) {
+            int eq = part.indexOf('=');
+            if (eq > 0) {
+                fields.put(part.substring(0, eq).trim(), part.substring(eq + 1).trim());
+            }
+        }
+        String credential = fields.get("Credential");
+        String signedHeaders = fields.get("SignedHeaders");
+        String signature = fields.get("Signature");
+        String amzDate = request.header("X-Amz-Date");
+        if (credential == null || signedHeaders == null || signature == null || amzDate == null) {
+            throw new S3StubException(400, "AuthorizationHeaderMalformed", "The authorization header is malformed");
+        }
+        Instant date = parseDate(amzDate);
+        if (Duration.between(date, Instant.now()).abs().compareTo(MAX_SKEW) > 0) {
+            throw new S3StubException(403, "RequestTimeTooSkewed", "The difference between the request time and the current time is too large.");
+        }
+        String payloadHash = request.header("X-Amz-Content-Sha256");
+        if (payloadHash == null) {
+            throw new S3StubException(400, "InvalidRequest", "Missing required header for this request: x-amz-content-sha256");
+        }
+        if (isHex(payloadHash) && !payloadHash.equalsIgnoreCase(hex(sha256(request.body)))) {
+            throw new S3StubException(400, "XAmzContentSHA256Mismatch", "The provided 'x-amz-content-sha256' header does not match what was computed.");
+        }
+        this.check(request, credential, signedHeaders, signature, amzDate, payloadHash, false);
+    }
+
+    private void verifyPresigned(StubRequest request) throws S3StubException {
+        String credential = request.param("X-Amz-Credential");
+        String signedHeaders = request.param("X-Amz-SignedHeaders");
+        String amzDate = request.param("X-Amz-Date");
+        String expires = request.param("X-Amz-Expires");
+        if (!ALGORITHM.equals(request.param("X-Amz-Algorithm")) || credential == null || signedHeaders == null
+                || amzDate == null || expires == null) {
+            throw new S3StubException(400, "AuthorizationQueryParametersError", "Query-string authentication version 4 requires the "
+                    + "X-Amz-Algorithm, X-Amz-Credential, X-Amz-Signature, X-Amz-Date, X-Amz-SignedHeaders, and X-Amz-Expires parameters.");
+        }
+        long expiresSeconds;
+        try {
+            expiresSeconds = Long.parseLong(expires);
+        } catch (NumberFormatException e) {
+            throw new S3StubException(400, "AuthorizationQueryParametersError", "X-Amz-Expires should be a number");
+        }
+        if (expiresSeconds < 0 || expiresSeconds > MAX_PRESIGN_EXPIRES) {
+            throw new S3StubException(400, "AuthorizationQueryParametersError", "X-Amz-Expires must be less than a week (in seconds)");
+        }
+        Instant date = parseDate(amzDate);
+        Instant now = Instant.now();
+        if (now.isAfter(date.plusSeconds(expiresSeconds))) {
+            throw accessDenied("Request has expired");
+        }
+        if (date.isAfter(now.plus(MAX_SKEW))) {
+            throw accessDenied("Request is not valid yet");
+        }
+        this.check(request, credential, signedHeaders, request.param("X-Amz-Signature"), amzDate, UNSIGNED_PAYLOAD, true);
+    }
+
+    private void check(StubRequest request, String credential, String signedHeaders, String signature, String amzDate,
+                       String payloadHash, boolean presigned) throws S3StubException {
+        // AK/yyyyMMdd/region/service/aws4_request
+        String[] scope = credential.split("/");
+        if (scope.length != 5 || !"aws4_request".equals(scope[4])) {
+            throw new S3StubException(400, "AuthorizationHeaderMalformed", "Invalid credential scope: " + credential);
+        }
+        String secretKey = this.credentials.get(scope[0]);
+        if (secretKey == null) {
+            throw new S3StubException(403, "InvalidAccessKeyId", "The AWS Access Key Id you provided does not exist in our records.");
+        }
+        String canonicalRequest = request.method + '\n'
+                + request.rawPath + '\n'
+                + canonicalQuery(request.query, presigned) + '\n'
+                + canonicalHeaders(request, signedHeaders) + '\n'
+                + signedHeaders + '\n'
+                + payloadHash;
+        String credentialScope = credential.substring(scope[0].length() + 1);
+        String stringToSign = ALGORITHM + '\n' + amzDate + '\n' + credentialScope + '\n' + hex(sha256(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), scope[1]);
+        key = hmac(key, scope[2]);
+        key = hmac(key, scope[3]);
+        key = hmac(key, "aws4_request");
+        String expected = hex(hmac(key, stringToSign));
+        if (!MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII), signature.getBytes(StandardCharsets.US_ASCII))) {
+            throw new S3StubException(403, "SignatureDoesNotMatch",
+                    "The request signature we calculated does not match the signature you provided. Check your key and signing method.");
+        }
+    }
+
+    private static String canonicalQuery(Map<String, String> query, boolean presigned) {
+        TreeMap<String, String> sorted = new TreeMap<>();
+        for (Map.Entry<String, String> entry : query.entrySet()) {
+            if (presigned && "X-Amz-Signature".equals(entry.getKey())) {
+                continue;
+            }
+            sorted.put(uriEncode(entry.getKey()), uriEncode(entry.getValue()));
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, String> entry : sorted.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append('&');
+            }
+            builder.append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        return builder.toString();
+    }
+
+    private static String canonicalHeaders(StubRequest request, String signedHeaders) throws S3StubException {
+        StringBuilder builder = new StringBuilder();
+        for (String name : signedHeaders.split(";")) {
+            List<String> values = request.headerValues(name);
+            if (values == null) {
+                throw new S3StubException(403, "SignatureDoesNotMatch", "Signed header " + name + " is missing");
+            }
+            List<String> normalized = new ArrayList<>(values.size());
+            for (String value : values) {
+                normalized.add(value.trim().replaceAll(" +", " "));
+            }
+            builder.append(name).append(':').append(String.join(",", normalized)).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * RFC 3986 编码，只保留 A-Z a-z 0-9 - _ . ~
+     */
+    static String uriEncode(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if (c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '-' || c == '_' || c == '.' || c == '~') {
+                builder.append(c);
+            } else {
+                builder.append('%').append(Character.toUpperCase(HEX[c >> 4])).append(Character.toUpperCase(HEX[c & 0xf]));
+            }
+        }
+        return builder.toString();
+    }
+
+    private static Instant parseDate(String amzDate) throws S3StubException {
+        try {
+            return Instant.from(AMZ_DATE.parse(amzDate));
+        } catch (DateTimeParseException e) {
+            throw accessDenied("X-Amz-Date must be in the ISO8601 Long Format \"yyyyMMdd'T'HHmmss'Z'\"");
+        }
+    }
+
+    private static boolean isHex(String value) {
+        if (value.length() != 64) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static S3StubException accessDenied(String message) {
+        return new S3StubException(403, "AccessDenied", message);
+    }
+
+    static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
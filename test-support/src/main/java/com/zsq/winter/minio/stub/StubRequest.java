@@ -0,0 +1,131 @@
+package com.zsq.winter.minio.stub;
+
+import com.sun.net.httpserver.Headers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 解析后的请求：只支持路径风格（/bucket/key）
+ */
+final class StubRequest {
+
+    final String method;
+
+    final String rawPath;
+
+    final String bucket;
+
+    final String key;
+
+    /**
+     * 解码后的查询参数，没有值的参数（如 ?uploads）值为空字符串
+     */
+    final Map<String, String> query;
+
+    final Headers headers;
+
+    byte[] body;
+
+    String operation;
+
+    StubRequest(String method, String rawPath, String rawQuery, Headers headers) throws S3StubException {
+        this.method = method;
+        this.rawPath = rawPath == null || rawPath.isEmpty() ? "/" : rawPath;
+        this.headers = headers;
+        this.query = parseQuery(rawQuery);
+        String path = decodePath(this.rawPath.substring(1));
+        int slash = path.indexOf('/');
+        String bucketName = slash < 0 ? path : path.substring(0, slash);
+        String objectKey = slash < 0 ? "" : path.substring(slash + 1);
+        this.bucket = bucketName.isEmpty() ? null : bucketName;
+        this.key = objectKey.isEmpty() ? null : objectKey;
+    }
+
+    String header(String name) {
+        return this.headers.getFirst(name);
+    }
+
+    List<String> headerValues(String name) {
+        return this.headers.get(name);
+    }
+
+    boolean has(String parameter) {
+        return this.query.containsKey(parameter);
+    }
+
+    String param(String parameter) {
+        return this.query.get(parameter);
+    }
+
+    boolean isHead() {
+        return "HEAD".equals(this.method);
+    }
+
+    int intParam(String parameter, int defaultValue) throws S3StubException {
+        String value = this.query.get(parameter);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw S3StubException.invalidArgument("Invalid value for " + parameter + ": " + value);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws S3StubException {
+        Map<String, String> query = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        try {
+            for (String pair : rawQuery.split("&")) {
+                if (pair.isEmpty()) {
+                    continue;
+                }
+                int eq = pair.indexOf('=');
+                String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), "UTF-8");
+                String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), "UTF-8");
+                query.put(name, value);
+            }
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            throw S3StubException.invalidArgument("Invalid query string");
+        }
+        return query;
+    }
+
+    /**
+     * 路径中的 + 是字面量，不能用 URLDecoder
+     */
+    static String decodePath(String raw) throws S3StubException {
+        if (raw.indexOf('%') < 0) {
+            return raw;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c == '%') {
+                if (i + 2 >= raw.length()) {
+                    throw S3StubException.invalidArgument("Invalid URI encoding");
+                }
+                int hi = Character.digit(raw.charAt(i + 1), 16);
+                int lo = Character.digit(raw.charAt(i + 2), 16);
+                if (hi < 0 || lo < 0) {
+                    throw S3StubException.invalidArgument("Invalid URI encoding");
+                }
+                out.write(hi << 4 | lo);
+                i += 2;
+            } else {
+                byte[] bytes = String.valueOf(c).getBytes(StandardCharsets.UTF_8);
+                out.write(bytes, 0, bytes.length);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
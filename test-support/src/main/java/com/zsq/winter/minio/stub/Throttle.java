@@ -0,0 +1,75 @@
+package com.zsq.winter.minio.stub;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个请求的带宽限制：按已传输的字节数计算应当经过的时间，传输过快时休眠
+ */
+final class Throttle {
+
+    private static final int CHUNK = 16 * 1024;
+
+    private final long bytesPerSecond;
+
+    private final long start = System.nanoTime();
+
+    private long bytes;
+
+    private Throttle(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * @param bytesPerSecond 每秒字节数，小于等于 0 时不限速
+     * @return 不限速时为 null
+     */
+    static Throttle of(long bytesPerSecond) {
+        return bytesPerSecond > 0 ? new Throttle(bytesPerSecond) : null;
+    }
+
+    private void acquire(int n) throws InterruptedIOException {
+        this.bytes += n;
+        long due = this.start + (long) (this.bytes * 1_000_000_000d / this.bytesPerSecond);
+        long wait = due - System.nanoTime();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+    }
+
+    static byte[] readAll(InputStream in, Throttle throttle) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[CHUNK];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+            if (throttle != null) {
+                throttle.acquire(n);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    static void write(OutputStream out, byte[] data, int offset, int length, Throttle throttle) throws IOException {
+        if (throttle == null) {
+            out.write(data, offset, length);
+            return;
+        }
+        int end = offset + length;
+        for (int pos = offset; pos < end; pos += CHUNK) {
+            int n = Math.min(CHUNK, end - pos);
+            out.write(data, pos, n);
+            out.flush();
+            throttle.acquire(n);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.zsq.winter.minio.stub;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 响应 XML 的拼接与请求 XML 的解析
+ */
+final class Xml {
+
+    static final String NAMESPACE = "http://s3.amazonaws.com/doc/2006-03-01/";
+
+    private static final DateTimeFormatter ISO_8601 = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    private final StringBuilder builder = new StringBuilder(256).append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+
+    /**
+     * 根元素带 S3 命名空间
+     */
+    Xml(String root) {
+        this.builder.append('<').append(root).append(" xmlns=\"").append(NAMESPACE).append("\">");
+    }
+
+    Xml start(String name) {
+        this.builder.append('<').append(name).append('>');
+        return this;
+    }
+
+    Xml end(String name) {
+        this.builder.append("</").append(name).append('>');
+        return this;
+    }
+
+    /**
+     * 值为 null 时不输出元素
+     */
+    Xml element(String name, Object value) {
+        if (value == null) {
+            return this;
+        }
+        this.start(name);
+        escape(this.builder, String.valueOf(value));
+        return this.end(name);
+    }
+
+    Xml raw(String xml) {
+        this.builder.append(xml);
+        return this;
+    }
+
+    byte[] build(String root) {
+        this.end(root);
+        return this.builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String iso8601(long millis) {
+        return ISO_8601.format(Instant.ofEpochMilli(millis));
+    }
+
+    private static void escape(StringBuilder builder, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    builder.append("&lt;");
+                    break;
+                case '>':
+                    builder.append("&gt;");
+                    break;
+                case '&':
+                    builder.append("&amp;");
+                    break;
+                case '"':
+                    builder.append("&quot;");
+                    break;
+                case '\r':
+                    builder.append("&#13;");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+    }
+
+    /**
+     * 解析请求体，禁用 DTD 防止外部实体注入
+     */
+    static Element parse(byte[] body) throws S3StubException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setNamespaceAware(true);
+            DocumentBuilder documentBuilder = factory.newDocumentBuilder();
+            Document document = documentBuilder.parse(new ByteArrayInputStream(body));
+            return document.getDocumentElement();
+        } catch (Exception e) {
+            throw S3StubException.malformedXml();
+        }
+    }
+
+    /**
+     * 按本地名称查找直接子元素
+     */
+    static List<Element> children(Element parent, String localName) {
+        List<Element> result = new ArrayList<>();
+        NodeList nodes = parent.getChildNodes();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Node node = nodes.item(i);
+            if (node instanceof Element && localName.equals(node.getLocalName())) {
+                result.add((Element) node);
+            }
+        }
+        return result;
+    }
+
+    static String childText(Element parent, String localName) {
+        List<Element> elements = children(parent, localName);
+        return elements.isEmpty() ? null : elements.get(0).getTextContent();
+    }
+}